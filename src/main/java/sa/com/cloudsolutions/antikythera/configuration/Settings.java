@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Manages the configuration properties from a generator.yml file.
@@ -74,10 +75,72 @@ public class Settings {
      * ends with {@code Client}. Matching is by simple name only (not FQCN).
      */
     public static final String PLAIN_MOCK_DEPENDENCY_SIMPLE_NAMES = "plain_mock_dependency_simple_names";
+    /**
+     * Number of threads used to parse the source files during pre-processing. A value of 1 (the
+     * default) keeps the sequential behaviour, 0 uses one thread per available processor.
+     */
+    public static final String PREPROCESS_PARALLELISM = "preprocess_parallelism";
+    /**
+     * When enabled, a persistent index of the source files is kept in the output folder so that
+     * files that have not changed since the previous run are only parsed when they are needed.
+     */
+    public static final String SOURCE_INDEX = "source_index";
+    /**
+     * When enabled, pre-processing only scans the source files for the types that they declare.
+     * Each file is parsed the first time one of its types is needed.
+     */
+    public static final String LAZY_COMPILATION = "lazy_compilation";
+    /**
+     * When enabled, compilation units for classes other than the configured controllers and
+     * services are stripped of their comments and tokens after parsing to save memory.
+     */
+    public static final String SLIM_AST = "slim_ast";
+    /**
+     * When disabled, methods, constructors and fields of compiled classes are used through plain
+     * reflection instead of method handles.
+     */
+    public static final String METHOD_HANDLES = "method_handles";
+    /**
+     * Number of worker JVMs that the sharded generation driver spreads the configured services
+     * and controllers over. A value of 1 (the default) runs everything in a single worker.
+     */
+    public static final String SHARD_WORKERS = "shard_workers";
+    /**
+     * How the sharded generation driver assigns services and controllers to the workers. Either
+     * {@code cost} (the default), which balances the estimated amount of work, or {@code round_robin}.
+     */
+    public static final String SHARD_STRATEGY = "shard_strategy";
+    /**
+     * System property naming the file through which the sharded generation driver hands each
+     * worker JVM its share of the services and controllers and the file that its processing report
+     * is written to. The {@link #SERVICES}, {@link #CONTROLLERS} and {@link #PROCESSING_REPORT_PATH}
+     * in that file replace the values from the configuration file.
+     */
+    public static final String SHARD_ASSIGNMENT_PROPERTY = "antikythera.shard.assignment";
+    /**
+     * The number of results of side effect free methods that each evaluation context remembers.
+     * A value of 0 turns the memoization off, the default is {@value #DEFAULT_PURE_METHOD_CACHE_SIZE}.
+     */
+    public static final String PURE_METHOD_CACHE_SIZE = "pure_method_cache_size";
+    public static final int DEFAULT_PURE_METHOD_CACHE_SIZE = 1024;
+    /**
+     * A map of the limits on how much work the evaluator may do, see
+     * {@link sa.com.cloudsolutions.antikythera.evaluator.ExecutionBudget}. The keys
+     * {@code method_wall_time_ms}, {@code method_statements} and {@code method_loop_iterations}
+     * apply to each method under test, {@code class_wall_time_ms}, {@code class_statements} and
+     * {@code class_loop_iterations} to all the methods of a class together, and {@code call_depth}
+     * to the nesting of method calls. A limit of 0 is not enforced.
+     */
+    public static final String EXECUTION_BUDGET = "execution_budget";
     /**
      * HashMap to store the configurations.
      */
     protected static HashMap<String, Object> props;
+    /**
+     * Counts the times that the configuration was loaded or changed, so that values derived from
+     * it can be cached until the next change.
+     */
+    private static final AtomicInteger revision = new AtomicInteger();
 
     /**
      * Private constructor to prevent the class being initialized.
@@ -147,8 +210,28 @@ public class Settings {
         }
 
         replaceVariables(yamlProps, props);
+        applyShardAssignment();
 
         hostInfo(yamlProps);
+        revision.incrementAndGet();
+    }
+
+    /**
+     * When this JVM is a worker started by the sharded generation driver, replace the services,
+     * controllers and processing report path with the ones that the driver assigned to it.
+     */
+    private static void applyShardAssignment() throws IOException {
+        String assignment = System.getProperty(SHARD_ASSIGNMENT_PROPERTY);
+        if (assignment == null) {
+            return;
+        }
+        Map<String, Object> shard = new ObjectMapper()
+                .readValue(new File(assignment), new TypeReference<>() {});
+        props.put(SERVICES, shard.getOrDefault(SERVICES, new ArrayList<>()));
+        props.put(CONTROLLERS, shard.getOrDefault(CONTROLLERS, new ArrayList<>()));
+        if (shard.get(PROCESSING_REPORT_PATH) != null) {
+            props.put(PROCESSING_REPORT_PATH, shard.get(PROCESSING_REPORT_PATH));
+        }
     }
 
     private static void hostInfo(Map<String, Object> yamlProps) throws IOException {
@@ -350,6 +433,76 @@ public class Settings {
         return (String) props.get(Settings.OUTPUT_PATH);
     }
 
+    /**
+     * The number of threads that should be used to parse source files during pre-processing.
+     *
+     * @return a value of at least 1. When the setting is 0 the number of available processors is
+     *         returned.
+     */
+    public static int getPreprocessParallelism() {
+        Object value = props == null ? null : props.get(PREPROCESS_PARALLELISM);
+        int parallelism = switch (value) {
+            case Number n -> n.intValue();
+            case String s when !s.isBlank() -> Integer.parseInt(s.strip());
+            case null, default -> 1;
+        };
+        if (parallelism == 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max(1, parallelism);
+    }
+
+    /**
+     * The number of worker JVMs used by the sharded generation driver.
+     *
+     * @return a value of at least 1. When the setting is 0 the number of available processors is
+     *         returned.
+     */
+    public static int getShardWorkers() {
+        Object value = props == null ? null : props.get(SHARD_WORKERS);
+        int workers = switch (value) {
+            case Number n -> n.intValue();
+            case String s when !s.isBlank() -> Integer.parseInt(s.strip());
+            case null, default -> 1;
+        };
+        if (workers == 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max(1, workers);
+    }
+
+    /**
+     * The number of results of side effect free methods that are remembered.
+     *
+     * @return a value of at least 0, where 0 means that nothing is remembered
+     */
+    public static int getPureMethodCacheSize() {
+        Object value = props == null ? null : props.get(PURE_METHOD_CACHE_SIZE);
+        int size = switch (value) {
+            case Number n -> n.intValue();
+            case String s when !s.isBlank() -> Integer.parseInt(s.strip());
+            case null, default -> DEFAULT_PURE_METHOD_CACHE_SIZE;
+        };
+        return Math.max(0, size);
+    }
+
+    /**
+     * One of the limits in the {@link #EXECUTION_BUDGET} map.
+     *
+     * @param key the name of the limit
+     * @param defaultValue the limit to use when it has not been configured
+     * @return the limit, where 0 means that it is not enforced
+     */
+    public static long getExecutionBudget(String key, long defaultValue) {
+        Object value = props == null ? null : getProperty(EXECUTION_BUDGET + "." + key);
+        long limit = switch (value) {
+            case Number n -> n.longValue();
+            case String s when !s.isBlank() -> Long.parseLong(s.strip());
+            case null, default -> defaultValue;
+        };
+        return Math.max(0, limit);
+    }
+
     public static String[] getArtifacts() {
         return getDependencies(ARTIFACT_IDS);
     }
@@ -394,6 +547,14 @@ public class Settings {
      */
     public static void setProperty(String key, Object value) {
         props.put(key, value);
+        revision.incrementAndGet();
+    }
+
+    /**
+     * @return a number that changes whenever the configuration is loaded or a property is set
+     */
+    public static int getRevision() {
+        return revision.get();
     }
 
 }
@@ -158,6 +158,9 @@ public class BeanDependencyGraph {
      * Check if the class is a @Configuration class.
      */
     private boolean isConfiguration(TypeWrapper wrapper) {
+        if (wrapper.isDeferred() && !wrapper.isConfiguration()) {
+            return false;
+        }
         TypeDeclaration<?> type = wrapper.getType();
         if (type != null) {
             return type.getAnnotationByName("Configuration").isPresent();
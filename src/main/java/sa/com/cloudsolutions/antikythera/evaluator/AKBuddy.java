@@ -23,6 +23,7 @@ import sa.com.cloudsolutions.antikythera.configuration.Settings;
 import sa.com.cloudsolutions.antikythera.exception.AntikytheraException;
 import sa.com.cloudsolutions.antikythera.generator.TypeWrapper;
 import sa.com.cloudsolutions.antikythera.parser.AbstractCompiler;
+import sa.com.cloudsolutions.antikythera.parser.ClassLookup;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Array;
@@ -278,6 +279,7 @@ public class AKBuddy {
         try {
             Class<?> clazz = unloaded.load(AbstractCompiler.getClassLoader(), ClassLoadingStrategy.Default.INJECTION)
                     .getLoaded();
+            ClassLookup.defined(clazz);
             registry.put(eval.getClassName(), clazz);
             return clazz;
         } catch (IllegalStateException e) {
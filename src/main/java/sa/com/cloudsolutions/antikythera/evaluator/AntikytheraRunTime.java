@@ -2,171 +2,516 @@ package sa.com.cloudsolutions.antikythera.evaluator;
 
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.TypeDeclaration;
+import sa.com.cloudsolutions.antikythera.exception.AntikytheraException;
 import sa.com.cloudsolutions.antikythera.generator.TypeWrapper;
+import sa.com.cloudsolutions.antikythera.parser.AbstractCompiler;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>A basic Runtime for Antikythera.</p>
  *
  * This class will be used by the Evaluator to mimic a stack and keep track of
  * all the classes that we have compiled.
+ *
+ * The maps that are populated while parsing (resolved, resolvedTypes, interfaces and extensions)
+ * are concurrent because {@link sa.com.cloudsolutions.antikythera.parser.AbstractCompiler} may
+ * fill them from several threads during pre-processing.
  */
 public class AntikytheraRunTime {
     /**
      * Keeps track of all the compilation units that we have compiled
      */
-    private static final Map<String, CompilationUnit> resolved = new HashMap<>();
+    private static final Map<String, CompilationUnit> resolved = new ConcurrentHashMap<>();
+
+    private static final Map<String, TypeWrapper> resolvedTypes = new ConcurrentHashMap<>();
 
-    private static final Map<String, TypeWrapper> resolvedTypes = new HashMap<>();
     /**
-     * <p>We are not using a stack data structure here, but a Deque. This is because Deque is a
-     * double-ended queue, which can be used as a stack. It is more efficient than a Stack ADT.
-     * Because in java the stack is synchronized.</p>
-     *
-     * While it's normal practice to also place the return value of a method call into the
-     * stack, we are not doing so in here.
+     * The simple names of the types in resolvedTypes mapped to their fully qualified names.
+     * Allows a type to be found by its simple name without going through all the resolved types.
      */
-    protected static final Deque<Variable> stack = new LinkedList<>();
+    private static final Map<String, Set<String>> simpleNames = new ConcurrentHashMap<>();
 
     /**
-     * Stores the interfaces and their implementations.
+     * Incremented whenever a type or compilation unit is added, so that caches derived from the
+     * known types can tell when they are out of date.
      */
-    protected static final Map<String, Set<String>> interfaces = new HashMap<>();
+    private static final AtomicLong typesVersion = new AtomicLong();
+    /**
+     * The value of typesVersion when a type with the simple name was last added. A cache that only
+     * depends on the types with a given name need not be thrown away when an unrelated type is
+     * added, which happens all the time when source files are parsed on demand.
+     */
+    private static final Map<String, Long> nameVersions = new ConcurrentHashMap<>();
+    /**
+     * The value of typesVersion when the runtime was last reset.
+     */
+    private static volatile long resetVersion;
 
     /**
-     * Stores parent classes as keys and child classes as values.
+     * Source files that are known to declare a type but which have not been parsed yet.
+     * The key is the fully qualified name of the type and the value is the path to the source
+     * file relative to the base path. These files will be parsed the first time the compilation
+     * unit is asked for.
      */
-    protected static final Map<String, Set<String>> extensions = new HashMap<>();
+    private static final Map<String, String> deferred = new ConcurrentHashMap<>();
 
+    /**
+     * Types whose interfaces and parent classes have not been solved yet because their source
+     * files were only scanned. The key is a simple name that appears in an extends or implements
+     * clause and the values are the fully qualified names of the types that declared it.
+     */
+    private static final Map<String, Set<String>> unsolvedSupertypes = new ConcurrentHashMap<>();
+    /**
+     * Stores the interfaces and their implementations.
+     */
+    protected static final Map<String, Set<String>> interfaces = new ConcurrentHashMap<>();
 
     /**
-     * Stores the fields that have been autowired.
-     * While there should not be cyclic dependencies, the reality is that they do exist in the wild.
-     * Additionally, due to the way that transactions work in spring boot, you often find classes
-     * auto wiring themselves.
-     * What this means to us is that setting up the fields will often lead to infinite recursions
-     * and stack overflows. To avoid that, lets keep all Autowired instances cached.
+     * Stores parent classes as keys and child classes as values.
      */
-    protected static final Map<String, Variable> autowired = new HashMap<>();
+    protected static final Map<String, Set<String>> extensions = new ConcurrentHashMap<>();
+
 
     /**
-     * Keeps track of static variables.
-     * The fully qualified class name is the primary key. The values will be a map, where a field
-     * name will be the key and the variable will hold the value of the static field.
+     * The stages of the static initialization of a class, which follow the JVM's {@code <clinit>}.
+     * A class is initialized once: its static fields are set up and its static blocks executed the
+     * first time that the fields of an evaluator for the class are set up.
      */
-    protected static final Map<String, Map<String,Variable>> statics = new HashMap<>();
+    public enum ClassState {
+        UNINITIALIZED, INITIALIZING, INITIALIZED
+    }
 
     private AntikytheraRunTime() {}
 
     public static CompilationUnit getCompilationUnit(String cls) {
-        return resolved.get(cls);
+        if (cls == null) {
+            return null;
+        }
+        CompilationUnit cu = resolved.get(cls);
+        if (cu == null && deferred.containsKey(cls)) {
+            return compileDeferred(cls);
+        }
+        return cu;
+    }
+
+    /**
+     * Registers a type whose source file has not been parsed yet.
+     *
+     * @param className the fully qualified name of the type
+     * @param relativePath the path of the source file relative to the base path
+     * @param typeWrapper a wrapper that carries the metadata of the type without the declaration
+     */
+    public static void addDeferredType(String className, String relativePath, TypeWrapper typeWrapper) {
+        deferred.put(className, relativePath);
+        resolvedTypes.put(className, typeWrapper);
+        indexSimpleName(className);
+        typeChanged(className);
+    }
+
+    /**
+     * @param className the fully qualified name of a type
+     * @return true if the type is known but its source file has not been parsed yet
+     */
+    public static boolean isDeferred(String className) {
+        return className != null && deferred.containsKey(className);
+    }
+
+    /**
+     * Records that a type mentions the given name in its extends or implements clause but that
+     * the relationship has not been solved yet.
+     *
+     * @param simpleName the simple name of the parent class or interface
+     * @param className the fully qualified name of the type that extends or implements it
+     */
+    public static void addUnsolvedSupertype(String simpleName, String className) {
+        unsolvedSupertypes.computeIfAbsent(simpleName, k -> ConcurrentHashMap.newKeySet()).add(className);
+    }
+
+    /**
+     * Parses and solves the types that may extend or implement the given type.
+     *
+     * Only the simple name of the type is known from the lexical scan, so every type that
+     * mentions it is solved. The names of the types that were solved are in turn added to the
+     * work list, because the implementations of a sub interface also implement the parent.
+     *
+     * @param className the fully qualified name of a class or interface
+     */
+    private static synchronized void solveSupertype(String className) {
+        Deque<String> names = new ArrayDeque<>();
+        names.push(AbstractCompiler.fullyQualifiedToShortName(className));
+        Set<CompilationUnit> solved = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        while (!names.isEmpty()) {
+            Set<String> candidates = unsolvedSupertypes.remove(names.pop());
+            if (candidates == null) {
+                continue;
+            }
+            for (String candidate : candidates) {
+                CompilationUnit cu = getCompilationUnit(candidate);
+                if (cu != null && solved.add(cu)) {
+                    try {
+                        AbstractCompiler.solveInterfacesAndExtends(cu);
+                    } catch (IOException e) {
+                        throw new AntikytheraException("Could not solve " + candidate, e);
+                    }
+                    for (TypeDeclaration<?> type : cu.findAll(TypeDeclaration.class)) {
+                        names.push(type.getNameAsString());
+                    }
+                }
+            }
+        }
+    }
+
+    private static synchronized CompilationUnit compileDeferred(String cls) {
+        String relativePath = deferred.get(cls);
+        if (relativePath == null) {
+            return resolved.get(cls);
+        }
+        /*
+         * All the types declared in the same file will be made available by this compilation so
+         * they should no longer be considered deferred. They are taken out before compiling, so
+         * that a lookup made during the compilation does not start it again, and put back if the
+         * compilation fails, so that they can still be found.
+         */
+        List<String> inFile = new ArrayList<>();
+        deferred.forEach((name, path) -> {
+            if (path.equals(relativePath)) {
+                inFile.add(name);
+            }
+        });
+        inFile.forEach(deferred::remove);
+        try {
+            AbstractCompiler compiler = new AbstractCompiler();
+            compiler.compile(relativePath);
+            return resolved.get(cls);
+        } catch (IOException e) {
+            inFile.forEach(name -> deferred.put(name, relativePath));
+            throw new AntikytheraException("Could not compile " + relativePath, e);
+        } catch (RuntimeException e) {
+            inFile.forEach(name -> deferred.put(name, relativePath));
+            throw e;
+        }
     }
 
     public static void addType(String className, TypeWrapper typeWrapper) {
         resolvedTypes.put(className, typeWrapper);
+        indexSimpleName(className);
+        typeChanged(className);
+    }
+
+    private static void indexSimpleName(String className) {
+        simpleNames.computeIfAbsent(AbstractCompiler.fullyQualifiedToShortName(className),
+                k -> new ConcurrentSkipListSet<>()).add(className);
+    }
+
+    /**
+     * Finds the resolved types whose fully qualified names end with the given name.
+     *
+     * @param name a simple name or a partially qualified name such as Outer.Inner
+     * @return the matching fully qualified names in alphabetical order
+     */
+    public static List<String> findTypesBySuffix(String name) {
+        if (name == null) {
+            return List.of();
+        }
+        Set<String> candidates = simpleNames.get(AbstractCompiler.fullyQualifiedToShortName(name));
+        if (candidates == null) {
+            return List.of();
+        }
+        String suffix = "." + name;
+        List<String> matches = new ArrayList<>();
+        for (String candidate : candidates) {
+            if (candidate.endsWith(suffix)) {
+                matches.add(candidate);
+            }
+        }
+        return matches;
     }
 
     public static void addCompilationUnit(String className, CompilationUnit cu) {
         resolved.put(className, cu);
+        typeChanged(className);
+    }
+
+    /**
+     * Atomically registers a compilation unit unless one is already known for the class.
+     *
+     * @param className the fully qualified name of the class
+     * @param cu the compilation unit that declares it
+     * @return the compilation unit that was previously registered or null if there wasn't one
+     */
+    public static CompilationUnit addCompilationUnitIfAbsent(String className, CompilationUnit cu) {
+        CompilationUnit existing = resolved.putIfAbsent(className, cu);
+        if (existing == null) {
+            typeChanged(className);
+        }
+        return existing;
+    }
+
+    private static void typeChanged(String className) {
+        nameVersions.put(AbstractCompiler.fullyQualifiedToShortName(className), typesVersion.incrementAndGet());
+    }
+
+    /**
+     * @return a number that changes whenever a type or a compilation unit is added
+     */
+    public static long getTypesVersion() {
+        return typesVersion.get();
+    }
+
+    /**
+     * Like {@link #getTypesVersion()} but only changes when a type that the name may refer to is
+     * added, or when the runtime is reset. Every part of a qualified name such as Outer.Inner is
+     * taken into account, type arguments and array brackets are not.
+     *
+     * @param name a simple, partially or fully qualified type name, or null for a number that
+     *             only changes when the runtime is reset
+     * @return the version of the types with the name
+     */
+    public static long getTypesVersion(String name) {
+        long version = resetVersion;
+        if (name == null) {
+            return version;
+        }
+        int end = 0;
+        while (end < name.length() && name.charAt(end) != '<' && name.charAt(end) != '[') {
+            end++;
+        }
+        int start = 0;
+        while (start < end) {
+            int dot = name.indexOf('.', start);
+            if (dot < 0 || dot > end) {
+                dot = end;
+            }
+            Long v = nameVersions.get(name.substring(start, dot));
+            if (v != null && v > version) {
+                version = v;
+            }
+            start = dot + 1;
+        }
+        return version;
     }
 
     public static boolean isServiceClass(String className) {
-        TypeWrapper typeWrapper = resolvedTypes.get(className);
+        TypeWrapper typeWrapper = className == null ? null : resolvedTypes.get(className);
         return typeWrapper != null && typeWrapper.isService();
     }
 
     public static boolean isControllerClass(String className) {
-        TypeWrapper typeWrapper = resolvedTypes.get(className);
+        TypeWrapper typeWrapper = className == null ? null : resolvedTypes.get(className);
         return typeWrapper != null && typeWrapper.isController();
     }
 
     public static boolean isComponentClass(String className) {
-        TypeWrapper typeWrapper = resolvedTypes.get(className);
+        TypeWrapper typeWrapper = className == null ? null : resolvedTypes.get(className);
         return typeWrapper != null && typeWrapper.isComponent();
     }
 
     public static void reset() {
-        stack.clear();
+        EvaluationContext.current().stack.clear();
     }
 
     public static void resetAutowires() {
-        autowired.clear();
+        EvaluationContext.current().autowired.clear();
     }
 
     public static void resetStatics() {
-        statics.clear();
+        EvaluationContext context = EvaluationContext.current();
+        context.statics.clear();
+        context.classStates.clear();
+        context.staticTemplates.clear();
+        context.clearNodeCaches();
+    }
+
+    public static ClassState getClassState(String className) {
+        return EvaluationContext.current().classStates.getOrDefault(className, ClassState.UNINITIALIZED);
+    }
+
+    /**
+     * Starts the static initialization of a class, unless it has been started already.
+     * @param className the fully qualified name of the class
+     * @return true if the caller should initialize the class and then call
+     *      {@link #endClassInitialization(String)}. False if the class has been initialized or is
+     *      being initialized further up the stack.
+     */
+    public static boolean beginClassInitialization(String className) {
+        return EvaluationContext.current().classStates.putIfAbsent(className, ClassState.INITIALIZING) == null;
+    }
+
+    /**
+     * Marks the class as initialized and keeps a copy of the static fields whose values can be
+     * restored cheaply, see {@link #restoreStatics()}.
+     * @param className the fully qualified name of the class
+     */
+    public static void endClassInitialization(String className) {
+        EvaluationContext context = EvaluationContext.current();
+        context.classStates.put(className, ClassState.INITIALIZED);
+        Map<String, Variable> template = new TreeMap<>();
+        context.statics.getOrDefault(className, Map.of()).forEach((name, v) -> {
+            if (v != null && FieldSnapshot.hasTemplate(v.getValue())) {
+                template.put(name, FieldSnapshot.copy(v));
+            }
+        });
+        context.staticTemplates.put(className, template);
+    }
+
+    /**
+     * Forgets that the initialization of a class was started, so that it is attempted again.
+     * Used when the initialization fails.
+     * @param className the fully qualified name of the class
+     */
+    public static void abandonClassInitialization(String className) {
+        EvaluationContext.current().classStates.remove(className);
+    }
+
+    /**
+     * Gives the static fields that an execution has changed back the values that they had when
+     * their class was initialized. Only fields holding immutable values or standard collections of
+     * them are restored, fields that have not changed are left alone. The value is put back into
+     * the variable that the field holds, so that an evaluator holding on to that variable sees it.
+     * @return the number of fields that were restored
+     */
+    public static int restoreStatics() {
+        EvaluationContext context = EvaluationContext.current();
+        int restored = 0;
+        for (Map.Entry<String, Map<String, Variable>> entry : context.staticTemplates.entrySet()) {
+            Map<String, Variable> current = context.statics.computeIfAbsent(entry.getKey(), k -> new TreeMap<>());
+            for (Map.Entry<String, Variable> field : entry.getValue().entrySet()) {
+                Variable v = current.get(field.getKey());
+                if (v == null) {
+                    current.put(field.getKey(), FieldSnapshot.copy(field.getValue()));
+                    restored++;
+                } else if (!Objects.equals(v.getValue(), field.getValue().getValue())) {
+                    FieldSnapshot.restore(v, field.getValue());
+                    restored++;
+                }
+            }
+        }
+        return restored;
     }
 
     public static void push(Variable variable) {
-        stack.push(variable);
+        EvaluationContext.current().stack.push(variable);
     }
 
     public static Variable pop() {
-        return stack.pop();
+        return EvaluationContext.current().stack.pop();
+    }
+
+    public static boolean isEmptyStack() {
+        return EvaluationContext.current().stack.isEmpty();
     }
 
     public static boolean isInterface(String name) {
-        TypeWrapper typeWrapper = resolvedTypes.get(name);
+        TypeWrapper typeWrapper = name == null ? null : resolvedTypes.get(name);
         return typeWrapper != null && typeWrapper.isInterface();
     }
 
     @SuppressWarnings("java:S1452")
     public static Optional<TypeDeclaration<?>> getTypeDeclaration(String className) {
-        TypeWrapper type = resolvedTypes.get(className);
+        TypeWrapper type = className == null ? null : resolvedTypes.get(className);
         return Optional.ofNullable(type).map(TypeWrapper::getType);
     }
 
     public static void resetAll() {
-        stack.clear();
+        EvaluationContext context = EvaluationContext.current();
+        context.stack.clear();
         resolved.clear();
         resolvedTypes.clear();
+        simpleNames.clear();
+        nameVersions.clear();
+        resetVersion = typesVersion.incrementAndGet();
+        deferred.clear();
+        unsolvedSupertypes.clear();
         interfaces.clear();
         extensions.clear();
-        autowired.clear();
-        statics.clear();
+        context.autowired.clear();
+        context.statics.clear();
+        context.pureCalls.clear();
+        context.classStates.clear();
+        context.staticTemplates.clear();
+        context.clearNodeCaches();
+    }
+
+    /**
+     * Forgets everything that the current context has remembered about individual nodes through
+     * {@link NodeCache}. Called before each method under test is evaluated, so that the caches
+     * only ever hold the nodes seen while evaluating one method and do not keep the compilation
+     * units, or the nodes synthesized during evaluation, alive for the whole run.
+     */
+    public static void clearNodeCaches() {
+        EvaluationContext.current().clearNodeCaches();
     }
 
     public static void addSubClass(String parent, String child) {
-        Set<String> s = extensions.computeIfAbsent(parent, k -> new HashSet<>());
+        Set<String> s = extensions.computeIfAbsent(parent, k -> ConcurrentHashMap.newKeySet());
         s.add(child);
     }
 
     public static Set<String> findSubClasses(String parent) {
-        return extensions.getOrDefault(parent, new HashSet<>());
+        if (parent != null && !unsolvedSupertypes.isEmpty()) {
+            solveSupertype(parent);
+        }
+        return parent == null ? new HashSet<>() : extensions.getOrDefault(parent, new HashSet<>());
     }
 
     public static void addImplementation(String iface, String impl) {
-        Set<String> s = interfaces.computeIfAbsent(iface, k -> new HashSet<>());
+        Set<String> s = interfaces.computeIfAbsent(iface, k -> ConcurrentHashMap.newKeySet());
         s.add(impl);
     }
 
     public static Set<String> findImplementations(String iface) {
-        return interfaces.getOrDefault(iface, new HashSet<>());
+        if (iface != null && !unsolvedSupertypes.isEmpty()) {
+            solveSupertype(iface);
+        }
+        return iface == null ? new HashSet<>() : interfaces.getOrDefault(iface, new HashSet<>());
     }
 
     public static void autoWire(String className, Variable variable) {
-        autowired.put(className, variable);
+        EvaluationContext.current().autowired.put(className, variable);
     }
 
     public static Variable getAutoWire(String className) {
-        return autowired.get(className);
+        return EvaluationContext.current().autowired.get(className);
+    }
+
+    /**
+     * @param variable a variable that may have been autowired
+     * @return the name that the variable is autowired under, null if it is not autowired
+     */
+    public static String findAutoWire(Variable variable) {
+        for (Map.Entry<String, Variable> entry : EvaluationContext.current().autowired.entrySet()) {
+            if (entry.getValue() == variable) {
+                return entry.getKey();
+            }
+        }
+        return null;
     }
 
     public static Variable getStaticVariable(String fqn, String field) {
-        return statics.getOrDefault(fqn, new TreeMap<>()).get(field);
+        Map<String, Variable> map = EvaluationContext.current().statics.get(fqn);
+        return map == null ? null : map.get(field);
     }
 
     public static void setStaticVariable(String fqn, String field, Variable variable)
     {
-        Map<String, Variable> map = statics.computeIfAbsent(fqn, k -> new TreeMap<>());
+        Map<String, Variable> map = EvaluationContext.current().statics.computeIfAbsent(fqn, k -> new TreeMap<>());
         map.put(field, variable);
     }
 
@@ -177,4 +522,18 @@ public class AntikytheraRunTime {
     public static Map<String, CompilationUnit> getResolvedCompilationUnits() {
         return resolved;
     }
+
+    /**
+     * @return a map where interfaces are the keys and the values are their implementations
+     */
+    public static Map<String, Set<String>> getImplementations() {
+        return interfaces;
+    }
+
+    /**
+     * @return a map where parent classes are the keys and the values are their subclasses
+     */
+    public static Map<String, Set<String>> getSubClasses() {
+        return extensions;
+    }
 }
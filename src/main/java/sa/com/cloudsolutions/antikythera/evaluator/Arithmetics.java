@@ -4,6 +4,7 @@ import com.github.javaparser.ast.expr.BinaryExpr;
 import com.github.javaparser.ast.type.Type;
 
 public class Arithmetics {
+    private static final String UNSUPPORTED_OPERATOR = "Unsupported operator: ";
 
     private Arithmetics() {
 
@@ -31,37 +32,168 @@ public class Arithmetics {
         return null;
     }
 
+    /**
+     * Arithmetic on boxed primitives. The result follows binary numeric promotion except when
+     * both operands are bytes or shorts: Java would give an int, but the result is narrowed back
+     * to the wider of the two operand types. The evaluator does not apply primitive casts, nor the
+     * implicit narrowing of a compound assignment such as {@code b += 1}, so without this a byte
+     * or short variable would end up holding an Integer, which cannot be set on a byte or short
+     * field or passed to a method that takes one.
+     */
     private static Variable createNumericVariable(BinaryExpr.Operator operator, Number l, Number r) {
+        if (!isPrimitiveWrapper(l) || !isPrimitiveWrapper(r)) {
+            return createWidenedVariable(operator, l, r);
+        }
         Number result = performOperation(l, r, operator);
 
+        if (result instanceof Integer i) {
+            if (l instanceof Integer || r instanceof Integer) {
+                return new Variable(i);
+            } else if (l instanceof Short || r instanceof Short) {
+                return new Variable(i.shortValue());
+            }
+            return new Variable(i.byteValue());
+        }
+        return new Variable(result);
+    }
+
+    /**
+     * Arithmetic that involves other kinds of numbers, such as BigDecimal or AtomicInteger, is
+     * carried out in double precision and converted to the type of the boxed primitive operand.
+     */
+    private static Variable createWidenedVariable(BinaryExpr.Operator operator, Number l, Number r) {
+        double result = doubleOperation(l.doubleValue(), r.doubleValue(), operator);
+
         if (l instanceof Double || r instanceof Double) {
-            return new Variable(result.doubleValue());
+            return new Variable(result);
         } else if (l instanceof Float || r instanceof Float) {
-            return new Variable(result.floatValue());
+            return new Variable((float) result);
         } else if (l instanceof Long || r instanceof Long) {
-            return new Variable(result.longValue());
+            return new Variable((long) result);
         } else if (l instanceof Integer || r instanceof Integer) {
-            return new Variable(result.intValue());
+            return new Variable((int) result);
         } else if (l instanceof Short || r instanceof Short) {
-            return new Variable(result.shortValue());
+            return new Variable((short) result);
         } else if (l instanceof Byte || r instanceof Byte) {
-            return new Variable(result.byteValue());
+            return new Variable((byte) result);
         }
         return null;
     }
 
+    /**
+     * Applies the operator with binary numeric promotion, the same way that the JVM does.
+     * Operands are never widened further than needed, so long arithmetic stays exact and int
+     * arithmetic overflows and divides by zero the way that compiled code would. Byte and short
+     * operands give an Integer here; see {@link #createNumericVariable} for how the evaluator
+     * narrows that again.
+     *
+     * @param left the left operand, a boxed primitive
+     * @param right the right operand, a boxed primitive
+     * @param operator one of the arithmetic operators
+     * @return an Integer, Long, Float or Double depending on the operand types
+     * @throws ArithmeticException for integer division by zero
+     */
     static Number performOperation(Number left, Number right, BinaryExpr.Operator operator) {
+        if (left instanceof Double || right instanceof Double) {
+            return doubleOperation(left.doubleValue(), right.doubleValue(), operator);
+        }
+        if (left instanceof Float || right instanceof Float) {
+            return floatOperation(left.floatValue(), right.floatValue(), operator);
+        }
+        if (left instanceof Long || right instanceof Long) {
+            return longOperation(left.longValue(), right.longValue(), operator);
+        }
+        return intOperation(left.intValue(), right.intValue(), operator);
+    }
+
+    private static int intOperation(int left, int right, BinaryExpr.Operator operator) {
+        return switch (operator) {
+            case PLUS -> left + right;
+            case MINUS -> left - right;
+            case DIVIDE -> left / right;
+            case MULTIPLY -> left * right;
+            case REMAINDER -> left % right;
+            default -> throw new IllegalArgumentException(UNSUPPORTED_OPERATOR + operator);
+        };
+    }
+
+    private static long longOperation(long left, long right, BinaryExpr.Operator operator) {
         return switch (operator) {
-            case PLUS -> left.doubleValue() + right.doubleValue();
-            case MINUS -> left.doubleValue() - right.doubleValue();
-            case DIVIDE -> left.doubleValue() / right.doubleValue();
-            case MULTIPLY -> left.doubleValue() * right.doubleValue();
-            case REMAINDER -> left.doubleValue() % right.doubleValue();
-            default ->
-                    throw new IllegalArgumentException("Unsupported operator: " + operator);
+            case PLUS -> left + right;
+            case MINUS -> left - right;
+            case DIVIDE -> left / right;
+            case MULTIPLY -> left * right;
+            case REMAINDER -> left % right;
+            default -> throw new IllegalArgumentException(UNSUPPORTED_OPERATOR + operator);
         };
     }
 
+    private static float floatOperation(float left, float right, BinaryExpr.Operator operator) {
+        return switch (operator) {
+            case PLUS -> left + right;
+            case MINUS -> left - right;
+            case DIVIDE -> left / right;
+            case MULTIPLY -> left * right;
+            case REMAINDER -> left % right;
+            default -> throw new IllegalArgumentException(UNSUPPORTED_OPERATOR + operator);
+        };
+    }
+
+    private static double doubleOperation(double left, double right, BinaryExpr.Operator operator) {
+        return switch (operator) {
+            case PLUS -> left + right;
+            case MINUS -> left - right;
+            case DIVIDE -> left / right;
+            case MULTIPLY -> left * right;
+            case REMAINDER -> left % right;
+            default -> throw new IllegalArgumentException(UNSUPPORTED_OPERATOR + operator);
+        };
+    }
+
+    /**
+     * Adds one to or subtracts one from a boxed primitive without changing its type.
+     *
+     * @param value the current value
+     * @param delta either 1 or -1
+     * @return the new value, or the same value if it is not a number or a char
+     */
+    static Object increment(Object value, int delta) {
+        return switch (value) {
+            case Integer n -> n + delta;
+            case Long l -> l + delta;
+            case Double d -> d + delta;
+            case Float f -> f + delta;
+            case Short s -> (short) (s + delta);
+            case Byte b -> (byte) (b + delta);
+            case Character c -> (char) (c + delta);
+            case null, default -> value;
+        };
+    }
+
+    /**
+     * Unary minus with the promotion rules of the JVM.
+     *
+     * @param value the operand
+     * @return the negated value, or the same value if it is not a number
+     */
+    static Object negate(Object value) {
+        return switch (value) {
+            case Integer n -> -n;
+            case Long l -> -l;
+            case Double d -> -d;
+            case Float f -> -f;
+            case Short s -> -s;
+            case Byte b -> -b;
+            case Character c -> -c;
+            case null, default -> value;
+        };
+    }
+
+    private static boolean isPrimitiveWrapper(Number n) {
+        return n instanceof Integer || n instanceof Long || n instanceof Double || n instanceof Float
+                || n instanceof Short || n instanceof Byte;
+    }
+
     private static boolean isStringOperand(Variable variable, Object runtimeValue) {
         if (runtimeValue instanceof String) {
             return true;
@@ -6,29 +6,25 @@ import com.github.javaparser.ast.stmt.BlockStmt;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.stream.Collectors;
 
 public class Branching {
-    private static final HashMap<CallableDeclaration<?>, PriorityQueue<LineOfCode>> conditionals = new HashMap<>();
-    private static final HashMap<Integer, LineOfCode> branches = new HashMap<>();
-    private static final BranchAttemptPlanner PLANNER = new BranchAttemptPlanner();
-
     private Branching() {
     }
 
     public static void clear() {
-        branches.clear();
-        conditionals.clear();
-        PLANNER.clear();
+        EvaluationContext context = EvaluationContext.current();
+        context.branches.clear();
+        context.conditionals.clear();
+        context.planner.clear();
     }
 
     public static void add(LineOfCode lineOfCode) {
         if (lineOfCode.shouldSchedule()) {
-            PriorityQueue<LineOfCode> queue = conditionals.computeIfAbsent(
+            PriorityQueue<LineOfCode> queue = EvaluationContext.current().conditionals.computeIfAbsent(
                 lineOfCode.getCallableDeclaration(),
                 k -> new PriorityQueue<>(new LineOfCodeComparator())
             );
@@ -37,15 +33,15 @@ public class Branching {
                 queue.add(lineOfCode);
             }
         }
-        branches.putIfAbsent(lineOfCode.getStatement().hashCode(), lineOfCode);
+        EvaluationContext.current().branches.putIfAbsent(lineOfCode.getStatement().hashCode(), lineOfCode);
     }
 
     public static LineOfCode get(int hashCode) {
-        return branches.get(hashCode);
+        return EvaluationContext.current().branches.get(hashCode);
     }
 
     public static List<LineOfCode> get(CallableDeclaration<?> methodDeclaration) {
-        PriorityQueue<LineOfCode> queue = conditionals.get(methodDeclaration);
+        PriorityQueue<LineOfCode> queue = EvaluationContext.current().conditionals.get(methodDeclaration);
         if (queue == null) {
             return new ArrayList<>();
         }
@@ -57,15 +53,15 @@ public class Branching {
     }
 
     public static BranchAttempt getBranchAttempt(CallableDeclaration<?> methodDeclaration, LineOfCode target) {
-        List<LineOfCode> relevantBranches = branches.values().stream()
+        List<LineOfCode> relevantBranches = EvaluationContext.current().branches.values().stream()
                 .filter(lineOfCode -> lineOfCode.getCallableDeclaration().equals(methodDeclaration))
                 .collect(Collectors.toList());
-        return PLANNER.plan(methodDeclaration, target, relevantBranches);
+        return EvaluationContext.current().planner.plan(methodDeclaration, target, relevantBranches);
     }
 
     public static BranchAttempt selectTargetAttempt(LineOfCode target, BranchSide side,
                                                     List<java.util.Map<com.github.javaparser.ast.expr.Expression, Object>> combinations) {
-        return PLANNER.selectNextAttempt(target, side, combinations);
+        return EvaluationContext.current().planner.selectNextAttempt(target, side, combinations);
     }
 
     /**
@@ -76,8 +72,9 @@ public class Branching {
      */
     public static boolean resetBranchesWithUntriedCombinations(CallableDeclaration<?> cd) {
         boolean anyReset = false;
-        for (LineOfCode loc : branches.values()) {
-            if (loc.getCallableDeclaration().equals(cd) && PLANNER.hasUntriedCombinations(loc)) {
+        EvaluationContext context = EvaluationContext.current();
+        for (LineOfCode loc : context.branches.values()) {
+            if (loc.getCallableDeclaration().equals(cd) && context.planner.hasUntriedCombinations(loc)) {
                 loc.resetPathTaken();
                 requeue(loc);
                 anyReset = true;
@@ -92,7 +89,7 @@ public class Branching {
      * iterations.
      */
     public static void requeue(LineOfCode lineOfCode) {
-        PriorityQueue<LineOfCode> queue = conditionals.get(lineOfCode.getCallableDeclaration());
+        PriorityQueue<LineOfCode> queue = EvaluationContext.current().conditionals.get(lineOfCode.getCallableDeclaration());
         if (queue != null) {
             queue.add(lineOfCode);
         }
@@ -120,7 +117,7 @@ public class Branching {
         int targetOrder = getSourceOrder(lineOfCode);
         LineOfCode best = null;
         int bestOrder = Integer.MIN_VALUE;
-        for (LineOfCode candidate : branches.values()) {
+        for (LineOfCode candidate : EvaluationContext.current().branches.values()) {
             if (candidate.equals(lineOfCode)) {
                 continue;
             }
@@ -155,12 +152,12 @@ public class Branching {
 
     public static int size(CallableDeclaration<?> methodDeclaration)
     {
-        PriorityQueue<LineOfCode> queue = conditionals.get(methodDeclaration);
+        PriorityQueue<LineOfCode> queue = EvaluationContext.current().conditionals.get(methodDeclaration);
         return queue != null ? queue.size() : 0;
     }
 
     public static LineOfCode getHighestPriority(CallableDeclaration<?> md) {
-        PriorityQueue<LineOfCode> queue = conditionals.get(md);
+        PriorityQueue<LineOfCode> queue = EvaluationContext.current().conditionals.get(md);
         return queue != null ? queue.remove() : null;
     }
 
@@ -68,6 +68,12 @@ public class ControlFlowEvaluator extends Evaluator {
         super(context);
     }
 
+    @Override
+    protected void prepareForReuse() {
+        super.prepareForReuse();
+        currentConditional = null;
+    }
+
     /**
      * Controls the branch that a conditional expression takes through parameter assignment
      * @param stmt the statement that contains branching
@@ -0,0 +1,230 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import sa.com.cloudsolutions.antikythera.evaluator.logging.LogRecorder;
+import sa.com.cloudsolutions.antikythera.evaluator.mock.MockingCall;
+import sa.com.cloudsolutions.antikythera.parser.Callable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * <p>Owns the state that accumulates while methods are being evaluated.</p>
+ *
+ * That is the stack, the autowired instances, the static fields and the initialization state of
+ * each class in the {@link AntikytheraRunTime}, the results remembered by the
+ * {@link PureMethodCache}, the branches being explored by {@link Branching}, what the
+ * {@link GeneratorState}, the {@link sa.com.cloudsolutions.antikythera.evaluator.mock.MockingRegistry}
+ * and the {@link LogRecorder} have collected, the {@link ExecutionBudget} of the method under test
+ * and the last exception seen by the {@link Evaluator}.
+ * Those classes keep their static methods, which work on the context of the current thread.
+ *
+ * A thread that has not been given a context uses the global one, so single threaded code behaves
+ * exactly as before. To evaluate independent classes or methods in parallel, give each task its own
+ * context with {@link #call(java.util.concurrent.Callable)} or {@link #run(Runnable)}, or create
+ * the evaluators with {@link EvaluatorFactory#create(String, Class, EvaluationContext)}. A context
+ * that was created for a task must only be used by one thread at a time. The global context is the
+ * exception, every thread that has not been given a context shares it, so its node caches are
+ * synchronized. The rest of its state is not, and threads that evaluate concurrently should each
+ * have a context of their own.
+ *
+ * The parsed compilation units, the resolved types and the other parse time caches are shared by
+ * all contexts and are not modified while evaluating. What the evaluator learns about individual
+ * nodes as it goes is kept in each context through {@link NodeCache}.
+ */
+public final class EvaluationContext {
+    private static final EvaluationContext GLOBAL = new EvaluationContext();
+    private static final ThreadLocal<EvaluationContext> CURRENT = new ThreadLocal<>();
+
+    /**
+     * <p>We are not using a stack data structure here, but a Deque. This is because Deque is a
+     * double-ended queue, which can be used as a stack. It is more efficient than a Stack ADT.
+     * Because in java the stack is synchronized.</p>
+     *
+     * While it's normal practice to also place the return value of a method call into the
+     * stack, we are not doing so in here.
+     */
+    final Deque<Variable> stack = new LinkedList<>();
+
+    /**
+     * Stores the fields that have been autowired.
+     * While there should not be cyclic dependencies, the reality is that they do exist in the wild.
+     * Additionally, due to the way that transactions work in spring boot, you often find classes
+     * auto wiring themselves.
+     * What this means to us is that setting up the fields will often lead to infinite recursions
+     * and stack overflows. To avoid that, lets keep all Autowired instances cached.
+     */
+    final Map<String, Variable> autowired = new HashMap<>();
+
+    /**
+     * Keeps track of static variables.
+     * The fully qualified class name is the primary key. The values will be a map, where a field
+     * name will be the key and the variable will hold the value of the static field.
+     */
+    final Map<String, Map<String, Variable>> statics = new HashMap<>();
+
+    /**
+     * How far the static initialization of each class has got, see
+     * {@link AntikytheraRunTime#beginClassInitialization(String)}.
+     */
+    final Map<String, AntikytheraRunTime.ClassState> classStates = new HashMap<>();
+    /**
+     * Copies of the static fields of each class as they were when its initialization finished.
+     */
+    final Map<String, Map<String, Variable>> staticTemplates = new HashMap<>();
+
+    /**
+     * The results of side effect free methods, least recently used first.
+     */
+    final Map<PureMethodCache.Call, PureMethodCache.Result> pureCalls = new LinkedHashMap<>(16, 0.75f, true);
+
+    final Map<CallableDeclaration<?>, PriorityQueue<LineOfCode>> conditionals = new HashMap<>();
+    final Map<Integer, LineOfCode> branches = new HashMap<>();
+    final BranchAttemptPlanner planner = new BranchAttemptPlanner();
+
+    final List<Expression> whenThen = new ArrayList<>();
+    final Set<ImportDeclaration> imports = new HashSet<>();
+    /** {@code scopeVariable|methodName} → fully qualified cast target for methods that return Object. */
+    final Map<String, String> mockStubReturnHints = new HashMap<>();
+    final Deque<String> pendingObjectStubReturnFqns = new ArrayDeque<>();
+
+    private final Map<String, Map<Callable, MockingCall>> mockedFields = new HashMap<>();
+    private Map<String, List<Expression>> customMockExpressions = new HashMap<>();
+    private final Map<String, List<LogRecorder.LogEntry>> logEntries = new HashMap<>();
+
+    /**
+     * What each {@link NodeCache} remembers about the nodes seen in this context.
+     */
+    private final Map<NodeCache<?>, Map<Node, Object>> nodeCaches = new ConcurrentHashMap<>();
+
+    final ExecutionBudget budget = new ExecutionBudget();
+
+    ExceptionContext lastExceptionContext;
+    long sequence;
+
+    /**
+     * @return the context of the current thread, the global context if it has not been given one
+     */
+    public static EvaluationContext current() {
+        EvaluationContext context = CURRENT.get();
+        return context != null ? context : GLOBAL;
+    }
+
+    /**
+     * @return the context that is used by threads that have not been given one
+     */
+    public static EvaluationContext global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Makes this the context of the current thread while the task runs.
+     *
+     * @param task the work to do within this context
+     * @return what the task returned
+     * @throws Exception if the task throws one
+     */
+    public <T> T call(java.util.concurrent.Callable<T> task) throws Exception {
+        EvaluationContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.call();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Makes this the context of the current thread while the task runs.
+     *
+     * @param task the work to do within this context
+     * @return what the task returned
+     */
+    public <T> T get(Supplier<T> task) {
+        EvaluationContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Makes this the context of the current thread while the task runs.
+     * @param task the work to do within this context
+     */
+    public void run(Runnable task) {
+        EvaluationContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            task.run();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * The mocked methods of each mocked class, for the
+     * {@link sa.com.cloudsolutions.antikythera.evaluator.mock.MockingRegistry}.
+     */
+    public Map<String, Map<Callable, MockingCall>> getMockedFields() {
+        return mockedFields;
+    }
+
+    /**
+     * The expressions used to create the mocks of each class, for the
+     * {@link sa.com.cloudsolutions.antikythera.evaluator.mock.MockingRegistry}.
+     */
+    public Map<String, List<Expression>> getCustomMockExpressions() {
+        return customMockExpressions;
+    }
+
+    public void setCustomMockExpressions(Map<String, List<Expression>> customMockExpressions) {
+        this.customMockExpressions = customMockExpressions;
+    }
+
+    /**
+     * The log calls captured for each class, for the {@link LogRecorder}.
+     */
+    public Map<String, List<LogRecorder.LogEntry>> getLogEntries() {
+        return logEntries;
+    }
+
+    Map<Node, Object> nodeCache(NodeCache<?> cache) {
+        return nodeCaches.computeIfAbsent(cache, k -> this == GLOBAL
+                ? Collections.synchronizedMap(new IdentityHashMap<>()) : new IdentityHashMap<>());
+    }
+
+    void clearNodeCaches() {
+        nodeCaches.clear();
+    }
+}
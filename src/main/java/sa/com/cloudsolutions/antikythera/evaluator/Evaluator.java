@@ -66,6 +66,7 @@ import sa.com.cloudsolutions.antikythera.evaluator.logging.AKLogger;
 import sa.com.cloudsolutions.antikythera.evaluator.mock.MockingRegistry;
 import sa.com.cloudsolutions.antikythera.exception.AUTException;
 import sa.com.cloudsolutions.antikythera.exception.AntikytheraException;
+import sa.com.cloudsolutions.antikythera.exception.BudgetExceededException;
 import sa.com.cloudsolutions.antikythera.exception.EvaluatorException;
 import sa.com.cloudsolutions.antikythera.exception.GeneratorException;
 import sa.com.cloudsolutions.antikythera.finch.Finch;
@@ -93,23 +94,7 @@ import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
 import java.util.Comparator;
-import java.util.function.BiFunction;
-import java.util.function.BinaryOperator;
-import java.util.function.Consumer;
-import java.util.function.DoubleFunction;
-import java.util.function.Function;
-import java.util.function.IntFunction;
-import java.util.function.LongFunction;
-import java.util.function.Predicate;
-import java.util.function.ToDoubleFunction;
-import java.util.function.ToIntFunction;
-import java.util.function.ToLongFunction;
-import java.util.function.UnaryOperator;
-import java.util.stream.Collector;
-import java.util.stream.DoubleStream;
-import java.util.stream.IntStream;
-import java.util.stream.LongStream;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 
@@ -165,13 +150,30 @@ public class Evaluator implements EvaluationEngine {
      * <p>Local variables.</p>
      *
      * <p>These are specific to a block statement. A block statement may also be an
-     * entire method. The primary key will be the hashcode of the block statement.</p>
+     * entire method. The primary key will be the id of the block statement, see
+     * {@link #blockId(BlockStmt)}. The variables of each block are kept in a {@link LocalFrame}.</p>
      */
     private final Map<Integer, Map<String, Symbol>> locals;
+    /**
+     * Where the variable that a node refers to by name was found the last time, see
+     * {@link #getLocal(Node, String)}.
+     */
+    private static final NodeCache<LocalSlot> LOCAL_SLOT = new NodeCache<>();
+
+    /**
+     * The ids are unique across evaluation contexts, so an id that a context has forgotten about
+     * is never handed out again.
+     */
+    private static final NodeCache<Integer> BLOCK_ID = new NodeCache<>();
+    private static final AtomicInteger blockIds = new AtomicInteger();
     /**
      * The fully qualified name of the class for which we created this evaluator.
      */
     protected String className;
+    /**
+     * The evaluation context in which this evaluator was created.
+     */
+    private EvaluationContext evaluationContext;
 
     /**
      * The compilation unit that is being processed by the expression engine
@@ -198,9 +200,17 @@ public class Evaluator implements EvaluationEngine {
     protected TypeDeclaration<?> typeDeclaration;
     protected ByteArrayOutputStream capturedOutputStream;
 
-    private static long sequence = 0;
+    /**
+     * Collects the fields while {@link #snapshotFields()} is setting them up.
+     */
+    private FieldSnapshot fieldSnapshot;
 
-    private static ExceptionContext lastExceptionContext;
+    /*
+     * The visitors that processParentClasses can apply to the parents of a class.
+     */
+    private static final String LAZY_FIELD_VISITOR = "LazyFieldVisitor";
+    private static final String FIELD_VISITOR = "FieldVisitor";
+    private static final String STATIC_INITIALIZER_VISITOR = "StaticInitializerVisitor";
     
     /**
      * Thread-local stack of active loop contexts for exception tracking.
@@ -216,6 +226,7 @@ public class Evaluator implements EvaluationEngine {
     protected Evaluator(EvaluatorFactory.Context context) {
         this();
         this.className = context.getClassName();
+        this.evaluationContext = context.getEvaluationContext();
         cu = AntikytheraRunTime.getCompilationUnit(className);
         if (cu != null) {
             typeDeclaration = AbstractCompiler.getMatchingType(cu, className).orElseThrow();
@@ -223,6 +234,14 @@ public class Evaluator implements EvaluationEngine {
         Finch.loadFinches();
     }
 
+    /**
+     * @return the evaluation context in which this evaluator was created, null if it was not
+     * created through the {@link EvaluatorFactory}
+     */
+    public EvaluationContext getEvaluationContext() {
+        return evaluationContext;
+    }
+
     public static Variable evaluateLiteral(Expression expr) throws EvaluatorException {
         return switch (expr) {
             case BooleanLiteralExpr booleanLiteralExpr ->
@@ -572,30 +591,15 @@ public class Evaluator implements EvaluationEngine {
                 return v;
             }
             case POSTFIX_INCREMENT, PREFIX_INCREMENT -> {
-                v.setValue(switch (v.getValue()) {
-                    case Integer n -> n + 1;
-                    case Double d -> d + 1;
-                    case Long l -> l + 1;
-                    default -> v.getValue();
-                });
+                v.setValue(Arithmetics.increment(v.getValue(), 1));
                 return v;
             }
             case POSTFIX_DECREMENT, PREFIX_DECREMENT -> {
-                v.setValue(switch (v.getValue()) {
-                    case Integer n -> n - 1;
-                    case Double d -> d - 1;
-                    case Long l -> l - 1;
-                    default -> v.getValue();
-                });
+                v.setValue(Arithmetics.increment(v.getValue(), -1));
                 return v;
             }
             case MINUS -> {
-                v.setValue(switch (v.getValue()) {
-                    case Integer n -> -n;
-                    case Double d -> -d;
-                    case Long l -> -l;
-                    default -> v.getValue();
-                });
+                v.setValue(Arithmetics.negate(v.getValue()));
                 return v;
             }
             default -> {
@@ -623,9 +627,8 @@ public class Evaluator implements EvaluationEngine {
             return null;
         }
         if (wrapper.getClazz() != null) {
-            Field field = wrapper.getClazz().getDeclaredField(fae.getNameAsString());
-            field.setAccessible(true);
-            Object value = field.get(null);
+            Field field = Invoker.findField(wrapper.getClazz(), fae.getNameAsString());
+            Object value = Invoker.get(field, null);
             if (capturedOutputStream != null && (value == System.out || value == System.err)) {
                 value = new PrintStream(capturedOutputStream, true);
             }
@@ -651,9 +654,8 @@ public class Evaluator implements EvaluationEngine {
             return new Variable(Array.getLength(scopeVariable.getValue()));
         }
 
-        Field field = scopeVariable.getValue().getClass().getDeclaredField(fae.getNameAsString());
-        field.setAccessible(true);
-        return new Variable(new ClassOrInterfaceType().setName(field.getType().getName()), field.get(scopeVariable.getValue()));
+        Field field = Invoker.findField(scopeVariable.getValue().getClass(), fae.getNameAsString());
+        return new Variable(new ClassOrInterfaceType().setName(field.getType().getName()), Invoker.get(field, scopeVariable.getValue()));
     }
 
     private Variable evaluateFieldAccessExpression(FieldAccessExpr fae, TypeDeclaration<?> td) {
@@ -703,6 +705,7 @@ public class Evaluator implements EvaluationEngine {
             case MULTIPLY -> evaluateBinaryExpression(BinaryExpr.Operator.MULTIPLY, target, value);
             case MINUS -> evaluateBinaryExpression(BinaryExpr.Operator.MINUS, target, value);
             case DIVIDE -> evaluateBinaryExpression(BinaryExpr.Operator.DIVIDE, target, value);
+            case REMAINDER -> evaluateBinaryExpression(BinaryExpr.Operator.REMAINDER, target, value);
             default -> evaluateExpression(value);
         };
 
@@ -725,9 +728,8 @@ public class Evaluator implements EvaluationEngine {
                     eval.setField(fae.getNameAsString(), v);
                 } else {
                     try {
-                        Field field = obj.getClass().getDeclaredField(fieldName);
-                        field.setAccessible(true);
-                        field.set(obj, v.getValue());
+                        Field field = Invoker.findField(obj.getClass(), fieldName);
+                        Invoker.set(field, obj, v.getValue());
                     } catch (ReflectiveOperationException | NullPointerException e) {
                         /*
                          * This is not something that was created with class.forName or byte buddy.
@@ -854,7 +856,7 @@ public class Evaluator implements EvaluationEngine {
         }
         MCEWrapper mce = wrapCallExpression(oce);
 
-        Optional<Callable> matchingConstructor = AbstractCompiler.findConstructorDeclaration(mce, match);
+        Optional<Callable> matchingConstructor = AbstractCompiler.findCallableDeclaration(mce, match);
 
         if (matchingConstructor.isPresent()) {
             eval.executeConstructor(matchingConstructor.get().getCallableDeclaration());
@@ -916,7 +918,7 @@ public class Evaluator implements EvaluationEngine {
             Constructor<?> cons = Reflect.findConstructor(clazz, reflectionArguments.getArgumentTypes(),
                     reflectionArguments.getArguments());
             if (cons != null) {
-                Object instance = cons.newInstance(reflectionArguments.getArguments());
+                Object instance = Invoker.newInstance(cons, reflectionArguments.getArguments());
                 Variable v = new Variable(instance);
                 v.setInitializer(List.of(oce));
                 v.setClazz(clazz);
@@ -945,11 +947,18 @@ public class Evaluator implements EvaluationEngine {
     @SuppressWarnings("java:S3776")
     @Override
     public Symbol getLocal(Node node, String name) {
+        LocalSlot slot = LOCAL_SLOT.get(node);
+        if (slot != null && locals.get(slot.block()) instanceof LocalFrame frame) {
+            Symbol v = frame.get(slot.slot(), name);
+            if (v != null) {
+                return v;
+            }
+        }
         Node n = node;
 
         while (n != null) {
             BlockStmt block = AbstractCompiler.findBlockStatement(n);
-            int hash = (block != null) ? block.hashCode() : 0;
+            int hash = blockId(block);
             if (hash == 0) {
                 for (Map<String, Symbol> entry : locals.values()) {
                     Symbol v = entry.get(name);
@@ -964,8 +973,12 @@ public class Evaluator implements EvaluationEngine {
 
             if (localsVars != null) {
                 Symbol v = localsVars.get(name);
-                if (v != null)
+                if (v != null) {
+                    if (localsVars instanceof LocalFrame frame) {
+                        LOCAL_SLOT.put(node, new LocalSlot(hash, frame.slotOf(name)));
+                    }
                     return v;
+                }
             }
             if (n instanceof MethodDeclaration) {
                 localsVars = this.locals.get(hash);
@@ -978,6 +991,27 @@ public class Evaluator implements EvaluationEngine {
         return null;
     }
 
+    /**
+     * Identifies a block statement in the map of local variables.
+     * JavaParser computes the hash code of a node from its whole subtree, which is slow for a
+     * large block and gives the same value for two blocks with the same content. Instead each
+     * block is given a unique id the first time it is seen.
+     *
+     * @param block a block statement, may be null
+     * @return the id of the block or 0 if there isn't one
+     */
+    static int blockId(BlockStmt block) {
+        if (block == null) {
+            return 0;
+        }
+        Integer id = BLOCK_ID.get(block);
+        if (id == null) {
+            id = blockIds.incrementAndGet();
+            BLOCK_ID.put(block, id);
+        }
+        return id;
+    }
+
     /**
      * Sets a local variable
      *
@@ -1007,12 +1041,21 @@ public class Evaluator implements EvaluationEngine {
         }
 
         BlockStmt block = AbstractCompiler.findBlockStatement(node);
-        int hash = (block != null) ? block.hashCode() : 0;
+        int hash = blockId(block);
 
-        Map<String, Symbol> localVars = this.locals.computeIfAbsent(hash, k -> new HashMap<>());
+        Map<String, Symbol> localVars = this.locals.computeIfAbsent(hash, k -> new LocalFrame());
         localVars.put(nameAsString, v);
     }
 
+    /**
+     * The block, identified by its {@link #blockId(BlockStmt) id}, and the slot within the
+     * {@link LocalFrame} of that block, where a variable was found. The same name always refers to
+     * the same variable at a given point of a method, because Java does not allow a local variable
+     * to shadow another one, so the slot is only checked to still hold a variable by that name.
+     */
+    private record LocalSlot(int block, int slot) {
+    }
+
     /**
      * <p>Evaluate a method call.</p>
      *
@@ -1359,6 +1402,16 @@ public class Evaluator implements EvaluationEngine {
             return returnValue;
         }
 
+        Object value = v.getValue();
+        if (value != null && value.getClass().getName().startsWith(JAVA_UTIL_STREAM)
+                && StreamOperations.supports(value, reflectionArguments.getMethodName(),
+                        reflectionArguments.getArguments().length)) {
+            // The JDK streams are called directly; looking up their methods reflectively would
+            // only find the inaccessible implementation classes.
+            handleStreamMethods(v, reflectionArguments);
+            return returnValue;
+        }
+
         Method method = Reflect.findAccessibleMethod(targetClass, reflectionArguments);
         if (method == null && targetClass != null && targetClass.getName().startsWith(JAVA_UTIL_STREAM)) {
             // Short-circuit: method lookup can fail for stream classes when argument types
@@ -1416,7 +1469,7 @@ public class Evaluator implements EvaluationEngine {
             retryArgs.setMethod(retry);
             retryArgs.finalizeArguments();
             Object[] retryFinal = retryArgs.getFinalArgs();
-            returnValue = new Variable(retry.invoke(target2, retryFinal));
+            returnValue = new Variable(Invoker.invoke(retry, target2, retryFinal));
             if (returnValue.getValue() == null && returnValue.getClazz() == null) {
                 returnValue.setClazz(retry.getReturnType());
             }
@@ -1457,479 +1510,25 @@ public class Evaluator implements EvaluationEngine {
     void invoke(Method method, Object[] finalArgs, Variable v) throws InvocationTargetException, IllegalAccessException {
         Object target = java.lang.reflect.Modifier.isStatic(method.getModifiers()) ? null : v.getValue();
         Object[] argsForInvoke = Reflect.coerceArgumentsForNumericParsing(method, finalArgs);
-        returnValue = new Variable(method.invoke(target, argsForInvoke));
+        returnValue = new Variable(Invoker.invoke(method, target, argsForInvoke));
         if (returnValue.getClazz() == null) {
             returnValue.setClazz(method.getReturnType());
         }
     }
 
-    @SuppressWarnings({"java:S3740"})
-    private void handleStreamMethods(Variable v, ReflectionArguments reflectionArguments) throws InvocationTargetException, NoSuchMethodException, IllegalAccessException {
-        String methodName = reflectionArguments.getMethodName();
-        Object obj = v.getValue();
-        Object[] finalArgs = reflectionArguments.getFinalArgs();
-
-        if (obj instanceof IntStream || obj instanceof LongStream || obj instanceof DoubleStream) {
-            dispatchPrimitiveStreamOp(methodName, obj, finalArgs);
-        } else if (obj instanceof Stream<?> stream  && !dispatchIntermediateOp(methodName, stream, finalArgs)) {
-            dispatchTerminalOp(methodName, stream, finalArgs);
-        }
-    }
-
-    /**
-     * Dispatch intermediate stream operations (those that return a new Stream).
-     * <p>
-     * This method handles intermediate operations by:
-     * <ul>
-     *     <li>Converting symbolic evaluation results to appropriate functional interfaces</li>
-     *     <li>Using reflection to invoke the actual stream method on the JDK Stream class</li>
-     *     <li>Preserving the stream type for further chained operations</li>
-     * </ul>
-     *
-     * <p><strong>Type Adaptation:</strong> Arguments are automatically converted from symbolic
-     * evaluation representations (e.g., {@link Variable}, {@link Function}) to the appropriate
-     * functional interfaces ({@link Predicate}, {@link Consumer}, {@link Comparator}, etc.)
-     * using the {@code toStream*} helper methods.
-     *
-     * <p><strong>Supported Operations:</strong> filter, takeWhile, dropWhile, map, flatMap,
-     * peek, sorted, distinct, limit, skip, mapToInt, mapToLong, mapToDouble.
-     *
-     * <p><strong>Null Handling:</strong> The sorted() operation can be invoked with or without
-     * a comparator. Other operations expect non-null arguments as per Stream API contracts.
-     *
-     * @param methodName the name of the stream method to invoke
-     * @param stream the stream instance to operate on
-     * @param finalArgs the arguments for the operation (already symbolically evaluated)
-     * @return {@code true} if the operation was handled, {@code false} if the method name is not
-     *         an intermediate operation and the caller should attempt terminal dispatch.
-     * @throws NoSuchMethodException if the stream method cannot be found via reflection
-     * @throws InvocationTargetException if the stream operation throws an exception
-     * @throws IllegalAccessException if the stream method is not accessible
-     */
-    @SuppressWarnings({"java:S3740", "java:S3776"})
-    private boolean dispatchIntermediateOp(String methodName, Stream<?> stream, Object[] finalArgs) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        Object result;
-        switch (methodName) {
-            case FILTER, TAKE_WHILE, DROP_WHILE -> {
-                UnaryOperator<Object> fn = toStreamFunction(finalArgs[0]);
-                Predicate<Object> pred = x -> Boolean.TRUE.equals(fn.apply(x));
-                result = Stream.class.getMethod(methodName, Predicate.class).invoke(stream, pred);
-            }
-            case MAP -> {
-                UnaryOperator<Object> fn = toStreamFunction(finalArgs[0]);
-                result = Stream.class.getMethod(MAP, Function.class).invoke(stream, fn);
-            }
-            case FLAT_MAP -> {
-                UnaryOperator<Object> fn = toStreamFunction(finalArgs[0]);
-                result = Stream.class.getMethod(FLAT_MAP, Function.class).invoke(stream, fn);
-            }
-            case PEEK -> {
-                Consumer<Object> consumer = toStreamConsumer(finalArgs[0]);
-                result = Stream.class.getMethod(PEEK, Consumer.class).invoke(stream, consumer);
-            }
-            case SORTED -> {
-                if (finalArgs.length == 0 || finalArgs[0] == null) {
-                    result = Stream.class.getMethod(SORTED).invoke(stream);
-                } else {
-                    Comparator<Object> comp = toStreamComparator(finalArgs[0]);
-                    result = Stream.class.getMethod(SORTED, Comparator.class).invoke(stream, comp);
-                }
-            }
-            case DISTINCT -> result = Stream.class.getMethod(DISTINCT).invoke(stream);
-            case LIMIT -> {
-                long n = ((Number) finalArgs[0]).longValue();
-                result = Stream.class.getMethod(LIMIT, long.class).invoke(stream, n);
-            }
-            case SKIP -> {
-                long n = ((Number) finalArgs[0]).longValue();
-                result = Stream.class.getMethod(SKIP, long.class).invoke(stream, n);
-            }
-            case MAP_TO_INT -> {
-                UnaryOperator<Object> fn = toStreamFunction(finalArgs[0]);
-                ToIntFunction<Object> toIntFn = x -> ((Number) fn.apply(x)).intValue();
-                result = Stream.class.getMethod(MAP_TO_INT, ToIntFunction.class).invoke(stream, toIntFn);
-            }
-            case MAP_TO_LONG -> {
-                UnaryOperator<Object> fn = toStreamFunction(finalArgs[0]);
-                ToLongFunction<Object> toLongFn = x -> ((Number) fn.apply(x)).longValue();
-                result = Stream.class.getMethod(MAP_TO_LONG, ToLongFunction.class).invoke(stream, toLongFn);
-            }
-            case MAP_TO_DOUBLE -> {
-                UnaryOperator<Object> fn = toStreamFunction(finalArgs[0]);
-                ToDoubleFunction<Object> toDblFn = x -> ((Number) fn.apply(x)).doubleValue();
-                result = Stream.class.getMethod(MAP_TO_DOUBLE, ToDoubleFunction.class).invoke(stream, toDblFn);
-            }
-            default -> { return false; }
-        }
-        Variable rv = new Variable(result);
-        rv.setClazz(result != null ? result.getClass() : Stream.class);
-        returnValue = rv;
-        return true;
-    }
-
     /**
-     * Dispatch terminal stream operations (those that consume the stream and return a non-stream
-     * result).
-     * <p>
-     * Terminal operations end the stream pipeline and produce a result. This method:
-     * <ul>
-     *     <li>Converts symbolic evaluation results to appropriate functional interfaces</li>
-     *     <li>Invokes the terminal operation using reflection</li>
-     *     <li>Wraps the result in a {@link Variable} with appropriate type information</li>
-     * </ul>
-     *
-     * <p><strong>Type Adaptation:</strong> Similar to intermediate operations, arguments are
-     * automatically converted from symbolic representations to functional interfaces.
-     *
-     * <p><strong>Supported Operations:</strong> forEach, collect, count, toList, toArray,
-     * findFirst, findAny, anyMatch, allMatch, noneMatch, min, max, reduce.
-     *
-     * <p><strong>Result Handling:</strong>
-     * <ul>
-     *     <li>{@code forEach} returns {@code null} wrapped in a Variable</li>
-     *     <li>{@code findFirst}, {@code findAny}, {@code min}, {@code max} return {@link Optional}</li>
-     *     <li>{@code reduce} with one argument returns {@link Optional}, with two returns direct value</li>
-     *     <li>Other operations return their respective result types</li>
-     * </ul>
-     *
-     * <p><strong>Void Operations:</strong> If the method name is not recognized, this method
-     * returns silently (switch default case), allowing the caller to handle unknown operations.
-     *
-     * @param methodName the name of the terminal stream method to invoke
-     * @param stream the stream instance to consume
-     * @param finalArgs the arguments for the operation (already symbolically evaluated)
-     * @throws NoSuchMethodException if the stream method cannot be found via reflection
-     * @throws InvocationTargetException if the stream operation throws an exception
-     * @throws IllegalAccessException if the stream method is not accessible
+     * Invokes an operation of a JDK stream through the public stream interfaces.
+     * The implementations of the streams are not accessible, so they cannot be called reflectively.
+     * If the operation is not supported the return value is left as it is.
      */
-    @SuppressWarnings({"unchecked", "java:S3740", "java:S3776"})
-    private void dispatchTerminalOp(String methodName, Stream<?> stream, Object[] finalArgs) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        Object result;
-        switch (methodName) {
-            case FOR_EACH -> {
-                Consumer<Object> action = toStreamConsumer(finalArgs[0]);
-                stream.forEach(action);
-                returnValue = new Variable(null);
-                return;
-            }
-            case COLLECT -> {
-                if (finalArgs.length == 1) {
-                    Collector<Object, ?, Object> col = (Collector<Object, ?, Object>) finalArgs[0];
-                    result = Stream.class.getMethod(COLLECT, Collector.class).invoke(stream, col);
-                } else if (finalArgs.length == 3) {
-                    @SuppressWarnings("unchecked")
-                    Stream<Object> objectStream = (Stream<Object>) stream;
-                    result = objectStream.collect(
-                            (java.util.function.Supplier<Object>) finalArgs[0],
-                            (java.util.function.BiConsumer<Object, Object>) finalArgs[1],
-                            (java.util.function.BiConsumer<Object, Object>) finalArgs[2]);
-                } else {
-                    throw new AntikytheraException("Unsupported collect overload with " + finalArgs.length + " arguments");
-                }
-            }
-            case COUNT -> result = Stream.class.getMethod(COUNT).invoke(stream);
-            case TO_LIST -> result = Stream.class.getMethod(TO_LIST).invoke(stream);
-            case TO_ARRAY -> result = Stream.class.getMethod(TO_ARRAY).invoke(stream);
-            case FIND_FIRST -> result = Stream.class.getMethod(FIND_FIRST).invoke(stream);
-            case FIND_ANY -> result = Stream.class.getMethod(FIND_ANY).invoke(stream);
-            case ANY_MATCH, ALL_MATCH, NONE_MATCH -> {
-                UnaryOperator<Object> fn = toStreamFunction(finalArgs[0]);
-                Predicate<Object> pred = x -> Boolean.TRUE.equals(fn.apply(x));
-                result = Stream.class.getMethod(methodName, Predicate.class).invoke(stream, pred);
-            }
-            case MIN, MAX -> {
-                Comparator<Object> comp = toStreamComparator(finalArgs[0]);
-                result = Stream.class.getMethod(methodName, Comparator.class).invoke(stream, comp);
-            }
-            case REDUCE -> {
-                if (finalArgs.length == 1) {
-                    BinaryOperator<Object> op = toStreamBinaryOperator(finalArgs[0]);
-                    result = Stream.class.getMethod(REDUCE, BinaryOperator.class).invoke(stream, op);
-                } else if (finalArgs.length == 2) {
-                    BinaryOperator<Object> op = toStreamBinaryOperator(finalArgs[1]);
-                    result = Stream.class.getMethod(REDUCE, Object.class, BinaryOperator.class)
-                            .invoke(stream, finalArgs[0], op);
-                } else if (finalArgs.length == 3) {
-                    @SuppressWarnings("unchecked")
-                    Stream<Object> objectStream = (Stream<Object>) stream;
-                    result = objectStream.reduce(
-                            finalArgs[0],
-                            (java.util.function.BiFunction<Object, Object, Object>) finalArgs[1],
-                            toStreamBinaryOperator(finalArgs[2]));
-                } else {
-                    throw new AntikytheraException("Unsupported reduce overload with " + finalArgs.length + " arguments");
-                }
-            }
-            default -> { return; }
-        }
-        Variable rv = new Variable(result);
-        if (result instanceof Optional) {
-            rv.setClazz(Optional.class);
-        } else if (result != null) {
-            rv.setClazz(result.getClass());
-        }
-        returnValue = rv;
-
-    }
-
-    /**
-     * Dispatch terminal (and conversion) operations on primitive specialised streams
-     * ({@link IntStream}, {@link LongStream}, {@link DoubleStream}).
-     */
-    @SuppressWarnings({"java:S3740", "java:S3776"})
-    private void dispatchPrimitiveStreamOp(String methodName, Object stream, Object[] finalArgs) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        Class<?> iface;
-        if (stream instanceof IntStream) {
-            iface = IntStream.class;
-        } else if (stream instanceof LongStream) {
-            iface = LongStream.class;
-        } else {
-            iface = DoubleStream.class;
-        }
-        Object result;
-        switch (methodName) {
-            case "sum" -> result = iface.getMethod("sum").invoke(stream);
-            case COUNT -> result = iface.getMethod(COUNT).invoke(stream);
-            case "average" -> result = iface.getMethod("average").invoke(stream);
-            case "min" -> result = iface.getMethod("min").invoke(stream);
-            case "max" -> result = iface.getMethod("max").invoke(stream);
-            case "summaryStatistics" -> result = iface.getMethod("summaryStatistics").invoke(stream);
-            case "boxed" -> result = iface.getMethod("boxed").invoke(stream);
-            case TO_LIST -> result = iface.getMethod(TO_LIST).invoke(stream);
-            case TO_ARRAY -> result = iface.getMethod(TO_ARRAY).invoke(stream);
-            case "asLongStream" -> result = IntStream.class.getMethod("asLongStream").invoke(stream);
-            case AS_DOUBLE_STREAM -> {
-                if (stream instanceof IntStream) {
-                    result = IntStream.class.getMethod(AS_DOUBLE_STREAM).invoke(stream);
-                } else {
-                    result = LongStream.class.getMethod(AS_DOUBLE_STREAM).invoke(stream);
-                }
-            }
-            case "filter" -> {
-                UnaryOperator<Object> fn = toStreamFunction(finalArgs[0]);
-                result = switch (stream) {
-                    case IntStream is -> is.filter(n -> Boolean.TRUE.equals(fn.apply(n)));
-                    case LongStream ls -> ls.filter(n -> Boolean.TRUE.equals(fn.apply(n)));
-                    case DoubleStream ds -> ds.filter(n -> Boolean.TRUE.equals(fn.apply(n)));
-                    default -> throw new AntikytheraException("Unsupported primitive stream type for filter: "
-                            + stream.getClass().getName());
-                };
-            }
-            case "map" -> {
-                UnaryOperator<Object> fn = toStreamFunction(finalArgs[0]);
-                result = switch (stream) {
-                    case IntStream is -> is.map(n -> ((Number) fn.apply(n)).intValue());
-                    case LongStream ls -> ls.map(n -> ((Number) fn.apply(n)).longValue());
-                    case DoubleStream ds -> ds.map(n -> ((Number) fn.apply(n)).doubleValue());
-                    default -> throw new AntikytheraException("Unsupported primitive stream type for map: "
-                            + stream.getClass().getName());
-                };
-            }
-            case SORTED -> result = iface.getMethod(SORTED).invoke(stream);
-            case DISTINCT -> result = iface.getMethod(DISTINCT).invoke(stream);
-            case LIMIT -> {
-                long n = ((Number) finalArgs[0]).longValue();
-                result = iface.getMethod(LIMIT, long.class).invoke(stream, n);
-            }
-            case "skip" -> {
-                long n = ((Number) finalArgs[0]).longValue();
-                result = iface.getMethod("skip", long.class).invoke(stream, n);
-            }
-            case REDUCE -> {
-                if (finalArgs.length == 1) {
-                    BinaryOperator<Object> op = toStreamBinaryOperator(finalArgs[0]);
-                    result = switch (stream) {
-                        case IntStream is -> is.reduce((a, b) -> ((Number) op.apply(a, b)).intValue());
-                        case LongStream ls -> ls.reduce((a, b) -> ((Number) op.apply(a, b)).longValue());
-                        case DoubleStream ds -> ds.reduce((a, b) -> ((Number) op.apply(a, b)).doubleValue());
-                        default -> throw new AntikytheraException("Unsupported primitive stream type for reduce: "
-                                + stream.getClass().getName());
-                    };
-                } else {
-                    BinaryOperator<Object> op = toStreamBinaryOperator(finalArgs[1]);
-                    result = switch (stream) {
-                        case IntStream is -> is.reduce(((Number) finalArgs[0]).intValue(),
-                                (a, b) -> ((Number) op.apply(a, b)).intValue());
-                        case LongStream ls -> ls.reduce(((Number) finalArgs[0]).longValue(),
-                                (a, b) -> ((Number) op.apply(a, b)).longValue());
-                        case DoubleStream ds -> ds.reduce(((Number) finalArgs[0]).doubleValue(),
-                                (a, b) -> ((Number) op.apply(a, b)).doubleValue());
-                        default -> throw new AntikytheraException("Unsupported primitive stream type for reduce: "
-                                + stream.getClass().getName());
-                    };
-                }
-            }
-            case "forEach" -> {
-                Consumer<Object> consumer = toStreamConsumer(finalArgs[0]);
-                switch (stream) {
-                    case IntStream is -> is.forEach(consumer::accept);
-                    case LongStream ls -> ls.forEach(consumer::accept);
-                    case DoubleStream ds -> ds.forEach(consumer::accept);
-                    default -> throw new AntikytheraException("Unsupported primitive stream type for forEach: "
-                            + stream.getClass().getName());
-                }
-                returnValue = new Variable(null);
-                return;
-            }
-            case MAP_TO_OBJ -> {
-                UnaryOperator<Object> fn = toStreamFunction(finalArgs[0]);
-                result = switch (stream) {
-                    case IntStream is -> IntStream.class.getMethod(MAP_TO_OBJ, IntFunction.class)
-                            .invoke(is, (IntFunction<Object>) fn::apply);
-                    case LongStream ls -> LongStream.class.getMethod(MAP_TO_OBJ, LongFunction.class)
-                            .invoke(ls, (LongFunction<Object>) fn::apply);
-                    case DoubleStream ds -> DoubleStream.class.getMethod(MAP_TO_OBJ, DoubleFunction.class)
-                            .invoke(ds, (DoubleFunction<Object>) fn::apply);
-                    default -> throw new AntikytheraException("Unsupported primitive stream type for mapToObj: "
-                            + stream.getClass().getName());
-                };
-            }
-            default -> { return; }
-        }
-        Variable rv = new Variable(result);
+    private void handleStreamMethods(Variable v, ReflectionArguments reflectionArguments) {
+        Variable result = StreamOperations.apply(v.getValue(), reflectionArguments.getMethodName(),
+                reflectionArguments.getFinalArgs());
         if (result != null) {
-            rv.setClazz(result.getClass());
+            returnValue = result;
         }
-        returnValue = rv;
-
     }
 
-    /**
-     * Adapts a symbolic evaluation result to a {@link UnaryOperator} for use in stream operations.
-     * <p>
-     * During symbolic evaluation, lambda expressions and method references are represented as
-     * various functional interface types. This method normalizes them to {@code UnaryOperator<Object>}
-     * which is the common form used internally for stream transformations.
-     *
-     * <p><strong>Supported Input Types:</strong>
-     * <ul>
-     *     <li>{@link UnaryOperator} - returned as-is (with unchecked cast)</li>
-     *     <li>{@link Function} - wrapped to return a UnaryOperator that delegates to the function</li>
-     * </ul>
-     *
-     * @param arg the symbolic evaluation result (typically a lambda or method reference)
-     * @return a {@code UnaryOperator<Object>} that can be used in stream operations
-     * @throws AntikytheraException if the argument is null or not a recognized functional type
-     */
-    private static UnaryOperator<Object> toStreamFunction(Object arg) {
-        if (arg instanceof UnaryOperator<?> uo) {
-            return (UnaryOperator<Object>) uo;
-        }
-        if (arg instanceof Function<?, ?> f) {
-            Function fnRaw = f;
-            return fnRaw::apply;
-        }
-        throw new AntikytheraException("Expected Function for stream operation but got: "
-                + (arg == null ? "null" : arg.getClass().getName()));
-    }
-
-    /**
-     * Adapts a symbolic evaluation result to a {@link Consumer} for use in stream operations.
-     * <p>
-     * Stream operations like {@code forEach} and {@code peek} require {@code Consumer} arguments.
-     * This method converts symbolic representations to the expected type.
-     *
-     * <p><strong>Supported Input Types:</strong>
-     * <ul>
-     *     <li>{@link Consumer} - returned as-is (with unchecked cast)</li>
-     *     <li>{@link Function} - converted via {@link #toStreamFunction(Object)} and wrapped
-     *         as a Consumer that ignores the function's return value</li>
-     * </ul>
-     *
-     * <p><strong>Note:</strong> When a Function is provided, its return value is discarded
-     * (side-effect only execution), which matches the semantics of Consumer.
-     *
-     * @param arg the symbolic evaluation result (typically a lambda or method reference)
-     * @return a {@code Consumer<Object>} that can be used in stream operations
-     * @throws AntikytheraException if the argument is null or not a recognized functional type
-     */
-    @SuppressWarnings("unchecked")
-    private static Consumer<Object> toStreamConsumer(Object arg) {
-        if (arg instanceof Consumer<?> c) {
-            return (Consumer<Object>) c;
-        }
-        if (arg instanceof Function<?, ?>) {
-            UnaryOperator<Object> fn = toStreamFunction(arg);
-            return fn::apply;
-        }
-        throw new AntikytheraException("Expected Consumer for stream operation but got: "
-                + (arg == null ? "null" : arg.getClass().getName()));
-    }
-
-    /**
-     * Adapts a symbolic evaluation result to a {@link Comparator} for use in stream operations.
-     * <p>
-     * Stream operations like {@code sorted}, {@code min}, and {@code max} may require
-     * {@code Comparator} arguments. This method converts symbolic representations to the expected type.
-     *
-     * <p><strong>Supported Input Types:</strong>
-     * <ul>
-     *     <li>{@link Comparator} - returned as-is (with unchecked cast)</li>
-     *     <li>{@link BiFunction} - wrapped as a Comparator that:
-     *         <ul>
-     *             <li>Invokes the BiFunction with two comparison arguments</li>
-     *             <li>Converts the result to an int (0 if not a Number)</li>
-     *         </ul>
-     *     </li>
-     * </ul>
-     *
-     * <p><strong>Note:</strong> BiFunction results are expected to be numeric comparison results
-     * (negative, zero, or positive). Non-numeric results default to 0 (equal).
-     *
-     * @param arg the symbolic evaluation result (typically a lambda or method reference)
-     * @return a {@code Comparator<Object>} that can be used in stream operations
-     * @throws AntikytheraException if the argument is null or not a recognized functional type
-     */
-    @SuppressWarnings({"unchecked", "rawtypes"})
-    private static Comparator<Object> toStreamComparator(Object arg) {
-        if (arg instanceof Comparator<?> c) {
-            return (Comparator<Object>) c;
-        }
-        if (arg instanceof BiFunction<?, ?, ?> bf) {
-            BiFunction bfRaw =  bf;
-            return (a, b) -> {
-                Object r = bfRaw.apply(a, b);
-                return r instanceof Number n ? n.intValue() : 0;
-            };
-        }
-        throw new AntikytheraException("Expected Comparator for stream operation but got: "
-                + (arg == null ? "null" : arg.getClass().getName()));
-    }
-
-    /**
-     * Adapts a symbolic evaluation result to a {@link BinaryOperator} for use in stream operations.
-     * <p>
-     * Stream operations like {@code reduce} require {@code BinaryOperator} arguments which combine
-     * two values of the same type into one. This method converts symbolic representations to the
-     * expected type.
-     *
-     * <p><strong>Supported Input Types:</strong>
-     * <ul>
-     *     <li>{@link BinaryOperator} - returned as-is (with unchecked cast)</li>
-     *     <li>{@link BiFunction} - wrapped as a BinaryOperator that delegates to the BiFunction</li>
-     * </ul>
-     *
-     * <p><strong>Note:</strong> Both BinaryOperator and BiFunction have the same functional signature
-     * {@code (T, T) -> T}, so BiFunction can be used interchangeably in this symbolic evaluation context.
-     *
-     * @param arg the symbolic evaluation result (typically a lambda or method reference)
-     * @return a {@code BinaryOperator<Object>} that can be used in stream reduce operations
-     * @throws AntikytheraException if the argument is null or not a recognized functional type
-     */
-    @SuppressWarnings({"unchecked", "rawtypes"})
-    private static BinaryOperator<Object> toStreamBinaryOperator(Object arg) {
-        if (arg instanceof BinaryOperator<?> bo) {
-            return (BinaryOperator<Object>) bo;
-        }
-        if (arg instanceof BiFunction<?, ?, ?> bf) {
-            BiFunction bfRaw =  bf;
-            return bfRaw::apply;
-        }
-        throw new AntikytheraException("Expected BinaryOperator for stream operation but got: "
-                + (arg == null ? "null" : arg.getClass().getName()));
-    }
-
-
     /**
      * Execute a method that is part of a chain of method calls
      *
@@ -2067,7 +1666,7 @@ public class Evaluator implements EvaluationEngine {
             if (old == null) {
                 field = "is" + methodName.replace("set", "");
             }
-            if (AntikytheraRunTime.stack.isEmpty()) {
+            if (AntikytheraRunTime.isEmptyStack()) {
                 logger.debug("Skipping Lombok setter '{}': no argument on stack", methodName);
                 return new Variable(null);
             }
@@ -2133,6 +1732,22 @@ public class Evaluator implements EvaluationEngine {
         }
     }
 
+    /**
+     * Returns the evaluator to the state that it was in when the factory created it, so that it can
+     * be used again. The class, the compilation unit and the name of the variable are kept.
+     * Subclasses that hold state of their own should clear it as well.
+     */
+    protected void prepareForReuse() {
+        fields.clear();
+        locals.clear();
+        returnValue = null;
+        returnFrom = null;
+        loops.clear();
+        catching.clear();
+        capturedOutputStream = null;
+        fieldSnapshot = null;
+    }
+
     public void setVariableName(String variableName) {
         this.variableName = variableName;
     }
@@ -2308,6 +1923,9 @@ public class Evaluator implements EvaluationEngine {
 
     /**
      * Execute a method represented by the CallableDeclaration
+     * A void method that the {@link PurityAnalyzer} finds to be inert is not evaluated at all, and
+     * a side effect free method that has been called with the same arguments before gives back the
+     * result remembered by the {@link PureMethodCache}.
      *
      * @param cd a callable declaration
      * @return the result of the method execution. If the method is void, this will be null
@@ -2317,20 +1935,45 @@ public class Evaluator implements EvaluationEngine {
      */
     public Variable executeMethod(CallableDeclaration<?> cd) throws ReflectiveOperationException {
         if (cd instanceof MethodDeclaration md) {
-            returnFrom = null;
-            returnValue = null;
+            ExecutionBudget.enterCall();
+            try {
+                return executeMethodBody(md);
+            } finally {
+                ExecutionBudget.exitCall();
+            }
+        }
+        return null;
+    }
 
-            BlockStmt body = md.getBody().orElseThrow();
-            body.findAll(BlockStmt.class).forEach(block -> locals.remove(block.hashCode()));
+    private Variable executeMethodBody(MethodDeclaration md) throws ReflectiveOperationException {
+        returnFrom = null;
+        returnValue = null;
 
-            List<Statement> statements = body.getStatements();
-            setupParameters(md);
+        BlockStmt body = md.getBody().orElseThrow();
+        body.findAll(BlockStmt.class).forEach(block -> locals.remove(blockId(block)));
 
-            executeBlock(statements);
+        List<Statement> statements = body.getStatements();
+        setupParameters(md);
 
-            return returnValue;
+        if (PurityAnalyzer.canSkip(md)) {
+            PureMethodCache.recordSkipped();
+            return null;
         }
-        return null;
+        PureMethodCache.Call call = isMemoizable(md) ? PureMethodCache.callFor(this, md) : null;
+        if (call != null) {
+            PureMethodCache.Result cached = PureMethodCache.lookup(call);
+            if (cached != null) {
+                returnValue = cached.copy();
+                return returnValue;
+            }
+        }
+
+        executeBlock(statements);
+
+        if (call != null && getLastException() == null) {
+            PureMethodCache.remember(call, returnValue);
+        }
+        return returnValue;
     }
 
     @Override
@@ -2338,6 +1981,18 @@ public class Evaluator implements EvaluationEngine {
         return executeMethod((CallableDeclaration<?>) md);
     }
 
+    /**
+     * Whether the result of the method may be taken from the {@link PureMethodCache} instead of
+     * executing its body. Subclasses that need the body to run, for example because executing it
+     * is what produces the tests, can refuse.
+     *
+     * @param md the method about to be executed
+     * @return true if a remembered result may be used
+     */
+    protected boolean isMemoizable(MethodDeclaration md) {
+        return true;
+    }
+
 
     /**
      * Copies the parameters from the stack into the local variable space of the method.
@@ -2391,6 +2046,8 @@ public class Evaluator implements EvaluationEngine {
         }
         try {
             executeBlockHelper(statements);
+        } catch (BudgetExceededException e) {
+            throw e;
         } catch (Exception e) {
             handleApplicationException(e, statements.getFirst().findAncestor(BlockStmt.class).orElse(null));
         }
@@ -2400,10 +2057,12 @@ public class Evaluator implements EvaluationEngine {
     private void executeBlockHelper(List<Statement> statements) throws Exception {
         Evaluator.clearLastExceptionContext();
         for (Statement stmt : statements) {
-            if (lastExceptionContext != null && lastExceptionContext.getException() != null) {
-                throw lastExceptionContext.getException();
+            Exception pending = getLastException();
+            if (pending != null) {
+                throw pending;
             }
             if (loops.isEmpty() || loops.peekLast().equals(Boolean.TRUE)) {
+                ExecutionBudget.statement();
                 executeStatement(stmt);
                 if (returnFrom != null) {
                     MethodDeclaration parent = returnFrom.findAncestor(MethodDeclaration.class).orElse(null);
@@ -2548,6 +2207,7 @@ public class Evaluator implements EvaluationEngine {
         evaluateExpression(forEachStmt.getVariable());
 
         for (int i = 0; i < Array.getLength(iterValue); i++) {
+            ExecutionBudget.loopIteration();
             Object value = Array.get(iterValue, i);
             for (VariableDeclarator vdecl : forEachStmt.getVariable().getVariables()) {
                 Symbol v = getLocal(forEachStmt, vdecl.getNameAsString());
@@ -2581,6 +2241,7 @@ public class Evaluator implements EvaluationEngine {
         try {
             int iteration = 0;
             for (Object value : list) {
+                ExecutionBudget.loopIteration();
                 loopCtx.setIterationWhenThrown(iteration);
                 loopCtx.setCurrentElement(new Variable(value));
                 
@@ -2636,6 +2297,7 @@ public class Evaluator implements EvaluationEngine {
             }
             while ((boolean) evaluateExpression(forStmt.getCompare().orElseThrow()).getValue() &&
                     Boolean.TRUE.equals(loops.peekLast())) {
+                ExecutionBudget.loopIteration();
                 loopCtx.setIterationWhenThrown(iteration);
                 executeBlock(forStmt.getBody().asBlockStmt().getStatements());
                 for (Node n : forStmt.getUpdate()) {
@@ -2663,6 +2325,7 @@ public class Evaluator implements EvaluationEngine {
         try {
             int iteration = 0;
             do {
+                ExecutionBudget.loopIteration();
                 loopCtx.setIterationWhenThrown(iteration);
                 executeBlock(whileStmt.getBody().asBlockStmt().getStatements());
                 iteration++;
@@ -2692,6 +2355,7 @@ public class Evaluator implements EvaluationEngine {
         try {
             int iteration = 0;
             while ((boolean) evaluateExpression(whileStmt.getCondition()).getValue() && Boolean.TRUE.equals(loops.peekLast())) {
+                ExecutionBudget.loopIteration();
                 loopCtx.setIterationWhenThrown(iteration);
                 executeBlock(whileStmt.getBody().asBlockStmt().getStatements());
                 iteration++;
@@ -2767,7 +2431,7 @@ public class Evaluator implements EvaluationEngine {
 
     private static void setLastException(Exception e) {
         if (e == null) {
-            lastExceptionContext = null;
+            clearLastExceptionContext();
             return;
         }
         
@@ -2781,7 +2445,7 @@ public class Evaluator implements EvaluationEngine {
             ctx.setLoopContext(loops.peek());
         }
         
-        lastExceptionContext = ctx;
+        EvaluationContext.current().lastExceptionContext = ctx;
     }
 
     private boolean isExceptionMatch(TypeWrapper wrapper, Exception e) {
@@ -2804,8 +2468,64 @@ public class Evaluator implements EvaluationEngine {
     }
 
     public void setupFields() {
-        cu.accept(new LazyFieldVisitor(className), null);
-        processParentClasses(typeDeclaration, "LazyFieldVisitor");
+        boolean initializing = AntikytheraRunTime.beginClassInitialization(className);
+        try {
+            cu.accept(new LazyFieldVisitor(className), null);
+            processParentClasses(typeDeclaration, LAZY_FIELD_VISITOR);
+            if (initializing) {
+                initializeStatics();
+                AntikytheraRunTime.endClassInitialization(className);
+            }
+        } catch (RuntimeException e) {
+            if (initializing) {
+                AntikytheraRunTime.abandonClassInitialization(className);
+            }
+            throw e;
+        }
+        setupLogger();
+    }
+
+    /**
+     * Executes the static blocks of the class and its parents and publishes the values that the
+     * static fields ended up with. This is done once, when the class is initialized; evaluators
+     * that are created later find the static fields in the {@link AntikytheraRunTime}.
+     */
+    private void initializeStatics() {
+        cu.accept(new FieldVisitor(className, true), null);
+        processParentClasses(typeDeclaration, STATIC_INITIALIZER_VISITOR);
+        if (typeDeclaration != null) {
+            for (FieldDeclaration field : typeDeclaration.getFields()) {
+                if (field.isStatic()) {
+                    for (VariableDeclarator variable : field.getVariables()) {
+                        if (fields.get(variable.getNameAsString()) instanceof Variable v) {
+                            AntikytheraRunTime.setStaticVariable(className, variable.getNameAsString(), v);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets up the fields in the same way as {@link #setupFields()} and remembers how that was done.
+     * @return a snapshot that can set up the fields again, null if they cannot be set up that way
+     */
+    FieldSnapshot snapshotFields() {
+        FieldSnapshot snapshot = new FieldSnapshot();
+        fieldSnapshot = snapshot;
+        try {
+            setupFields();
+        } finally {
+            fieldSnapshot = null;
+        }
+        if (!snapshot.isReplayable()) {
+            return null;
+        }
+        snapshot.capture(this);
+        return snapshot;
+    }
+
+    void setupLogger() {
         if (typeDeclaration != null) {
             typeDeclaration.getAnnotationByName("Slf4j").ifPresent(annotation -> {
                 try {
@@ -2820,8 +2540,8 @@ public class Evaluator implements EvaluationEngine {
     }
 
     public void initializeFields() {
-        cu.accept(new FieldVisitor(className), null);
-        processParentClasses(typeDeclaration, "FieldVisitor");
+        cu.accept(new FieldVisitor(className, false), null);
+        processParentClasses(typeDeclaration, FIELD_VISITOR);
     }
 
     @Override
@@ -2836,8 +2556,11 @@ public class Evaluator implements EvaluationEngine {
                 if (parentClass != null) {
                     CompilationUnit parentCu = AntikytheraRunTime.getCompilationUnit(parentClass);
                     if (parentCu != null) {
-                        VoidVisitorAdapter<?> v = visitorName.equals("LazyFieldVisitor")
-                                ? new LazyFieldVisitor(parentClass) : new FieldVisitor(parentClass);
+                        VoidVisitorAdapter<?> v = switch (visitorName) {
+                            case LAZY_FIELD_VISITOR -> new LazyFieldVisitor(parentClass);
+                            case STATIC_INITIALIZER_VISITOR -> new FieldVisitor(parentClass, true);
+                            default -> new FieldVisitor(parentClass, false);
+                        };
 
                         parentCu.accept(v, null);
 
@@ -2860,6 +2583,14 @@ public class Evaluator implements EvaluationEngine {
                     fields.put(variableDeclarator.getNameAsString(), s);
                     return;
                 }
+                if (AntikytheraRunTime.getClassState(getClassName()) == AntikytheraRunTime.ClassState.INITIALIZED) {
+                    /*
+                     * The initializer was evaluated when the class was initialized and did not
+                     * produce a value, evaluating it again will not help.
+                     */
+                    setupFieldWithoutInitializer(variableDeclarator);
+                    return;
+                }
             }
             if (variableDeclarator.getInitializer().isEmpty()
                         && field.getAnnotationByName("Mock").isEmpty()
@@ -2933,7 +2664,7 @@ public class Evaluator implements EvaluationEngine {
 
     private void checkSequences(FieldDeclaration field, VariableDeclarator variableDeclarator, Variable v) {
         if (isSequenceField(field, variableDeclarator)) {
-            incrementSequence();
+            long sequence = incrementSequence();
             v.setValue(sequence);
             MethodCallExpr mce = new MethodCallExpr(
                     "set" + AbstractCompiler.setterSuffixFromFieldName(variableDeclarator.getNameAsString()));
@@ -3018,7 +2749,11 @@ public class Evaluator implements EvaluationEngine {
         this.cu = compilationUnit;
     }
 
-    private boolean isSequenceField(FieldDeclaration field,  VariableDeclarator variableDeclarator) {
+    /**
+     * @return true if the field is the id of an entity, which takes the next value of a sequence
+     *      every time that it is set up
+     */
+    boolean isSequenceField(FieldDeclaration field,  VariableDeclarator variableDeclarator) {
 
         String typeName = variableDeclarator.getTypeAsString();
         return (field.getAnnotationByName("Id").isPresent()
@@ -3027,8 +2762,8 @@ public class Evaluator implements EvaluationEngine {
                 && ( typeName.equals("int") || typeName.equals("long") || typeName.equals("Integer") || typeName.equals("Long")));
     }
 
-    private static void incrementSequence() {
-        sequence++;
+    private static long incrementSequence() {
+        return ++EvaluationContext.current().sequence;
     }
 
     /**
@@ -3062,6 +2797,9 @@ public class Evaluator implements EvaluationEngine {
                             || matchingClass.endsWith("." + cdecl.getNameAsString())));
                     if (sameClass) {
                         setupField(field, variable);
+                        if (fieldSnapshot != null) {
+                            fieldSnapshot.record(field, variable);
+                        }
                     }
                 });
             }
@@ -3072,6 +2810,9 @@ public class Evaluator implements EvaluationEngine {
         public void visit(EnumConstantDeclaration ecd, Void arg) {
             ecd.findAncestor(EnumDeclaration.class).ifPresent(enumDecl -> {
                 if (enumDecl.getFullyQualifiedName().isPresent() && enumDecl.getFullyQualifiedName().get().equals(matchingClass)) {
+                    if (fieldSnapshot != null) {
+                        fieldSnapshot.recordUnsupported();
+                    }
                     Variable v = AntikytheraRunTime.getStaticVariable(enumDecl.getFullyQualifiedName().get(), ecd.getNameAsString());
                     if (v == null) {
                         ObjectCreationExpr oce = new ObjectCreationExpr()
@@ -3094,17 +2835,25 @@ public class Evaluator implements EvaluationEngine {
         }
     }
 
+    /**
+     * Executes either the static or the instance initializer blocks of a class.
+     */
     private class FieldVisitor extends VoidVisitorAdapter<Void> {
         String matchingClass;
+        boolean statics;
 
-        FieldVisitor(String matchinClass) {
+        FieldVisitor(String matchinClass, boolean statics) {
             this.matchingClass = matchinClass;
+            this.statics = statics;
         }
 
         @SuppressWarnings("unchecked")
         @Override
         public void visit(InitializerDeclaration init, Void arg) {
             super.visit(init, arg);
+            if (init.isStatic() != statics) {
+                return;
+            }
             init.findAncestor(ClassOrInterfaceDeclaration.class)
                     .flatMap(ClassOrInterfaceDeclaration::getFullyQualifiedName)
                     .ifPresent(name -> {
@@ -3133,18 +2882,19 @@ public class Evaluator implements EvaluationEngine {
     }
 
     public static Exception getLastException() {
-        return lastExceptionContext != null ? lastExceptionContext.getException() : null;
+        ExceptionContext ctx = EvaluationContext.current().lastExceptionContext;
+        return ctx != null ? ctx.getException() : null;
     }
     
     public static ExceptionContext getLastExceptionContext() {
-        return lastExceptionContext;
+        return EvaluationContext.current().lastExceptionContext;
     }
 
     public static void clearLastException() {
-        lastExceptionContext = null;
+        EvaluationContext.current().lastExceptionContext = null;
     }
     
     public static void clearLastExceptionContext() {
-        lastExceptionContext = null;
+        EvaluationContext.current().lastExceptionContext = null;
     }
 }
@@ -1,15 +1,78 @@
 package sa.com.cloudsolutions.antikythera.evaluator;
 
 import com.github.javaparser.ast.CompilationUnit;
+import com.sun.management.ThreadMXBean;
+import sa.com.cloudsolutions.antikythera.evaluator.functional.BiConsumerEvaluator;
+import sa.com.cloudsolutions.antikythera.evaluator.functional.BiFunctionEvaluator;
+import sa.com.cloudsolutions.antikythera.evaluator.functional.ConsumerEvaluator;
+import sa.com.cloudsolutions.antikythera.evaluator.functional.FunctionEvaluator;
+import sa.com.cloudsolutions.antikythera.evaluator.functional.NAryConsumerEvaluator;
+import sa.com.cloudsolutions.antikythera.evaluator.functional.NAryFunctionEvaluator;
+import sa.com.cloudsolutions.antikythera.evaluator.functional.RunnableEvaluator;
+import sa.com.cloudsolutions.antikythera.evaluator.functional.SupplierEvaluator;
 import sa.com.cloudsolutions.antikythera.exception.AntikytheraException;
 
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 
 public class EvaluatorFactory {
+    /**
+     * The constructor of each kind of evaluator, so that creating one does not need reflection.
+     * Types that have not been registered are looked up reflectively the first time they are
+     * asked for.
+     */
+    private static final Map<Class<?>, Function<Context, ? extends Evaluator>> constructors = new ConcurrentHashMap<>();
+    private static final AtomicLong created = new AtomicLong();
+    private static final AtomicLong reused = new AtomicLong();
+    private static final AtomicLong reflective = new AtomicLong();
+    /**
+     * Counts the bytes allocated while constructing evaluators, when the JVM can measure the
+     * allocations of a thread. Null when it cannot.
+     */
+    private static final ThreadMXBean allocations = allocationCounter();
+    private static final AtomicLong allocated = new AtomicLong();
+
+    static {
+        register(Evaluator.class, Evaluator::new);
+        register(ControlFlowEvaluator.class, ControlFlowEvaluator::new);
+        register(MockingEvaluator.class, MockingEvaluator::new);
+        register(SpringEvaluator.class, SpringEvaluator::new);
+        register(InnerClassEvaluator.class, InnerClassEvaluator::new);
+        register(SupplierEvaluator.class, SupplierEvaluator::new);
+        register(FunctionEvaluator.class, FunctionEvaluator::new);
+        register(BiFunctionEvaluator.class, BiFunctionEvaluator::new);
+        register(NAryFunctionEvaluator.class, NAryFunctionEvaluator::new);
+        register(RunnableEvaluator.class, RunnableEvaluator::new);
+        register(ConsumerEvaluator.class, ConsumerEvaluator::new);
+        register(BiConsumerEvaluator.class, BiConsumerEvaluator::new);
+        register(NAryConsumerEvaluator.class, NAryConsumerEvaluator::new);
+    }
 
     private EvaluatorFactory() {}
 
+    /**
+     * Registers the constructor to use for a kind of evaluator.
+     * @param evaluatorType the class of {@link Evaluator} (or one of its subclasses)
+     * @param constructor creates an instance of the evaluator type from a context
+     */
+    public static void register(Class<? extends Evaluator> evaluatorType, Function<Context, ? extends Evaluator> constructor) {
+        constructors.put(evaluatorType, constructor);
+    }
+
+    /**
+     * Removes the constructor registered for a kind of evaluator. The next time that the type is
+     * asked for, its constructor is looked up reflectively again.
+     * @param evaluatorType the class of {@link Evaluator} (or one of its subclasses)
+     */
+    public static void unregister(Class<? extends Evaluator> evaluatorType) {
+        constructors.remove(evaluatorType);
+    }
+
     /**
      * Eagerly create an evaluator.
      * When eager mode is used, all the fields will be explored and evaluators will be created for
@@ -45,6 +108,21 @@ public class EvaluatorFactory {
         return create(c, evaluatorType);
     }
 
+    /**
+     * Eagerly create an evaluator within an evaluation context other than the one of the current
+     * thread. The fields, the static fields and the autowired instances of the evaluator are set up
+     * in that context. Its methods should then be executed within the same context, see
+     * {@link EvaluationContext#call(java.util.concurrent.Callable)}.
+     *
+     * @param className the class for which we are creating an evaluator
+     * @param evaluatorType an instance of Evaluator or one of it's subclasses
+     * @param context the evaluation context that the evaluator will belong to
+     * @return an evaluator instance.
+     */
+    public static <T extends Evaluator> T create(String className, Class<T> evaluatorType, EvaluationContext context) {
+        return context.get(() -> create(className, evaluatorType));
+    }
+
     /**
      * Create an evaluator with the given context (eager mode).
      * <p>
@@ -126,26 +204,115 @@ public class EvaluatorFactory {
             return evaluatorType.cast(autoWired);
         }
 
+        Function<Context, ? extends Evaluator> constructor = constructors.computeIfAbsent(evaluatorType,
+                EvaluatorFactory::reflectiveConstructor);
+        long before = allocatedBytes();
+        Evaluator eval = constructor.apply(c);
+        if (before >= 0) {
+            allocated.addAndGet(allocatedBytes() - before);
+        }
+        created.incrementAndGet();
+        return evaluatorType.cast(eval);
+    }
+
+    private static ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+            return bean;
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of bytes that the current thread has allocated so far, -1 if that cannot
+     * be measured
+     */
+    private static long allocatedBytes() {
+        return allocations == null ? -1 : allocations.getCurrentThreadAllocatedBytes();
+    }
+
+    private static Function<Context, Evaluator> reflectiveConstructor(Class<?> evaluatorType) {
         try {
-            Constructor<T> constructor = evaluatorType.getDeclaredConstructor(Context.class);
-            Evaluator eval = constructor.newInstance(c);
-            return evaluatorType.cast(eval);
-        } catch (ReflectiveOperationException e) {
+            Constructor<?> constructor = evaluatorType.getDeclaredConstructor(Context.class);
+            return c -> {
+                try {
+                    reflective.incrementAndGet();
+                    return (Evaluator) constructor.newInstance(c);
+                } catch (ReflectiveOperationException e) {
+                    throw new AntikytheraException(e);
+                }
+            };
+        } catch (NoSuchMethodException e) {
             throw new AntikytheraException(e);
         }
     }
 
+    /**
+     * Prepares an evaluator that was created earlier to be used again in place of a new one.
+     * Used when a method is executed once more to cover another branch and the evaluators that
+     * stood in for the mocked fields during the previous execution are no longer referenced.
+     *
+     * @param evaluator the evaluator that will be used again
+     * @return the same evaluator, in the state that the factory created it in
+     */
+    public static <T extends Evaluator> T reuse(T evaluator) {
+        evaluator.prepareForReuse();
+        reused.incrementAndGet();
+        return evaluator;
+    }
+
+    /**
+     * @return the number of evaluators that have been constructed
+     */
+    public static long getCreated() {
+        return created.get();
+    }
+
+    /**
+     * @return the number of times that an existing evaluator was used instead of constructing one
+     */
+    public static long getReused() {
+        return reused.get();
+    }
+
+    /**
+     * @return the number of evaluators that had to be constructed through reflection
+     */
+    public static long getReflective() {
+        return reflective.get();
+    }
+
+    /**
+     * @return the number of bytes allocated while constructing evaluators, 0 if the JVM does not
+     * measure the allocations of threads
+     */
+    public static long getAllocatedBytes() {
+        return allocated.get();
+    }
+
+    public static void resetStatistics() {
+        allocated.set(0);
+        created.set(0);
+        reused.set(0);
+        reflective.set(0);
+    }
+
     public static class Context {
         String className;
         Evaluator enclosure;
+        EvaluationContext evaluationContext;
 
         private Context(String className) {
             this.className = className;
+            this.evaluationContext = EvaluationContext.current();
         }
 
         private Context(String className, Evaluator enclosure) {
             this(className);
             this.enclosure = enclosure;
+            if (enclosure != null && enclosure.getEvaluationContext() != null) {
+                this.evaluationContext = enclosure.getEvaluationContext();
+            }
         }
 
         public String getClassName() {
@@ -156,6 +323,13 @@ public class EvaluatorFactory {
             return enclosure;
         }
 
+        /**
+         * @return the evaluation context that the new evaluator belongs to
+         */
+        public EvaluationContext getEvaluationContext() {
+            return evaluationContext;
+        }
+
         @Override
         public String toString() {
             if (className != null) {
@@ -0,0 +1,258 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+import sa.com.cloudsolutions.antikythera.exception.BudgetExceededException;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Limits how much work the evaluator may spend on a method or class under test.</p>
+ *
+ * A single pathological method, with a loop that never ends or a recursion that goes too deep,
+ * would otherwise keep a worker busy indefinitely. The {@link SpringEvaluator} starts a budget
+ * for each method under test, which covers every execution needed to explore its branches, and
+ * the methods of a class together share a budget of their own. The evaluator reports each
+ * statement, loop iteration and method call as it goes, and once a limit has been passed it throws
+ * a {@link BudgetExceededException}. The budget stays exhausted until the method is finished, so
+ * the evaluation is cut short even if the exception is caught and wrapped along the way.
+ *
+ * The limits are read from {@link Settings#EXECUTION_BUDGET}. Outside of a method under test,
+ * for example while the fields of a class are being set up, nothing is enforced.
+ */
+public final class ExecutionBudget {
+    /**
+     * The resources that are limited.
+     */
+    public enum Kind {
+        WALL_TIME("wallTime"),
+        STATEMENTS("statements"),
+        LOOP_ITERATIONS("loopIterations"),
+        CALL_DEPTH("callDepth");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public static final String METHOD_WALL_TIME = "method_wall_time_ms";
+    public static final String METHOD_STATEMENTS = "method_statements";
+    public static final String METHOD_LOOP_ITERATIONS = "method_loop_iterations";
+    public static final String CLASS_WALL_TIME = "class_wall_time_ms";
+    public static final String CLASS_STATEMENTS = "class_statements";
+    public static final String CLASS_LOOP_ITERATIONS = "class_loop_iterations";
+    public static final String CALL_DEPTH = "call_depth";
+
+    static final long DEFAULT_METHOD_WALL_TIME = 600_000;
+    static final long DEFAULT_CALL_DEPTH = 256;
+    /**
+     * Reading the clock for every statement would cost more than the statement, so it is only
+     * read this often.
+     */
+    private static final int CLOCK_INTERVAL = 64;
+
+    private static final Map<Kind, AtomicLong> exhausted = new EnumMap<>(Kind.class);
+
+    static {
+        for (Kind kind : Kind.values()) {
+            exhausted.put(kind, new AtomicLong());
+        }
+    }
+
+    /**
+     * The work done within one method or class, together with its limits. A limit of 0 is not
+     * enforced.
+     */
+    private static final class Counter {
+        private final String scope;
+        private long wallTimeLimit;
+        private long statementLimit;
+        private long loopLimit;
+        private long started;
+        private long statements;
+        private long loopIterations;
+
+        Counter(String scope) {
+            this.scope = scope;
+        }
+
+        void start(long wallTimeLimit, long statementLimit, long loopLimit) {
+            this.wallTimeLimit = wallTimeLimit;
+            this.statementLimit = statementLimit;
+            this.loopLimit = loopLimit;
+            started = System.nanoTime();
+            statements = 0;
+            loopIterations = 0;
+        }
+
+        long elapsedMillis() {
+            return (System.nanoTime() - started) / 1_000_000;
+        }
+    }
+
+    private final Counter method = new Counter("method");
+    private final Counter clazz = new Counter("class");
+    private String className;
+    private long callDepthLimit;
+    private int depth;
+    private boolean active;
+    private BudgetExceededException exceeded;
+
+    ExecutionBudget() {
+    }
+
+    private static ExecutionBudget current() {
+        return EvaluationContext.current().budget;
+    }
+
+    /**
+     * Starts the budget of a method under test. The budget of the class is started as well when
+     * the method belongs to a different class than the previous one.
+     *
+     * @param className the class that the method belongs to
+     * @throws BudgetExceededException if the class has already used up its budget
+     */
+    public static void beginMethod(String className) {
+        ExecutionBudget budget = current();
+        if (!Objects.equals(className, budget.className)) {
+            budget.className = className;
+            budget.clazz.start(Settings.getExecutionBudget(CLASS_WALL_TIME, 0),
+                    Settings.getExecutionBudget(CLASS_STATEMENTS, 0),
+                    Settings.getExecutionBudget(CLASS_LOOP_ITERATIONS, 0));
+        }
+        budget.method.start(Settings.getExecutionBudget(METHOD_WALL_TIME, DEFAULT_METHOD_WALL_TIME),
+                Settings.getExecutionBudget(METHOD_STATEMENTS, 0),
+                Settings.getExecutionBudget(METHOD_LOOP_ITERATIONS, 0));
+        budget.callDepthLimit = Settings.getExecutionBudget(CALL_DEPTH, DEFAULT_CALL_DEPTH);
+        budget.exceeded = null;
+        budget.active = true;
+        budget.checkClass();
+    }
+
+    /**
+     * Stops enforcing the budget of the method under test.
+     *
+     * @return the exception that cut the method short, null if it stayed within its budget
+     */
+    public static BudgetExceededException endMethod() {
+        ExecutionBudget budget = current();
+        budget.active = false;
+        BudgetExceededException e = budget.exceeded;
+        budget.exceeded = null;
+        return e;
+    }
+
+    /**
+     * @return true if the method under test has used up its budget or that of its class
+     */
+    public static boolean isExceeded() {
+        return current().exceeded != null;
+    }
+
+    /**
+     * Counts a statement about to be executed.
+     */
+    public static void statement() {
+        ExecutionBudget budget = current();
+        if (budget.active) {
+            budget.checkExceeded();
+            budget.count(Kind.STATEMENTS, ++budget.method.statements, ++budget.clazz.statements);
+            if (budget.method.statements % CLOCK_INTERVAL == 0) {
+                budget.checkClock();
+            }
+        }
+    }
+
+    /**
+     * Counts an iteration of a loop about to be executed.
+     */
+    public static void loopIteration() {
+        ExecutionBudget budget = current();
+        if (budget.active) {
+            budget.checkExceeded();
+            budget.count(Kind.LOOP_ITERATIONS, ++budget.method.loopIterations, ++budget.clazz.loopIterations);
+            if (budget.method.loopIterations % CLOCK_INTERVAL == 0) {
+                budget.checkClock();
+            }
+        }
+    }
+
+    /**
+     * Called before the body of a method is evaluated, must be matched by {@link #exitCall()}.
+     */
+    public static void enterCall() {
+        ExecutionBudget budget = current();
+        if (budget.active) {
+            budget.checkExceeded();
+            if (budget.callDepthLimit > 0 && budget.depth >= budget.callDepthLimit) {
+                throw budget.exceed(Kind.CALL_DEPTH, "method", budget.depth + 1, budget.callDepthLimit);
+            }
+        }
+        budget.depth++;
+    }
+
+    public static void exitCall() {
+        current().depth--;
+    }
+
+    private void checkExceeded() {
+        if (exceeded != null) {
+            throw exceeded;
+        }
+    }
+
+    private void count(Kind kind, long methodCount, long classCount) {
+        long methodLimit = kind == Kind.STATEMENTS ? method.statementLimit : method.loopLimit;
+        long classLimit = kind == Kind.STATEMENTS ? clazz.statementLimit : clazz.loopLimit;
+        if (methodLimit > 0 && methodCount > methodLimit) {
+            throw exceed(kind, method.scope, methodCount, methodLimit);
+        }
+        if (classLimit > 0 && classCount > classLimit) {
+            throw exceed(kind, clazz.scope, classCount, classLimit);
+        }
+    }
+
+    private void checkClock() {
+        for (Counter counter : new Counter[]{method, clazz}) {
+            if (counter.wallTimeLimit > 0 && counter.elapsedMillis() > counter.wallTimeLimit) {
+                throw exceed(Kind.WALL_TIME, counter.scope, counter.elapsedMillis(), counter.wallTimeLimit);
+            }
+        }
+    }
+
+    private void checkClass() {
+        checkClock();
+        if (clazz.statementLimit > 0 && clazz.statements >= clazz.statementLimit) {
+            throw exceed(Kind.STATEMENTS, clazz.scope, clazz.statements, clazz.statementLimit);
+        }
+        if (clazz.loopLimit > 0 && clazz.loopIterations >= clazz.loopLimit) {
+            throw exceed(Kind.LOOP_ITERATIONS, clazz.scope, clazz.loopIterations, clazz.loopLimit);
+        }
+    }
+
+    private BudgetExceededException exceed(Kind kind, String scope, long used, long limit) {
+        exhausted.get(kind).incrementAndGet();
+        exceeded = new BudgetExceededException(String.format("The %s budget of the %s %s was exceeded: %d > %d",
+                kind.getLabel(), scope, className, used, limit), kind);
+        return exceeded;
+    }
+
+    /**
+     * @return the number of times that a budget of the given kind was exhausted
+     */
+    public static long getExhausted(Kind kind) {
+        return exhausted.get(kind).get();
+    }
+
+    public static void resetStatistics() {
+        exhausted.values().forEach(count -> count.set(0));
+    }
+}
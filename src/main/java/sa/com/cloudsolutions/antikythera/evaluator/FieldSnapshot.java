@@ -0,0 +1,280 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Remembers how the fields of an evaluator were set up, so that they can be set up again
+ * without searching the compilation unit and evaluating every initializer.</p>
+ *
+ * The {@link SpringEvaluator} executes the methods of a class once for every branch that it tries
+ * to cover and every execution starts with fresh fields. Finding the fields means visiting the
+ * whole compilation unit of the class and its parents. The snapshot keeps the declarations in the
+ * order in which they were found, so that at most {@link Evaluator#setupField} has to be repeated.
+ *
+ * Fields that hold immutable values, such as strings, numbers and enum constants, or one of the
+ * standard collections filled with such values, do not even need that. Their value right after
+ * set up is kept as a template. A field that still holds the variable it was given last time,
+ * with a value equal to the template, is left alone; only a field that an execution reassigned or
+ * modified gets a fresh copy. Collections always get a fresh copy. A mocked field that is backed
+ * by a {@link MockingEvaluator} of its own gets the same evaluator back, reset through
+ * {@link EvaluatorFactory#reuse}, an autowired field gets the bean back as long as it is still
+ * the one registered under its name, and the logger of the class is kept. Everything else,
+ * including static fields and the ids of entities, which take the next value of a sequence each
+ * time, is set up again.
+ */
+final class FieldSnapshot {
+    private static final class Entry {
+        final FieldDeclaration field;
+        final VariableDeclarator declarator;
+        /**
+         * The value right after set up, null if the field has to be set up again.
+         */
+        Variable template;
+        /**
+         * The evaluator that stands in for a mocked field, null if there is none.
+         */
+        MockingEvaluator mock;
+        /**
+         * The name that the value of an autowired field is registered under, null if the field
+         * is not autowired.
+         */
+        String wiredAs;
+        /**
+         * The variable that the field was given by the last set up.
+         */
+        Variable issued;
+
+        Entry(FieldDeclaration field, VariableDeclarator declarator) {
+            this.field = field;
+            this.declarator = declarator;
+        }
+
+        String name() {
+            return declarator.getNameAsString();
+        }
+    }
+
+    /**
+     * The standard mutable collections that {@link #copyOf(Object)} knows how to copy.
+     */
+    private static final Set<String> COPYABLE = Set.of("java.util.ArrayList", "java.util.LinkedList",
+            "java.util.HashSet", "java.util.LinkedHashSet", "java.util.TreeSet",
+            "java.util.HashMap", "java.util.LinkedHashMap", "java.util.TreeMap");
+
+    private final List<Entry> entries = new ArrayList<>();
+    private boolean replayable = true;
+    private Symbol logger;
+    private long copies;
+    private long kept;
+
+    void record(FieldDeclaration field, VariableDeclarator declarator) {
+        entries.add(new Entry(field, declarator));
+    }
+
+    /**
+     * Fields that are not found through a field declaration, such as enum constants, cannot be
+     * replayed.
+     */
+    void recordUnsupported() {
+        replayable = false;
+    }
+
+    boolean isReplayable() {
+        return replayable;
+    }
+
+    /**
+     * Keeps templates of the fields that hold immutable values, the evaluators of the mocked
+     * fields and the logger, once they have all been set up.
+     */
+    void capture(Evaluator evaluator) {
+        for (Entry entry : entries) {
+            if (entry.field.isStatic()) {
+                continue;
+            }
+            Symbol value = evaluator.fields.get(entry.name());
+            String wiredAs = value instanceof Variable v ? AntikytheraRunTime.findAutoWire(v) : null;
+            if (value instanceof Variable v && v.getValue() instanceof MockingEvaluator mock && !isShared(mock)) {
+                entry.mock = mock;
+            } else if (wiredAs != null) {
+                entry.wiredAs = wiredAs;
+                entry.issued = (Variable) value;
+            } else if (entry.field.getAnnotationByName("Mock").isEmpty()
+                    && entry.field.getAnnotationByName("Autowired").isEmpty()
+                    && !evaluator.isSequenceField(entry.field, entry.declarator)
+                    && value instanceof Variable v && hasTemplate(v.getValue())) {
+                entry.template = copy(v);
+                entry.issued = v;
+            }
+        }
+        logger = evaluator.fields.get("log");
+    }
+
+    /**
+     * Sets up the fields of the evaluator again, in the same order as the first time.
+     */
+    void restore(Evaluator evaluator) {
+        for (Entry entry : entries) {
+            if (entry.template != null) {
+                if (isUntouched(entry, evaluator.fields.get(entry.name()))) {
+                    kept++;
+                } else {
+                    entry.issued = copy(entry.template);
+                    evaluator.fields.put(entry.name(), entry.issued);
+                    copies++;
+                }
+            } else if (entry.mock != null) {
+                GeneratorState.addImport(new ImportDeclaration(entry.mock.getClassName(), false, false));
+                Variable v = new Variable(EvaluatorFactory.reuse(entry.mock));
+                v.setType(entry.declarator.getType());
+                evaluator.fields.put(entry.name(), v);
+            } else if (entry.wiredAs != null && AntikytheraRunTime.getAutoWire(entry.wiredAs) == entry.issued) {
+                evaluator.fields.put(entry.name(), entry.issued);
+            } else {
+                evaluator.setupField(entry.field, entry.declarator);
+            }
+        }
+        if (logger != null) {
+            evaluator.fields.put("log", logger);
+        } else {
+            evaluator.setupLogger();
+        }
+    }
+
+    /**
+     * A field is untouched when it still holds the variable that it was given and that variable
+     * still has the value of the template. A collection is never taken to be untouched, because
+     * the previous execution may have handed it to an object that outlives the execution, which
+     * would then see the changes made by the next one.
+     */
+    private static boolean isUntouched(Entry entry, Symbol current) {
+        Object value = entry.template.getValue();
+        return current == entry.issued && !(value instanceof Collection<?> || value instanceof Map<?, ?>)
+                && Objects.equals(entry.issued.getValue(), value);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    int reused() {
+        return (int) entries.stream().filter(e -> e.template != null || e.mock != null || e.wiredAs != null).count();
+    }
+
+    /**
+     * @return the number of times that a field was given a fresh copy of its template
+     */
+    long copies() {
+        return copies;
+    }
+
+    /**
+     * @return the number of times that a field was left alone because no execution had changed it
+     */
+    long kept() {
+        return kept;
+    }
+
+    /**
+     * Evaluators that have been autowired are shared with every class that depends on them, so
+     * they are not reset.
+     */
+    private static boolean isShared(MockingEvaluator mock) {
+        Variable wired = AntikytheraRunTime.getAutoWire(mock.getClassName());
+        return wired != null && wired.getValue() == mock;
+    }
+
+    /**
+     * @return true if the value can be kept as a template: an immutable value or one of the
+     *      standard collections holding immutable values
+     */
+    static boolean hasTemplate(Object value) {
+        return switch (value) {
+            case Collection<?> c -> isCopyable(c) && c.stream().allMatch(FieldSnapshot::isImmutableElement);
+            case Map<?, ?> m -> isCopyable(m)
+                    && m.keySet().stream().allMatch(FieldSnapshot::isImmutableElement)
+                    && m.values().stream().allMatch(FieldSnapshot::isImmutableElement);
+            case null, default -> isImmutableElement(value);
+        };
+    }
+
+    static boolean isImmutableElement(Object value) {
+        return value == null || value instanceof String || value instanceof Boolean || value instanceof Character
+                || value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte || value instanceof Double || value instanceof Float
+                || value instanceof BigDecimal || value instanceof BigInteger
+                || value instanceof Enum<?> || value instanceof Class<?> || value instanceof Pattern;
+    }
+
+    private static boolean isCopyable(Object collection) {
+        return COPYABLE.contains(collection.getClass().getName());
+    }
+
+    /**
+     * Copies one of the {@link #COPYABLE} collections, keeping its class, order and comparator.
+     * @return the copy or null if the collection is of some other class
+     */
+    @SuppressWarnings("unchecked")
+    private static Object copyOf(Object value) {
+        return switch (value.getClass().getName()) {
+            case "java.util.ArrayList" -> new ArrayList<>((Collection<?>) value);
+            case "java.util.LinkedList" -> new LinkedList<>((Collection<?>) value);
+            case "java.util.HashSet" -> new HashSet<>((Collection<?>) value);
+            case "java.util.LinkedHashSet" -> new LinkedHashSet<>((Collection<?>) value);
+            case "java.util.TreeSet" -> new TreeSet<>((SortedSet<Object>) value);
+            case "java.util.HashMap" -> new HashMap<>((Map<?, ?>) value);
+            case "java.util.LinkedHashMap" -> new LinkedHashMap<>((Map<?, ?>) value);
+            case "java.util.TreeMap" -> new TreeMap<>((SortedMap<Object, Object>) value);
+            default -> null;
+        };
+    }
+
+    /**
+     * Copies a variable that {@link #hasTemplate} accepted, including its collection if it has one.
+     */
+    static Variable copy(Variable v) {
+        Variable copy = new Variable(copyValue(v.getValue()));
+        copy.setClazz(v.getClazz());
+        if (v.getType() != null) {
+            copy.setType(v.getType());
+        }
+        copy.setInitializer(new ArrayList<>(v.getInitializer()));
+        copy.setName(v.getName());
+        copy.setFailedMock(v.isFailedMock());
+        return copy;
+    }
+
+    /**
+     * Gives a variable the value of a template made by {@link #copy(Variable)}, with a fresh copy
+     * of its collection if it has one.
+     */
+    static void restore(Variable target, Variable template) {
+        target.setValue(copyValue(template.getValue()));
+        target.setClazz(template.getClazz());
+    }
+
+    private static Object copyValue(Object value) {
+        return value instanceof Collection<?> || value instanceof Map<?, ?> ? copyOf(value) : value;
+    }
+}
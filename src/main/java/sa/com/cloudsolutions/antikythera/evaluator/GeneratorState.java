@@ -3,45 +3,29 @@ package sa.com.cloudsolutions.antikythera.evaluator;
 import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.expr.Expression;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Deque;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /**
- * Holds static state accumulated during code evaluation that is used by the test generator.
+ * Holds state accumulated during code evaluation that is used by the test generator.
  * This allows the core evaluators (ControlFlowEvaluator, MockingRegistry, Reflect) to
  * record imports and mock setups without directly depending on TestGenerator.
+ * The state belongs to the {@link EvaluationContext} of the current thread.
  */
 public class GeneratorState {
-    private static List<Expression> whenThen = new ArrayList<>();
-    private static Set<ImportDeclaration> imports = new HashSet<>();
-
-    /** {@code scopeVariable|methodName} → fully qualified cast target for methods that return Object. */
-    private static final Map<String, String> mockStubReturnHints = new HashMap<>();
-
-    /**
-     * When evaluating {@code (T) mock.call()}, holds {@code T} so Mockito stubs use a cast-compatible
-     * {@code thenReturn} value instead of {@code new Object()}.
-     */
-    private static final Deque<String> pendingObjectStubReturnFqns = new ArrayDeque<>();
-
     private GeneratorState() {}
 
     public static void addWhenThen(Expression expr) {
-        whenThen.add(expr);
+        EvaluationContext.current().whenThen.add(expr);
     }
 
     public static void clearWhenThen() {
-        whenThen.clear();
+        EvaluationContext.current().whenThen.clear();
     }
 
     public static List<Expression> getWhenThen() {
-        return whenThen;
+        return EvaluationContext.current().whenThen;
     }
 
     public static void addImport(ImportDeclaration s) {
@@ -51,52 +35,57 @@ public class GeneratorState {
         if (name.startsWith("sa.com.cloudsolutions.antikythera.") || name.contains("$")) {
             return;
         }
-        imports.add(s);
+        EvaluationContext.current().imports.add(s);
     }
 
     public static Set<ImportDeclaration> getImports() {
-        return imports;
+        return EvaluationContext.current().imports;
     }
 
     public static void clearImports() {
-        imports.clear();
+        EvaluationContext.current().imports.clear();
     }
 
     public static void clearMockStubReturnHints() {
-        mockStubReturnHints.clear();
+        EvaluationContext.current().mockStubReturnHints.clear();
     }
 
     public static void putMockStubReturnHint(String scopeVariableName, String methodName, String returnTypeFqn) {
         if (scopeVariableName == null || methodName == null || returnTypeFqn == null) {
             return;
         }
-        mockStubReturnHints.put(scopeVariableName + "|" + methodName, returnTypeFqn);
+        EvaluationContext.current().mockStubReturnHints.put(scopeVariableName + "|" + methodName, returnTypeFqn);
     }
 
     public static String getMockStubReturnHint(String scopeVariableName, String methodName) {
         if (scopeVariableName == null || methodName == null) {
             return null;
         }
-        return mockStubReturnHints.get(scopeVariableName + "|" + methodName);
+        return EvaluationContext.current().mockStubReturnHints.get(scopeVariableName + "|" + methodName);
     }
 
+    /**
+     * When evaluating {@code (T) mock.call()}, holds {@code T} so Mockito stubs use a cast-compatible
+     * {@code thenReturn} value instead of {@code new Object()}.
+     */
     public static void pushPendingObjectStubReturnFqn(String fqn) {
         if (fqn != null) {
-            pendingObjectStubReturnFqns.push(fqn);
+            EvaluationContext.current().pendingObjectStubReturnFqns.push(fqn);
         }
     }
 
     public static void popPendingObjectStubReturnFqn() {
-        if (!pendingObjectStubReturnFqns.isEmpty()) {
-            pendingObjectStubReturnFqns.pop();
+        Deque<String> pending = EvaluationContext.current().pendingObjectStubReturnFqns;
+        if (!pending.isEmpty()) {
+            pending.pop();
         }
     }
 
     public static String peekPendingObjectStubReturnFqn() {
-        return pendingObjectStubReturnFqns.isEmpty() ? null : pendingObjectStubReturnFqns.peek();
+        return EvaluationContext.current().pendingObjectStubReturnFqns.peek();
     }
 
     public static void clearPendingObjectStubReturnFqns() {
-        pendingObjectStubReturnFqns.clear();
+        EvaluationContext.current().pendingObjectStubReturnFqns.clear();
     }
 }
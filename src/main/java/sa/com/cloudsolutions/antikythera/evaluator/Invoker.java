@@ -0,0 +1,389 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Invokes methods and constructors and accesses fields of compiled classes.</p>
+ *
+ * Each {@link Method}, {@link Constructor} or {@link Field} is converted once into a
+ * {@link MethodHandle} that takes its arguments as an array and returns a boxed result. The
+ * handles are kept per declaring class, the same way that {@link Reflect} keeps the methods
+ * that it has looked up. The arguments are checked with the same rules that reflection applies,
+ * so the callers see the exceptions that {@link Method#invoke(Object, Object...)} and friends
+ * would have thrown: {@link IllegalArgumentException} for a mismatched argument,
+ * {@link IllegalAccessException} for a member that is not accessible and
+ * {@link InvocationTargetException} for anything thrown by the member itself.
+ *
+ * The difference is in the methods that reflection refuses to call. A public method of a class
+ * that is not public, such as {@code hasNext()} on the iterator of an {@code ArrayList}, is
+ * bound once through the interface or superclass that declares it publicly. With reflection
+ * every such call has to fail with an exception before it is retried through the public
+ * declaration. Fields found through {@link #findField(Class, String)} are looked up and made
+ * accessible only once.
+ *
+ * Members that cannot be turned into a handle are invoked through reflection. Setting
+ * {@value Settings#METHOD_HANDLES} to false uses reflection for everything.
+ */
+public final class Invoker {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    /**
+     * The value of {@link Settings#METHOD_HANDLES} as of a revision of the configuration.
+     */
+    private record MethodHandlesSetting(int revision, boolean enabled) {}
+
+    private static volatile MethodHandlesSetting methodHandles = new MethodHandlesSetting(-1, true);
+
+    /**
+     * @param handle the adapted method handle, null if the member has to be used through reflection
+     * @param parameterTypes the parameters that the arguments are checked against
+     * @param inaccessible true if the handle could not be created because of access control. Such
+     *                     a member is tried again once its accessible flag has been set.
+     */
+    private record Handle(MethodHandle handle, Class<?>[] parameterTypes, boolean inaccessible) {
+        static final Handle REFLECTION = new Handle(null, null, false);
+        static final Handle INACCESSIBLE = new Handle(null, null, true);
+    }
+
+    private static final ClassValue<Map<Member, Handle>> INVOKERS = new ClassValue<>() {
+        @Override
+        protected Map<Member, Handle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ClassValue<Map<String, Optional<Field>>> FIELDS = new ClassValue<>() {
+        @Override
+        protected Map<String, Optional<Field>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ClassValue<Map<Field, Handle>> GETTERS = new ClassValue<>() {
+        @Override
+        protected Map<Field, Handle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ClassValue<Map<Field, Handle>> SETTERS = new ClassValue<>() {
+        @Override
+        protected Map<Field, Handle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private Invoker() {
+    }
+
+    /**
+     * The equivalent of {@link Method#invoke(Object, Object...)}.
+     *
+     * @param method the method to invoke
+     * @param target the receiver, ignored for static methods
+     * @param args the arguments, with any variable arguments already packed into an array
+     * @return the boxed return value, null for void methods
+     * @throws IllegalAccessException if the method is not accessible
+     * @throws InvocationTargetException if the method threw an exception
+     */
+    public static Object invoke(Method method, Object target, Object... args)
+            throws IllegalAccessException, InvocationTargetException {
+        Handle h = useMethodHandles()
+                ? handle(INVOKERS.get(method.getDeclaringClass()), method, Invoker::forMethod)
+                : Handle.REFLECTION;
+        if (h.handle == null) {
+            return method.invoke(target, args);
+        }
+        Object[] arguments = args == null ? NO_ARGUMENTS : args;
+        if (!Modifier.isStatic(method.getModifiers())) {
+            checkTarget(method, target);
+        }
+        checkArguments(h.parameterTypes, arguments);
+        try {
+            return (Object) h.handle.invokeExact(target, arguments);
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    /**
+     * The equivalent of {@link Constructor#newInstance(Object...)}.
+     *
+     * @param constructor the constructor to invoke
+     * @param args the arguments, with any variable arguments already packed into an array
+     * @return the new instance
+     * @throws ReflectiveOperationException if the instance cannot be created or the constructor
+     *      threw an exception
+     */
+    public static Object newInstance(Constructor<?> constructor, Object... args) throws ReflectiveOperationException {
+        Handle h = useMethodHandles()
+                ? handle(INVOKERS.get(constructor.getDeclaringClass()), constructor, Invoker::forConstructor)
+                : Handle.REFLECTION;
+        if (h.handle == null) {
+            return constructor.newInstance(args);
+        }
+        Object[] arguments = args == null ? NO_ARGUMENTS : args;
+        checkArguments(h.parameterTypes, arguments);
+        try {
+            return (Object) h.handle.invokeExact(arguments);
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    /**
+     * The equivalent of {@link Field#get(Object)}.
+     *
+     * @param field the field to read
+     * @param target the object that holds the field, ignored for static fields
+     * @return the boxed value of the field
+     * @throws IllegalAccessException if the field is not accessible
+     */
+    public static Object get(Field field, Object target) throws IllegalAccessException {
+        Handle h = useMethodHandles()
+                ? handle(GETTERS.get(field.getDeclaringClass()), field, Invoker::forGetter)
+                : Handle.REFLECTION;
+        if (h.handle == null) {
+            return field.get(target);
+        }
+        if (!Modifier.isStatic(field.getModifiers())) {
+            checkTarget(field, target);
+        }
+        try {
+            return (Object) h.handle.invokeExact(target);
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * The equivalent of {@link Field#set(Object, Object)}.
+     *
+     * @param field the field to write
+     * @param target the object that holds the field, ignored for static fields
+     * @param value the new value
+     * @throws IllegalAccessException if the field is not accessible or cannot be written
+     */
+    public static void set(Field field, Object target, Object value) throws IllegalAccessException {
+        Handle h = useMethodHandles()
+                ? handle(SETTERS.get(field.getDeclaringClass()), field, Invoker::forSetter)
+                : Handle.REFLECTION;
+        if (h.handle == null) {
+            field.set(target, value);
+            return;
+        }
+        if (!Modifier.isStatic(field.getModifiers())) {
+            checkTarget(field, target);
+        }
+        checkArguments(h.parameterTypes, new Object[]{value});
+        try {
+            h.handle.invokeExact(target, value);
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Finds a field declared by the given class and makes it accessible if that is allowed.
+     * The outcome is remembered, including the absence of the field.
+     *
+     * @param type the class that declares the field
+     * @param name the name of the field
+     * @return the field, which is shared and should not be modified by the caller
+     * @throws NoSuchFieldException if the class does not declare such a field
+     */
+    @SuppressWarnings("java:S3011")
+    public static Field findField(Class<?> type, String name) throws NoSuchFieldException {
+        Optional<Field> field = FIELDS.get(type).computeIfAbsent(name, n -> {
+            try {
+                Field f = type.getDeclaredField(n);
+                f.trySetAccessible();
+                return Optional.of(f);
+            } catch (NoSuchFieldException e) {
+                return Optional.empty();
+            }
+        });
+        if (field.isEmpty()) {
+            throw new NoSuchFieldException(name);
+        }
+        return field.get();
+    }
+
+    /**
+     * The setting is looked up again only after the configuration has changed.
+     */
+    static boolean useMethodHandles() {
+        MethodHandlesSetting setting = methodHandles;
+        int revision = Settings.getRevision();
+        if (setting.revision() != revision) {
+            setting = new MethodHandlesSetting(revision,
+                    Settings.getProperty(Settings.METHOD_HANDLES, Boolean.class).orElse(true));
+            methodHandles = setting;
+        }
+        return setting.enabled();
+    }
+
+    @FunctionalInterface
+    private interface Factory<M> {
+        Handle create(M member) throws IllegalAccessException;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static <M extends AccessibleObject & Member> Handle handle(Map<? super M, Handle> handles, M member,
+            Factory<M> factory) {
+        Handle h = handles.get(member);
+        if (h == null || (h.inaccessible && member.isAccessible())) {
+            try {
+                h = factory.create(member);
+            } catch (IllegalAccessException e) {
+                h = Handle.INACCESSIBLE;
+            } catch (RuntimeException e) {
+                h = Handle.REFLECTION;
+            }
+            handles.put(member, h);
+        }
+        return h;
+    }
+
+    /**
+     * Adapts the method to the type {@code (Object, Object[])Object}. Static methods ignore
+     * the first argument.
+     */
+    private static Handle forMethod(Method method) throws IllegalAccessException {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        MethodHandle mh;
+        try {
+            mh = LOOKUP.unreflect(method).asFixedArity();
+        } catch (IllegalAccessException e) {
+            Method counterpart = Modifier.isStatic(method.getModifiers()) ? null
+                    : Reflect.findPublicMethod(method.getDeclaringClass(), method.getName(), parameterTypes);
+            if (counterpart == null) {
+                throw e;
+            }
+            mh = LOOKUP.unreflect(counterpart).asFixedArity();
+        }
+        if (Modifier.isStatic(method.getModifiers())) {
+            mh = MethodHandles.dropArguments(mh, 0, Object.class);
+        }
+        mh = mh.asType(MethodType.genericMethodType(parameterTypes.length + 1))
+                .asSpreader(Object[].class, parameterTypes.length);
+        return new Handle(mh, parameterTypes, false);
+    }
+
+    /**
+     * Adapts the constructor to the type {@code (Object[])Object}.
+     */
+    private static Handle forConstructor(Constructor<?> constructor) throws IllegalAccessException {
+        if (Modifier.isAbstract(constructor.getDeclaringClass().getModifiers())) {
+            return Handle.REFLECTION;
+        }
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        MethodHandle mh = LOOKUP.unreflectConstructor(constructor).asFixedArity()
+                .asType(MethodType.genericMethodType(parameterTypes.length))
+                .asSpreader(Object[].class, parameterTypes.length);
+        return new Handle(mh, parameterTypes, false);
+    }
+
+    /**
+     * Adapts the getter to the type {@code (Object)Object}.
+     */
+    private static Handle forGetter(Field field) throws IllegalAccessException {
+        MethodHandle mh = LOOKUP.unreflectGetter(field);
+        if (Modifier.isStatic(field.getModifiers())) {
+            mh = MethodHandles.dropArguments(mh, 0, Object.class);
+        }
+        return new Handle(mh.asType(MethodType.genericMethodType(1)), null, false);
+    }
+
+    /**
+     * Adapts the setter to the type {@code (Object, Object)void}.
+     */
+    private static Handle forSetter(Field field) throws IllegalAccessException {
+        MethodHandle mh = LOOKUP.unreflectSetter(field);
+        if (Modifier.isStatic(field.getModifiers())) {
+            mh = MethodHandles.dropArguments(mh, 0, Object.class);
+        }
+        mh = mh.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return new Handle(mh, new Class<?>[]{field.getType()}, false);
+    }
+
+    private static void checkTarget(Member member, Object target) {
+        if (target == null) {
+            throw new NullPointerException("Cannot use " + member.getName() + " without an instance");
+        }
+        if (!member.getDeclaringClass().isInstance(target)) {
+            throw new IllegalArgumentException("object is not an instance of declaring class");
+        }
+    }
+
+    private static void checkArguments(Class<?>[] parameterTypes, Object[] args) {
+        if (parameterTypes.length != args.length) {
+            throw new IllegalArgumentException("wrong number of arguments: " + args.length
+                    + " expected: " + parameterTypes.length);
+        }
+        for (int i = 0; i < args.length; i++) {
+            if (!accepts(parameterTypes[i], args[i])) {
+                throw new IllegalArgumentException("argument type mismatch");
+            }
+        }
+    }
+
+    /**
+     * Applies the rules of reflection: a reference parameter takes null or an instance of its
+     * type, a primitive parameter takes a wrapper that can be unboxed and widened to it.
+     */
+    static boolean accepts(Class<?> parameterType, Object arg) {
+        if (!parameterType.isPrimitive()) {
+            return arg == null || parameterType.isInstance(arg);
+        }
+        if (parameterType == boolean.class) {
+            return arg instanceof Boolean;
+        }
+        if (parameterType == char.class) {
+            return arg instanceof Character;
+        }
+        int to = rank(parameterType);
+        if (arg instanceof Character) {
+            return to >= rank(int.class);
+        }
+        int from = arg == null ? 0 : rank(arg.getClass());
+        return from > 0 && from <= to;
+    }
+
+    private static int rank(Class<?> type) {
+        if (type == byte.class || type == Byte.class) {
+            return 1;
+        }
+        if (type == short.class || type == Short.class) {
+            return 2;
+        }
+        if (type == int.class || type == Integer.class) {
+            return 3;
+        }
+        if (type == long.class || type == Long.class) {
+            return 4;
+        }
+        if (type == float.class || type == Float.class) {
+            return 5;
+        }
+        if (type == double.class || type == Double.class) {
+            return 6;
+        }
+        return 0;
+    }
+}
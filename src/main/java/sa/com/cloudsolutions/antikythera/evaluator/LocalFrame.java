@@ -0,0 +1,157 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>The local variables of one block statement, kept in the order in which they were declared.</p>
+ *
+ * A block rarely declares more than a handful of variables, so they are kept in two arrays instead
+ * of a hash table. Each variable has a slot, its position in the arrays. Once the
+ * {@link Evaluator} has found the variable that a name refers to, it remembers the slot and reads
+ * it directly the next time, see {@link #get(int, String)}. The frame is still a map of names so
+ * that the enclosing evaluator of a lambda or an inner class can look variables up by name.
+ */
+final class LocalFrame extends AbstractMap<String, Symbol> {
+    private String[] names = new String[4];
+    private Symbol[] values = new Symbol[4];
+    private int size;
+
+    /**
+     * @param slot the slot that the variable was found in before
+     * @param name the name of the variable
+     * @return the variable in the slot, or null if the slot now holds another variable
+     */
+    Symbol get(int slot, String name) {
+        return slot < size && Objects.equals(names[slot], name) ? values[slot] : null;
+    }
+
+    /**
+     * @param name the name of a variable
+     * @return the slot of the variable, -1 if the block does not have a variable with that name
+     */
+    int slotOf(Object name) {
+        for (int i = 0; i < size; i++) {
+            if (Objects.equals(names[i], name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Symbol get(Object key) {
+        int slot = slotOf(key);
+        return slot < 0 ? null : values[slot];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return slotOf(key) >= 0;
+    }
+
+    @Override
+    public Symbol put(String key, Symbol value) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            Symbol old = values[slot];
+            values[slot] = value;
+            return old;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        names[size] = key;
+        values[size++] = value;
+        return null;
+    }
+
+    @Override
+    public Symbol remove(Object key) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return null;
+        }
+        Symbol old = values[slot];
+        removeSlot(slot);
+        return old;
+    }
+
+    private void removeSlot(int slot) {
+        int moved = size - slot - 1;
+        System.arraycopy(names, slot + 1, names, slot, moved);
+        System.arraycopy(values, slot + 1, values, slot, moved);
+        size--;
+        names[size] = null;
+        values[size] = null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<String, Symbol>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Symbol>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+                    private int last = -1;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public Entry<String, Symbol> next() {
+                        if (next >= size) {
+                            throw new NoSuchElementException();
+                        }
+                        last = next++;
+                        int slot = last;
+                        return new SimpleEntry<>(names[slot], values[slot]) {
+                            @Override
+                            public Symbol setValue(Symbol value) {
+                                super.setValue(value);
+                                Symbol old = values[slot];
+                                values[slot] = value;
+                                return old;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last < 0) {
+                            throw new IllegalStateException();
+                        }
+                        removeSlot(last);
+                        next = last;
+                        last = -1;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
@@ -138,9 +138,8 @@ public class MethodInterceptor {
 
             // Fallback: read directly from instance field
             try {
-                Field field = instance.getClass().getDeclaredField(fieldName);
-                field.setAccessible(true);
-                return field.get(instance);
+                Field field = Invoker.findField(instance.getClass(), fieldName);
+                return Invoker.get(field, instance);
             } catch (NoSuchFieldException e) {
                 logger.debug("Getter fallback: field '{}' not found on {}", fieldName, instance.getClass().getName());
             }
@@ -152,9 +151,8 @@ public class MethodInterceptor {
             String fieldName = getFieldNameFromSetter(method.getName());
             try {
                 // Update instance field
-                Field field = instance.getClass().getDeclaredField(fieldName);
-                field.setAccessible(true);
-                field.set(instance, args[0]);
+                Field field = Invoker.findField(instance.getClass(), fieldName);
+                Invoker.set(field, instance, args[0]);
 
                 // Update evaluator field
                 evaluator.setField(fieldName, new Variable(args[0]));
@@ -207,9 +205,8 @@ public class MethodInterceptor {
         for (FieldDeclaration field : dtoType.getFields()) {
             String fieldName = field.getVariable(0).getNameAsString();
             try {
-                Field instanceField = instance.getClass().getDeclaredField(fieldName);
-                instanceField.setAccessible(true);
-                Object value = instanceField.get(instance);
+                Field instanceField = Invoker.findField(instance.getClass(), fieldName);
+                Object value = Invoker.get(instanceField, instance);
 
                 // Only update if instance has a non-null value and evaluator doesn't
                 if (value != null) {
@@ -252,8 +249,7 @@ public class MethodInterceptor {
 
             if (evaluatorFieldValue != null) {
                 try {
-                    Field instanceField = instance.getClass().getDeclaredField(fieldName);
-                    instanceField.setAccessible(true);
+                    Field instanceField = Invoker.findField(instance.getClass(), fieldName);
 
                     Object value = evaluatorFieldValue.getValue();
                     if (value instanceof EvaluationEngine eval) {
@@ -261,9 +257,9 @@ public class MethodInterceptor {
                         MethodInterceptor nestedInterceptor = new MethodInterceptor(eval);
                         Class<?> nestedClass = AKBuddy.createDynamicClass(nestedInterceptor);
                         Object nestedInstance = AKBuddy.createInstance(nestedClass, nestedInterceptor);
-                        instanceField.set(instance, nestedInstance);
+                        Invoker.set(instanceField, instance, nestedInstance);
                     } else {
-                        instanceField.set(instance, value);
+                        Invoker.set(instanceField, instance, value);
                     }
                 } catch (NoSuchFieldException e) {
                     logger.debug("Sync to instance: field '{}' not found on {} (skipping)", fieldName, instance.getClass().getName());
@@ -301,9 +297,9 @@ public class MethodInterceptor {
                 // Create instance if the method is not static
                 if (!java.lang.reflect.Modifier.isStatic(targetMethod.getModifiers())) {
                     Object instance = wrappedClass.getDeclaredConstructor().newInstance();
-                    return targetMethod.invoke(instance, args);
+                    return Invoker.invoke(targetMethod, instance, args);
                 }
-                return targetMethod.invoke(null, args);
+                return Invoker.invoke(targetMethod, null, args);
             } catch (NoSuchMethodException e) {
                 logger.debug("Wrapped class '{}' does not declare method '{}' with given signature", wrappedClass.getName(), method.getName());
             }
@@ -480,17 +476,15 @@ public class MethodInterceptor {
                 String fieldName = method.getName().substring(3);
                 fieldName = Character.toLowerCase(fieldName.charAt(0)) + fieldName.substring(1);
                 try {
-                    Field field = instance.getClass().getDeclaredField(fieldName);
-                    field.setAccessible(true);
-                    field.set(instance, args[0]);
+                    Field field = Invoker.findField(instance.getClass(), fieldName);
+                    Invoker.set(field, instance, args[0]);
                 } catch (NoSuchFieldException e) {
                     logger.debug("MethodDeclarationSupport: field '{}' not found on {} (setter path)", fieldName, instance.getClass().getName());
                 }
             }
 
-            Field f = instance.getClass().getDeclaredField(AKBuddy.INSTANCE_INTERCEPTOR);
-            f.setAccessible(true);
-            MethodInterceptor parent = (MethodInterceptor) f.get(instance);
+            Field f = Invoker.findField(instance.getClass(), AKBuddy.INSTANCE_INTERCEPTOR);
+            MethodInterceptor parent = (MethodInterceptor) Invoker.get(f, instance);
             return parent.intercept(instance, method, args, sourceMethod);
         }
     }
@@ -520,11 +514,10 @@ public class MethodInterceptor {
         @RuntimeType
         @SuppressWarnings("java:S3011")
         public Object intercept(@This Object instance, @Origin Constructor<?> constructor, @AllArguments Object[] args) throws ReflectiveOperationException {
-            Field f = instance.getClass().getDeclaredField(AKBuddy.INSTANCE_INTERCEPTOR);
-            f.setAccessible(true);
+            Field f = Invoker.findField(instance.getClass(), AKBuddy.INSTANCE_INTERCEPTOR);
             Evaluator eval = EvaluatorFactory.create(constructor.getDeclaringClass().getName(), Evaluator.class);
             MethodInterceptor parent = new MethodInterceptor(eval);
-            f.set(instance, parent);
+            Invoker.set(f, instance, parent);
             return parent.intercept(instance, constructor, args, sourceConstructor);
         }
     }
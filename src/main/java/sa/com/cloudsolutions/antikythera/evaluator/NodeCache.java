@@ -0,0 +1,53 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import com.github.javaparser.ast.Node;
+
+/**
+ * <p>Remembers something that was worked out about a node, such as the callable that a method call
+ * resolves to.</p>
+ *
+ * The compilation units are shared by every {@link EvaluationContext}, so what is learnt about a
+ * node cannot be stored in the node data of JavaParser, which is a plain identity map that two
+ * contexts on different threads would be writing to at the same time. Instead each context has a
+ * map of its own for every cache. A context created for a task is used by one thread at a time, so
+ * its maps need no locks. The global context is shared by all the threads that have not been given
+ * a context, so its maps are synchronized. Nodes are compared by identity, a clone of a node does
+ * not see the entry of the original.
+ *
+ * The maps hold their nodes strongly. Everything that a context remembers about nodes is
+ * discarded by {@link AntikytheraRunTime#clearNodeCaches()}, which the
+ * {@link sa.com.cloudsolutions.antikythera.parser.DepsolvingParser} calls before evaluating each
+ * method, and by {@link AntikytheraRunTime#resetAll()}.
+ *
+ * @param <T> the type of the values that are remembered
+ */
+public final class NodeCache<T> {
+
+    /**
+     * @param node a node of the AST
+     * @return the value remembered for the node in the current context, null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public T get(Node node) {
+        return (T) EvaluationContext.current().nodeCache(this).get(node);
+    }
+
+    /**
+     * Remembers a value for the node in the current context.
+     *
+     * @param node a node of the AST
+     * @param value the value to remember
+     */
+    public void put(Node node, T value) {
+        EvaluationContext.current().nodeCache(this).put(node, value);
+    }
+
+    /**
+     * Forgets the value remembered for the node in the current context.
+     *
+     * @param node a node of the AST
+     */
+    public void remove(Node node) {
+        EvaluationContext.current().nodeCache(this).remove(node);
+    }
+}
@@ -1,5 +1,7 @@
 package sa.com.cloudsolutions.antikythera.evaluator;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 
 public class NumericComparator {
     private NumericComparator() {
@@ -30,7 +32,9 @@ public class NumericComparator {
         }
         return switch (left) {
             case Number leftNumber when right instanceof Number rightNumber -> {
-                if (leftNumber instanceof Double || rightNumber instanceof Double) {
+                if ((isBig(leftNumber) || isBig(rightNumber)) && isFinite(leftNumber) && isFinite(rightNumber)) {
+                    yield toBigDecimal(leftNumber).compareTo(toBigDecimal(rightNumber));
+                } else if (leftNumber instanceof Double || rightNumber instanceof Double) {
                     yield Double.compare(leftNumber.doubleValue(), rightNumber.doubleValue());
                 } else if (leftNumber instanceof Float || rightNumber instanceof Float) {
                     yield Float.compare(leftNumber.floatValue(), rightNumber.floatValue());
@@ -47,4 +51,29 @@ public class NumericComparator {
             default -> throw new IllegalArgumentException("Cannot compare " + left + " and " + right);
         };
     }
+
+    private static boolean isBig(Number n) {
+        return n instanceof BigDecimal || n instanceof BigInteger;
+    }
+
+    private static boolean isFinite(Number n) {
+        return switch (n) {
+            case Double d -> Double.isFinite(d);
+            case Float f -> Float.isFinite(f);
+            default -> true;
+        };
+    }
+
+    /**
+     * Converts without going through double, so that large values keep all their digits.
+     */
+    private static BigDecimal toBigDecimal(Number n) {
+        return switch (n) {
+            case BigDecimal bd -> bd;
+            case BigInteger bi -> new BigDecimal(bi);
+            case Double d -> BigDecimal.valueOf(d);
+            case Float f -> BigDecimal.valueOf(f.doubleValue());
+            default -> BigDecimal.valueOf(n.longValue());
+        };
+    }
 }
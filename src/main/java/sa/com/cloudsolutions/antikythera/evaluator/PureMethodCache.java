@@ -0,0 +1,135 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Remembers what side effect free methods returned for the arguments that they were given.</p>
+ *
+ * Only methods that the {@link PurityAnalyzer} finds to be memoizable are remembered, and only
+ * when every argument and the result are immutable values, so that neither the caller nor the
+ * evaluator can change them afterwards. Each {@link EvaluationContext} keeps up to
+ * {@link Settings#PURE_METHOD_CACHE_SIZE} results and drops the least recently used one when it
+ * is full. Results are handed out as copies.
+ */
+public final class PureMethodCache {
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+    private static final AtomicLong skipped = new AtomicLong();
+
+    /**
+     * A call to a method with particular arguments. The method is compared by identity, because
+     * two methods with the same source in different classes are equal as nodes.
+     */
+    record Call(MethodDeclaration method, List<Object> arguments) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Call c && c.method == method && c.arguments.equals(arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(method) + arguments.hashCode();
+        }
+    }
+
+    /**
+     * What a call returned, null for a void method.
+     */
+    record Result(Variable value) {
+        Variable copy() {
+            return value == null ? null : FieldSnapshot.copy(value);
+        }
+    }
+
+    private PureMethodCache() {
+    }
+
+    /**
+     * Identifies a call whose parameters have been set up by the evaluator.
+     *
+     * @return the call or null if the result of the method cannot be remembered
+     */
+    static Call callFor(Evaluator evaluator, MethodDeclaration md) {
+        if (Settings.getPureMethodCacheSize() == 0 || !PurityAnalyzer.analyze(md).isMemoizable()) {
+            return null;
+        }
+        BlockStmt body = md.getBody().orElseThrow();
+        List<Object> arguments = new ArrayList<>(md.getParameters().size());
+        for (Parameter p : md.getParameters()) {
+            Symbol argument = evaluator.getValue(body, p.getNameAsString());
+            Object value = argument == null ? null : argument.getValue();
+            if (!FieldSnapshot.isImmutableElement(value)) {
+                return null;
+            }
+            arguments.add(value);
+        }
+        return new Call(md, arguments);
+    }
+
+    /**
+     * @return the remembered result of the call, null if there is none
+     */
+    static Result lookup(Call call) {
+        Result result = EvaluationContext.current().pureCalls.get(call);
+        (result == null ? misses : hits).incrementAndGet();
+        return result;
+    }
+
+    /**
+     * Remembers the result of a call that completed normally.
+     */
+    static void remember(Call call, Variable value) {
+        if (value != null && !FieldSnapshot.isImmutableElement(value.getValue())) {
+            return;
+        }
+        Map<Call, Result> results = EvaluationContext.current().pureCalls;
+        results.put(call, new Result(value == null ? null : FieldSnapshot.copy(value)));
+        int capacity = Settings.getPureMethodCacheSize();
+        Iterator<Call> eldest = results.keySet().iterator();
+        while (results.size() > capacity && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Counts a void method that was not evaluated because it could not have done anything.
+     */
+    static void recordSkipped() {
+        skipped.incrementAndGet();
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static long getEvictions() {
+        return evictions.get();
+    }
+
+    public static long getSkipped() {
+        return skipped.get();
+    }
+
+    public static void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+        skipped.set(0);
+    }
+}
@@ -0,0 +1,517 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.ArrayAccessExpr;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.CastExpr;
+import com.github.javaparser.ast.expr.ConditionalExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.LiteralExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.MethodReferenceExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.SwitchExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.CatchClause;
+import com.github.javaparser.ast.stmt.DoStmt;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.ForEachStmt;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.stmt.SwitchEntry;
+import com.github.javaparser.ast.stmt.SwitchStmt;
+import com.github.javaparser.ast.stmt.ThrowStmt;
+import com.github.javaparser.ast.stmt.TryStmt;
+import com.github.javaparser.ast.stmt.WhileStmt;
+import com.github.javaparser.ast.type.Type;
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+import sa.com.cloudsolutions.antikythera.generator.TypeWrapper;
+import sa.com.cloudsolutions.antikythera.parser.AbstractCompiler;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * <p>Works out from the source code of a method whether calling it can change anything.</p>
+ *
+ * The methods of a service often call small helpers such as formatters, validators and mappers
+ * with the same arguments again and again. A helper that only looks at its arguments will always
+ * give the same answer for them, so the {@link PureMethodCache} can remember the answer instead
+ * of evaluating the body each time.
+ *
+ * The analysis is purely syntactic and errs on the side of caution. Anything it cannot account
+ * for, such as a call to a method whose source is not available or to a dependency that will be
+ * mocked, makes the method impure. Calls to other methods in the source are analysed in turn,
+ * while recursive calls are treated as unknown. The outcome is remembered for the method
+ * declaration, so each method is analysed only once in each evaluation context.
+ */
+public final class PurityAnalyzer {
+    /**
+     * What a method may do besides computing a value from its arguments.
+     */
+    public enum Effect {
+        /** Assigns to a field, or to an object or array that was passed in. */
+        FIELD_WRITE,
+        /** Assigns to a static field. */
+        STATIC_WRITE,
+        /** Reads a field that can change, so the result does not depend on the arguments alone. */
+        STATE_READ,
+        /** Does input or output or depends on the clock or on random numbers. */
+        IO,
+        /** Calls a repository. */
+        REPOSITORY_CALL,
+        /** Calls a dependency that will be mocked in the generated tests. */
+        MOCK_INTERACTION,
+        /** Calls something that could not be analysed. */
+        UNKNOWN_CALL,
+        /** Has conditionals or loops, whose paths the evaluator may be exploring. */
+        BRANCHES,
+        /** May throw an exception. */
+        THROWS
+    }
+
+    /**
+     * The effects that a method may have.
+     */
+    public record Purity(Set<Effect> effects) {
+        private static final Set<Effect> HARMLESS = EnumSet.of(Effect.BRANCHES, Effect.THROWS);
+
+        /**
+         * @return true if the method neither changes nor depends on anything but its arguments
+         */
+        public boolean isPure() {
+            return HARMLESS.containsAll(effects);
+        }
+
+        /**
+         * Methods with branches are pure, but they are still evaluated every time so that the
+         * branches are seen by the {@link Branching} exploration.
+         * @return true if the result of the method may be remembered
+         */
+        public boolean isMemoizable() {
+            return isPure() && !effects.contains(Effect.BRANCHES);
+        }
+
+        /**
+         * @return true if calling the method cannot be told apart from not calling it at all
+         */
+        public boolean isInert() {
+            return effects.isEmpty();
+        }
+    }
+
+    private static final NodeCache<Purity> PURITY = new NodeCache<>();
+
+    /**
+     * Types whose static methods neither have side effects nor depend on anything but their
+     * arguments, apart from the methods in {@link #NON_DETERMINISTIC}.
+     */
+    private static final Set<String> PURE_STATICS = Set.of("Math", "StrictMath", "String", "Integer",
+            "Long", "Short", "Byte", "Double", "Float", "Boolean", "Character", "Objects", "BigDecimal",
+            "BigInteger", "List", "Set", "Map", "Optional", "LocalDate", "LocalDateTime", "LocalTime",
+            "Instant", "Duration", "Period", "UUID");
+    private static final Set<String> NON_DETERMINISTIC = Set.of("now", "random", "randomUUID",
+            "currentTimeMillis", "nanoTime");
+    private static final Set<String> IO_TYPES = Set.of("System", "Files", "Thread", "Runtime",
+            "ThreadLocalRandom");
+    /**
+     * Types that can be created without any effect that is visible outside the method.
+     */
+    private static final Set<String> VALUE_TYPES = Set.of("String", "StringBuilder", "BigDecimal",
+            "BigInteger", "ArrayList", "LinkedList", "ArrayDeque", "HashMap", "LinkedHashMap", "TreeMap",
+            "HashSet", "LinkedHashSet", "TreeSet", "Object");
+    private static final Set<String> IMMUTABLE_TYPES = Set.of("String", "Integer", "Long", "Short",
+            "Byte", "Double", "Float", "Boolean", "Character", "BigDecimal", "BigInteger", "LocalDate",
+            "LocalDateTime", "LocalTime", "Instant", "Duration", "Period", "UUID", "int", "long", "short",
+            "byte", "double", "float", "boolean", "char");
+    private static final Set<String> INJECTED = Set.of("Autowired", "Inject", "Resource", "Mock", "MockBean");
+
+    private PurityAnalyzer() {
+    }
+
+    /**
+     * @param md a method declaration
+     * @return the effects that the method may have
+     */
+    public static Purity analyze(MethodDeclaration md) {
+        return analyze(md, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    /**
+     * A void method that cannot do anything does not need to be evaluated at all, unless
+     * {@link Settings#SKIP_VOID_NO_SIDE_EFFECTS} has been turned off.
+     * @param md a method declaration
+     * @return true if the method can be skipped
+     */
+    public static boolean canSkip(MethodDeclaration md) {
+        return md.getType().isVoidType()
+                && Settings.getProperty(Settings.SKIP_VOID_NO_SIDE_EFFECTS, Boolean.class).orElse(true)
+                && analyze(md).isInert();
+    }
+
+    private static Purity analyze(MethodDeclaration md, Set<MethodDeclaration> inProgress) {
+        Purity known = PURITY.get(md);
+        if (known != null) {
+            return known;
+        }
+        if (!inProgress.add(md)) {
+            return new Purity(EnumSet.of(Effect.UNKNOWN_CALL));
+        }
+        try {
+            Purity purity = new Purity(Collections.unmodifiableSet(new Scan(md, inProgress).effects()));
+            PURITY.put(md, purity);
+            return purity;
+        } finally {
+            inProgress.remove(md);
+        }
+    }
+
+    /**
+     * Goes through the body of one method.
+     */
+    private static final class Scan {
+        private final MethodDeclaration md;
+        private final Set<MethodDeclaration> inProgress;
+        private final Set<Effect> effects = EnumSet.noneOf(Effect.class);
+        /**
+         * Locals that always hold an object created within the method.
+         */
+        private final Set<VariableDeclarator> created = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Map<String, FieldDeclaration> fields = new HashMap<>();
+        private final TypeDeclaration<?> type;
+
+        Scan(MethodDeclaration md, Set<MethodDeclaration> inProgress) {
+            this.md = md;
+            this.inProgress = inProgress;
+            this.type = md.findAncestor(TypeDeclaration.class).orElse(null);
+            if (type != null) {
+                for (FieldDeclaration field : type.getFields()) {
+                    field.getVariables().forEach(v -> fields.put(v.getNameAsString(), field));
+                }
+            }
+        }
+
+        Set<Effect> effects() {
+            Optional<BlockStmt> body = md.getBody();
+            if (body.isEmpty()) {
+                effects.add(Effect.UNKNOWN_CALL);
+                return effects;
+            }
+            findCreated(body.get());
+            findBranches(body.get());
+            findThrows(body.get());
+            findReads(body.get());
+            findWrites(body.get());
+            findCalls(body.get());
+            return effects;
+        }
+
+        private void findCreated(BlockStmt body) {
+            for (VariableDeclarator v : body.findAll(VariableDeclarator.class)) {
+                if (v.getInitializer().filter(i -> i.isObjectCreationExpr() || i.isArrayCreationExpr()
+                        || i.isArrayInitializerExpr()).isPresent()) {
+                    created.add(v);
+                }
+            }
+            for (AssignExpr assign : body.findAll(AssignExpr.class)) {
+                if (assign.getTarget() instanceof NameExpr name && findLocal(name) instanceof VariableDeclarator v) {
+                    created.remove(v);
+                }
+            }
+        }
+
+        /**
+         * Finds the parameter or local variable that a name refers to at the place where it is
+         * used. Only the declarations that are in scope there count, so a local that shadows a
+         * field in one block does not hide the uses of the field elsewhere in the method.
+         *
+         * @return the {@link Parameter} or {@link VariableDeclarator}, null if the name is not a local
+         */
+        private Node findLocal(NameExpr name) {
+            String n = name.getNameAsString();
+            Node child = name;
+            Node parent = name.getParentNode().orElse(null);
+            while (parent != null) {
+                Node local = switch (parent) {
+                    case BlockStmt block -> declaredBefore(block.getStatements(), child, n);
+                    case SwitchEntry entry -> declaredBefore(entry.getStatements(), child, n);
+                    case ForStmt loop -> declaredIn(loop.getInitialization(), n);
+                    case ForEachStmt loop -> declaredIn(List.of(loop.getVariable()), n);
+                    case TryStmt tryStmt -> declaredIn(tryStmt.getResources(), n);
+                    case CatchClause clause -> clause.getParameter().getNameAsString().equals(n) ? clause.getParameter() : null;
+                    case LambdaExpr lambda -> parameter(lambda.getParameters(), n);
+                    case MethodDeclaration method -> parameter(method.getParameters(), n);
+                    default -> null;
+                };
+                if (local != null || parent == md) {
+                    return local;
+                }
+                child = parent;
+                parent = parent.getParentNode().orElse(null);
+            }
+            return null;
+        }
+
+        private static Node declaredBefore(List<Statement> statements, Node child, String name) {
+            for (Statement statement : statements) {
+                if (statement == child) {
+                    break;
+                }
+                if (statement instanceof ExpressionStmt e) {
+                    Node local = declaredIn(List.of(e.getExpression()), name);
+                    if (local != null) {
+                        return local;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private static Node declaredIn(List<? extends Expression> expressions, String name) {
+            for (Expression e : expressions) {
+                if (e instanceof VariableDeclarationExpr declaration) {
+                    for (VariableDeclarator v : declaration.getVariables()) {
+                        if (v.getNameAsString().equals(name)) {
+                            return v;
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        private static Node parameter(List<Parameter> parameters, String name) {
+            for (Parameter p : parameters) {
+                if (p.getNameAsString().equals(name)) {
+                    return p;
+                }
+            }
+            return null;
+        }
+
+        private void findBranches(BlockStmt body) {
+            if (!body.findAll(IfStmt.class).isEmpty() || !body.findAll(ConditionalExpr.class).isEmpty()
+                    || !body.findAll(SwitchStmt.class).isEmpty() || !body.findAll(SwitchExpr.class).isEmpty()
+                    || !body.findAll(ForStmt.class).isEmpty() || !body.findAll(ForEachStmt.class).isEmpty()
+                    || !body.findAll(WhileStmt.class).isEmpty() || !body.findAll(DoStmt.class).isEmpty()) {
+                effects.add(Effect.BRANCHES);
+            }
+        }
+
+        private void findThrows(BlockStmt body) {
+            /*
+             * Apart from throw statements, anything that dereferences, casts or unboxes a value can
+             * throw, which is only of interest when deciding whether a void method can be skipped.
+             */
+            if (!body.findAll(ThrowStmt.class).isEmpty() || !body.findAll(CastExpr.class).isEmpty()
+                    || !body.findAll(ArrayAccessExpr.class).isEmpty() || !body.findAll(UnaryExpr.class).isEmpty()
+                    || !body.findAll(ObjectCreationExpr.class).isEmpty()
+                    || body.findAll(BinaryExpr.class).stream().anyMatch(b -> b.getOperator() != BinaryExpr.Operator.EQUALS
+                            && b.getOperator() != BinaryExpr.Operator.NOT_EQUALS)
+                    || body.findAll(AssignExpr.class).stream().anyMatch(a -> a.getOperator() != AssignExpr.Operator.ASSIGN)) {
+                effects.add(Effect.THROWS);
+            }
+        }
+
+        private void findReads(BlockStmt body) {
+            for (NameExpr name : body.findAll(NameExpr.class)) {
+                if (findLocal(name) == null && !isTypeName(name)) {
+                    FieldDeclaration field = fields.get(name.getNameAsString());
+                    if (field == null || !isConstant(field)) {
+                        effects.add(Effect.STATE_READ);
+                    }
+                }
+            }
+            for (FieldAccessExpr access : body.findAll(FieldAccessExpr.class)) {
+                Expression scope = access.getScope();
+                if (scope.isThisExpr() || scope.isSuperExpr()) {
+                    FieldDeclaration field = fields.get(access.getNameAsString());
+                    if (field == null || !isConstant(field)) {
+                        effects.add(Effect.STATE_READ);
+                    }
+                } else if (isTypeName(scope)) {
+                    if (!access.getNameAsString().equals(access.getNameAsString().toUpperCase())) {
+                        effects.add(Effect.STATE_READ);
+                    }
+                } else {
+                    effects.add(Effect.THROWS);
+                }
+            }
+        }
+
+        private void findWrites(BlockStmt body) {
+            for (AssignExpr assign : body.findAll(AssignExpr.class)) {
+                findWrite(assign.getTarget());
+            }
+            for (UnaryExpr unary : body.findAll(UnaryExpr.class)) {
+                switch (unary.getOperator()) {
+                    case PREFIX_INCREMENT, PREFIX_DECREMENT, POSTFIX_INCREMENT, POSTFIX_DECREMENT ->
+                            findWrite(unary.getExpression());
+                    default -> {
+                        // reads its operand without changing it
+                    }
+                }
+            }
+        }
+
+        private void findWrite(Expression target) {
+            if (target instanceof NameExpr name) {
+                if (findLocal(name) == null) {
+                    FieldDeclaration field = fields.get(name.getNameAsString());
+                    effects.add(field != null && field.isStatic() ? Effect.STATIC_WRITE : Effect.FIELD_WRITE);
+                }
+            } else if (target instanceof FieldAccessExpr access) {
+                Expression scope = access.getScope();
+                if (scope.isThisExpr() || scope.isSuperExpr()) {
+                    FieldDeclaration field = fields.get(access.getNameAsString());
+                    effects.add(field != null && field.isStatic() ? Effect.STATIC_WRITE : Effect.FIELD_WRITE);
+                } else if (isTypeName(scope)) {
+                    effects.add(Effect.STATIC_WRITE);
+                } else if (!isCreatedLocally(scope)) {
+                    effects.add(Effect.FIELD_WRITE);
+                }
+            } else if (target instanceof ArrayAccessExpr array && !isCreatedLocally(array.getName())) {
+                effects.add(Effect.FIELD_WRITE);
+            }
+        }
+
+        private void findCalls(BlockStmt body) {
+            for (MethodCallExpr call : body.findAll(MethodCallExpr.class)) {
+                effects.add(Effect.THROWS);
+                findCall(call);
+            }
+            for (ObjectCreationExpr creation : body.findAll(ObjectCreationExpr.class)) {
+                String name = creation.getType().getNameAsString();
+                if (creation.getAnonymousClassBody().isPresent()) {
+                    effects.add(Effect.UNKNOWN_CALL);
+                } else if (name.startsWith("File") || name.endsWith("Stream") || name.endsWith("Reader")
+                        || name.endsWith("Writer") || name.equals("Random") || name.equals("Date")) {
+                    effects.add(Effect.IO);
+                } else if (!VALUE_TYPES.contains(name) && !name.endsWith("Exception") && !name.endsWith("Error")) {
+                    effects.add(Effect.UNKNOWN_CALL);
+                }
+            }
+            for (MethodReferenceExpr reference : body.findAll(MethodReferenceExpr.class)) {
+                if (!(reference.getScope().isTypeExpr()
+                        && PURE_STATICS.contains(reference.getScope().asTypeExpr().getType().asString()))) {
+                    effects.add(Effect.UNKNOWN_CALL);
+                }
+            }
+        }
+
+        private void findCall(MethodCallExpr call) {
+            Optional<Expression> scope = call.getScope();
+            if (scope.isEmpty() || scope.get().isThisExpr()) {
+                findSourceCall(type, call, false);
+                return;
+            }
+            Expression s = scope.get();
+            if (s.toString().startsWith("System.")) {
+                effects.add(Effect.IO);
+            } else if (s instanceof NameExpr name && findLocal(name) != null) {
+                if (!isCreatedLocally(s) && !IMMUTABLE_TYPES.contains(typeOf(findLocal(name)).asString())) {
+                    effects.add(Effect.UNKNOWN_CALL);
+                }
+            } else if (s instanceof NameExpr name && fields.containsKey(name.getNameAsString())) {
+                findFieldCall(fields.get(name.getNameAsString()));
+            } else if (s instanceof FieldAccessExpr access && access.getScope().isThisExpr()
+                    && fields.containsKey(access.getNameAsString())) {
+                findFieldCall(fields.get(access.getNameAsString()));
+            } else if (isTypeName(s)) {
+                findStaticCall(((NameExpr) s).getNameAsString(), call);
+            } else if (!(s instanceof MethodCallExpr || s instanceof LiteralExpr || s.isObjectCreationExpr()
+                    || s.isEnclosedExpr() || s.isBinaryExpr())) {
+                effects.add(Effect.UNKNOWN_CALL);
+            }
+        }
+
+        /**
+         * A call on a field is a call on a dependency, unless the field is a constant value.
+         */
+        private void findFieldCall(FieldDeclaration field) {
+            String fieldType = field.getElementType().asString();
+            if (fieldType.endsWith("Repository")) {
+                effects.add(Effect.REPOSITORY_CALL);
+            } else if (fieldType.equals("Logger")) {
+                effects.add(Effect.IO);
+            } else if (field.getAnnotations().stream().anyMatch(a -> INJECTED.contains(a.getNameAsString()))
+                    || (field.isFinal() && !field.isStatic()
+                        && field.getVariables().stream().allMatch(v -> v.getInitializer().isEmpty()))) {
+                effects.add(Effect.MOCK_INTERACTION);
+            } else if (!isConstant(field) || !IMMUTABLE_TYPES.contains(fieldType)) {
+                effects.add(Effect.UNKNOWN_CALL);
+            }
+        }
+
+        private void findStaticCall(String typeName, MethodCallExpr call) {
+            if (IO_TYPES.contains(typeName) || NON_DETERMINISTIC.contains(call.getNameAsString())) {
+                effects.add(Effect.IO);
+            } else if (!PURE_STATICS.contains(typeName)) {
+                CompilationUnit cu = md.findCompilationUnit().orElse(null);
+                TypeWrapper wrapper = cu == null ? null : AbstractCompiler.findType(cu, typeName);
+                findSourceCall(wrapper == null ? null : wrapper.getType(), call, true);
+            }
+        }
+
+        /**
+         * Analyses every method in the source that the call could be made to.
+         */
+        private void findSourceCall(TypeDeclaration<?> declaringType, MethodCallExpr call, boolean statics) {
+            List<MethodDeclaration> candidates = declaringType == null ? List.of()
+                    : declaringType.getMethodsByName(call.getNameAsString()).stream()
+                        .filter(m -> m.getParameters().size() == call.getArguments().size())
+                        .filter(m -> !statics || m.isStatic())
+                        .toList();
+            if (candidates.isEmpty()) {
+                effects.add(Effect.UNKNOWN_CALL);
+            }
+            for (MethodDeclaration candidate : candidates) {
+                effects.addAll(analyze(candidate, inProgress).effects());
+            }
+        }
+
+        private boolean isCreatedLocally(Expression e) {
+            return e instanceof NameExpr name && findLocal(name) instanceof VariableDeclarator v && created.contains(v);
+        }
+
+        private static Type typeOf(Node local) {
+            return local instanceof Parameter p ? p.getType() : ((VariableDeclarator) local).getType();
+        }
+
+        /**
+         * A name that is not a local or a field and that is used as the scope of a call or a field
+         * access is taken to be the name of a type.
+         */
+        private boolean isTypeName(Expression e) {
+            if (!(e instanceof NameExpr name)) {
+                return false;
+            }
+            String n = name.getNameAsString();
+            return findLocal(name) == null && !fields.containsKey(n) && Character.isUpperCase(n.charAt(0))
+                    && e.getParentNode().filter(p -> p instanceof MethodCallExpr || p instanceof FieldAccessExpr).isPresent();
+        }
+
+        private static boolean isConstant(FieldDeclaration field) {
+            return field.isStatic() && field.isFinal();
+        }
+    }
+}
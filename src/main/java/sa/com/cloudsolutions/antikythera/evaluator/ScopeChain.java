@@ -13,6 +13,27 @@ import java.util.List;
 import java.util.Optional;
 
 public class ScopeChain {
+    /**
+     * Remembers the type that the scope of a method call names, see {@link #findScopeType}.
+     */
+    private static final NodeCache<ScopeType> SCOPE_TYPE = new NodeCache<>();
+
+    /**
+     * The outcome of looking up the scope of a method call as a type name.
+     *
+     * @param scope the scope expression that was looked up
+     * @param wrapper the type, null if the scope is not a type name
+     * @param name the printed scope, the name that was looked up
+     * @param typesVersion the version of the types with that name at the time of the lookup
+     * @param generation the generation of the compiler at the time of the lookup
+     */
+    private record ScopeType(Expression scope, TypeWrapper wrapper, String name, long typesVersion, long generation) {
+        boolean isCurrentFor(Expression expression) {
+            return scope == expression && typesVersion == AntikytheraRunTime.getTypesVersion(name)
+                    && generation == AbstractCompiler.getGeneration();
+        }
+    }
+
     List<Scope> chain = new ArrayList<>();
     Expression expression;
 
@@ -32,10 +53,9 @@ public class ScopeChain {
      */
     public static ScopeChain findScopeChain(Expression expr) {
         ScopeChain chain = new ScopeChain(expr);
-        Optional<CompilationUnit> cu = expr.findCompilationUnit();
-        if (cu.isPresent() && expr instanceof MethodCallExpr mce && mce.getScope().isPresent()) {
+        if (expr instanceof MethodCallExpr mce && mce.getScope().isPresent()) {
             Expression scopeExpression = mce.getScope().orElseThrow();
-            TypeWrapper wrapper = AbstractCompiler.findType(cu.get(), scopeExpression.toString());
+            TypeWrapper wrapper = findScopeType(mce, scopeExpression);
             if (wrapper != null) {
                 chain.addLast(scopeExpression).setTypeWrapper(wrapper);
                 return chain;
@@ -68,6 +88,33 @@ public class ScopeChain {
         return chain;
     }
 
+    /**
+     * Finds out whether the scope of the method call is the name of a type, as in a static method
+     * call. That requires printing the scope and a type lookup, so the answer is kept for the
+     * method call node until the scope is replaced or a type with that name is added. The rest of the
+     * chain is just a walk over the AST and is not worth caching.
+     */
+    private static TypeWrapper findScopeType(MethodCallExpr mce, Expression scopeExpression) {
+        ScopeType cached = SCOPE_TYPE.get(mce);
+        if (cached != null && cached.isCurrentFor(scopeExpression)) {
+            return cached.wrapper();
+        }
+        Optional<CompilationUnit> cu = mce.findCompilationUnit();
+        if (cu.isEmpty()) {
+            return null;
+        }
+        /*
+         * The versions are read before the lookup, which may itself add types to the runtime.
+         * In that case the entry is already stale and will be replaced on the next call.
+         */
+        String name = scopeExpression.toString();
+        long typesVersion = AntikytheraRunTime.getTypesVersion(name);
+        long generation = AbstractCompiler.getGeneration();
+        TypeWrapper wrapper = AbstractCompiler.findType(cu.get(), name);
+        SCOPE_TYPE.put(mce, new ScopeType(scopeExpression, wrapper, name, typesVersion, generation));
+        return wrapper;
+    }
+
     private Scope addLast(Expression expressions) {
         Scope scope = new Scope(this, expressions);
         chain.addLast(scope);
@@ -39,6 +39,7 @@ import sa.com.cloudsolutions.antikythera.evaluator.mock.MockingCall;
 import sa.com.cloudsolutions.antikythera.evaluator.mock.MockingRegistry;
 import sa.com.cloudsolutions.antikythera.exception.AUTException;
 import sa.com.cloudsolutions.antikythera.exception.AntikytheraException;
+import sa.com.cloudsolutions.antikythera.exception.BudgetExceededException;
 import sa.com.cloudsolutions.antikythera.exception.EvaluatorException;
 import sa.com.cloudsolutions.antikythera.evaluator.GeneratorState;
 import sa.com.cloudsolutions.antikythera.evaluator.ITestGenerator;
@@ -51,6 +52,7 @@ import sa.com.cloudsolutions.antikythera.parser.AbstractCompiler;
 import sa.com.cloudsolutions.antikythera.parser.BaseRepositoryParser;
 import sa.com.cloudsolutions.antikythera.parser.Callable;
 import sa.com.cloudsolutions.antikythera.parser.MCEWrapper;
+import sa.com.cloudsolutions.antikythera.parser.ProcessingReport;
 import sa.com.cloudsolutions.antikythera.parser.RepositoryParser;
 
 import java.io.IOException;
@@ -60,8 +62,10 @@ import java.sql.SQLException;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -95,11 +99,23 @@ public class SpringEvaluator extends ControlFlowEvaluator {
     private CallableDeclaration<?> currentCallable;
     private BranchAttempt currentTargetAttempt;
     private boolean onTest;
+    /**
+     * How the fields of the class were set up, shared by every execution of every method.
+     */
+    private FieldSnapshot fieldTemplate;
 
     protected SpringEvaluator(EvaluatorFactory.Context context) {
         super(context);
     }
 
+    @Override
+    protected void prepareForReuse() {
+        super.prepareForReuse();
+        currentCallable = null;
+        currentTargetAttempt = null;
+        fieldTemplate = null;
+    }
+
     private static void setupRequestParam(AnnotationExpr a) {
         if (a.isNormalAnnotationExpr()) {
             NormalAnnotationExpr ne = a.asNormalAnnotationExpr();
@@ -288,8 +304,15 @@ public class SpringEvaluator extends ControlFlowEvaluator {
     }
 
     private void visitCallable(CallableDeclaration<?> cd) throws AntikytheraException, ReflectiveOperationException {
+        if (isInertVoidMethod(cd)) {
+            logger.debug("Skipping {}, it has no side effects", cd.getNameAsString());
+            PureMethodCache.recordSkipped();
+            ProcessingReport.getInstance().recordMethodSkipped(cd, "void method without side effects");
+            return;
+        }
         beforeVisit(cd);
         try {
+            ExecutionBudget.beginMethod(getClassName());
             int oldSize = Branching.size(cd);
 
             int safetyCheck = 0;
@@ -340,14 +363,58 @@ public class SpringEvaluator extends ControlFlowEvaluator {
             }
         } catch (AUTException aex) {
             logger.warn("This has probably been handled {}", aex.getMessage());
+        } catch (RuntimeException | ReflectiveOperationException e) {
+            if (!isBudgetOverrun(e)) {
+                throw e;
+            }
+        } finally {
+            BudgetExceededException exceeded = ExecutionBudget.endMethod();
+            if (exceeded != null) {
+                logger.warn("Gave up on {}: {}", cd.getNameAsString(), exceeded.getMessage());
+                ProcessingReport.getInstance().recordCurrentMethodFailed(exceeded.getMessage());
+            }
         }
     }
 
+    /**
+     * A budget overrun may reach the callable wrapped in the exceptions of a reflective call, such
+     * as an {@link java.lang.reflect.InvocationTargetException}, so the whole chain of causes is
+     * searched for it.
+     *
+     * @param e the exception that the execution of the callable ended with
+     * @return true if the execution was stopped because the method used up its budget
+     */
+    private static boolean isBudgetOverrun(Throwable e) {
+        if (ExecutionBudget.isExceeded()) {
+            return true;
+        }
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Throwable t = e; t != null && seen.add(t); t = t.getCause()) {
+            if (t instanceof BudgetExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets ready for the next execution of the callable.
+     * The fields are set up from scratch the first time that any method of the class is executed
+     * and restored from the {@link #fieldTemplate} after that. Static fields that an earlier
+     * execution changed get back the values that they had after the class was initialized.
+     *
+     * @param cd the callable that is about to be executed
+     */
     private void prepareInvocationContext(CallableDeclaration<?> cd) throws AntikytheraException, ReflectiveOperationException {
         getLocals().clear();
         LogRecorder.clearLogs();
         currentTargetAttempt = null;
-        setupFields();
+        AntikytheraRunTime.restoreStatics();
+        if (fieldTemplate != null) {
+            fieldTemplate.restore(this);
+        } else {
+            fieldTemplate = snapshotFields();
+        }
         mockMethodArguments(cd);
     }
 
@@ -379,6 +446,15 @@ public class SpringEvaluator extends ControlFlowEvaluator {
         return output;
     }
 
+    /**
+     * A void method that cannot do anything would not get a test from
+     * {@link #maybeRecordVoidResponse} when {@link Settings#SKIP_VOID_NO_SIDE_EFFECTS} is enabled,
+     * so there is no need to evaluate it in the first place.
+     */
+    private static boolean isInertVoidMethod(CallableDeclaration<?> cd) {
+        return cd instanceof MethodDeclaration md && PurityAnalyzer.canSkip(md);
+    }
+
     private void maybeRecordVoidResponse(CallableDeclaration<?> cd, String output) {
         boolean isVoid = cd instanceof MethodDeclaration md && md.getType().isVoidType();
         boolean isConstructor = cd instanceof ConstructorDeclaration;
@@ -428,6 +504,16 @@ public class SpringEvaluator extends ControlFlowEvaluator {
         return Branching.size(cd);
     }
 
+    /**
+     * The tests are created while the body of the method under test is executed, see
+     * {@link #createTests(MethodResponse)}, so its result is never taken from the
+     * {@link PureMethodCache}, even if it was called before as a helper.
+     */
+    @Override
+    protected boolean isMemoizable(MethodDeclaration md) {
+        return md != currentCallable;
+    }
+
     private void beforeVisit(CallableDeclaration<?> cd) {
         cd.getParentNode().ifPresent(p -> {
             if (p instanceof ClassOrInterfaceDeclaration) {
@@ -1386,12 +1472,11 @@ public class SpringEvaluator extends ControlFlowEvaluator {
         }
 
         if (rightType != null && rightType.getType() instanceof EnumDeclaration enumDecl) {
-            EnumConstantDeclaration enumConst = findEnumConstant(enumDecl, left, right);
-            rightType.setEnumConstant(enumConst);
+            TypeWrapper constantType = new TypeWrapper(findEnumConstant(enumDecl, left, right));
             if (conditionMatches) {
-                result.put(left, right instanceof FieldAccessExpr ? right : rightType.getEnumConstant());
+                result.put(left, right instanceof FieldAccessExpr ? right : constantType.getEnumConstant());
             } else {
-                setupEnumMismatch(rightType, entry.getKey(), result, left);
+                setupEnumMismatch(constantType, entry.getKey(), result, left);
             }
         }
     }
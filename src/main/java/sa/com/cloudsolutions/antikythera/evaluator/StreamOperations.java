@@ -0,0 +1,451 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import sa.com.cloudsolutions.antikythera.exception.AntikytheraException;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.ALL_MATCH;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.ANY_MATCH;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.AS_DOUBLE_STREAM;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.COLLECT;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.COUNT;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.DISTINCT;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.DROP_WHILE;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.FILTER;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.FIND_ANY;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.FIND_FIRST;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.FLAT_MAP;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.FOR_EACH;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.LIMIT;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.MAP;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.MAP_TO_DOUBLE;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.MAP_TO_INT;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.MAP_TO_LONG;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.MAP_TO_OBJ;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.MAX;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.MIN;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.NONE_MATCH;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.PEEK;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.REDUCE;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.SKIP;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.SORTED;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.TAKE_WHILE;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.TO_ARRAY;
+import static sa.com.cloudsolutions.antikythera.evaluator.Evaluator.TO_LIST;
+
+/**
+ * <p>Carries out the operations of the JDK streams on behalf of the evaluator.</p>
+ *
+ * The JDK stream implementations are not accessible to the evaluator, so their methods have to be
+ * invoked through the public stream interfaces. Every operation that the evaluator supports is in
+ * a table keyed by the kind of stream, the name of the operation and the number of arguments. The
+ * handlers call the stream directly, which avoids looking up the interface method and invoking it
+ * reflectively on every call.
+ *
+ * Lambdas and method references are evaluated into {@link Function}, {@link BiFunction} and
+ * {@link java.util.function.Consumer} instances that return Objects. The handlers adapt them to
+ * the functional interface that the operation expects. There is no need to fuse the intermediate
+ * operations: the JDK pipelines are lazy, so every element passes through all the stages in a
+ * single traversal when the terminal operation runs.
+ */
+final class StreamOperations {
+
+    enum Kind {
+        OBJECT, INT, LONG, DOUBLE;
+
+        static Kind of(Object stream) {
+            return switch (stream) {
+                case Stream<?> s -> OBJECT;
+                case IntStream s -> INT;
+                case LongStream s -> LONG;
+                case DoubleStream s -> DOUBLE;
+                case null, default -> null;
+            };
+        }
+    }
+
+    private record Key(Kind kind, String name, int arity) {}
+
+    /**
+     * Applies an operation to a stream.
+     * @param <S> the type of the stream
+     */
+    @FunctionalInterface
+    private interface Handler<S> {
+        Object apply(S stream, Object[] args);
+    }
+
+    /**
+     * Marks the result of operations such as forEach, which do not return anything.
+     */
+    private static final Object VOID = new Object();
+
+    private static final Map<Key, Handler<Object>> HANDLERS = new HashMap<>();
+    private static final Set<Key> NAMES = new HashSet<>();
+
+    static {
+        object(FILTER, 1, (s, args) -> s.filter(predicate(args[0])));
+        object(TAKE_WHILE, 1, (s, args) -> s.takeWhile(predicate(args[0])));
+        object(DROP_WHILE, 1, (s, args) -> s.dropWhile(predicate(args[0])));
+        object(MAP, 1, (s, args) -> s.map(function(args[0])));
+        object(FLAT_MAP, 1, (s, args) -> s.flatMap(flatFunction(args[0])));
+        object(PEEK, 1, (s, args) -> s.peek(consumer(args[0])));
+        object(SORTED, 0, (s, args) -> s.sorted());
+        object(SORTED, 1, (s, args) -> args[0] == null ? s.sorted() : s.sorted(comparator(args[0])));
+        object(DISTINCT, 0, (s, args) -> s.distinct());
+        object(LIMIT, 1, (s, args) -> s.limit(((Number) args[0]).longValue()));
+        object(SKIP, 1, (s, args) -> s.skip(((Number) args[0]).longValue()));
+        object(MAP_TO_INT, 1, (s, args) -> {
+            Function<Object, Object> fn = function(args[0]);
+            return s.mapToInt(x -> ((Number) fn.apply(x)).intValue());
+        });
+        object(MAP_TO_LONG, 1, (s, args) -> {
+            Function<Object, Object> fn = function(args[0]);
+            return s.mapToLong(x -> ((Number) fn.apply(x)).longValue());
+        });
+        object(MAP_TO_DOUBLE, 1, (s, args) -> {
+            Function<Object, Object> fn = function(args[0]);
+            return s.mapToDouble(x -> ((Number) fn.apply(x)).doubleValue());
+        });
+
+        object(FOR_EACH, 1, (s, args) -> {
+            s.forEach(consumer(args[0]));
+            return VOID;
+        });
+        object(COLLECT, 1, StreamOperations::collect);
+        object(COLLECT, 3, StreamOperations::collect);
+        object(COUNT, 0, (s, args) -> s.count());
+        object(TO_LIST, 0, (s, args) -> s.toList());
+        object(TO_ARRAY, 0, (s, args) -> s.toArray());
+        object(FIND_FIRST, 0, (s, args) -> s.findFirst());
+        object(FIND_ANY, 0, (s, args) -> s.findAny());
+        object(ANY_MATCH, 1, (s, args) -> s.anyMatch(predicate(args[0])));
+        object(ALL_MATCH, 1, (s, args) -> s.allMatch(predicate(args[0])));
+        object(NONE_MATCH, 1, (s, args) -> s.noneMatch(predicate(args[0])));
+        object(MIN, 1, (s, args) -> s.min(comparator(args[0])));
+        object(MAX, 1, (s, args) -> s.max(comparator(args[0])));
+        object(REDUCE, 1, (s, args) -> s.reduce(binaryOperator(args[0])));
+        object(REDUCE, 2, (s, args) -> s.reduce(args[0], binaryOperator(args[1])));
+        object(REDUCE, 3, StreamOperations::reduce);
+
+        primitives();
+    }
+
+    private StreamOperations() {}
+
+    /**
+     * Applies a stream operation.
+     *
+     * @param stream a {@link Stream}, {@link IntStream}, {@link LongStream} or {@link DoubleStream}
+     * @param name the name of the operation
+     * @param args the arguments for the operation, already evaluated
+     * @return the result of the operation, null if the operation is not supported
+     * @throws AntikytheraException if the operation is supported but not with this many arguments
+     */
+    static Variable apply(Object stream, String name, Object[] args) {
+        Kind kind = Kind.of(stream);
+        if (kind == null) {
+            return null;
+        }
+        Handler<Object> handler = HANDLERS.get(new Key(kind, name, args.length));
+        if (handler == null) {
+            if (NAMES.contains(new Key(kind, name, -1))) {
+                throw new AntikytheraException("Unsupported " + name + " overload with " + args.length + " arguments");
+            }
+            return null;
+        }
+
+        Object result = handler.apply(stream, args);
+        if (result == VOID) {
+            return new Variable(null);
+        }
+        Variable v = new Variable(result);
+        if (result != null) {
+            v.setClazz(result.getClass());
+        }
+        return v;
+    }
+
+    /**
+     * @return true if there is a handler for the operation on this stream
+     */
+    static boolean supports(Object stream, String name, int arity) {
+        Kind kind = Kind.of(stream);
+        return kind != null && HANDLERS.containsKey(new Key(kind, name, arity));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void object(String name, int arity, Handler<Stream<Object>> handler) {
+        register(Kind.OBJECT, name, arity, (s, args) -> handler.apply((Stream<Object>) s, args));
+    }
+
+    private static void register(Kind kind, String name, int arity, Handler<Object> handler) {
+        HANDLERS.put(new Key(kind, name, arity), handler);
+        NAMES.add(new Key(kind, name, -1));
+    }
+
+    /**
+     * The primitive streams have the same operations under the same names, but each of them takes
+     * its own functional interfaces.
+     */
+    private static void primitives() {
+        register(Kind.INT, "asLongStream", 0, (s, args) -> ((IntStream) s).asLongStream());
+        register(Kind.INT, AS_DOUBLE_STREAM, 0, (s, args) -> ((IntStream) s).asDoubleStream());
+        register(Kind.LONG, AS_DOUBLE_STREAM, 0, (s, args) -> ((LongStream) s).asDoubleStream());
+
+        primitive(Kind.INT, IntStream.class, new Primitive<>() {
+            Object sum(IntStream s) { return s.sum(); }
+            Object count(IntStream s) { return s.count(); }
+            Object average(IntStream s) { return s.average(); }
+            Object min(IntStream s) { return s.min(); }
+            Object max(IntStream s) { return s.max(); }
+            Object summaryStatistics(IntStream s) { return s.summaryStatistics(); }
+            Object boxed(IntStream s) { return s.boxed(); }
+            Object toList(IntStream s) { return s.boxed().toList(); }
+            Object toArray(IntStream s) { return s.toArray(); }
+            Object sorted(IntStream s) { return s.sorted(); }
+            Object distinct(IntStream s) { return s.distinct(); }
+            Object limit(IntStream s, long n) { return s.limit(n); }
+            Object skip(IntStream s, long n) { return s.skip(n); }
+            Object filter(IntStream s, Function<Object, Object> fn) {
+                return s.filter(n -> Boolean.TRUE.equals(fn.apply(n)));
+            }
+            Object map(IntStream s, Function<Object, Object> fn) {
+                return s.map(n -> ((Number) fn.apply(n)).intValue());
+            }
+            Object mapToObj(IntStream s, Function<Object, Object> fn) { return s.mapToObj(fn::apply); }
+            void forEach(IntStream s, Consumer<Object> action) { s.forEach(action::accept); }
+            Object reduce(IntStream s, BinaryOperator<Object> op) {
+                return s.reduce((a, b) -> ((Number) op.apply(a, b)).intValue());
+            }
+            Object reduce(IntStream s, Object identity, BinaryOperator<Object> op) {
+                return s.reduce(((Number) identity).intValue(), (a, b) -> ((Number) op.apply(a, b)).intValue());
+            }
+        });
+
+        primitive(Kind.LONG, LongStream.class, new Primitive<>() {
+            Object sum(LongStream s) { return s.sum(); }
+            Object count(LongStream s) { return s.count(); }
+            Object average(LongStream s) { return s.average(); }
+            Object min(LongStream s) { return s.min(); }
+            Object max(LongStream s) { return s.max(); }
+            Object summaryStatistics(LongStream s) { return s.summaryStatistics(); }
+            Object boxed(LongStream s) { return s.boxed(); }
+            Object toList(LongStream s) { return s.boxed().toList(); }
+            Object toArray(LongStream s) { return s.toArray(); }
+            Object sorted(LongStream s) { return s.sorted(); }
+            Object distinct(LongStream s) { return s.distinct(); }
+            Object limit(LongStream s, long n) { return s.limit(n); }
+            Object skip(LongStream s, long n) { return s.skip(n); }
+            Object filter(LongStream s, Function<Object, Object> fn) {
+                return s.filter(n -> Boolean.TRUE.equals(fn.apply(n)));
+            }
+            Object map(LongStream s, Function<Object, Object> fn) {
+                return s.map(n -> ((Number) fn.apply(n)).longValue());
+            }
+            Object mapToObj(LongStream s, Function<Object, Object> fn) { return s.mapToObj(fn::apply); }
+            void forEach(LongStream s, Consumer<Object> action) { s.forEach(action::accept); }
+            Object reduce(LongStream s, BinaryOperator<Object> op) {
+                return s.reduce((a, b) -> ((Number) op.apply(a, b)).longValue());
+            }
+            Object reduce(LongStream s, Object identity, BinaryOperator<Object> op) {
+                return s.reduce(((Number) identity).longValue(), (a, b) -> ((Number) op.apply(a, b)).longValue());
+            }
+        });
+
+        primitive(Kind.DOUBLE, DoubleStream.class, new Primitive<>() {
+            Object sum(DoubleStream s) { return s.sum(); }
+            Object count(DoubleStream s) { return s.count(); }
+            Object average(DoubleStream s) { return s.average(); }
+            Object min(DoubleStream s) { return s.min(); }
+            Object max(DoubleStream s) { return s.max(); }
+            Object summaryStatistics(DoubleStream s) { return s.summaryStatistics(); }
+            Object boxed(DoubleStream s) { return s.boxed(); }
+            Object toList(DoubleStream s) { return s.boxed().toList(); }
+            Object toArray(DoubleStream s) { return s.toArray(); }
+            Object sorted(DoubleStream s) { return s.sorted(); }
+            Object distinct(DoubleStream s) { return s.distinct(); }
+            Object limit(DoubleStream s, long n) { return s.limit(n); }
+            Object skip(DoubleStream s, long n) { return s.skip(n); }
+            Object filter(DoubleStream s, Function<Object, Object> fn) {
+                return s.filter(n -> Boolean.TRUE.equals(fn.apply(n)));
+            }
+            Object map(DoubleStream s, Function<Object, Object> fn) {
+                return s.map(n -> ((Number) fn.apply(n)).doubleValue());
+            }
+            Object mapToObj(DoubleStream s, Function<Object, Object> fn) { return s.mapToObj(fn::apply); }
+            void forEach(DoubleStream s, Consumer<Object> action) { s.forEach(action::accept); }
+            Object reduce(DoubleStream s, BinaryOperator<Object> op) {
+                return s.reduce((a, b) -> ((Number) op.apply(a, b)).doubleValue());
+            }
+            Object reduce(DoubleStream s, Object identity, BinaryOperator<Object> op) {
+                return s.reduce(((Number) identity).doubleValue(), (a, b) -> ((Number) op.apply(a, b)).doubleValue());
+            }
+        });
+    }
+
+    /**
+     * The operations of one kind of primitive stream.
+     * @param <S> the type of the stream
+     */
+    private abstract static class Primitive<S> {
+        abstract Object sum(S s);
+        abstract Object count(S s);
+        abstract Object average(S s);
+        abstract Object min(S s);
+        abstract Object max(S s);
+        abstract Object summaryStatistics(S s);
+        abstract Object boxed(S s);
+        abstract Object toList(S s);
+        abstract Object toArray(S s);
+        abstract Object sorted(S s);
+        abstract Object distinct(S s);
+        abstract Object limit(S s, long n);
+        abstract Object skip(S s, long n);
+        abstract Object filter(S s, Function<Object, Object> fn);
+        abstract Object map(S s, Function<Object, Object> fn);
+        abstract Object mapToObj(S s, Function<Object, Object> fn);
+        abstract void forEach(S s, Consumer<Object> action);
+        abstract Object reduce(S s, BinaryOperator<Object> op);
+        abstract Object reduce(S s, Object identity, BinaryOperator<Object> op);
+    }
+
+    private static <S> void primitive(Kind kind, Class<S> type, Primitive<S> ops) {
+        register(kind, "sum", 0, (s, args) -> ops.sum(type.cast(s)));
+        register(kind, COUNT, 0, (s, args) -> ops.count(type.cast(s)));
+        register(kind, "average", 0, (s, args) -> ops.average(type.cast(s)));
+        register(kind, MIN, 0, (s, args) -> ops.min(type.cast(s)));
+        register(kind, MAX, 0, (s, args) -> ops.max(type.cast(s)));
+        register(kind, "summaryStatistics", 0, (s, args) -> ops.summaryStatistics(type.cast(s)));
+        register(kind, "boxed", 0, (s, args) -> ops.boxed(type.cast(s)));
+        register(kind, TO_LIST, 0, (s, args) -> ops.toList(type.cast(s)));
+        register(kind, TO_ARRAY, 0, (s, args) -> ops.toArray(type.cast(s)));
+        register(kind, SORTED, 0, (s, args) -> ops.sorted(type.cast(s)));
+        register(kind, DISTINCT, 0, (s, args) -> ops.distinct(type.cast(s)));
+        register(kind, LIMIT, 1, (s, args) -> ops.limit(type.cast(s), ((Number) args[0]).longValue()));
+        register(kind, SKIP, 1, (s, args) -> ops.skip(type.cast(s), ((Number) args[0]).longValue()));
+        register(kind, FILTER, 1, (s, args) -> ops.filter(type.cast(s), function(args[0])));
+        register(kind, MAP, 1, (s, args) -> ops.map(type.cast(s), function(args[0])));
+        register(kind, MAP_TO_OBJ, 1, (s, args) -> ops.mapToObj(type.cast(s), function(args[0])));
+        register(kind, FOR_EACH, 1, (s, args) -> {
+            ops.forEach(type.cast(s), consumer(args[0]));
+            return VOID;
+        });
+        register(kind, REDUCE, 1, (s, args) -> ops.reduce(type.cast(s), binaryOperator(args[0])));
+        register(kind, REDUCE, 2, (s, args) -> ops.reduce(type.cast(s), args[0], binaryOperator(args[1])));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object collect(Stream<Object> stream, Object[] args) {
+        if (args.length == 1) {
+            return stream.collect((Collector<Object, ?, Object>) args[0]);
+        }
+        return stream.collect((Supplier<Object>) args[0], (BiConsumer<Object, Object>) args[1],
+                (BiConsumer<Object, Object>) args[2]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object reduce(Stream<Object> stream, Object[] args) {
+        return stream.reduce(args[0], (BiFunction<Object, Object, Object>) args[1], binaryOperator(args[2]));
+    }
+
+    /**
+     * Adapts an evaluated lambda or method reference to a {@link Function}.
+     * @throws AntikytheraException if the argument is not a function
+     */
+    @SuppressWarnings("unchecked")
+    static Function<Object, Object> function(Object arg) {
+        if (arg instanceof Function<?, ?> f) {
+            return (Function<Object, Object>) f;
+        }
+        throw new AntikytheraException("Expected Function for stream operation but got: "
+                + (arg == null ? "null" : arg.getClass().getName()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Stream<Object>> flatFunction(Object arg) {
+        Function<Object, ?> fn = function(arg);
+        return x -> (Stream<Object>) fn.apply(x);
+    }
+
+    /**
+     * Adapts an evaluated lambda to a {@link Predicate}. Lambdas evaluate to functions, which are
+     * true only when they return {@link Boolean#TRUE}.
+     */
+    @SuppressWarnings("unchecked")
+    static Predicate<Object> predicate(Object arg) {
+        if (arg instanceof Predicate<?> p) {
+            return (Predicate<Object>) p;
+        }
+        Function<Object, Object> fn = function(arg);
+        return x -> Boolean.TRUE.equals(fn.apply(x));
+    }
+
+    /**
+     * Adapts an evaluated lambda to a {@link Consumer}, discarding what a function returns.
+     * @throws AntikytheraException if the argument is neither a consumer nor a function
+     */
+    @SuppressWarnings("unchecked")
+    static Consumer<Object> consumer(Object arg) {
+        if (arg instanceof Consumer<?> c) {
+            return (Consumer<Object>) c;
+        }
+        if (arg instanceof Function<?, ?>) {
+            Function<Object, Object> fn = function(arg);
+            return fn::apply;
+        }
+        throw new AntikytheraException("Expected Consumer for stream operation but got: "
+                + (arg == null ? "null" : arg.getClass().getName()));
+    }
+
+    /**
+     * Adapts an evaluated lambda to a {@link Comparator}. Results of a {@link BiFunction} that
+     * are not numbers are treated as equal.
+     * @throws AntikytheraException if the argument is neither a comparator nor a bi-function
+     */
+    @SuppressWarnings("unchecked")
+    static Comparator<Object> comparator(Object arg) {
+        if (arg instanceof Comparator<?> c) {
+            return (Comparator<Object>) c;
+        }
+        if (arg instanceof BiFunction<?, ?, ?> bf) {
+            BiFunction<Object, Object, Object> fn = (BiFunction<Object, Object, Object>) bf;
+            return (a, b) -> fn.apply(a, b) instanceof Number n ? n.intValue() : 0;
+        }
+        throw new AntikytheraException("Expected Comparator for stream operation but got: "
+                + (arg == null ? "null" : arg.getClass().getName()));
+    }
+
+    /**
+     * Adapts an evaluated lambda to a {@link BinaryOperator}.
+     * @throws AntikytheraException if the argument is neither a binary operator nor a bi-function
+     */
+    @SuppressWarnings("unchecked")
+    static BinaryOperator<Object> binaryOperator(Object arg) {
+        if (arg instanceof BinaryOperator<?> bo) {
+            return (BinaryOperator<Object>) bo;
+        }
+        if (arg instanceof BiFunction<?, ?, ?> bf) {
+            BiFunction<Object, Object, Object> fn = (BiFunction<Object, Object, Object>) bf;
+            return fn::apply;
+        }
+        throw new AntikytheraException("Expected BinaryOperator for stream operation but got: "
+                + (arg == null ? "null" : arg.getClass().getName()));
+    }
+}
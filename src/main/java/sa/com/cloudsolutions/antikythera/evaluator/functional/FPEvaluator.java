@@ -17,6 +17,7 @@ import com.github.javaparser.ast.type.VoidType;
 import sa.com.cloudsolutions.antikythera.evaluator.Evaluator;
 import sa.com.cloudsolutions.antikythera.evaluator.EvaluatorFactory;
 import sa.com.cloudsolutions.antikythera.evaluator.InnerClassEvaluator;
+import sa.com.cloudsolutions.antikythera.evaluator.NodeCache;
 import sa.com.cloudsolutions.antikythera.evaluator.Scope;
 import sa.com.cloudsolutions.antikythera.evaluator.Variable;
 import sa.com.cloudsolutions.antikythera.evaluator.Symbol;
@@ -29,6 +30,15 @@ import java.util.Optional;
 
 public abstract class FPEvaluator<T> extends InnerClassEvaluator {
     public static final String OBJECT_TYPE = "Object";
+
+    /**
+     * @param method the method that stands in for the lambda
+     * @param returning true if the method returns a value
+     */
+    private record Shape(MethodDeclaration method, boolean returning) {}
+
+    private static final NodeCache<Shape> SHAPE = new NodeCache<>();
+
     protected MethodDeclaration methodDeclaration;
     Expression expr;
 
@@ -37,6 +47,35 @@ public abstract class FPEvaluator<T> extends InnerClassEvaluator {
     }
 
     public static Variable create(LambdaExpr lambda, Evaluator enclosure) {
+        Shape shape = shapeOf(lambda);
+
+        FPEvaluator<?> fp = createEvaluator(shape);
+        fp.enclosure = enclosure;
+        fp.expr = lambda;
+        Variable v = new Variable(fp);
+        v.setType(fp.getType());
+
+        return v;
+    }
+
+    /**
+     * Returns the method that stands in for the body of the lambda.
+     * Building it means cloning the lambda, so it is done only once for each lambda in each
+     * evaluation context. Evaluating the method does not modify it, which means that every
+     * evaluator created for the lambda can share it.
+     */
+    private static Shape shapeOf(LambdaExpr lambda) {
+        Shape shape = SHAPE.get(lambda);
+        if (shape != null) {
+            return shape;
+        }
+        MethodDeclaration md = toMethod(lambda);
+        shape = new Shape(md, md.getBody().orElseThrow().findFirst(ReturnStmt.class).isPresent());
+        SHAPE.put(lambda, shape);
+        return shape;
+    }
+
+    private static MethodDeclaration toMethod(LambdaExpr lambda) {
         LambdaExpr lambdaExpr = lambda.clone();
         lambdaExpr.setParentNode(lambda.getParentNode().orElseThrow());
 
@@ -69,18 +108,12 @@ public abstract class FPEvaluator<T> extends InnerClassEvaluator {
                 param.setType(OBJECT_TYPE);
             }
         }
-
-        FPEvaluator<?> fp = createEvaluator(md);
-        fp.enclosure = enclosure;
-        fp.expr = lambda;
-        Variable v = new Variable(fp);
-        v.setType(fp.getType());
-
-        return v;
+        return md;
     }
 
-    private static FPEvaluator<?> createEvaluator(MethodDeclaration md) {
-        if (md.getBody().orElseThrow().findFirst(ReturnStmt.class).isPresent()) {
+    private static FPEvaluator<?> createEvaluator(Shape shape) {
+        MethodDeclaration md = shape.method();
+        if (shape.returning()) {
             FPEvaluator<?> eval = switch (md.getParameters().size()) {
                 case 0 -> EvaluatorFactory.create("java.util.function.Supplier", SupplierEvaluator.class);
                 case 1 -> EvaluatorFactory.create("java.util.function.Function", FunctionEvaluator.class);
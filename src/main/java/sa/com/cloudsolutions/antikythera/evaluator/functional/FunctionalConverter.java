@@ -17,6 +17,8 @@ import com.github.javaparser.ast.stmt.ReturnStmt;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
 
 import com.github.javaparser.ast.type.Type;
+import sa.com.cloudsolutions.antikythera.evaluator.AntikytheraRunTime;
+import sa.com.cloudsolutions.antikythera.evaluator.NodeCache;
 import sa.com.cloudsolutions.antikythera.evaluator.Reflect;
 import sa.com.cloudsolutions.antikythera.evaluator.Variable;
 import sa.com.cloudsolutions.antikythera.exception.AntikytheraException;
@@ -29,12 +31,47 @@ import java.util.Optional;
 
 public class FunctionalConverter {
 
+    /**
+     * A method reference that has already been converted.
+     * The lambda depends on the class of the outer scope and, when the reference is qualified by
+     * a type, on what that type name resolves to, so it is only reused while those are unchanged.
+     */
+    private record Conversion(Class<?> scopeClass, boolean scoped, String typeName,
+                              long typesVersion, long generation, LambdaExpr lambda) {
+        boolean matches(Variable outerScope) {
+            return scoped == (outerScope != null)
+                    && (outerScope == null || scopeClass == outerScope.getClazz())
+                    && typesVersion == AntikytheraRunTime.getTypesVersion(typeName)
+                    && generation == AbstractCompiler.getGeneration();
+        }
+    }
+
+    private static final NodeCache<Conversion> CONVERSION = new NodeCache<>();
+
     private FunctionalConverter() {}
 
     /**
-     * Converts a MethodReferenceExpr to a LambdaExpr
+     * Converts a MethodReferenceExpr to a LambdaExpr.
+     * The lambda is remembered for the method reference, so that evaluating the same reference again
+     * returns the same lambda and the method synthesized for it by the {@link FPEvaluator} is
+     * reused as well.
      */
     public static LambdaExpr convertToLambda(MethodReferenceExpr methodRef, Variable outerScope) {
+        Conversion conversion = CONVERSION.get(methodRef);
+        if (conversion != null && conversion.matches(outerScope)) {
+            return conversion.lambda();
+        }
+        Expression scope = methodRef.getScope();
+        String typeName = scope != null && scope.isTypeExpr() ? scope.toString() : null;
+        long typesVersion = AntikytheraRunTime.getTypesVersion(typeName);
+        long generation = AbstractCompiler.getGeneration();
+        LambdaExpr lambda = toLambda(methodRef, outerScope);
+        CONVERSION.put(methodRef, new Conversion(outerScope == null ? null : outerScope.getClazz(),
+                outerScope != null, typeName, typesVersion, generation, lambda));
+        return lambda;
+    }
+
+    private static LambdaExpr toLambda(MethodReferenceExpr methodRef, Variable outerScope) {
         NodeList<Parameter> parameters = new NodeList<>();
         parameters.add(new Parameter(new ClassOrInterfaceType().setName("Object"), "arg"));
 
@@ -27,6 +27,7 @@ import sa.com.cloudsolutions.antikythera.configuration.Settings;
 import sa.com.cloudsolutions.antikythera.evaluator.AKBuddy;
 import sa.com.cloudsolutions.antikythera.evaluator.AntikytheraRunTime;
 import sa.com.cloudsolutions.antikythera.evaluator.Evaluator;
+import sa.com.cloudsolutions.antikythera.evaluator.EvaluationContext;
 import sa.com.cloudsolutions.antikythera.evaluator.EvaluatorFactory;
 import sa.com.cloudsolutions.antikythera.evaluator.MethodInterceptor;
 import sa.com.cloudsolutions.antikythera.evaluator.MockReturnValueHandler;
@@ -54,10 +55,8 @@ import static org.mockito.Mockito.withSettings;
  */
 public class MockingRegistry {
     private static final Logger logger = LoggerFactory.getLogger(MockingRegistry.class);
-    private static final Map<String, Map<Callable, MockingCall>> mockedFields = new HashMap<>();
-    private static Map<String, List<Expression>> customMockExpressions = new HashMap<>();
     /** Types for which all mock-creation attempts have already failed; suppress duplicate warnings. */
-    private static final java.util.Set<String> unmockableTypes = new java.util.HashSet<>();
+    private static final java.util.Set<String> unmockableTypes = java.util.concurrent.ConcurrentHashMap.newKeySet();
 
     public static final String MOCKITO = "Mockito";
     public static final String MOCKITO_FQN = "org.mockito.Mockito";
@@ -71,11 +70,11 @@ public class MockingRegistry {
      * @param className the name of the class to mark as mocked
      */
     public static void markAsMocked(String className) {
-        mockedFields.put(className, new HashMap<>());
+        EvaluationContext.current().getMockedFields().put(className, new HashMap<>());
     }
 
     public static boolean isMockTarget(String className) {
-        return mockedFields.containsKey(className);
+        return EvaluationContext.current().getMockedFields().containsKey(className);
     }
 
     public static String generateRegistryKey(List<TypeWrapper> resolvedTypes) {
@@ -94,7 +93,7 @@ public class MockingRegistry {
     }
 
     public static void reset() {
-        mockedFields.clear();
+        EvaluationContext.current().getMockedFields().clear();
         unmockableTypes.clear();
         clearCustomMockExpressions();
     }
@@ -104,7 +103,7 @@ public class MockingRegistry {
      * Use this between service generations to avoid cross-service state leakage.
      */
     public static void clearMockedFields() {
-        mockedFields.clear();
+        EvaluationContext.current().getMockedFields().clear();
     }
 
     /**
@@ -116,7 +115,7 @@ public class MockingRegistry {
      * @param mockingCall represents the method being called and the mocked return value
      */
     public static void when(String className, MockingCall mockingCall) {
-        Map<Callable, MockingCall> map = mockedFields.computeIfAbsent(className, k -> new HashMap<>());
+        Map<Callable, MockingCall> map = EvaluationContext.current().getMockedFields().computeIfAbsent(className, k -> new HashMap<>());
         map.put(mockingCall.getCallable(), mockingCall);
     }
 
@@ -263,7 +262,7 @@ public class MockingRegistry {
 
     public static List<MockingCall> getAllMocks() {
         List<MockingCall> result = new ArrayList<>();
-        for (Map<Callable, MockingCall> map : mockedFields.values()) {
+        for (Map<Callable, MockingCall> map : EvaluationContext.current().getMockedFields().values()) {
             result.addAll(map.values());
         }
         return result;
@@ -277,7 +276,7 @@ public class MockingRegistry {
      * @return the MockingCall that was created for the method.
      */
     public static MockingCall getThen(String className, Callable callable) {
-        Map<Callable, MockingCall> map = mockedFields.get(className);
+        Map<Callable, MockingCall> map = EvaluationContext.current().getMockedFields().get(className);
         if (map != null) {
             return map.get(callable);
         }
@@ -563,15 +562,15 @@ public class MockingRegistry {
     }
 
     public static void addCustomMockExpression(String className, Expression expr) {
-        customMockExpressions.computeIfAbsent(className, k -> new ArrayList<>()).add(expr);
+        EvaluationContext.current().getCustomMockExpressions().computeIfAbsent(className, k -> new ArrayList<>()).add(expr);
     }
     public static List<Expression> getCustomMockExpressions(String className) {
-        return customMockExpressions.getOrDefault(className, new ArrayList<>());
+        return EvaluationContext.current().getCustomMockExpressions().getOrDefault(className, new ArrayList<>());
     }
     public static void clearCustomMockExpressions() {
-        customMockExpressions.clear();
+        EvaluationContext.current().getCustomMockExpressions().clear();
     }
     public static void setCustomMockExpressions(Map<String, List<Expression>> customMockExpressions) {
-        MockingRegistry.customMockExpressions = customMockExpressions;
+        EvaluationContext.current().setCustomMockExpressions(customMockExpressions);
     }
 }
@@ -0,0 +1,21 @@
+package sa.com.cloudsolutions.antikythera.exception;
+
+import sa.com.cloudsolutions.antikythera.evaluator.ExecutionBudget;
+
+/**
+ * Thrown by the evaluator when a method or class under test has used up one of its
+ * {@link ExecutionBudget execution budgets}. It is not an exception of the application under
+ * test, so it is never handed to the catch clauses of the code being evaluated.
+ */
+public class BudgetExceededException extends AntikytheraException {
+    private final ExecutionBudget.Kind kind;
+
+    public BudgetExceededException(String message, ExecutionBudget.Kind kind) {
+        super(message);
+        this.kind = kind;
+    }
+
+    public ExecutionBudget.Kind getKind() {
+        return kind;
+    }
+}
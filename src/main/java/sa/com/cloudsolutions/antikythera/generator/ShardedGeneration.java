@@ -0,0 +1,314 @@
+package sa.com.cloudsolutions.antikythera.generator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+import sa.com.cloudsolutions.antikythera.parser.AbstractCompiler;
+import sa.com.cloudsolutions.antikythera.parser.ProcessingReport;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * <p>Spreads test generation over several JVMs.</p>
+ *
+ * The services and controllers in the configuration are divided between
+ * {@link Settings#SHARD_WORKERS} worker JVMs. Each worker is started with the same class path and
+ * JVM options as the driver, less any debugger or java agent, and runs the generator named by the
+ * system property {@link #WORKER_MAIN_PROPERTY}. The generator lives downstream of this library,
+ * so there is no default and the driver refuses to start without the property. The
+ * system property {@link Settings#SHARD_ASSIGNMENT_PROPERTY} names a file holding the share of the
+ * services and controllers that replaces the configured ones. Every worker writes its own
+ * processing report, and the driver merges them into the report at
+ * {@link Settings#PROCESSING_REPORT_PATH}.
+ *
+ * Keeping each worker in its own JVM means that the global state of Mockito and ByteBuddy and the
+ * classes that they define are thrown away with the worker. When the source index is enabled the
+ * driver pre-processes the sources once before starting the workers, so that they all start from
+ * an up-to-date index.
+ */
+public class ShardedGeneration {
+    private static final Logger logger = LoggerFactory.getLogger(ShardedGeneration.class);
+    /**
+     * System property naming the class that each worker runs.
+     */
+    public static final String WORKER_MAIN_PROPERTY = "antikythera.shard.main";
+    static final String ROUND_ROBIN = "round_robin";
+
+    /**
+     * The services and controllers assigned to one worker.
+     */
+    record Shard(int index, List<String> services, List<String> controllers, long cost) {
+        boolean isEmpty() {
+            return services.isEmpty() && controllers.isEmpty();
+        }
+    }
+
+    /**
+     * A configured service or controller, which may name a class or a package.
+     */
+    record Unit(String name, boolean controller, long cost) {}
+
+    private final int workers;
+    private final Path reportPath;
+    private final String[] args;
+
+    ShardedGeneration(int workers, Path reportPath, String[] args) {
+        this.workers = workers;
+        this.reportPath = reportPath;
+        this.args = args;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Settings.loadConfigMap();
+        String report = Settings.getProperty(Settings.PROCESSING_REPORT_PATH, String.class)
+                .orElse(Paths.get(Settings.getOutputPath(), "processing-report.json").toString());
+        new ShardedGeneration(Settings.getShardWorkers(), Paths.get(report), args).run();
+    }
+
+    void run() throws IOException, InterruptedException {
+        String workerMain = workerMain();
+        if (Settings.getProperty(Settings.SOURCE_INDEX, Boolean.class).orElse(false)) {
+            AbstractCompiler.preProcess();
+        }
+
+        List<Unit> units = new ArrayList<>();
+        ToLongFunction<String> cost = costEstimate();
+        for (String service : Settings.getPropertyList(Settings.SERVICES, String.class)) {
+            units.add(new Unit(service, false, cost.applyAsLong(service)));
+        }
+        for (String controller : Settings.getPropertyList(Settings.CONTROLLERS, String.class)) {
+            units.add(new Unit(controller, true, cost.applyAsLong(controller)));
+        }
+
+        boolean roundRobin = ROUND_ROBIN.equals(
+                Settings.getProperty(Settings.SHARD_STRATEGY, String.class).orElse("cost"));
+        List<Shard> shards = roundRobin ? roundRobin(units, workers) : balance(units, workers);
+
+        List<Process> processes = new ArrayList<>();
+        for (Shard shard : shards) {
+            logger.info("Shard {}: {} services, {} controllers, estimated cost {}",
+                    shard.index(), shard.services().size(), shard.controllers().size(), shard.cost());
+            processes.add(start(shard, workerMain));
+        }
+
+        ProcessingReport merged = ProcessingReport.getInstance();
+        merged.reset();
+        for (int i = 0; i < shards.size(); i++) {
+            merge(merged, shards.get(i), processes.get(i).waitFor());
+        }
+        merged.write(reportPath);
+    }
+
+    /**
+     * Adds the report of a worker to the merged report. The classes of a worker that did not
+     * leave a report behind are all recorded as failed. A worker that exited with an error after
+     * writing its report has already accounted for its classes, so only the error is logged.
+     */
+    void merge(ProcessingReport merged, Shard shard, int exitCode) throws IOException {
+        Path shardReport = shardFile(shard, ".json");
+        String error = "Shard " + shard.index() + " exited with code " + exitCode
+                + ", see " + shardFile(shard, ".log");
+        if (Files.exists(shardReport)) {
+            merged.merge(Files.readString(shardReport));
+            if (exitCode != 0) {
+                logger.error(error);
+            }
+        } else {
+            logger.error(error);
+            Stream.concat(shard.services().stream(), shard.controllers().stream())
+                    .forEach(name -> merged.recordClassFailed(name, error));
+        }
+    }
+
+    /**
+     * @return the class that each worker runs
+     * @throws IllegalStateException if {@link #WORKER_MAIN_PROPERTY} is not set
+     */
+    static String workerMain() {
+        String main = System.getProperty(WORKER_MAIN_PROPERTY);
+        if (main == null || main.isBlank()) {
+            throw new IllegalStateException("Set the system property " + WORKER_MAIN_PROPERTY
+                    + " to the main class of the test generator that each shard should run");
+        }
+        return main;
+    }
+
+    private Process start(Shard shard, String workerMain) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(workerOptions(ManagementFactory.getRuntimeMXBean().getInputArguments()));
+        command.add("-D" + Settings.SHARD_ASSIGNMENT_PROPERTY + "=" + writeAssignment(shard));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(workerMain);
+        command.addAll(List.of(args));
+
+        Path log = shardFile(shard, ".log");
+        Files.deleteIfExists(shardFile(shard, ".json"));
+        if (log.getParent() != null) {
+            Files.createDirectories(log.getParent());
+        }
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+
+    /**
+     * The JVM options of the driver that the workers are started with. A debugger or java agent
+     * that listens on a port would fail to bind in every worker, so those options are left out.
+     */
+    static List<String> workerOptions(List<String> driverOptions) {
+        return driverOptions.stream()
+                .filter(option -> !option.startsWith("-agentlib:jdwp") && !option.startsWith("-javaagent")
+                        && !option.startsWith("-Xrunjdwp"))
+                .toList();
+    }
+
+    /**
+     * Writes the services and controllers of a shard, together with the file that its report
+     * goes to, into a file that the worker reads on start up. Long lists of classes would not fit
+     * on the command line of the worker.
+     *
+     * @return the file holding the assignment
+     */
+    Path writeAssignment(Shard shard) throws IOException {
+        Path assignment = shardFile(shard, ".assignment.json");
+        if (assignment.getParent() != null) {
+            Files.createDirectories(assignment.getParent());
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put(Settings.SERVICES, shard.services());
+        values.put(Settings.CONTROLLERS, shard.controllers());
+        values.put(Settings.PROCESSING_REPORT_PATH, shardFile(shard, ".json").toString());
+        new ObjectMapper().writeValue(assignment.toFile(), values);
+        return assignment;
+    }
+
+    /**
+     * The report or log of a shard, next to the merged report.
+     */
+    Path shardFile(Shard shard, String extension) {
+        String name = reportPath.getFileName().toString().replaceFirst("\\.json$", "");
+        return reportPath.resolveSibling(name + ".shard-" + shard.index() + extension);
+    }
+
+    /**
+     * Gives each worker the next unit in turn.
+     */
+    static List<Shard> roundRobin(List<Unit> units, int workers) {
+        List<List<Unit>> assigned = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            assigned.add(new ArrayList<>());
+        }
+        for (int i = 0; i < units.size(); i++) {
+            assigned.get(i % workers).add(units.get(i));
+        }
+        return toShards(assigned);
+    }
+
+    /**
+     * Gives the most expensive remaining unit to the worker with the least estimated work so far.
+     */
+    static List<Shard> balance(List<Unit> units, int workers) {
+        List<List<Unit>> assigned = new ArrayList<>();
+        PriorityQueue<long[]> load = new PriorityQueue<>(
+                Comparator.<long[]>comparingLong(l -> l[0]).thenComparingLong(l -> l[1]));
+        for (int i = 0; i < workers; i++) {
+            assigned.add(new ArrayList<>());
+            load.add(new long[]{0, i});
+        }
+        List<Unit> sorted = new ArrayList<>(units);
+        sorted.sort(Comparator.comparingLong(Unit::cost).reversed());
+        for (Unit unit : sorted) {
+            long[] lightest = load.poll();
+            assigned.get((int) lightest[1]).add(unit);
+            lightest[0] += unit.cost();
+            load.add(lightest);
+        }
+        return toShards(assigned);
+    }
+
+    private static List<Shard> toShards(List<List<Unit>> assigned) {
+        List<Shard> shards = new ArrayList<>();
+        for (List<Unit> units : assigned) {
+            List<String> services = new ArrayList<>();
+            List<String> controllers = new ArrayList<>();
+            long cost = 0;
+            for (Unit unit : units) {
+                (unit.controller() ? controllers : services).add(unit.name());
+                cost += unit.cost();
+            }
+            Shard shard = new Shard(shards.size(), services, controllers, cost);
+            if (!shard.isEmpty()) {
+                shards.add(shard);
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Estimates the work in a service or controller entry. When a report from an earlier run
+     * exists, the number of methods that it lists for the classes covered by the entry is used.
+     * Otherwise the size of the source files is used.
+     */
+    private ToLongFunction<String> costEstimate() {
+        Map<String, Long> methods = previousMethodCounts(reportPath);
+        Path basePath = Paths.get(Settings.getBasePath());
+        return name -> {
+            long count = methods.entrySet().stream()
+                    .filter(e -> e.getKey().equals(name) || e.getKey().startsWith(name + "."))
+                    .mapToLong(Map.Entry::getValue).sum();
+            return count > 0 ? count : sourceSize(basePath, name) / 1024 + 1;
+        };
+    }
+
+    static Map<String, Long> previousMethodCounts(Path report) {
+        Map<String, Long> counts = new HashMap<>();
+        if (Files.exists(report)) {
+            try {
+                JsonNode root = new ObjectMapper().readTree(report.toFile());
+                for (JsonNode c : root.path("classes")) {
+                    counts.merge(c.path("name").asText(), (long) c.path("methods").size(), Long::sum);
+                }
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable processing report {}: {}", report, e.getMessage());
+            }
+        }
+        return counts;
+    }
+
+    static long sourceSize(Path basePath, String name) {
+        Path path = basePath.resolve(name.replace('.', File.separatorChar));
+        Path file = path.resolveSibling(path.getFileName() + ".java");
+        try {
+            if (Files.isRegularFile(file)) {
+                return Files.size(file);
+            }
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.walk(path)) {
+                    return files.filter(p -> p.toString().endsWith(".java")).mapToLong(p -> p.toFile().length()).sum();
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Could not measure {}: {}", path, e.getMessage());
+        }
+        return 0;
+    }
+}
@@ -1,8 +1,11 @@
 package sa.com.cloudsolutions.antikythera.generator;
 
+import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.EnumConstantDeclaration;
 import com.github.javaparser.ast.body.TypeDeclaration;
 import com.github.javaparser.ast.expr.AnnotationExpr;
+import sa.com.cloudsolutions.antikythera.evaluator.AntikytheraRunTime;
+import sa.com.cloudsolutions.antikythera.parser.AbstractCompiler;
 
 import java.util.Optional;
 
@@ -10,6 +13,12 @@ public class TypeWrapper {
     TypeDeclaration<?> type;
     Class<?> clazz;
     EnumConstantDeclaration enumConstant;
+    /**
+     * The fully qualified name of a type whose source code has not been parsed yet.
+     * The type declaration will be loaded through the AntikytheraRunTime the first time that
+     * it is asked for.
+     */
+    private String deferredName;
 
     private boolean isController;
     private boolean isService;
@@ -18,6 +27,10 @@ public class TypeWrapper {
     private boolean configuration;
     private boolean isInterface;
     private boolean isEntity;
+    /**
+     * Set on wrappers that are shared between callers, any attempt to modify them is an error.
+     */
+    private boolean frozen;
 
     public TypeWrapper(TypeDeclaration<?> type) {
         this.type = type;
@@ -35,12 +48,58 @@ public class TypeWrapper {
 
     }
 
+    /**
+     * Creates a wrapper for a type that is known to exist in the application under test but
+     * whose source file has not been parsed yet.
+     *
+     * @param fullyQualifiedName the name of the type
+     * @return a type wrapper that will load the declaration on demand.
+     */
+    public static TypeWrapper deferred(String fullyQualifiedName) {
+        TypeWrapper wrapper = new TypeWrapper();
+        wrapper.deferredName = fullyQualifiedName;
+        return wrapper;
+    }
+
     @SuppressWarnings("java:S1452")
     public TypeDeclaration<?> getType() {
+        if (type == null && deferredName != null) {
+            CompilationUnit cu = AntikytheraRunTime.getCompilationUnit(deferredName);
+            if (cu != null) {
+                type = AbstractCompiler.getMatchingType(cu, deferredName).orElse(null);
+            }
+            if (type != null) {
+                deferredName = null;
+            }
+        }
         return type;
     }
 
+    /**
+     * Makes this wrapper read only.
+     *
+     * @return this wrapper
+     */
+    public TypeWrapper freeze() {
+        frozen = true;
+        return this;
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Shared TypeWrapper instances cannot be modified");
+        }
+    }
+
+    /**
+     * @return true if this wrapper represents a type whose source has not been parsed yet.
+     */
+    public boolean isDeferred() {
+        return type == null && deferredName != null;
+    }
+
     public void setCu(TypeDeclaration<?> type) {
+        checkMutable();
         this.type = type;
     }
 
@@ -49,6 +108,7 @@ public class TypeWrapper {
     }
 
     public void setClass(Class<?> cls) {
+        checkMutable();
         this.clazz = cls;
     }
 
@@ -57,10 +117,10 @@ public class TypeWrapper {
             if (type != null) {
                 return type.getFullyQualifiedName().orElse(null);
             }
+            return deferredName;
         } else {
             return clazz.getName();
         }
-        return null;
     }
 
     public boolean isController() {
@@ -68,6 +128,7 @@ public class TypeWrapper {
     }
 
     public void setController(boolean isController) {
+        checkMutable();
         this.isController = isController;
     }
 
@@ -76,6 +137,7 @@ public class TypeWrapper {
     }
 
     public void setService(boolean isService) {
+        checkMutable();
         this.isService = isService;
     }
 
@@ -84,6 +146,7 @@ public class TypeWrapper {
     }
 
     public void setComponent(boolean component) {
+        checkMutable();
         this.component = component;
     }
 
@@ -92,6 +155,7 @@ public class TypeWrapper {
     }
 
     public void setRepository(boolean repository) {
+        checkMutable();
         this.repository = repository;
     }
 
@@ -100,6 +164,7 @@ public class TypeWrapper {
     }
 
     public void setConfiguration(boolean configuration) {
+        checkMutable();
         this.configuration = configuration;
     }
 
@@ -108,12 +173,13 @@ public class TypeWrapper {
     }
 
     public void setInterface(boolean isInterface) {
+        checkMutable();
         this.isInterface = isInterface;
     }
 
     public boolean isEnum() {
         if (enumConstant != null) return true;
-        if (type != null) return type.isEnumDeclaration();
+        if (getType() != null) return type.isEnumDeclaration();
         if (clazz != null) return clazz.isEnum();
         return false;
     }
@@ -123,6 +189,7 @@ public class TypeWrapper {
     }
 
     public void setEnumConstant(EnumConstantDeclaration enumConstant) {
+        checkMutable();
         this.enumConstant = enumConstant;
     }
 
@@ -131,6 +198,7 @@ public class TypeWrapper {
     }
 
     public void setEntity(boolean isEntity) {
+        checkMutable();
         this.isEntity = isEntity;
     }
 
@@ -140,7 +208,7 @@ public class TypeWrapper {
      * @return Optional containing the annotation, or empty if not found
      */
     public Optional<AnnotationExpr> getEntityAnnotation() {
-        if (type != null) {
+        if (getType() != null) {
             return type.getAnnotationByName("Entity");
         }
         return Optional.empty();
@@ -152,7 +220,7 @@ public class TypeWrapper {
      * @return Optional containing the annotation, or empty if not found
      */
     public Optional<AnnotationExpr> getTableAnnotation() {
-        if (type != null) {
+        if (getType() != null) {
             return type.getAnnotationByName("Table");
         }
         return Optional.empty();
@@ -164,7 +232,7 @@ public class TypeWrapper {
      * @return Optional containing the annotation, or empty if not found
      */
     public Optional<AnnotationExpr> getInheritanceAnnotation() {
-        if (type != null) {
+        if (getType() != null) {
             return type.getAnnotationByName("Inheritance");
         }
         return Optional.empty();
@@ -176,7 +244,7 @@ public class TypeWrapper {
      * @return Optional containing the annotation, or empty if not found
      */
     public Optional<AnnotationExpr> getDiscriminatorColumnAnnotation() {
-        if (type != null) {
+        if (getType() != null) {
             return type.getAnnotationByName("DiscriminatorColumn");
         }
         return Optional.empty();
@@ -188,7 +256,7 @@ public class TypeWrapper {
      * @return Optional containing the annotation, or empty if not found
      */
     public Optional<AnnotationExpr> getDiscriminatorValueAnnotation() {
-        if (type != null) {
+        if (getType() != null) {
             return type.getAnnotationByName("DiscriminatorValue");
         }
         return Optional.empty();
@@ -198,7 +266,10 @@ public class TypeWrapper {
         if (clazz != null) {
             return clazz.getName();
         }
-        if (type != null) {
+        if (isDeferred()) {
+            return deferredName.substring(deferredName.lastIndexOf('.') + 1);
+        }
+        if (getType() != null) {
             return type.getNameAsString();
         }
         return null;
@@ -231,7 +302,7 @@ public class TypeWrapper {
         // 3. AST Inheritance Check
         // If the OTHER type is an AST type, we can check its ancestors to see if THIS
         // (ancestor) is one of them.
-        if (other.type != null && other.type.isClassOrInterfaceDeclaration()) {
+        if (other.getType() != null && other.type.isClassOrInterfaceDeclaration()) {
             return isAssignableFrom(other, fqn1);
         }
 
@@ -1,5 +1,6 @@
 package sa.com.cloudsolutions.antikythera.parser;
 
+import com.github.javaparser.Range;
 import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.Node;
@@ -14,6 +15,7 @@ import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.TypeDeclaration;
 import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.comments.Comment;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.LiteralExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
@@ -38,7 +40,6 @@ import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
 
@@ -50,6 +51,7 @@ import java.io.File;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.net.URL;
@@ -61,10 +63,15 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 import sa.com.cloudsolutions.antikythera.evaluator.AntikytheraRunTime;
 import sa.com.cloudsolutions.antikythera.evaluator.Reflect;
@@ -97,10 +104,15 @@ public class AbstractCompiler {
     public static final String MAVEN_SRC_JAVA = "src/main/java";
 
     private static JavaParser javaParser;
+    private static ParserConfiguration parserConfiguration;
     protected static JavaSymbolSolver symbolResolver;
     protected static CombinedTypeSolver combinedTypeSolver;
-    protected static ArrayList<JarTypeSolver> jarSolvers;
+    private static JarClassIndex jarIndex;
     protected static ClassLoader loader;
+    /**
+     * Counts the calls to {@link #reset()}, see {@link #getGeneration()}.
+     */
+    private static final AtomicLong generation = new AtomicLong();
     private static final List<Path> sourceDirectories = new ArrayList<>();
     protected CompilationUnit cu;
     protected String className;
@@ -114,7 +126,9 @@ public class AbstractCompiler {
      * Flag to enable LexicalPreservingPrinter for whitespace preservation during
      * AST modifications.
      * When enabled, all CompilationUnits parsed via compile() will have
-     * LexicalPreservingPrinter.setup() called.
+     * LexicalPreservingPrinter.setup() called. When the slim_ast setting is on, that is limited
+     * to the controllers and services that tests are being generated for, the other units are
+     * slimmed and can no longer be printed lexically, see {@link #preserveLexically}.
      */
     private static boolean enableLexicalPreservation = false;
 
@@ -135,6 +149,46 @@ public class AbstractCompiler {
         enableLexicalPreservation = enable;
     }
 
+    /**
+     * Sets up the LexicalPreservingPrinter for a compilation unit that is about to be modified,
+     * unless it has been set up already. Must be called before the first modification.
+     *
+     * A unit that was slimmed no longer has the tokens that the printer needs and they cannot be
+     * put back, so asking to preserve it is an error rather than a silent fall back to the pretty
+     * printer. Units are only slimmed when the slim_ast setting is on and the class is not one of
+     * the controllers or services.
+     *
+     * @param cu the compilation unit that will be modified
+     * @return true if the printer is available on the compilation unit, false if the unit was
+     * not parsed from source, as when it was built in code
+     * @throws IllegalStateException if the unit was slimmed
+     */
+    public static boolean preserveLexically(CompilationUnit cu) {
+        if (LexicalPreservingPrinter.isAvailableOn(cu)) {
+            return true;
+        }
+        if (cu.getTokenRange().isEmpty()) {
+            if (isSlim(cu)) {
+                throw new IllegalStateException("Cannot preserve the layout of "
+                        + cu.getPrimaryTypeName().orElse("a compilation unit")
+                        + " because it was slimmed. Turn off " + Settings.SLIM_AST
+                        + " or add the class to the controllers or services.");
+            }
+            return false;
+        }
+        LexicalPreservingPrinter.setup(cu);
+        return true;
+    }
+
+    /**
+     * @param cu a compilation unit
+     * @return true if the unit was parsed from source and then slimmed, which keeps the
+     * positions of the nodes but drops their tokens
+     */
+    static boolean isSlim(CompilationUnit cu) {
+        return cu.getTokenRange().isEmpty() && cu.getRange().isPresent();
+    }
+
     /**
      * Loads dependencies from the Maven pom.xml file on demand.
      * This will populate MavenHelper with JAR paths and refresh the parser
@@ -158,9 +212,8 @@ public class AbstractCompiler {
         combinedTypeSolver.add(new JavaParserTypeSolver(basePath));
 
         setupSourcePaths();
-        jarSolvers = new ArrayList<>();
 
-        Set<String> jarFiles = new HashSet<>();
+        Set<String> jarFiles = new LinkedHashSet<>();
         List<URL> urls = new ArrayList<>();
         for (String s : Settings.getJarFiles()) {
             jarFiles.add(s);
@@ -171,14 +224,13 @@ public class AbstractCompiler {
             urls.add(Paths.get(s).toUri().toURL());
         }
 
-        for (String jarFile : jarFiles) {
-            JarTypeSolver jarSolver = new JarTypeSolver(jarFile);
-            jarSolvers.add(jarSolver);
-            combinedTypeSolver.add(jarSolver);
-        }
+        jarIndex = JarClassIndex.getInstance();
+        jarIndex.addJars(jarFiles);
+        combinedTypeSolver.add(new IndexedJarTypeSolver(jarIndex, jarFiles));
 
         loader = new URLClassLoader(urls.toArray(new URL[0]),
                 loader == null ? AbstractCompiler.class.getClassLoader() : loader);
+        ClassLookup.reset(loader, jarIndex);
         Collection<String> finch = Settings.getPropertyList("finch", String.class);
 
         for (String path : finch) {
@@ -186,7 +238,7 @@ public class AbstractCompiler {
         }
 
         symbolResolver = new JavaSymbolSolver(combinedTypeSolver);
-        ParserConfiguration parserConfiguration = new ParserConfiguration()
+        parserConfiguration = new ParserConfiguration()
                 .setSymbolResolver(symbolResolver)
                 .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21);
         javaParser = new JavaParser(parserConfiguration);
@@ -256,12 +308,16 @@ public class AbstractCompiler {
         return path.replace("/", ".");
     }
 
+    /**
+     * Loads a class from the class path of Antikythera or from the jars of the application.
+     * The outcome is remembered, see {@link ClassLookup}.
+     *
+     * @param resolvedClass the binary name of the class
+     * @return the class
+     * @throws ClassNotFoundException if the class cannot be found
+     */
     public static Class<?> loadClass(String resolvedClass) throws ClassNotFoundException {
-        try {
-            return Class.forName(resolvedClass);
-        } catch (ClassNotFoundException | NoClassDefFoundError cnf) {
-            return loader.loadClass(resolvedClass);
-        }
+        return ClassLookup.loadClass(resolvedClass);
     }
 
     /**
@@ -271,6 +327,21 @@ public class AbstractCompiler {
      */
     public static void reset() throws IOException {
         setupParser();
+        TypeResolutionCache.invalidateAll();
+        ImportTable.invalidateAll();
+        CallSiteCache.invalidateAll();
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Anything derived from type lookups is out of date once the compiler has been reset.
+     * Caches outside this package can compare this number together with
+     * {@link AntikytheraRunTime#getTypesVersion(String)} to find out.
+     *
+     * @return a number that changes whenever the compiler is reset
+     */
+    public static long getGeneration() {
+        return generation.get();
     }
 
     @SuppressWarnings("java:S1452")
@@ -362,6 +433,20 @@ public class AbstractCompiler {
      * @throws FileNotFoundException when the source code cannot be found
      */
     public boolean compile(String relativePath) throws FileNotFoundException {
+        return compile(relativePath, javaParser);
+    }
+
+    /**
+     * Creates a compilation unit using the given parser.
+     * JavaParser instances are not thread safe, when files are being compiled concurrently each
+     * thread needs to supply its own instance.
+     *
+     * @param relativePath a path name relative to the base path of the application.
+     * @param parser the parser to use
+     * @return true if the file had already been compiled.
+     * @throws FileNotFoundException when the source code cannot be found
+     */
+    private boolean compile(String relativePath, JavaParser parser) throws FileNotFoundException {
         this.className = pathToClass(relativePath);
         cu = AntikytheraRunTime.getCompilationUnit(className);
         if (cu != null) {
@@ -371,23 +456,54 @@ public class AbstractCompiler {
 
         Path sourcePath = Paths.get(Settings.getBasePath(), relativePath);
 
-        // Proceed with parsing the controller file
         // Proceed with parsing the controller file
         try {
-            cu = javaParser.parse(sourcePath).getResult().orElseThrow(() -> new IllegalStateException("Parse error"));
+            cu = parser.parse(sourcePath).getResult().orElseThrow(() -> new IllegalStateException("Parse error"));
         } catch (IOException e) {
             throw new FileNotFoundException("File not found: " + sourcePath);
         }
 
-        // Enable LexicalPreservingPrinter if requested for whitespace preservation
-        if (enableLexicalPreservation) {
-            LexicalPreservingPrinter.setup(cu);
+        if (Settings.getProperty(Settings.SLIM_AST, Boolean.class).orElse(false) && !isTarget(className)) {
+            slim(cu);
+        } else if (enableLexicalPreservation) {
+            // Enable LexicalPreservingPrinter if requested for whitespace preservation
+            preserveLexically(cu);
         }
 
         cache(cu);
         return false;
     }
 
+    /**
+     * @param className a fully qualified class name
+     * @return true if the class or its package is listed in the controllers or services settings
+     */
+    private static boolean isTarget(String className) {
+        for (String key : List.of(Settings.CONTROLLERS, Settings.SERVICES)) {
+            for (String target : Settings.getPropertyList(key, String.class)) {
+                if (className.equals(target) || className.startsWith(target + ".")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops the comments and the tokens of a compilation unit that is only needed to resolve
+     * types. The source positions of the nodes are kept.
+     *
+     * @param cu the compilation unit to slim
+     */
+    static void slim(CompilationUnit cu) {
+        cu.getAllComments().forEach(Comment::remove);
+        cu.walk(node -> {
+            Range range = node.getRange().orElse(null);
+            node.setTokenRange(null);
+            node.setRange(range);
+        });
+    }
+
     private void cache(CompilationUnit cu) {
         for (TypeDeclaration<?> type : cu.getTypes()) {
             findContainedTypes(type, cu);
@@ -421,7 +537,7 @@ public class AbstractCompiler {
         if (fqnOpt.isPresent()) {
             String name = fqnOpt.get();
             // Check if a compilation unit already exists for this FQN
-            CompilationUnit existingCu = AntikytheraRunTime.getCompilationUnit(name);
+            CompilationUnit existingCu = AntikytheraRunTime.addCompilationUnitIfAbsent(name, cu);
             if (existingCu != null && existingCu != cu) {
                 String existingPath = existingCu.getStorage()
                         .map(storage -> storage.getPath().toString())
@@ -433,7 +549,6 @@ public class AbstractCompiler {
                         String.format("Duplicate class '%s' in %s and %s.", name, existingPath, currentPath));
             }
             AntikytheraRunTime.addType(name, typeWrapper);
-            AntikytheraRunTime.addCompilationUnit(name, cu);
         }
     }
 
@@ -472,26 +587,39 @@ public class AbstractCompiler {
     }
 
     public static void populateTypeMetadata(TypeDeclaration<?> type, TypeWrapper typeWrapper) {
-        if (hasAnyAnnotation(type, "Service", "org.springframework.stereotype.Service")) {
+        populateTypeMetadata(type::isAnnotationPresent, typeWrapper);
+    }
+
+    /**
+     * Sets the stereotype flags of the type wrapper.
+     *
+     * @param annotated tests whether the type carries the annotation with the given simple or
+     *                  fully qualified name
+     * @param typeWrapper the wrapper to update
+     */
+    static void populateTypeMetadata(Predicate<String> annotated, TypeWrapper typeWrapper) {
+        if (hasAnyAnnotation(annotated, "Service", "org.springframework.stereotype.Service")) {
             typeWrapper.setService(true);
-        } else if (hasAnyAnnotation(type, "RestController", "Controller",
+        } else if (hasAnyAnnotation(annotated, "RestController", "Controller",
                 "org.springframework.web.bind.annotation.RestController",
                 "org.springframework.stereotype.Controller")) {
             typeWrapper.setController(true);
-        } else if (hasAnyAnnotation(type, "Component", "org.springframework.stereotype.Component")) {
+        } else if (hasAnyAnnotation(annotated, "Component", "org.springframework.stereotype.Component")) {
             typeWrapper.setComponent(true);
         }
 
-        typeWrapper.setRepository(hasAnyAnnotation(type, "Repository", "org.springframework.stereotype.Repository"));
-        typeWrapper.setConfiguration(hasAnyAnnotation(type, "Configuration",
+        typeWrapper.setRepository(hasAnyAnnotation(annotated, "Repository", "org.springframework.stereotype.Repository"));
+        typeWrapper.setConfiguration(hasAnyAnnotation(annotated, "Configuration",
                 "org.springframework.context.annotation.Configuration",
                 "ConfigurationProperties",
                 "org.springframework.boot.context.properties.ConfigurationProperties"));
+        typeWrapper.setEntity(hasAnyAnnotation(annotated, "Entity", "jakarta.persistence.Entity",
+                "javax.persistence.Entity"));
     }
 
-    private static boolean hasAnyAnnotation(TypeDeclaration<?> type, String... annotationNames) {
+    private static boolean hasAnyAnnotation(Predicate<String> annotated, String... annotationNames) {
         for (String annotationName : annotationNames) {
-            if (type.isAnnotationPresent(annotationName)) {
+            if (annotated.test(annotationName)) {
                 return true;
             }
         }
@@ -763,7 +891,25 @@ public class AbstractCompiler {
         return findType(cu, type.asString());
     }
 
+    /**
+     * Finds the type that a name refers to within a compilation unit.
+     *
+     * Results are memoized per compilation unit, see {@link TypeResolutionCache}. The wrappers
+     * returned from the cache are shared and cannot be modified.
+     *
+     * @param cu the compilation unit in which the name appears, may be null for java.lang types
+     * @param className a simple, partially qualified or fully qualified name, optionally with
+     *                  type arguments
+     * @return the TypeWrapper representing the type, or null if not found
+     */
     public static TypeWrapper findType(CompilationUnit cu, String className) {
+        if (cu == null) {
+            return findTypeUncached(null, className);
+        }
+        return TypeResolutionCache.find(cu, className, name -> findTypeUncached(cu, name));
+    }
+
+    private static TypeWrapper findTypeUncached(CompilationUnit cu, String className) {
         // Strip generic type parameters if present (e.g., "ArrayList<Integer>" -> "ArrayList")
         StringBuilder baseNameBuilder = new StringBuilder();
         int genericDepth = 0;
@@ -840,12 +986,10 @@ public class AbstractCompiler {
     }
 
     private static TypeWrapper searchClassName(String className) {
-        for (String resolvedFqn : AntikytheraRunTime.getResolvedTypes().keySet()) {
-            if (resolvedFqn.endsWith("." + className)) {
-                Optional<TypeDeclaration<?>> typeDecl = AntikytheraRunTime.getTypeDeclaration(resolvedFqn);
-                if (typeDecl.isPresent()) {
-                    return new TypeWrapper(typeDecl.orElseThrow());
-                }
+        for (String resolvedFqn : AntikytheraRunTime.findTypesBySuffix(className)) {
+            Optional<TypeDeclaration<?>> typeDecl = AntikytheraRunTime.getTypeDeclaration(resolvedFqn);
+            if (typeDecl.isPresent()) {
+                return new TypeWrapper(typeDecl.orElseThrow());
             }
         }
         return null;
@@ -859,7 +1003,7 @@ public class AbstractCompiler {
             }
             try {
                 if (imp.getImport().isAsterisk()) {
-                    return new TypeWrapper(Class.forName(imp.getNameAsString() + "." + className));
+                    return new TypeWrapper(ClassLookup.forName(imp.getNameAsString() + "." + className));
                 }
                 return new TypeWrapper(AbstractCompiler.loadClass(imp.getNameAsString()));
             } catch (ClassNotFoundException e) {
@@ -906,7 +1050,7 @@ public class AbstractCompiler {
 
     private static TypeWrapper findTypeFromJavaLang(String className) {
         try {
-            Class<?> c = Class.forName("java.lang." + className);
+            Class<?> c = ClassLookup.forName("java.lang." + className);
             return new TypeWrapper(c);
         } catch (ClassNotFoundException e) {
             /*
@@ -941,7 +1085,7 @@ public class AbstractCompiler {
         }
 
         try {
-            return new TypeWrapper(Class.forName("java.lang." + className));
+            return new TypeWrapper(ClassLookup.forName("java.lang." + className));
 
         } catch (ClassNotFoundException ex) {
             /*
@@ -950,7 +1094,7 @@ public class AbstractCompiler {
         }
 
         try {
-            return new TypeWrapper(Class.forName(tentativeName));
+            return new TypeWrapper(ClassLookup.forName(tentativeName));
         } catch (ClassNotFoundException ex) {
             /*
              * Once again ignore the exception. We don't have the class in the lang package.
@@ -960,7 +1104,7 @@ public class AbstractCompiler {
              */
             if (className.contains(".")) {
                 try {
-                    return new TypeWrapper(Class.forName(className));
+                    return new TypeWrapper(ClassLookup.forName(className));
                 } catch (ClassNotFoundException e) {
                     return null;
                 }
@@ -1012,6 +1156,10 @@ public class AbstractCompiler {
      * @return the import declaration or null if not found
      */
     public static ImportWrapper findImport(CompilationUnit cu, String className) {
+        return ImportTable.of(cu).find(className, name -> findImportUncached(cu, name));
+    }
+
+    private static ImportWrapper findImportUncached(CompilationUnit cu, String className) {
         ImportWrapper imp = findNonWildcardImport(cu, className);
         if (imp != null) {
             return imp;
@@ -1028,41 +1176,39 @@ public class AbstractCompiler {
          * import to
          * resolve
          */
-        for (Object e : Settings.getProperty("extra_exports", List.class).orElseGet(List::of)) {
-            if (e.toString().endsWith(className)) {
-                return new ImportWrapper(new ImportDeclaration(e.toString(), false, false));
-            }
+        String export = ImportTable.findExtraExport(className);
+        if (export != null) {
+            return new ImportWrapper(new ImportDeclaration(export, false, false));
         }
         return null;
     }
 
     private static ImportWrapper findNonWildcardImport(CompilationUnit cu, String className) {
-        for (ImportDeclaration imp : cu.getImports()) {
-            if (imp.getNameAsString().equals(className) && !imp.isAsterisk()) {
-                /*
-                 * Easy one straight-up match involving a fully qualified name as className
-                 */
-                return new ImportWrapper(imp);
-            }
-
-            Name importName = imp.getName();
-            if (className.equals(importName.getIdentifier()) && !imp.isAsterisk()) {
-                /*
-                 * the last part of the import matches the class name
-                 */
-                final ImportWrapper wrapper = new ImportWrapper(imp);
-                if (!imp.isStatic()) {
-                    AntikytheraRunTime.getTypeDeclaration(imp.getNameAsString()).ifPresent(
-                            p -> setTypeAndField(className, p, wrapper));
-                } else if (importName.getQualifier().isPresent()) {
-                    AntikytheraRunTime.getTypeDeclaration(importName.getQualifier().orElseThrow().toString()).ifPresent(
-                            p -> setTypeAndField(className, p, wrapper));
-                }
-                return wrapper;
-            }
+        ImportTable.Entry entry = ImportTable.of(cu).getSingleImport(className);
+        if (entry == null) {
+            return null;
+        }
+        ImportDeclaration imp = entry.declaration();
+        if (!entry.bySimpleName()) {
+            /*
+             * Easy one straight-up match involving a fully qualified name as className
+             */
+            return new ImportWrapper(imp);
         }
 
-        return null;
+        /*
+         * the last part of the import matches the class name
+         */
+        Name importName = imp.getName();
+        final ImportWrapper wrapper = new ImportWrapper(imp);
+        if (!imp.isStatic()) {
+            AntikytheraRunTime.getTypeDeclaration(imp.getNameAsString()).ifPresent(
+                    p -> setTypeAndField(className, p, wrapper));
+        } else if (importName.getQualifier().isPresent()) {
+            AntikytheraRunTime.getTypeDeclaration(importName.getQualifier().orElseThrow().toString()).ifPresent(
+                    p -> setTypeAndField(className, p, wrapper));
+        }
+        return wrapper;
     }
 
     private static void setTypeAndField(String className, TypeDeclaration<?> p, ImportWrapper wrapper) {
@@ -1075,13 +1221,13 @@ public class AbstractCompiler {
     }
 
     static ImportWrapper findWildcardImport(CompilationUnit cu, String className) {
-        for (ImportDeclaration imp : cu.getImports()) {
-            if (imp.isAsterisk() && !className.contains("\\.")) {
+        for (ImportDeclaration imp : ImportTable.of(cu).getWildcards()) {
+            if (!className.contains("\\.")) {
                 String impName = imp.getNameAsString();
 
                 String fullClassName = impName + "." + className;
                 try {
-                    Class<?> clazz = Class.forName(fullClassName);
+                    Class<?> clazz = ClassLookup.forName(fullClassName);
                     /*
                      * Wild card import. Append the class name to the end and load the class,
                      * we are on this line because it has worked, so this is the correct import.
@@ -1199,7 +1345,10 @@ public class AbstractCompiler {
      */
     public static Optional<Callable> findMethodDeclaration(MCEWrapper methodCall,
             TypeDeclaration<?> decl) {
-        return findMethodDeclaration(methodCall, decl, true);
+        if (methodCall.getMethodCallExpr() instanceof MethodCallExpr) {
+            return findCallableDeclaration(methodCall, decl);
+        }
+        return Optional.empty();
     }
 
     /**
@@ -1281,7 +1430,7 @@ public class AbstractCompiler {
             if (wrapper != null) {
                 TypeDeclaration<?> p = wrapper.getType();
                 Optional<Callable> method = (p != null)
-                        ? findCallableDeclaration(methodCall, p)
+                        ? resolveCallable(methodCall, p)
                         : findCallableInBinaryCode(wrapper.getClazz(), methodCall);
 
                 if (method.isPresent()) {
@@ -1310,6 +1459,7 @@ public class AbstractCompiler {
 
     /**
      * Finds either a method or constructor declaration matching the call expression.
+     * The outcome is remembered at the call site, see {@link CallSiteCache}.
      *
      * @param methodCall the method call wrapper
      * @param decl       the type declaration to search in
@@ -1317,8 +1467,12 @@ public class AbstractCompiler {
      */
     public static Optional<Callable> findCallableDeclaration(MCEWrapper methodCall,
             TypeDeclaration<?> decl) {
+        return CallSiteCache.find(methodCall, decl, AbstractCompiler::resolveCallable);
+    }
+
+    private static Optional<Callable> resolveCallable(MCEWrapper methodCall, TypeDeclaration<?> decl) {
         if (methodCall.getMethodCallExpr() instanceof MethodCallExpr) {
-            return findMethodDeclaration(methodCall, decl);
+            return findMethodDeclaration(methodCall, decl, true);
         }
 
         return findConstructorDeclaration(methodCall, decl);
@@ -1384,19 +1538,140 @@ public class AbstractCompiler {
         }
 
         for (Path sourceDir : dirs) {
-            try (var paths = Files.walk(sourceDir)) {
-                List<File> javaFiles = paths
-                        .filter(Files::isRegularFile)
-                        .filter(path -> path.toString().endsWith(SUFFIX))
-                        .map(Path::toFile)
-                        .toList();
-
-                for (File javaFile : javaFiles) {
+            preProcessDirectory(basePath, sourceDir);
+        }
+    }
+
+    /**
+     * Compile all the java files in a folder and then work out the interfaces implemented and
+     * the classes extended by each of them.
+     *
+     * All the files are parsed before the interfaces are solved. This way the solving pass
+     * always has access to every type in the folder, regardless of the order in which the files
+     * were listed. Parsing will be carried out concurrently when the preprocess_parallelism
+     * setting is greater than one.
+     *
+     * When the source_index setting is enabled, files that have not changed since the previous
+     * run are not parsed here. See {@link SourceIndex} for details. When lazy_compilation is
+     * enabled no files are parsed at all, see {@link #scanDirectory(Path, List)}.
+     *
+     * @param basePath the base path of the application
+     * @param sourceDir the folder to process
+     * @throws IOException if the files could not be read
+     */
+    private static void preProcessDirectory(Path basePath, Path sourceDir) throws IOException {
+        List<String> relativePaths;
+        try (var paths = Files.walk(sourceDir)) {
+            relativePaths = paths
+                    .filter(Files::isRegularFile)
+                    .filter(path -> path.toString().endsWith(SUFFIX))
+                    .map(path -> basePath.relativize(path).toString())
+                    .sorted()
+                    .toList();
+        }
+
+        if (Settings.getProperty(Settings.LAZY_COMPILATION, Boolean.class).orElse(false)) {
+            scanDirectory(basePath, relativePaths);
+            return;
+        }
+
+        SourceIndex sourceIndex = SourceIndex.load();
+        if (sourceIndex != null) {
+            relativePaths = sourceIndex.restore(basePath, relativePaths);
+        }
+
+        int parallelism = Settings.getPreprocessParallelism();
+        List<AbstractCompiler> compilers = parallelism > 1
+                ? compileConcurrently(relativePaths, parallelism)
+                : compileSequentially(relativePaths);
+
+        for (AbstractCompiler compiler : compilers) {
+            compiler.solveInterfacesAndExtends();
+        }
+
+        if (sourceIndex != null) {
+            sourceIndex.update(relativePaths, compilers);
+            sourceIndex.save();
+        }
+    }
+
+    /**
+     * Registers the types declared in each file as deferred types without parsing the files.
+     *
+     * The declarations are found with the {@link LexicalTypeScanner}, which also provides the
+     * annotations needed for the stereotype flags. The names that each type extends or implements
+     * are recorded so that the files can be parsed when the implementations or subclasses of one
+     * of those names are looked up.
+     *
+     * @param basePath the base path of the application
+     * @param relativePaths the files to scan
+     * @throws IOException if a file could not be read
+     */
+    private static void scanDirectory(Path basePath, List<String> relativePaths) throws IOException {
+        for (String relativePath : relativePaths) {
+            for (LexicalTypeScanner.ScannedType type : LexicalTypeScanner.scan(basePath.resolve(relativePath))) {
+                TypeWrapper wrapper = TypeWrapper.deferred(type.name());
+                populateTypeMetadata(type.annotations()::contains, wrapper);
+                wrapper.setInterface(type.isInterface());
+                AntikytheraRunTime.addDeferredType(type.name(), relativePath, wrapper);
+                for (String supertype : type.supertypes()) {
+                    AntikytheraRunTime.addUnsolvedSupertype(supertype, type.name());
+                }
+            }
+        }
+    }
+
+    private static List<AbstractCompiler> compileSequentially(List<String> relativePaths) throws IOException {
+        List<AbstractCompiler> compilers = new ArrayList<>();
+        for (String relativePath : relativePaths) {
+            AbstractCompiler compiler = new AbstractCompiler();
+            compiler.compile(relativePath);
+            compilers.add(compiler);
+        }
+        return compilers;
+    }
+
+    /**
+     * Parses the files on a dedicated fork join pool.
+     * Each worker thread gets its own JavaParser, but they all share the same parser
+     * configuration and through it the same CombinedTypeSolver.
+     *
+     * @param relativePaths the files to compile
+     * @param parallelism the number of worker threads
+     * @return the compilers in the same order as the paths
+     * @throws IOException if any of the files could not be read
+     */
+    private static List<AbstractCompiler> compileConcurrently(List<String> relativePaths, int parallelism)
+            throws IOException {
+        if (combinedTypeSolver == null) {
+            setupParser();
+        }
+        ThreadLocal<JavaParser> parsers = ThreadLocal.withInitial(() -> new JavaParser(parserConfiguration));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> relativePaths.parallelStream().map(relativePath -> {
+                try {
                     AbstractCompiler compiler = new AbstractCompiler();
-                    compiler.compileAndSolveInterfaces(
-                            basePath.relativize(javaFile.toPath()).toString());
+                    compiler.compile(relativePath, parsers.get());
+                    return compiler;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
+            }).toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while pre-processing source files", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException uio) {
+                throw uio.getCause();
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
             }
+            throw new IOException(cause);
+        } finally {
+            pool.shutdown();
         }
     }
 
@@ -1411,7 +1686,24 @@ public class AbstractCompiler {
      */
     public boolean compileAndSolveInterfaces(String relativePath) throws FileNotFoundException {
         boolean b = compile(relativePath);
+        solveInterfacesAndExtends();
+        return b;
+    }
 
+    /**
+     * Works out the interfaces implemented and the classes extended by the types in a
+     * compilation unit that has already been cached.
+     *
+     * @param cu the compilation unit
+     * @throws IOException if the parser could not be set up
+     */
+    public static void solveInterfacesAndExtends(CompilationUnit cu) throws IOException {
+        AbstractCompiler compiler = new AbstractCompiler();
+        compiler.cu = cu;
+        compiler.solveInterfacesAndExtends();
+    }
+
+    private void solveInterfacesAndExtends() {
         for (TypeDeclaration<?> t : cu.getTypes()) {
             if (t.isClassOrInterfaceDeclaration() && t.getFullyQualifiedName().isPresent()) {
                 ClassOrInterfaceDeclaration cdecl = t.asClassOrInterfaceDeclaration();
@@ -1419,26 +1711,13 @@ public class AbstractCompiler {
                 solveExtends(cdecl);
             }
         }
-        return b;
     }
 
     public static void preProcessTestSources() throws IOException {
         Path basePath = Paths.get(Settings.getBasePath()).toAbsolutePath().normalize();
         Path testJava = basePath.resolve("src/test/java");
         if (Files.isDirectory(testJava)) {
-            try (var paths = Files.walk(testJava)) {
-                List<File> javaFiles = paths
-                        .filter(Files::isRegularFile)
-                        .filter(path -> path.toString().endsWith(SUFFIX))
-                        .map(Path::toFile)
-                        .toList();
-
-                for (File javaFile : javaFiles) {
-                    AbstractCompiler compiler = new AbstractCompiler();
-                    compiler.compileAndSolveInterfaces(
-                            basePath.relativize(javaFile.toPath()).toString());
-                }
-            }
+            preProcessDirectory(basePath, testJava);
         }
     }
 
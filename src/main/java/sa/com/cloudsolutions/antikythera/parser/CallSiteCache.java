@@ -0,0 +1,156 @@
+package sa.com.cloudsolutions.antikythera.parser;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.type.Type;
+import sa.com.cloudsolutions.antikythera.evaluator.AntikytheraRunTime;
+import sa.com.cloudsolutions.antikythera.evaluator.NodeCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * <p>An inline cache for the callable that a method call or object creation resolves to.</p>
+ *
+ * Finding the callable means comparing the types of the arguments with the parameters of every
+ * candidate and searching through the ancestors of the type, all over again each time that the
+ * call is evaluated. At nearly every call site the answer is the same as the last time. There is
+ * a cache for each call expression in each evaluation context, see {@link NodeCache}. It
+ * remembers the outcome for up to {@value #MAX_ENTRIES}
+ * combinations of the type being searched and the types of the arguments. A site that sees more
+ * combinations than that is megamorphic: it stops caching and always does the full lookup.
+ *
+ * Like the {@link TypeResolutionCache}, every cache is discarded when a type is added to the
+ * {@link AntikytheraRunTime} and when the compiler is reset.
+ */
+final class CallSiteCache {
+    static final int MAX_ENTRIES = 4;
+
+    private static final NodeCache<CallSiteCache> CACHE = new NodeCache<>();
+    private static final AtomicLong epoch = new AtomicLong();
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong megamorphicSites = new AtomicLong();
+
+    /**
+     * @param receiver the type declaration that was searched
+     * @param signature the types of the arguments, null if they were not known
+     * @param callable what the lookup found, null if nothing was found
+     */
+    private record Entry(TypeDeclaration<?> receiver, List<String> signature, Callable callable) {}
+
+    private final long typesVersion;
+    private final long createdEpoch;
+    private final List<Entry> entries = new ArrayList<>(MAX_ENTRIES);
+    private boolean megamorphic;
+
+    private CallSiteCache() {
+        this.typesVersion = AntikytheraRunTime.getTypesVersion();
+        this.createdEpoch = epoch.get();
+    }
+
+    /**
+     * Looks up the callable for a call in the cache of the call site, resolving it on a miss.
+     *
+     * @param call the call together with the types of its arguments
+     * @param decl the type declaration to search in
+     * @param resolver carries out the lookup when the result is not in the cache
+     * @return the callable, bound to the given call, if one was found
+     */
+    static Optional<Callable> find(MCEWrapper call, TypeDeclaration<?> decl,
+            BiFunction<MCEWrapper, TypeDeclaration<?>, Optional<Callable>> resolver) {
+        if (!(call.getMethodCallExpr() instanceof Node site)) {
+            return resolver.apply(call, decl);
+        }
+        CallSiteCache cache = forSite(site);
+        List<String> signature = signature(call.getArgumentTypes());
+
+        if (cache.megamorphic) {
+            return resolver.apply(call, decl);
+        }
+        for (Entry entry : cache.entries) {
+            if (entry.receiver == decl && Objects.equals(entry.signature, signature)) {
+                hits.incrementAndGet();
+                return Optional.ofNullable(entry.callable).map(c -> c.forCall(call));
+            }
+        }
+
+        misses.incrementAndGet();
+        Optional<Callable> callable = resolver.apply(call, decl);
+        /*
+         * The lookup may have added types to the runtime, in which case the result is not
+         * stored because the cache is already out of date.
+         */
+        if (cache.isCurrent()) {
+            cache.add(new Entry(decl, signature, callable.map(c -> c.forCall(null)).orElse(null)));
+        }
+        return callable;
+    }
+
+    private static CallSiteCache forSite(Node site) {
+        CallSiteCache cache = CACHE.get(site);
+        if (cache == null || !cache.isCurrent()) {
+            cache = new CallSiteCache();
+            CACHE.put(site, cache);
+        }
+        return cache;
+    }
+
+    private void add(Entry entry) {
+        if (megamorphic) {
+            return;
+        }
+        if (entries.size() == MAX_ENTRIES) {
+            megamorphic = true;
+            entries.clear();
+            megamorphicSites.incrementAndGet();
+            return;
+        }
+        entries.add(entry);
+    }
+
+    private boolean isCurrent() {
+        return typesVersion == AntikytheraRunTime.getTypesVersion() && createdEpoch == epoch.get();
+    }
+
+    private static List<String> signature(NodeList<Type> types) {
+        if (types == null) {
+            return null;
+        }
+        List<String> signature = new ArrayList<>(types.size());
+        for (Type type : types) {
+            signature.add(type == null ? null : type.toString());
+        }
+        return signature;
+    }
+
+    /**
+     * Discards every cache. Needed when the class loaders change.
+     */
+    static void invalidateAll() {
+        epoch.incrementAndGet();
+    }
+
+    static long getHits() {
+        return hits.get();
+    }
+
+    static long getMisses() {
+        return misses.get();
+    }
+
+    static long getMegamorphicSites() {
+        return megamorphicSites.get();
+    }
+
+    static void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+        megamorphicSites.set(0);
+    }
+}
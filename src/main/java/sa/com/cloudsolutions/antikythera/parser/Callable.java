@@ -51,6 +51,21 @@ public class Callable {
 
     }
 
+    /**
+     * Creates a copy of this callable that is associated with a different call.
+     * @param call the method call expression that should be associated with the copy
+     * @return a new callable for the same method or declaration
+     */
+    Callable forCall(MCEWrapper call) {
+        Callable copy = new Callable();
+        copy.callableDeclaration = callableDeclaration;
+        copy.method = method;
+        copy.foundInClass = foundInClass;
+        copy.classOrInterfaceDeclaration = classOrInterfaceDeclaration;
+        copy.mce = call;
+        return copy;
+    }
+
     @SuppressWarnings("java:S1452")
     public CallableDeclaration<?> getCallableDeclaration() {
         return callableDeclaration;
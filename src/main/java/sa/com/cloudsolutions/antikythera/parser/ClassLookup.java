@@ -0,0 +1,224 @@
+package sa.com.cloudsolutions.antikythera.parser;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Looks up classes by name and remembers the outcome.</p>
+ *
+ * Type resolution tries several candidate names for every identifier that it cannot find in the
+ * sources, and most of those attempts fail. Each failure walks the whole class loader chain and
+ * builds a {@link ClassNotFoundException} with a stack trace. This class keeps a bounded cache of
+ * the classes that were found and another one of the names that were not, so that each name is
+ * probed only once.
+ *
+ * There are two kinds of lookup. {@link #forName(String)} only uses the class loader that loaded
+ * Antikythera itself, exactly like {@link Class#forName(String)}. {@link #loadClass(String)} also
+ * searches the jars of the application under test. A name that is missing from the first may
+ * still be found by the second, so the two outcomes are recorded separately.
+ *
+ * Both caches are discarded when {@link AbstractCompiler} creates a new class loader.
+ */
+public final class ClassLookup {
+    static final int MAX_FOUND = 10_000;
+    static final int MAX_MISSING = 50_000;
+
+    private static final Map<String, Found> found = Collections.synchronizedMap(new Bounded<>(MAX_FOUND));
+    private static final Map<String, Missing> missing = Collections.synchronizedMap(new Bounded<>(MAX_MISSING));
+    /**
+     * Classes that were defined at run time are not in any jar, so the jar index must not be
+     * allowed to rule them out. They are kept across generations because every new class loader
+     * delegates to the one before it.
+     */
+    private static final Set<String> definedAtRunTime = ConcurrentHashMap.newKeySet();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong negativeHits = new AtomicLong();
+    private static final AtomicLong probes = new AtomicLong();
+    private static final AtomicLong probeNanos = new AtomicLong();
+
+    private static ClassLoader loader;
+    private static JarClassIndex jarIndex;
+
+    /**
+     * @param clazz the class
+     * @param system true if the class can be loaded without the jars of the application
+     */
+    private record Found(Class<?> clazz, boolean system) {}
+
+    private enum Missing {
+        /**
+         * Not known to the class loader of Antikythera, but may be in one of the jars.
+         */
+        SYSTEM,
+        /**
+         * Not known to any of the class loaders.
+         */
+        EVERYWHERE
+    }
+
+    private ClassLookup() {
+    }
+
+    /**
+     * Starts a new generation of the caches. Called whenever the class loader is replaced.
+     *
+     * @param classLoader the class loader for the jars of the application under test
+     * @param index the index of the classes in those jars, may be null
+     */
+    static void reset(ClassLoader classLoader, JarClassIndex index) {
+        loader = classLoader;
+        jarIndex = index;
+        found.clear();
+        missing.clear();
+    }
+
+    /**
+     * Finds a class using only the class loader of Antikythera.
+     *
+     * @param name the binary name of the class
+     * @return the class
+     * @throws ClassNotFoundException if the class cannot be found
+     */
+    public static Class<?> forName(String name) throws ClassNotFoundException {
+        Found f = found.get(name);
+        if (f != null && f.system) {
+            hits.incrementAndGet();
+            return f.clazz;
+        }
+        if (f != null || missing.get(name) != null) {
+            negativeHits.incrementAndGet();
+            throw new ClassNotFoundException(name);
+        }
+        Class<?> clazz = probeSystem(name);
+        if (clazz == null) {
+            missing.putIfAbsent(name, Missing.SYSTEM);
+            throw new ClassNotFoundException(name);
+        }
+        found.put(name, new Found(clazz, true));
+        return clazz;
+    }
+
+    /**
+     * Finds a class using the class loader of Antikythera and then the jars of the application.
+     *
+     * @param name the binary name of the class
+     * @return the class
+     * @throws ClassNotFoundException if the class cannot be found
+     */
+    public static Class<?> loadClass(String name) throws ClassNotFoundException {
+        Found f = found.get(name);
+        if (f != null) {
+            hits.incrementAndGet();
+            return f.clazz;
+        }
+        Missing m = missing.get(name);
+        if (m == Missing.EVERYWHERE) {
+            negativeHits.incrementAndGet();
+            throw new ClassNotFoundException(name);
+        }
+
+        Class<?> clazz = m == null ? probeSystem(name) : null;
+        if (clazz != null) {
+            found.put(name, new Found(clazz, true));
+            return clazz;
+        }
+        if (m == Missing.SYSTEM) {
+            negativeHits.incrementAndGet();
+        }
+
+        /*
+         * The jar index knows every class in the jars that the loader was built from, so
+         * there is no need to ask the loader to search through them for a missing class.
+         */
+        if (loader != null && (jarIndex == null || jarIndex.mayContain(name) || definedAtRunTime.contains(name))) {
+            clazz = probe(name, loader);
+        }
+        if (clazz == null) {
+            missing.put(name, Missing.EVERYWHERE);
+            throw new ClassNotFoundException(name);
+        }
+        found.put(name, new Found(clazz, false));
+        return clazz;
+    }
+
+    /**
+     * Records a class that was defined at run time, for example by ByteBuddy, so that an earlier
+     * failed lookup for the same name does not hide it and later lookups find it.
+     *
+     * @param clazz the newly defined class
+     */
+    public static void defined(Class<?> clazz) {
+        definedAtRunTime.add(clazz.getName());
+        missing.remove(clazz.getName());
+        found.put(clazz.getName(), new Found(clazz, false));
+    }
+
+    private static Class<?> probeSystem(String name) {
+        long start = System.nanoTime();
+        probes.incrementAndGet();
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException | NoClassDefFoundError e) {
+            return null;
+        } finally {
+            probeNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private static Class<?> probe(String name, ClassLoader classLoader) {
+        long start = System.nanoTime();
+        probes.incrementAndGet();
+        try {
+            return classLoader.loadClass(name);
+        } catch (ClassNotFoundException | NoClassDefFoundError e) {
+            return null;
+        } finally {
+            probeNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    static long getHits() {
+        return hits.get();
+    }
+
+    static long getNegativeHits() {
+        return negativeHits.get();
+    }
+
+    static long getProbes() {
+        return probes.get();
+    }
+
+    static long getProbeNanos() {
+        return probeNanos.get();
+    }
+
+    static void resetStatistics() {
+        hits.set(0);
+        negativeHits.set(0);
+        probes.set(0);
+        probeNanos.set(0);
+    }
+
+    /**
+     * A map that drops the least recently used entry once it is full.
+     */
+    private static class Bounded<V> extends LinkedHashMap<String, V> {
+        private final int capacity;
+
+        Bounded(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -90,6 +90,7 @@ public abstract class DepsolvingParser {
         evaluator.reset();
         Branching.clear();
         AntikytheraRunTime.reset();
+        AntikytheraRunTime.clearNodeCaches();
         try {
             if (md instanceof MethodDeclaration methodDeclaration) {
                 evaluator.visit(methodDeclaration);
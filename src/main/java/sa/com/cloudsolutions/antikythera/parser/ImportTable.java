@@ -0,0 +1,174 @@
+package sa.com.cloudsolutions.antikythera.parser;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.NodeList;
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+import sa.com.cloudsolutions.antikythera.evaluator.AntikytheraRunTime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * <p>An index of the import declarations of a compilation unit.</p>
+ *
+ * The tables are kept in a map keyed by the identity of the compilation unit rather than in the
+ * node data of JavaParser, because the units are shared by the evaluation contexts of several
+ * threads. A table is built the first time an import of the unit is looked up. It maps both the fully qualified name and
+ * the simple name of every single type import to the declaration, keeps the wildcard imports in
+ * a separate list and remembers the wrapper found for each name, including the names that could
+ * not be found.
+ *
+ * The index is rebuilt when the compilation unit is given another import list or when imports are
+ * added to or removed from it. Nothing is registered on the unit itself, replacing an import in
+ * place is only noticed after {@link AbstractCompiler#reset()}, which discards every table. The
+ * remembered wrappers depend on the types known to the {@link AntikytheraRunTime} and on the class
+ * loaders so they are discarded when a type is added or the compiler is reset.
+ */
+final class ImportTable {
+    private static final Map<CompilationUnit, ImportTable> tables = new IdentityHashMap<>();
+    private static final ImportWrapper NOT_FOUND = new ImportWrapper(null);
+    private static final AtomicLong epoch = new AtomicLong();
+
+    private static List<?> extraExportsSource;
+    /**
+     * The entries of the extra_exports setting by their simple names, in the order of the setting.
+     */
+    private static Map<String, List<String>> extraExports = Map.of();
+
+    /**
+     * The import list that this table was built from.
+     */
+    private final NodeList<ImportDeclaration> imports;
+    /**
+     * The number of imports in the list when the table was built.
+     */
+    private final int size;
+    private final Map<String, Entry> singleImports = new HashMap<>();
+    private final List<ImportDeclaration> wildcards = new ArrayList<>();
+    private final Map<String, ImportWrapper> wrappers = new ConcurrentHashMap<>();
+    private long typesVersion;
+    private long createdEpoch;
+
+    /**
+     * A single type or static import.
+     *
+     * @param declaration the import
+     * @param bySimpleName true if the name was matched against the last part of the import
+     *                     rather than the whole of it
+     */
+    record Entry(ImportDeclaration declaration, boolean bySimpleName) {}
+
+    private ImportTable(NodeList<ImportDeclaration> imports) {
+        this.imports = imports;
+        this.size = imports.size();
+        for (ImportDeclaration imp : imports) {
+            if (imp.isAsterisk()) {
+                wildcards.add(imp);
+            } else {
+                singleImports.putIfAbsent(imp.getNameAsString(), new Entry(imp, false));
+                singleImports.putIfAbsent(imp.getName().getIdentifier(), new Entry(imp, true));
+            }
+        }
+        resetWrappers();
+    }
+
+    /**
+     * @param cu a compilation unit
+     * @return the import table for the compilation unit, building it if needed
+     */
+    static ImportTable of(CompilationUnit cu) {
+        synchronized (tables) {
+            ImportTable table = tables.get(cu);
+            if (table != null && table.imports == cu.getImports() && table.size == table.imports.size()) {
+                return table;
+            }
+            table = new ImportTable(cu.getImports());
+            tables.put(cu, table);
+            return table;
+        }
+    }
+
+    /**
+     * Looks up the import for a name, resolving it on the first request.
+     *
+     * @param className the name to look for
+     * @param resolver finds the import when it has not been looked up before
+     * @return the import or null if there isn't one
+     */
+    ImportWrapper find(String className, Function<String, ImportWrapper> resolver) {
+        if (typesVersion != AntikytheraRunTime.getTypesVersion() || createdEpoch != epoch.get()) {
+            resetWrappers();
+        }
+        ImportWrapper wrapper = wrappers.get(className);
+        if (wrapper == null) {
+            wrapper = resolver.apply(className);
+            wrappers.put(className, wrapper == null ? NOT_FOUND : wrapper);
+        }
+        return wrapper == NOT_FOUND ? null : wrapper;
+    }
+
+    private void resetWrappers() {
+        wrappers.clear();
+        typesVersion = AntikytheraRunTime.getTypesVersion();
+        createdEpoch = epoch.get();
+    }
+
+    /**
+     * @param className a fully qualified name or a simple name
+     * @return the first single type or static import that matches the name, or null
+     */
+    Entry getSingleImport(String className) {
+        return singleImports.get(className);
+    }
+
+    /**
+     * @return the wildcard imports in the order in which they are declared
+     */
+    List<ImportDeclaration> getWildcards() {
+        return Collections.unmodifiableList(wildcards);
+    }
+
+    /**
+     * Finds the first entry in the extra_exports setting that ends with the given name. Only the
+     * entries with the same simple name as the class need to be compared.
+     *
+     * @param className a simple or partially qualified class name
+     * @return the fully qualified name from the extra exports or null
+     */
+    static synchronized String findExtraExport(String className) {
+        List<?> source = Settings.getProperty("extra_exports", List.class).orElseGet(List::of);
+        if (source != extraExportsSource) {
+            Map<String, List<String>> index = new HashMap<>();
+            for (Object e : source) {
+                String name = e.toString();
+                index.computeIfAbsent(AbstractCompiler.fullyQualifiedToShortName(name), k -> new ArrayList<>()).add(name);
+            }
+            extraExports = index;
+            extraExportsSource = source;
+        }
+        for (String export : extraExports.getOrDefault(AbstractCompiler.fullyQualifiedToShortName(className), List.of())) {
+            if (export.endsWith(className)) {
+                return export;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Discards the remembered imports of every table. Needed when the class loaders change.
+     */
+    static void invalidateAll() {
+        epoch.incrementAndGet();
+        synchronized (tables) {
+            tables.clear();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package sa.com.cloudsolutions.antikythera.parser;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>A type solver for all the jar files on the dependency classpath.</p>
+ *
+ * Creating a {@link JarTypeSolver} means reading the whole jar, which is expensive when there
+ * are hundreds of dependencies. This solver looks the type up in the {@link JarClassIndex} first
+ * and only creates the JarTypeSolver for the jar that contains it. Types that are not in any of
+ * the jars are rejected without opening a jar at all.
+ */
+public class IndexedJarTypeSolver implements TypeSolver {
+    private final JarClassIndex index;
+    private final Set<String> jars;
+    private final Map<String, JarTypeSolver> solvers = new ConcurrentHashMap<>();
+    private TypeSolver parent;
+
+    /**
+     * @param index the index of the classes in the jars
+     * @param jars the jar files that this solver should search
+     */
+    public IndexedJarTypeSolver(JarClassIndex index, Set<String> jars) {
+        this.index = index;
+        this.jars = Set.copyOf(jars);
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        if (parent == this) {
+            throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+        }
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        String jar = index.findJar(name);
+        if (jar == null || !jars.contains(jar)) {
+            return SymbolReference.unsolved();
+        }
+        return solvers.computeIfAbsent(jar, this::open).tryToSolveType(name);
+    }
+
+    private JarTypeSolver open(String jar) {
+        try {
+            JarTypeSolver solver = new JarTypeSolver(jar);
+            solver.setParent(this);
+            return solver;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
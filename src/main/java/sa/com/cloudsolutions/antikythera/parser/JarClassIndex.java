@@ -0,0 +1,224 @@
+package sa.com.cloudsolutions.antikythera.parser;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * <p>Knows which jar file contains each class on the dependency classpath.</p>
+ *
+ * The list of classes in every jar is recorded together with the size and modification time of
+ * the jar. When an output path has been configured, the index is saved to
+ * {@code <output_path>/.antikythera/jar-index.json} so that later runs only need to scan the jars
+ * that have changed. Changed jars are scanned in parallel.
+ *
+ * The index makes it possible to answer a lookup for a class that is not in any of the jars
+ * without opening them. See {@link IndexedJarTypeSolver} and {@link AbstractCompiler#loadClass}.
+ */
+public class JarClassIndex {
+    private static final Logger logger = LoggerFactory.getLogger(JarClassIndex.class);
+    static final String INDEX_FILE = "jar-index.json";
+    /**
+     * Increment when the structure of the index changes so that stale files are discarded.
+     */
+    static final int FORMAT_VERSION = 1;
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static JarClassIndex instance;
+
+    private final Map<String, JarInfo> jars = new ConcurrentHashMap<>();
+    /**
+     * Canonical class names mapped to the first jar in which they were found, among the jars
+     * passed to the latest call of {@link #addJars}. Replaced as a whole on every call.
+     */
+    private volatile Map<String, String> classes = Map.of();
+    /**
+     * False if some entry on the classpath is not a jar that could be indexed, such as a
+     * folder. Lookups for unknown classes cannot be answered from the index in that case.
+     */
+    private volatile boolean complete = true;
+    private boolean loaded;
+
+    JarClassIndex() {
+    }
+
+    /**
+     * @return the index shared by all the compilers.
+     */
+    public static synchronized JarClassIndex getInstance() {
+        if (instance == null) {
+            instance = new JarClassIndex();
+        }
+        return instance;
+    }
+
+    /**
+     * Makes sure that the given jars have been indexed and makes them the jars that lookups are
+     * answered from. Jars that were indexed before and have not changed since are not opened.
+     * Jars that were passed to an earlier call but not to this one are no longer searched, so a
+     * class moves to the jar that provides it on the current classpath.
+     *
+     * @param paths the jar files in classpath order
+     * @throws IOException if a jar could not be read
+     */
+    public synchronized void addJars(Collection<String> paths) throws IOException {
+        Path location = location();
+        if (!loaded && location != null) {
+            read(location);
+        }
+        loaded = true;
+
+        List<String> stale = new ArrayList<>();
+        boolean allJars = true;
+        for (String path : paths) {
+            File file = new File(path);
+            if (!file.isFile()) {
+                if (file.exists()) {
+                    allJars = false;
+                }
+                continue;
+            }
+            JarInfo info = jars.get(path);
+            if (info == null || info.size != file.length() || info.modified != file.lastModified()) {
+                stale.add(path);
+            }
+        }
+
+        if (!stale.isEmpty()) {
+            try {
+                stale.parallelStream().map(JarClassIndex::scan).toList()
+                        .forEach(info -> jars.put(info.path, info));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (location != null) {
+                save(location);
+            }
+        }
+
+        Map<String, String> current = new HashMap<>();
+        for (String path : paths) {
+            JarInfo info = jars.get(path);
+            if (info != null) {
+                for (String name : info.classes) {
+                    current.putIfAbsent(name, path);
+                }
+            }
+        }
+        classes = current;
+        complete = allJars;
+    }
+
+    /**
+     * @param className a fully qualified class name, either the canonical or the binary form
+     * @return the jar that contains the class or null if it is not in any indexed jar
+     */
+    public String findJar(String className) {
+        return classes.get(className.replace('$', '.'));
+    }
+
+    /**
+     * @param className a fully qualified class name, either the canonical or the binary form
+     * @return false only when it is certain that none of the jars contain the class
+     */
+    public boolean mayContain(String className) {
+        return !complete || findJar(className) != null;
+    }
+
+    private static JarInfo scan(String path) {
+        File file = new File(path);
+        JarInfo info = new JarInfo();
+        info.path = path;
+        info.size = file.length();
+        info.modified = file.lastModified();
+        try (JarFile jar = new JarFile(file)) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.endsWith(CLASS_SUFFIX) && !name.startsWith("META-INF/")
+                        && !name.endsWith("module-info.class") && !name.endsWith("package-info.class")) {
+                    info.classes.add(name.substring(0, name.length() - CLASS_SUFFIX.length())
+                            .replace('/', '.').replace('$', '.'));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not index " + path, e);
+        }
+        return info;
+    }
+
+    private static Path location() {
+        String outputPath = Settings.getOutputPath();
+        return outputPath == null ? null : Paths.get(outputPath, SourceIndex.INDEX_FOLDER, INDEX_FILE);
+    }
+
+    private void read(Path location) {
+        if (Files.exists(location)) {
+            try {
+                Index stored = mapper().readValue(location.toFile(), Index.class);
+                if (stored.version == FORMAT_VERSION) {
+                    jars.putAll(stored.jars);
+                }
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable jar index {}: {}", location, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the index through a temporary file that then replaces the old one, so that a worker
+     * of a sharded run never reads an index that another worker is half way through writing.
+     */
+    private void save(Path location) {
+        try {
+            Files.createDirectories(location.getParent());
+            Index index = new Index();
+            index.jars.putAll(jars);
+            Path temp = Files.createTempFile(location.getParent(), INDEX_FILE, ".tmp");
+            try {
+                mapper().writeValue(temp.toFile(), index);
+                Files.move(temp, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not save jar index {}: {}", location, e.getMessage());
+        }
+    }
+
+    private static ObjectMapper mapper() {
+        return new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    public static class Index {
+        public int version = FORMAT_VERSION;
+        public Map<String, JarInfo> jars = new TreeMap<>();
+    }
+
+    public static class JarInfo {
+        public String path;
+        public long size;
+        public long modified;
+        public List<String> classes = new ArrayList<>();
+    }
+}
@@ -0,0 +1,315 @@
+package sa.com.cloudsolutions.antikythera.parser;
+
+import java.io.IOException;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>Finds the types declared in a java source file without building an AST.</p>
+ *
+ * The scanner strips comments and literals, splits what remains into tokens and then looks for
+ * the package declaration and the class, interface, enum, record and annotation declarations.
+ * For each type it records the annotations placed on it and the simple names of the types
+ * that it extends or implements. Types declared inside method bodies or anonymous classes are
+ * ignored, just as they do not have a fully qualified name in JavaParser.
+ *
+ * This is only an approximation of what the parser would find, it is used to build the
+ * index of types that makes lazy compilation possible.
+ */
+public class LexicalTypeScanner {
+    private final List<String> tokens;
+    private int pos;
+    private String packageName = "";
+    private final List<ScannedType> types = new ArrayList<>();
+
+    /**
+     * A type found by the scanner.
+     *
+     * @param name the fully qualified name of the type
+     * @param isInterface true if this is an interface, annotation declarations are not included
+     * @param annotations the annotations on the type, both as written and by their simple names
+     * @param supertypes the simple names of the classes extended and interfaces implemented
+     */
+    public record ScannedType(String name, boolean isInterface, Set<String> annotations, Set<String> supertypes) {}
+
+    private LexicalTypeScanner(String source) {
+        this.tokens = tokenize(strip(source));
+    }
+
+    /**
+     * Scans the source code for type declarations.
+     *
+     * @param source java source code
+     * @return the types found in the order in which they are declared
+     */
+    public static List<ScannedType> scan(String source) {
+        LexicalTypeScanner scanner = new LexicalTypeScanner(source);
+        scanner.scan();
+        return scanner.types;
+    }
+
+    /**
+     * Scans a source file for type declarations.
+     *
+     * @param file the path to a java source file
+     * @return the types found in the order in which they are declared
+     * @throws IOException if the file could not be read
+     */
+    public static List<ScannedType> scan(Path file) throws IOException {
+        try {
+            return scan(Files.readString(file, StandardCharsets.UTF_8));
+        } catch (MalformedInputException e) {
+            return scan(Files.readString(file, StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    private void scan() {
+        /*
+         * Each entry in the stack corresponds to an open brace. The entry holds the fully
+         * qualified name of the type whose body the brace opened, or an empty string for any
+         * other kind of block.
+         */
+        Deque<String> scopes = new ArrayDeque<>();
+        Set<String> annotations = new HashSet<>();
+
+        while (pos < tokens.size()) {
+            String token = tokens.get(pos);
+            switch (token) {
+                case "package" -> {
+                    if (scopes.isEmpty()) {
+                        pos++;
+                        packageName = qualifiedName();
+                    }
+                }
+                case "@" -> {
+                    if ("interface".equals(peek(1))) {
+                        pos++;
+                        declaration(scopes, annotations, "@interface");
+                        annotations = new HashSet<>();
+                        continue;
+                    }
+                    pos++;
+                    String name = qualifiedName();
+                    annotations.add(name);
+                    annotations.add(simpleName(name));
+                    if ("(".equals(peek(0))) {
+                        skipBalanced("(", ")");
+                    }
+                    continue;
+                }
+                case "class", "interface", "enum", "record" -> {
+                    if (isDeclaration(token)) {
+                        declaration(scopes, annotations, token);
+                        annotations = new HashSet<>();
+                        continue;
+                    }
+                }
+                case "{" -> {
+                    scopes.push("");
+                    annotations.clear();
+                }
+                case "}" -> {
+                    if (!scopes.isEmpty()) {
+                        scopes.pop();
+                    }
+                    annotations.clear();
+                }
+                case ";" -> annotations.clear();
+                default -> {
+                    // nothing to do
+                }
+            }
+            pos++;
+        }
+    }
+
+    private boolean isDeclaration(String keyword) {
+        if (pos > 0 && ".".equals(tokens.get(pos - 1))) {
+            return false;
+        }
+        String name = peek(1);
+        if (!isIdentifier(name)) {
+            return false;
+        }
+        if ("record".equals(keyword)) {
+            String next = peek(2);
+            return "(".equals(next) || "<".equals(next);
+        }
+        return true;
+    }
+
+    /**
+     * Processes a type declaration. When this method is called the current token is the
+     * keyword; when it returns, the current token is the one following the opening brace of
+     * the type body.
+     *
+     * Like the parser, only the members of classes and interfaces are searched for nested types.
+     */
+    private void declaration(Deque<String> scopes, Set<String> annotations, String keyword) {
+        pos++;
+        String simpleName = tokens.get(pos++);
+        Set<String> supertypes = new HashSet<>();
+        int genericDepth = 0;
+        int parenDepth = 0;
+        boolean collecting = false;
+
+        while (pos < tokens.size()) {
+            String token = tokens.get(pos);
+            if (genericDepth == 0 && parenDepth == 0 && ("{".equals(token) || ";".equals(token))) {
+                break;
+            }
+            switch (token) {
+                case "<" -> genericDepth++;
+                case ">" -> genericDepth--;
+                case "(" -> parenDepth++;
+                case ")" -> parenDepth--;
+                case "extends", "implements" -> {
+                    if (genericDepth == 0 && parenDepth == 0) {
+                        collecting = true;
+                    }
+                }
+                case "permits" -> collecting = false;
+                default -> {
+                    if (collecting && genericDepth == 0 && parenDepth == 0 && isIdentifier(token)
+                            && !".".equals(peek(1))) {
+                        supertypes.add(token);
+                    }
+                }
+            }
+            pos++;
+        }
+
+        String enclosing = scopes.peek();
+        String name = null;
+        if (enclosing == null) {
+            name = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        } else if (!enclosing.isEmpty()) {
+            name = enclosing + "." + simpleName;
+        }
+        if (name != null) {
+            types.add(new ScannedType(name, "interface".equals(keyword),
+                    Set.copyOf(annotations), Set.copyOf(supertypes)));
+        }
+
+        if (pos < tokens.size() && "{".equals(tokens.get(pos))) {
+            boolean searchMembers = "class".equals(keyword) || "interface".equals(keyword);
+            scopes.push(name != null && searchMembers ? name : "");
+            pos++;
+        }
+    }
+
+    private String qualifiedName() {
+        StringBuilder name = new StringBuilder();
+        while (pos < tokens.size()) {
+            String token = tokens.get(pos);
+            if (isIdentifier(token) || (".".equals(token) && !name.isEmpty())) {
+                name.append(token);
+                pos++;
+                if (isIdentifier(token) && !".".equals(peek(0))) {
+                    break;
+                }
+            } else {
+                break;
+            }
+        }
+        return name.toString();
+    }
+
+    private void skipBalanced(String open, String close) {
+        int depth = 0;
+        while (pos < tokens.size()) {
+            String token = tokens.get(pos++);
+            if (open.equals(token)) {
+                depth++;
+            } else if (close.equals(token) && --depth == 0) {
+                return;
+            }
+        }
+    }
+
+    private String peek(int offset) {
+        int index = pos + offset;
+        return index < tokens.size() ? tokens.get(index) : null;
+    }
+
+    private static String simpleName(String name) {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private static boolean isIdentifier(String token) {
+        return token != null && Character.isJavaIdentifierStart(token.charAt(0));
+    }
+
+    /**
+     * Replaces comments, string literals, text blocks and character literals with spaces so
+     * that their contents cannot be mistaken for code.
+     */
+    static String strip(String source) {
+        StringBuilder sb = new StringBuilder(source.length());
+        int i = 0;
+        int length = source.length();
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c == '/' && i + 1 < length && source.charAt(i + 1) == '/') {
+                while (i < length && source.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                int end = source.indexOf("*/", i + 2);
+                i = end == -1 ? length : end + 2;
+                sb.append(' ');
+            } else if (source.startsWith("\"\"\"", i)) {
+                int end = source.indexOf("\"\"\"", i + 3);
+                while (end != -1 && source.charAt(end - 1) == '\\') {
+                    end = source.indexOf("\"\"\"", end + 1);
+                }
+                i = end == -1 ? length : end + 3;
+                sb.append(' ');
+            } else if (c == '"' || c == '\'') {
+                i++;
+                while (i < length && source.charAt(i) != c && source.charAt(i) != '\n') {
+                    if (source.charAt(i) == '\\') {
+                        i++;
+                    }
+                    i++;
+                }
+                i++;
+                sb.append(' ');
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static List<String> tokenize(String source) {
+        List<String> result = new ArrayList<>();
+        int i = 0;
+        int length = source.length();
+        while (i < length) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isJavaIdentifierPart(c)) {
+                int start = i;
+                while (i < length && Character.isJavaIdentifierPart(source.charAt(i))) {
+                    i++;
+                }
+                result.add(source.substring(start, i));
+            } else {
+                result.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return result;
+    }
+}
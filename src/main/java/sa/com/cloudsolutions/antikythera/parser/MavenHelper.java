@@ -1,5 +1,7 @@
 package sa.com.cloudsolutions.antikythera.parser;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
@@ -20,17 +22,32 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class MavenHelper {
     public static final String POM_XML = "pom.xml";
     private static final Logger logger = LoggerFactory.getLogger(MavenHelper.class);
-    private static final Map<String, Artifact> artifacts = new HashMap<>();
+    static final String CLASSPATH_CACHE = "classpath.json";
+    /**
+     * The resolved artifacts keyed by groupId:artifactId, in the order in which they were found.
+     */
+    private static final Map<String, Artifact> artifacts = new LinkedHashMap<>();
+    /**
+     * The dependencies found in the POM of each groupId:artifactId:version.
+     */
+    private static final Map<String, List<Coordinate>> transitive = new ConcurrentHashMap<>();
+    /**
+     * The latest version in the local repository of artifacts that are declared without one.
+     */
+    private static final Map<String, Optional<String>> latestVersions = new ConcurrentHashMap<>();
     private static boolean jarPathsBuilt = false;
     private Model pomModel;
     private Path pomPath;
@@ -57,13 +74,26 @@ public class MavenHelper {
     private static synchronized void initializeJarPaths() {
         if (jarPathsBuilt) return;
         try {
-            MavenHelper helper = new MavenHelper();
-            helper.readPomFile();
-            logger.debug("Read pom from: {}", helper.pomPath);
-            logger.debug("Found {} dependencies in pom", 
-                helper.pomModel != null ? helper.pomModel.getDependencies().size() : 0);
-            helper.buildJarPaths();
-            logger.debug("Built {} jar paths", artifacts.size());
+            Path pom = locatePomFile();
+            Path cache = classpathCacheFile();
+            String m2 = m2Folder();
+            String hash = pom.toFile().exists() ? SourceIndex.hash(pom) : null;
+            Map<String, Artifact> cached = cache == null || hash == null ? null : readClasspathCache(cache, hash, m2);
+            if (cached != null) {
+                artifacts.putAll(cached);
+                logger.debug("Loaded {} jar paths from {}", artifacts.size(), cache);
+            } else {
+                MavenHelper helper = new MavenHelper();
+                helper.readPomFile(pom);
+                logger.debug("Read pom from: {}", helper.pomPath);
+                logger.debug("Found {} dependencies in pom",
+                    helper.pomModel != null ? helper.pomModel.getDependencies().size() : 0);
+                helper.buildJarPaths();
+                logger.debug("Built {} jar paths", artifacts.size());
+                if (cache != null && hash != null) {
+                    writeClasspathCache(cache, hash, m2, artifacts);
+                }
+            }
             jarPathsBuilt = true;
         } catch (Exception e) {
             logger.warn("Could not build JAR paths: {}", e.getMessage());
@@ -71,29 +101,172 @@ public class MavenHelper {
         }
     }
 
-    private static void addDependency(String m2, String groupIdPath, String artifactId, String version)
-            throws IOException, XmlPullParserException {
-        Path p = Paths.get(m2, groupIdPath, artifactId, version,
-                artifactId + "-" + version + ".jar");
-        if (Files.exists(p)) {
-            String key = groupIdPath.replace('/', '.') + ":" + artifactId;
-            Artifact artifact = artifacts.get(key);
-            if (artifact == null) {
-                artifacts.put(key, new Artifact(artifactId, version, p.toString()));
-
-                Path pom = Paths.get(m2, groupIdPath, artifactId, version,
-                        artifactId + "-" + version + ".pom");
-                if (Files.exists(pom)) {
+    /**
+     * Resolves the dependencies of a POM together with their transitive dependencies.
+     *
+     * The dependency graph is walked one level at a time. The artifacts on a level are
+     * considered in declaration order and the first version of an artifact to be seen is the one
+     * that is used, so the version nearest to the root wins, as it does in Maven. The POMs of the
+     * artifacts that were accepted on a level are then read in parallel. Each POM is only ever
+     * read once, see {@link #dependenciesOf(Coordinate, String)}.
+     *
+     * @param root the model of the root POM
+     * @param m2 the local maven repository
+     * @param resolved the artifacts that have been resolved already, keyed by groupId:artifactId.
+     *                 New artifacts are added to it.
+     * @return the resolved map
+     */
+    static Map<String, Artifact> resolve(Model root, String m2, Map<String, Artifact> resolved) {
+        List<Coordinate> level = coordinatesOf(root, m2);
+        while (!level.isEmpty()) {
+            List<Coordinate> accepted = new ArrayList<>();
+            for (Coordinate coordinate : level) {
+                if (!resolved.containsKey(coordinate.key())) {
+                    resolved.put(coordinate.key(),
+                            new Artifact(coordinate.artifactId(), coordinate.version(), coordinate.jar().toString()));
+                    accepted.add(coordinate);
+                }
+            }
+            level = accepted.parallelStream()
+                    .map(coordinate -> dependenciesOf(coordinate, m2))
+                    .toList()
+                    .stream()
+                    .flatMap(List::stream)
+                    .toList();
+        }
+        return resolved;
+    }
+
+    /**
+     * Reads the POM of an artifact and finds the dependencies that are available in the local
+     * repository. The result is remembered for each groupId:artifactId:version.
+     */
+    private static List<Coordinate> dependenciesOf(Coordinate coordinate, String m2) {
+        List<Coordinate> dependencies = transitive.get(coordinate.toString());
+        if (dependencies == null) {
+            Path pom = coordinate.jar().resolveSibling(coordinate.artifactId() + "-" + coordinate.version() + ".pom");
+            if (Files.exists(pom)) {
+                try {
                     MavenHelper pomHelper = new MavenHelper();
                     pomHelper.readPomFile(pom);
-                    pomHelper.buildJarPaths();
+                    dependencies = coordinatesOf(pomHelper.pomModel, m2);
+                } catch (XmlPullParserException | IOException e) {
+                    throw new AntikytheraException(e);
                 }
+            } else {
+                dependencies = List.of();
             }
-        } else {
-            logger.debug("Jar not found: {}", p);
+            transitive.putIfAbsent(coordinate.toString(), dependencies);
+        }
+        return dependencies;
+    }
+
+    /**
+     * Finds the artifacts in the local repository for the dependencies declared in a POM.
+     */
+    private static List<Coordinate> coordinatesOf(Model model, String m2) {
+        List<Coordinate> coordinates = new ArrayList<>();
+        Properties properties = model.getProperties();
+        for (Dependency dependency : model.getDependencies()) {
+            String groupIdPath = dependency.getGroupId().replace('.', '/');
+            String artifactId = dependency.getArtifactId();
+            String version = dependency.getVersion();
+
+            // Handle property variables in version
+            if (version != null && version.startsWith("${") && version.endsWith("}")) {
+                String propertyName = version.substring(2, version.length() - 1);
+                version = properties.getProperty(propertyName);
+            }
+
+            if (version == null || version.isEmpty()) {
+                version = findLatestVersion(groupIdPath, artifactId, m2);
+            }
+
+            if (version != null) {
+                Path p = Paths.get(m2, groupIdPath, artifactId, version,
+                        artifactId + "-" + version + ".jar");
+                if (Files.exists(p)) {
+                    coordinates.add(new Coordinate(dependency.getGroupId(), artifactId, version, p));
+                } else {
+                    logger.debug("Jar not found: {}", p);
+                }
+            }
+        }
+        return coordinates;
+    }
+
+    /**
+     * Reads the classpath that was saved for the root POM by an earlier run.
+     *
+     * @param file the cache file
+     * @param hash the hash of the current root POM
+     * @param m2 the local maven repository
+     * @return the artifacts or null if the cache does not exist, belongs to a different POM or
+     * refers to jars that are no longer there
+     */
+    static Map<String, Artifact> readClasspathCache(Path file, String hash, String m2) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            ClasspathCache cache = new ObjectMapper()
+                    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .readValue(file.toFile(), ClasspathCache.class);
+            if (!hash.equals(cache.pomHash) || !Objects.equals(m2, cache.m2)) {
+                return null;
+            }
+            Map<String, Artifact> result = new LinkedHashMap<>();
+            for (CachedArtifact a : cache.artifacts) {
+                if (!new File(a.jarFile).isFile()) {
+                    return null;
+                }
+                result.put(a.key, new Artifact(a.name, a.version, a.jarFile));
+            }
+            return result;
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable classpath cache {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Saves the resolved classpath so that the next run with the same root POM does not need to
+     * read any POM files.
+     */
+    static void writeClasspathCache(Path file, String hash, String m2, Map<String, Artifact> resolved) {
+        ClasspathCache cache = new ClasspathCache();
+        cache.pomHash = hash;
+        cache.m2 = m2;
+        for (Map.Entry<String, Artifact> entry : resolved.entrySet()) {
+            CachedArtifact a = new CachedArtifact();
+            a.key = entry.getKey();
+            a.name = entry.getValue().name;
+            a.version = entry.getValue().version;
+            a.jarFile = entry.getValue().jarFile;
+            cache.artifacts.add(a);
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            new ObjectMapper().writeValue(file.toFile(), cache);
+        } catch (IOException e) {
+            logger.warn("Could not save classpath cache {}: {}", file, e.getMessage());
         }
     }
 
+    private static Path classpathCacheFile() {
+        String outputPath = Settings.getOutputPath();
+        return outputPath == null ? null : Paths.get(outputPath, SourceIndex.INDEX_FOLDER, CLASSPATH_CACHE);
+    }
+
+    private static String m2Folder() {
+        // Get m2 folder from settings, or fall back to default ~/.m2/repository
+        return Settings.getProperty("variables.m2_folder", String.class)
+                .orElseGet(() -> {
+                    String home = System.getProperty("user.home");
+                    return home != null ? home + "/.m2/repository" : null;
+                });
+    }
+
     /**
      * Reads the pom.xml file located in the configured base path or its parent directories.
      *
@@ -102,6 +275,19 @@ public class MavenHelper {
      * @throws XmlPullParserException if the file cannot be parsed
      */
     public Model readPomFile() throws IOException, XmlPullParserException {
+        Path p = locatePomFile();
+        pomPath = p;
+        readPomFile(p);
+        return pomModel;
+    }
+
+    /**
+     * Finds the pom.xml file for the configured base path, looking in the parent directory if
+     * there isn't one next to the sources.
+     *
+     * @return the path to the pom.xml which may not exist
+     */
+    private static Path locatePomFile() {
         String basePath = Settings.getBasePath();
         Path p = null;
         if (basePath.contains("src/main/java")) {
@@ -119,10 +305,7 @@ public class MavenHelper {
                 p = parent.getParent().resolve(POM_XML);
             }
         }
-
-        pomPath = p;
-        readPomFile(p);
-        return pomModel;
+        return p;
     }
 
     /**
@@ -310,31 +493,20 @@ public class MavenHelper {
      * Looks for JARs in the local Maven repository.
      */
     public void buildJarPaths() {
-
         if (pomModel != null) {
-            List<Dependency> dependencies = pomModel.getDependencies();
-
-            // Get m2 folder from settings, or fall back to default ~/.m2/repository
-            String m2 = Settings.getProperty("variables.m2_folder", String.class)
-                    .orElseGet(() -> {
-                        String home = System.getProperty("user.home");
-                        return home != null ? home + "/.m2/repository" : null;
-                    });
-            
+            String m2 = m2Folder();
             if (m2 != null) {
-                for (Dependency dependency : dependencies) {
-                    try {
-                        addJarPath(dependency, m2);
-                    } catch (XmlPullParserException | IOException e) {
-                        throw new AntikytheraException(e);
-                    }
-                }
+                resolve(pomModel, m2, artifacts);
             }
         }
+    }
 
+    private static String findLatestVersion(String groupIdPath, String artifactId, String m2) {
+        return latestVersions.computeIfAbsent(m2 + "/" + groupIdPath + "/" + artifactId,
+                k -> Optional.ofNullable(scanForLatestVersion(groupIdPath, artifactId, m2))).orElse(null);
     }
 
-    private String findLatestVersion(String groupIdPath, String artifactId, String m2) {
+    private static String scanForLatestVersion(String groupIdPath, String artifactId, String m2) {
         Path artifactPath = Paths.get(m2, groupIdPath, artifactId);
 
         if (!Files.exists(artifactPath) || !Files.isDirectory(artifactPath)) {
@@ -387,28 +559,6 @@ public class MavenHelper {
         return 0;
     }
 
-    private void addJarPath(Dependency dependency, String m2) throws XmlPullParserException, IOException {
-        Properties properties = pomModel.getProperties();
-
-        String groupIdPath = dependency.getGroupId().replace('.', '/');
-        String artifactId = dependency.getArtifactId();
-        String version = dependency.getVersion();
-
-        // Handle property variables in version
-        if (version != null && version.startsWith("${") && version.endsWith("}")) {
-            String propertyName = version.substring(2, version.length() - 1);
-            version = properties.getProperty(propertyName);
-        }
-
-        if (version == null || version.isEmpty()) {
-            version = findLatestVersion(groupIdPath, artifactId, m2);
-        }
-
-        if (version != null) {
-            addDependency(m2, groupIdPath, artifactId, version);
-        }
-    }
-
     /**
      * Gets the current POM model, reading it from disk if not yet loaded.
      *
@@ -517,4 +667,36 @@ public class MavenHelper {
             this.jarFile = jarFile;
         }
     }
+
+    /**
+     * An artifact that was found in the local repository.
+     *
+     * @param groupId the group id
+     * @param artifactId the artifact id
+     * @param version the resolved version
+     * @param jar the location of the jar file
+     */
+    record Coordinate(String groupId, String artifactId, String version, Path jar) {
+        String key() {
+            return groupId + ":" + artifactId;
+        }
+
+        @Override
+        public String toString() {
+            return groupId + ":" + artifactId + ":" + version;
+        }
+    }
+
+    public static class ClasspathCache {
+        public String pomHash;
+        public String m2;
+        public List<CachedArtifact> artifacts = new ArrayList<>();
+    }
+
+    public static class CachedArtifact {
+        public String key;
+        public String name;
+        public String version;
+        public String jarFile;
+    }
 }
@@ -2,9 +2,16 @@ package sa.com.cloudsolutions.antikythera.parser;
 
 import com.github.javaparser.ast.body.CallableDeclaration;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import sa.com.cloudsolutions.antikythera.evaluator.EvaluatorFactory;
+import sa.com.cloudsolutions.antikythera.evaluator.ExecutionBudget;
+import sa.com.cloudsolutions.antikythera.evaluator.PureMethodCache;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
@@ -17,6 +24,10 @@ import java.util.Map;
  * formatted JSON summary of every class and method that was processed, skipped, or
  * failed, together with the number of tests generated per method.
  *
+ * <p>When generation is sharded over several JVMs, the reports of the workers are combined with
+ * {@link #merge(String)}: their classes are appended and their cache statistics are added to the
+ * ones of this JVM.</p>
+ *
  * <p>Thread safety: not required – Antikythera processes classes sequentially.</p>
  */
 public class ProcessingReport {
@@ -31,6 +42,10 @@ public class ProcessingReport {
 
     private final List<ClassEntry> classes = new ArrayList<>();
 
+    /** Counters taken from merged reports, keyed by section and then by counter name. */
+    private final Map<String, Map<String, Long>> mergedCounters = new LinkedHashMap<>();
+    private int mergedReports;
+
     private ProcessingReport() {}
 
     public static ProcessingReport getInstance() {
@@ -40,6 +55,14 @@ public class ProcessingReport {
     /** Clears all collected data (useful for tests). */
     public void reset() {
         classes.clear();
+        mergedCounters.clear();
+        mergedReports = 0;
+        TypeResolutionCache.resetStatistics();
+        ClassLookup.resetStatistics();
+        CallSiteCache.resetStatistics();
+        EvaluatorFactory.resetStatistics();
+        PureMethodCache.resetStatistics();
+        ExecutionBudget.resetStatistics();
         currentClass = null;
         currentMethod = null;
     }
@@ -164,6 +187,61 @@ public class ProcessingReport {
         currentMethod.status = "processed";
     }
 
+    // -----------------------------------------------------------------------
+    // Merging
+    // -----------------------------------------------------------------------
+
+    /**
+     * Adds the classes and statistics of a report produced by another JVM, such as a worker of a
+     * sharded run, to this report. The summary is recomputed from the combined classes.
+     *
+     * @param json a report in the format written by {@link #toJson()}
+     * @throws IOException if the report could not be parsed
+     */
+    public void merge(String json) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(json);
+        for (JsonNode c : root.path("classes")) {
+            ClassEntry entry = new ClassEntry(c.path("name").asText(), c.path("status").asText());
+            entry.reason = text(c, "reason");
+            for (JsonNode m : c.path("methods")) {
+                MethodEntry method = new MethodEntry(m.path("name").asText(), m.path("status").asText());
+                method.reason = text(m, "reason");
+                method.error = text(m, "error");
+                method.testsGenerated = m.hasNonNull("testsGenerated") ? m.get("testsGenerated").asInt() : null;
+                entry.methods.add(method);
+            }
+            classes.add(entry);
+        }
+        for (String section : List.of("typeResolutionCache", "classLookup", "callSiteCache", "evaluatorFactory",
+                "pureMethodCache", "executionBudget")) {
+            root.path(section).fields().forEachRemaining(field -> {
+                if (field.getValue().isIntegralNumber()) {
+                    mergedCounters.computeIfAbsent(section, k -> new LinkedHashMap<>())
+                            .merge(field.getKey(), field.getValue().asLong(), Long::sum);
+                }
+            });
+        }
+        mergedReports++;
+    }
+
+    private static String text(JsonNode node, String field) {
+        return node.hasNonNull(field) ? node.get(field).asText() : null;
+    }
+
+    private long merged(String section, String counter) {
+        return mergedCounters.getOrDefault(section, Map.of()).getOrDefault(counter, 0L);
+    }
+
+    /**
+     * Writes the JSON representation of the report to the given file, creating its folder.
+     */
+    public void write(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.writeString(path, toJson());
+    }
+
     // -----------------------------------------------------------------------
     // JSON serialisation
     // -----------------------------------------------------------------------
@@ -177,7 +255,16 @@ public class ProcessingReport {
         try {
             Map<String, Object> root = new LinkedHashMap<>();
             root.put("generatedAt", Instant.now().toString());
+            if (mergedReports > 0) {
+                root.put("mergedReports", mergedReports);
+            }
             root.put("summary", buildSummary());
+            root.put("typeResolutionCache", buildTypeResolutionCacheSummary());
+            root.put("classLookup", buildClassLookupSummary());
+            root.put("callSiteCache", buildCallSiteCacheSummary());
+            root.put("evaluatorFactory", buildEvaluatorFactorySummary());
+            root.put("pureMethodCache", buildPureMethodCacheSummary());
+            root.put("executionBudget", buildExecutionBudgetSummary());
             root.put("classes", classes);
 
             ObjectMapper mapper = new ObjectMapper();
@@ -223,6 +310,65 @@ public class ProcessingReport {
         return summary;
     }
 
+    private Map<String, Object> buildTypeResolutionCacheSummary() {
+        long hits = TypeResolutionCache.getHits() + merged("typeResolutionCache", "hits");
+        long misses = TypeResolutionCache.getMisses() + merged("typeResolutionCache", "misses");
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return stats;
+    }
+
+    private Map<String, Object> buildClassLookupSummary() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("probes", ClassLookup.getProbes() + merged("classLookup", "probes"));
+        stats.put("probeMillis", ClassLookup.getProbeNanos() / 1_000_000 + merged("classLookup", "probeMillis"));
+        stats.put("hits", ClassLookup.getHits() + merged("classLookup", "hits"));
+        stats.put("negativeHits", ClassLookup.getNegativeHits() + merged("classLookup", "negativeHits"));
+        return stats;
+    }
+
+    private Map<String, Object> buildCallSiteCacheSummary() {
+        long hits = CallSiteCache.getHits() + merged("callSiteCache", "hits");
+        long misses = CallSiteCache.getMisses() + merged("callSiteCache", "misses");
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("megamorphicSites", CallSiteCache.getMegamorphicSites() + merged("callSiteCache", "megamorphicSites"));
+        return stats;
+    }
+
+    private Map<String, Object> buildEvaluatorFactorySummary() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("created", EvaluatorFactory.getCreated() + merged("evaluatorFactory", "created"));
+        stats.put("reused", EvaluatorFactory.getReused() + merged("evaluatorFactory", "reused"));
+        stats.put("reflective", EvaluatorFactory.getReflective() + merged("evaluatorFactory", "reflective"));
+        stats.put("allocatedBytes", EvaluatorFactory.getAllocatedBytes() + merged("evaluatorFactory", "allocatedBytes"));
+        return stats;
+    }
+
+    private Map<String, Object> buildPureMethodCacheSummary() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", PureMethodCache.getHits() + merged("pureMethodCache", "hits"));
+        stats.put("misses", PureMethodCache.getMisses() + merged("pureMethodCache", "misses"));
+        stats.put("evictions", PureMethodCache.getEvictions() + merged("pureMethodCache", "evictions"));
+        stats.put("skipped", PureMethodCache.getSkipped() + merged("pureMethodCache", "skipped"));
+        return stats;
+    }
+
+    /**
+     * How often each kind of execution budget ran out.
+     */
+    private Map<String, Object> buildExecutionBudgetSummary() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (ExecutionBudget.Kind kind : ExecutionBudget.Kind.values()) {
+            stats.put(kind.getLabel(), ExecutionBudget.getExhausted(kind) + merged("executionBudget", kind.getLabel()));
+        }
+        return stats;
+    }
+
     // -----------------------------------------------------------------------
     // Data model
     // -----------------------------------------------------------------------
@@ -0,0 +1,296 @@
+package sa.com.cloudsolutions.antikythera.parser;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+import sa.com.cloudsolutions.antikythera.evaluator.AntikytheraRunTime;
+import sa.com.cloudsolutions.antikythera.generator.TypeWrapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * <p>A persistent index of the source files in the application under test.</p>
+ *
+ * For every file the index records a hash of its content, the types that it declares together
+ * with the metadata held in their {@link TypeWrapper}s and the interfaces and parent classes of
+ * those types. When the index is enabled, files whose content has not changed since the previous
+ * run are not parsed during pre-processing. Their types are registered with the
+ * {@link AntikytheraRunTime} as deferred types and will only be parsed when the compilation unit
+ * is first asked for.
+ */
+public class SourceIndex {
+    private static final Logger logger = LoggerFactory.getLogger(SourceIndex.class);
+    static final String INDEX_FOLDER = ".antikythera";
+    static final String INDEX_FILE = "source-index.json";
+    /**
+     * Increment when the structure of the index changes so that stale files are discarded.
+     */
+    static final int FORMAT_VERSION = 2;
+
+    private final Path location;
+    private Index index;
+
+    SourceIndex(Path location) {
+        this.location = location;
+        this.index = new Index();
+    }
+
+    /**
+     * Loads the index from the output folder.
+     *
+     * @return the index or null if the feature has not been enabled or there is no output path.
+     */
+    static SourceIndex load() {
+        boolean enabled = Settings.getProperty(Settings.SOURCE_INDEX, Boolean.class).orElse(false);
+        String outputPath = Settings.getOutputPath();
+        if (!enabled || outputPath == null) {
+            return null;
+        }
+        SourceIndex sourceIndex = new SourceIndex(Paths.get(outputPath, INDEX_FOLDER, INDEX_FILE));
+        sourceIndex.read(Paths.get(Settings.getBasePath()).toAbsolutePath().normalize().toString());
+        return sourceIndex;
+    }
+
+    void read(String basePath) {
+        if (Files.exists(location)) {
+            try {
+                Index stored = mapper().readValue(location.toFile(), Index.class);
+                if (stored.version == FORMAT_VERSION && basePath.equals(stored.basePath)) {
+                    index = stored;
+                    return;
+                }
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable source index {}: {}", location, e.getMessage());
+            }
+        }
+        index = new Index();
+        index.basePath = basePath;
+    }
+
+    /**
+     * Writes the index through a temporary file that then replaces the old one, so that a worker
+     * of a sharded run never reads an index that another worker is half way through writing.
+     */
+    void save() {
+        try {
+            Files.createDirectories(location.getParent());
+            Path temp = Files.createTempFile(location.getParent(), INDEX_FILE, ".tmp");
+            try {
+                mapper().writeValue(temp.toFile(), index);
+                Files.move(temp, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not save source index {}: {}", location, e.getMessage());
+        }
+    }
+
+    private static ObjectMapper mapper() {
+        return new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * Separates the files that need to be parsed from those that can be deferred.
+     *
+     * The types in unchanged files are registered with the AntikytheraRunTime as deferred types
+     * together with the interface and subclass relationships that were recorded for them. An
+     * unchanged file will still be parsed if one of its recorded ancestors is declared in a file
+     * that has changed or been deleted, since the relationships recorded for it may be stale.
+     *
+     * @param basePath the base path of the application
+     * @param relativePaths the source files that make up the folder being processed
+     * @return the files that need to be parsed
+     * @throws IOException if a file could not be read
+     */
+    List<String> restore(Path basePath, List<String> relativePaths) throws IOException {
+        Map<String, String> hashes = new HashMap<>();
+        List<String> changed = new ArrayList<>();
+        List<String> unchanged = new ArrayList<>();
+        Set<String> staleTypes = new HashSet<>();
+
+        for (String relativePath : relativePaths) {
+            String hash = hash(basePath.resolve(relativePath));
+            hashes.put(relativePath, hash);
+            FileEntry entry = index.files.get(relativePath);
+            if (entry != null && hash.equals(entry.hash)) {
+                unchanged.add(relativePath);
+            } else {
+                changed.add(relativePath);
+                if (entry != null) {
+                    entry.types.forEach(t -> staleTypes.add(t.name));
+                }
+            }
+        }
+
+        index.files.entrySet().removeIf(e -> {
+            if (Files.exists(basePath.resolve(e.getKey()))) {
+                return false;
+            }
+            e.getValue().types.forEach(t -> staleTypes.add(t.name));
+            return true;
+        });
+
+        for (String relativePath : unchanged) {
+            FileEntry entry = index.files.get(relativePath);
+            if (entry.dependsOn(staleTypes)) {
+                changed.add(relativePath);
+            } else {
+                entry.register(relativePath);
+            }
+        }
+
+        for (String relativePath : changed) {
+            FileEntry entry = new FileEntry();
+            entry.hash = hashes.get(relativePath);
+            index.files.put(relativePath, entry);
+        }
+        return changed;
+    }
+
+    /**
+     * Records the types declared in the given files after they have been compiled and their
+     * interfaces and parent classes have been solved.
+     *
+     * @param relativePaths the files that were compiled
+     * @param compilers the compilers that processed each of the files, in the same order
+     */
+    void update(List<String> relativePaths, List<AbstractCompiler> compilers) {
+        Map<String, Set<String>> implemented = invert(AntikytheraRunTime.getImplementations());
+        Map<String, Set<String>> extended = invert(AntikytheraRunTime.getSubClasses());
+
+        for (int i = 0; i < relativePaths.size(); i++) {
+            FileEntry entry = index.files.get(relativePaths.get(i));
+            CompilationUnit cu = compilers.get(i).getCompilationUnit();
+            if (entry == null || cu == null) {
+                continue;
+            }
+            entry.types.clear();
+            for (TypeDeclaration<?> type : cu.findAll(TypeDeclaration.class)) {
+                type.getFullyQualifiedName().ifPresent(fqn -> {
+                    TypeWrapper wrapper = AntikytheraRunTime.getResolvedTypes().get(fqn);
+                    if (wrapper != null) {
+                        entry.types.add(TypeEntry.of(fqn, wrapper,
+                                implemented.getOrDefault(fqn, Set.of()), extended.getOrDefault(fqn, Set.of())));
+                    }
+                });
+            }
+        }
+    }
+
+    private static Map<String, Set<String>> invert(Map<String, Set<String>> relationships) {
+        Map<String, Set<String>> inverted = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : relationships.entrySet()) {
+            for (String child : entry.getValue()) {
+                inverted.computeIfAbsent(child, k -> new TreeSet<>()).add(entry.getKey());
+            }
+        }
+        return inverted;
+    }
+
+    static String hash(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(Files.readAllBytes(file)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class Index {
+        public int version = FORMAT_VERSION;
+        public String basePath;
+        public Map<String, FileEntry> files = new TreeMap<>();
+    }
+
+    public static class FileEntry {
+        public String hash;
+        public List<TypeEntry> types = new ArrayList<>();
+
+        boolean dependsOn(Set<String> typeNames) {
+            if (typeNames.isEmpty()) {
+                return false;
+            }
+            for (TypeEntry type : types) {
+                for (String name : type.interfaces) {
+                    if (typeNames.contains(name)) {
+                        return true;
+                    }
+                }
+                for (String name : type.parents) {
+                    if (typeNames.contains(name)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        void register(String relativePath) {
+            for (TypeEntry type : types) {
+                AntikytheraRunTime.addDeferredType(type.name, relativePath, type.toTypeWrapper());
+                type.interfaces.forEach(iface -> AntikytheraRunTime.addImplementation(iface, type.name));
+                type.parents.forEach(parent -> AntikytheraRunTime.addSubClass(parent, type.name));
+            }
+        }
+    }
+
+    public static class TypeEntry {
+        public String name;
+        public boolean controller;
+        public boolean service;
+        public boolean component;
+        public boolean repository;
+        public boolean configuration;
+        public boolean entity;
+        public boolean isInterface;
+        public Set<String> interfaces = new TreeSet<>();
+        public Set<String> parents = new TreeSet<>();
+
+        static TypeEntry of(String name, TypeWrapper wrapper, Set<String> interfaces, Set<String> parents) {
+            TypeEntry entry = new TypeEntry();
+            entry.name = name;
+            entry.controller = wrapper.isController();
+            entry.service = wrapper.isService();
+            entry.component = wrapper.isComponent();
+            entry.repository = wrapper.isRepository();
+            entry.configuration = wrapper.isConfiguration();
+            entry.entity = wrapper.isEntity();
+            entry.isInterface = wrapper.isInterface();
+            entry.interfaces.addAll(interfaces);
+            entry.parents.addAll(parents);
+            return entry;
+        }
+
+        TypeWrapper toTypeWrapper() {
+            TypeWrapper wrapper = TypeWrapper.deferred(name);
+            wrapper.setController(controller);
+            wrapper.setService(service);
+            wrapper.setComponent(component);
+            wrapper.setRepository(repository);
+            wrapper.setConfiguration(configuration);
+            wrapper.setEntity(entity);
+            wrapper.setInterface(isInterface);
+            return wrapper;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package sa.com.cloudsolutions.antikythera.parser;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import sa.com.cloudsolutions.antikythera.evaluator.AntikytheraRunTime;
+import sa.com.cloudsolutions.antikythera.generator.TypeWrapper;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * <p>Remembers the results of {@link AbstractCompiler#findType(CompilationUnit, String)}.</p>
+ *
+ * There is one cache for each compilation unit, held in a map keyed by the identity of the unit.
+ * The units are shared by every evaluation context, so nothing is stored in the node data of
+ * JavaParser, which is not safe to modify while other threads read it. Negative results are cached
+ * as well. The wrappers handed out by the cache are frozen and interned, so the same declaration
+ * or class is always represented by the same instance.
+ *
+ * The outcome of a lookup depends on the types known to the {@link AntikytheraRunTime} that the
+ * name may refer to and on the class loaders. Each entry remembers
+ * {@link AntikytheraRunTime#getTypesVersion(String)} for its name and is dropped once a type
+ * with the same simple name is added, so parsing a source file on demand does not throw away
+ * the lookups of unrelated names. All caches are discarded when the runtime or the compiler is
+ * reset. Only compilation units that have been
+ * registered with the runtime are cached; other units, such as the ones that hold the generated
+ * tests, keep changing while they are in use.
+ */
+final class TypeResolutionCache {
+    private static final Map<CompilationUnit, TypeResolutionCache> caches =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+    /**
+     * The interned wrappers of type declarations and enum constants.
+     */
+    private static final Map<Node, TypeWrapper> nodeWrappers = Collections.synchronizedMap(new IdentityHashMap<>());
+    /**
+     * Marks a name that could not be resolved.
+     */
+    private static final TypeWrapper NOT_FOUND = new TypeWrapper().freeze();
+    /**
+     * Stands in for the cache of a compilation unit that should not be cached.
+     */
+    private static final TypeResolutionCache UNCACHED = new TypeResolutionCache(false);
+
+    private static final Map<Class<?>, TypeWrapper> classWrappers = new ConcurrentHashMap<>();
+    private static final AtomicLong epoch = new AtomicLong();
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private final long resetVersion;
+    private final long createdEpoch;
+    /**
+     * Null when the compilation unit should not be cached.
+     */
+    private final Map<String, Entry> entries;
+
+    /**
+     * The outcome of a lookup.
+     *
+     * @param wrapper the type, NOT_FOUND if the name could not be resolved
+     * @param typesVersion the version of the types with the name at the time of the lookup
+     */
+    private record Entry(TypeWrapper wrapper, long typesVersion) {
+        boolean isCurrentFor(String className) {
+            return typesVersion == AntikytheraRunTime.getTypesVersion(className);
+        }
+    }
+
+    private TypeResolutionCache(boolean enabled) {
+        this.resetVersion = AntikytheraRunTime.getTypesVersion(null);
+        this.createdEpoch = epoch.get();
+        this.entries = enabled ? new ConcurrentHashMap<>() : null;
+    }
+
+    /**
+     * Looks up a name in the cache of the compilation unit, resolving it on a miss.
+     *
+     * @param cu the compilation unit in which the name appears
+     * @param className the name to resolve
+     * @param resolver carries out the lookup when the result is not in the cache
+     * @return the type wrapper or null if the name cannot be resolved
+     */
+    static TypeWrapper find(CompilationUnit cu, String className, Function<String, TypeWrapper> resolver) {
+        TypeResolutionCache cache = forUnit(cu);
+        if (cache.entries == null) {
+            return resolver.apply(className);
+        }
+
+        Entry entry = cache.entries.get(className);
+        if (entry != null && entry.isCurrentFor(className)) {
+            hits.incrementAndGet();
+            return entry.wrapper() == NOT_FOUND ? null : entry.wrapper();
+        }
+
+        misses.incrementAndGet();
+        /*
+         * The version is read before the lookup, which may itself add types to the runtime.
+         * In that case the entry is already stale and will be replaced on the next call.
+         */
+        long typesVersion = AntikytheraRunTime.getTypesVersion(className);
+        TypeWrapper wrapper = intern(resolver.apply(className));
+        if (cache.isCurrent()) {
+            cache.entries.put(className, new Entry(wrapper == null ? NOT_FOUND : wrapper, typesVersion));
+        }
+        return wrapper;
+    }
+
+    private static TypeResolutionCache forUnit(CompilationUnit cu) {
+        TypeResolutionCache cache = caches.get(cu);
+        if (cache != null && cache.isCurrent()) {
+            return cache;
+        }
+        if (!isRegistered(cu)) {
+            caches.remove(cu);
+            return UNCACHED;
+        }
+        cache = new TypeResolutionCache(true);
+        caches.put(cu, cache);
+        return cache;
+    }
+
+    private boolean isCurrent() {
+        return resetVersion == AntikytheraRunTime.getTypesVersion(null) && createdEpoch == epoch.get();
+    }
+
+    private static boolean isRegistered(CompilationUnit cu) {
+        for (TypeDeclaration<?> type : cu.getTypes()) {
+            Optional<String> fqn = type.getFullyQualifiedName();
+            if (fqn.isPresent()) {
+                return AntikytheraRunTime.getResolvedCompilationUnits().get(fqn.get()) == cu;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the shared, frozen wrapper for whatever the given wrapper represents.
+     */
+    private static TypeWrapper intern(TypeWrapper wrapper) {
+        if (wrapper == null) {
+            return null;
+        }
+        if (wrapper.getEnumConstant() != null) {
+            return intern(wrapper.getEnumConstant(), wrapper);
+        }
+        if (wrapper.getType() != null) {
+            return intern(wrapper.getType(), wrapper);
+        }
+        if (wrapper.getClazz() != null) {
+            return classWrappers.computeIfAbsent(wrapper.getClazz(), k -> wrapper.freeze());
+        }
+        return wrapper.freeze();
+    }
+
+    private static TypeWrapper intern(Node node, TypeWrapper wrapper) {
+        TypeWrapper existing = nodeWrappers.putIfAbsent(node, wrapper.freeze());
+        return existing != null ? existing : wrapper;
+    }
+
+    /**
+     * Discards every cache. Needed when the class loaders change.
+     */
+    static void invalidateAll() {
+        epoch.incrementAndGet();
+        classWrappers.clear();
+        caches.clear();
+        nodeWrappers.clear();
+    }
+
+    static long getHits() {
+        return hits.get();
+    }
+
+    static long getMisses() {
+        return misses.get();
+    }
+
+    static void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+    }
+}
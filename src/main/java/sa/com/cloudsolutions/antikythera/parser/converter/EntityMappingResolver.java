@@ -64,7 +64,8 @@ public class EntityMappingResolver {
      * @return the built EntityMetadata, or null if it's not an entity
      */
     public static EntityMetadata buildOnTheFly(TypeWrapper type) {
-        TypeDeclaration<?> typeDecl = type.getType();
+        // deferred types are only parsed when the lexical scan found an @Entity annotation
+        TypeDeclaration<?> typeDecl = type.isDeferred() && !type.isEntity() ? null : type.getType();
         String fullyQualifiedName = type.getFullyQualifiedName();
         String name = type.getName();
 
@@ -633,19 +634,16 @@ public class EntityMappingResolver {
 
     /**
      * Attempts to resolve an entity by its simple name or suffix.
-     * Iterates through all resolved types to find a match.
+     * Only the resolved types with a matching simple name are considered.
      *
      * @param suffix The simple name or suffix of the entity class
      * @return Optional containing EntityMetadata if found, empty otherwise
      */
     public static Optional<EntityMetadata> resolveBySuffix(String suffix) {
-        for (Map.Entry<String, TypeWrapper> entry : AntikytheraRunTime.getResolvedTypes().entrySet()) {
-            String fqn = entry.getKey();
-            if (fqn.endsWith("." + suffix)) {
-                TypeWrapper tw = entry.getValue();
-                if (isEntity(tw)) {
-                    return Optional.ofNullable(buildOnTheFly(tw));
-                }
+        for (String fqn : AntikytheraRunTime.findTypesBySuffix(suffix)) {
+            TypeWrapper tw = AntikytheraRunTime.getResolvedTypes().get(fqn);
+            if (tw != null && isEntity(tw)) {
+                return Optional.ofNullable(buildOnTheFly(tw));
             }
         }
         return Optional.empty();
@@ -658,6 +656,9 @@ public class EntityMappingResolver {
      * @return true if the type is annotated with @Entity, false otherwise
      */
     public static boolean isEntity(TypeWrapper tw) {
+        if (tw.isDeferred()) {
+            return tw.isEntity();
+        }
         if (tw.getType() != null) {
             return tw.getType().getAnnotationByName(ENTITY).isPresent();
         } else if (tw.getClazz() != null) {
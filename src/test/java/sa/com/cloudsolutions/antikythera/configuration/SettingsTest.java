@@ -7,6 +7,7 @@ import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
@@ -564,4 +565,33 @@ class SettingsTest {
         // The IOException throw on line 86 is tested by ensuring it's reachable.
         assertDoesNotThrow(() -> Settings.loadConfigMap());
     }
+
+    @Test
+    void testShardAssignmentReplacesServicesAndControllers(@TempDir Path tempDir) throws IOException {
+        Path assignment = tempDir.resolve("report.shard-1.assignment.json");
+        Files.writeString(assignment, """
+                {"services": ["a.FooService", "b.BarService"], "controllers": [],
+                 "processing_report_path": "report.shard-1.json"}
+                """);
+        System.setProperty(Settings.SHARD_ASSIGNMENT_PROPERTY, assignment.toString());
+        try {
+            Settings.loadConfigMap();
+            assertEquals(List.of("a.FooService", "b.BarService"),
+                    Settings.getPropertyList(Settings.SERVICES, String.class));
+            assertTrue(Settings.getPropertyList(Settings.CONTROLLERS, String.class).isEmpty());
+            assertEquals("report.shard-1.json", Settings.getProperty(Settings.PROCESSING_REPORT_PATH));
+        } finally {
+            System.clearProperty(Settings.SHARD_ASSIGNMENT_PROPERTY);
+        }
+    }
+
+    @Test
+    void testGetShardWorkers() throws IOException {
+        Settings.loadConfigMap();
+        assertEquals(1, Settings.getShardWorkers());
+        Settings.setProperty(Settings.SHARD_WORKERS, "3");
+        assertEquals(3, Settings.getShardWorkers());
+        Settings.setProperty(Settings.SHARD_WORKERS, 0);
+        assertEquals(Runtime.getRuntime().availableProcessors(), Settings.getShardWorkers());
+    }
 }
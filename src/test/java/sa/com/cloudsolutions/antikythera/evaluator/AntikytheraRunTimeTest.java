@@ -8,6 +8,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import sa.com.cloudsolutions.antikythera.generator.TypeWrapper;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -183,5 +185,70 @@ class AntikytheraRunTimeTest {
         CompilationUnit retrieved = AntikytheraRunTime.getCompilationUnit(fqn);
         assertSame(cu, retrieved, "Should return the same compilation unit");
     }
-}
 
+    @Test
+    void testDeferredTypesSurviveAFailedCompilation() {
+        String path = "com/example/Missing" + System.nanoTime() + ".java";
+        AntikytheraRunTime.addDeferredType("com.example.Missing", path, TypeWrapper.deferred("com.example.Missing"));
+        AntikytheraRunTime.addDeferredType("com.example.Sibling", path, TypeWrapper.deferred("com.example.Sibling"));
+
+        assertThrows(RuntimeException.class, () -> AntikytheraRunTime.getCompilationUnit("com.example.Missing"));
+        assertTrue(AntikytheraRunTime.isDeferred("com.example.Missing"));
+        assertTrue(AntikytheraRunTime.isDeferred("com.example.Sibling"));
+    }
+
+    @Test
+    void testFindTypesBySuffix() {
+        AntikytheraRunTime.addType("com.b.Order", new TypeWrapper());
+        AntikytheraRunTime.addType("com.a.Order", new TypeWrapper());
+        AntikytheraRunTime.addType("com.a.Outer.Order", new TypeWrapper());
+        AntikytheraRunTime.addType("com.a.PurchaseOrder", new TypeWrapper());
+
+        assertEquals(List.of("com.a.Order", "com.a.Outer.Order", "com.b.Order"),
+                AntikytheraRunTime.findTypesBySuffix("Order"));
+        assertEquals(List.of("com.a.Outer.Order"), AntikytheraRunTime.findTypesBySuffix("Outer.Order"));
+        assertTrue(AntikytheraRunTime.findTypesBySuffix("Missing").isEmpty());
+
+        AntikytheraRunTime.resetAll();
+        assertTrue(AntikytheraRunTime.findTypesBySuffix("Order").isEmpty());
+    }
+
+    @Test
+    void testClassInitializationHappensOnce() {
+        assertEquals(AntikytheraRunTime.ClassState.UNINITIALIZED, AntikytheraRunTime.getClassState("com.a.B"));
+        assertTrue(AntikytheraRunTime.beginClassInitialization("com.a.B"));
+        assertEquals(AntikytheraRunTime.ClassState.INITIALIZING, AntikytheraRunTime.getClassState("com.a.B"));
+        assertFalse(AntikytheraRunTime.beginClassInitialization("com.a.B"));
+
+        AntikytheraRunTime.abandonClassInitialization("com.a.B");
+        assertTrue(AntikytheraRunTime.beginClassInitialization("com.a.B"));
+        AntikytheraRunTime.endClassInitialization("com.a.B");
+        assertEquals(AntikytheraRunTime.ClassState.INITIALIZED, AntikytheraRunTime.getClassState("com.a.B"));
+        assertFalse(AntikytheraRunTime.beginClassInitialization("com.a.B"));
+
+        AntikytheraRunTime.resetStatics();
+        assertEquals(AntikytheraRunTime.ClassState.UNINITIALIZED, AntikytheraRunTime.getClassState("com.a.B"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRestoreStaticsUndoesChanges() {
+        AntikytheraRunTime.beginClassInitialization("com.a.B");
+        AntikytheraRunTime.setStaticVariable("com.a.B", "count", new Variable(1));
+        AntikytheraRunTime.setStaticVariable("com.a.B", "names", new Variable(new ArrayList<>(List.of("a"))));
+        Variable shared = new Variable(new Object());
+        AntikytheraRunTime.setStaticVariable("com.a.B", "lock", shared);
+        AntikytheraRunTime.endClassInitialization("com.a.B");
+        assertEquals(0, AntikytheraRunTime.restoreStatics());
+
+        AntikytheraRunTime.setStaticVariable("com.a.B", "count", new Variable(2));
+        Variable names = AntikytheraRunTime.getStaticVariable("com.a.B", "names");
+        ((List<Object>) names.getValue()).add("b");
+        assertEquals(2, AntikytheraRunTime.restoreStatics());
+
+        assertEquals(1, AntikytheraRunTime.getStaticVariable("com.a.B", "count").getValue());
+        assertSame(names, AntikytheraRunTime.getStaticVariable("com.a.B", "names"));
+        assertEquals(List.of("a"), names.getValue());
+        assertSame(shared, AntikytheraRunTime.getStaticVariable("com.a.B", "lock"));
+    }
+}
@@ -0,0 +1,64 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import com.github.javaparser.ast.expr.BinaryExpr;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures how many bytes the arithmetic of the evaluator allocates for each operation. The
+ * operands are kept outside the range of the boxes that the JDK caches, so every result has to be
+ * boxed. {@link Arithmetics#performOperation} should only allocate that box, and
+ * {@link Arithmetics#operate} the box and the {@link Variable} that holds it.
+ *
+ * Only runs in the benchmark profile: {@code mvn test -Pbenchmark}
+ */
+@Tag("benchmark")
+class ArithmeticsBenchmark {
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 2_000_000;
+
+    @Test
+    void allocationPerOperation() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        for (Number operand : new Number[]{100_000, 100_000L, 1.5, 1.5f}) {
+            perform(operand, WARMUP);
+            long before = threads.getCurrentThreadAllocatedBytes();
+            double performed = perform(operand, ITERATIONS);
+            long performBytes = threads.getCurrentThreadAllocatedBytes() - before;
+
+            operate(operand, WARMUP);
+            before = threads.getCurrentThreadAllocatedBytes();
+            double operated = operate(operand, ITERATIONS);
+            long operateBytes = threads.getCurrentThreadAllocatedBytes() - before;
+
+            assertEquals(performed, operated);
+            System.out.printf("%s: performOperation %.1f bytes, operate %.1f bytes per operation%n",
+                    operand.getClass().getSimpleName(), (double) performBytes / ITERATIONS,
+                    (double) operateBytes / ITERATIONS);
+        }
+    }
+
+    private static double perform(Number operand, int iterations) {
+        double checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            checksum += Arithmetics.performOperation(operand, operand, BinaryExpr.Operator.PLUS).doubleValue();
+        }
+        return checksum;
+    }
+
+    private static double operate(Number operand, int iterations) {
+        Variable left = new Variable(operand);
+        Variable right = new Variable(operand);
+        double checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            Variable result = Arithmetics.operate(left, right, BinaryExpr.Operator.PLUS);
+            checksum += ((Number) result.getValue()).doubleValue();
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,91 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import sa.com.cloudsolutions.antikythera.evaluator.logging.LogRecorder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluationContextTest {
+
+    @AfterEach
+    void tearDown() {
+        GeneratorState.clearImports();
+        LogRecorder.clearLogs();
+    }
+
+    @Test
+    void stateStaysWithinItsContext() throws Exception {
+        EvaluationContext context = new EvaluationContext();
+        context.run(() -> {
+            AntikytheraRunTime.push(new Variable(1));
+            AntikytheraRunTime.setStaticVariable("a.B", "x", new Variable(2));
+            GeneratorState.addImport(new ImportDeclaration("java.util.List", false, false));
+            LogRecorder.captureLog("a.B", "info", "hello", new Object[0]);
+            assertSame(context, EvaluationContext.current());
+        });
+
+        assertSame(EvaluationContext.global(), EvaluationContext.current());
+        assertTrue(AntikytheraRunTime.isEmptyStack());
+        assertNull(AntikytheraRunTime.getStaticVariable("a.B", "x"));
+        assertTrue(GeneratorState.getImports().isEmpty());
+        assertFalse(LogRecorder.hasLogs());
+
+        assertEquals(1, context.call(() -> AntikytheraRunTime.pop().getValue()));
+        assertEquals(1, context.call(() -> GeneratorState.getImports().size()));
+    }
+
+    @Test
+    void nestedContextsRestoreThePreviousOne() {
+        EvaluationContext outer = new EvaluationContext();
+        EvaluationContext inner = new EvaluationContext();
+        outer.run(() -> {
+            inner.run(() -> assertSame(inner, EvaluationContext.current()));
+            assertSame(outer, EvaluationContext.current());
+        });
+        assertSame(EvaluationContext.global(), EvaluationContext.current());
+    }
+
+    @Test
+    void nodeCachesAreClearedPerContext() {
+        NodeCache<String> cache = new NodeCache<>();
+        BlockStmt block = new BlockStmt();
+        EvaluationContext context = new EvaluationContext();
+        context.run(() -> cache.put(block, "inner"));
+        cache.put(block, "global");
+
+        AntikytheraRunTime.clearNodeCaches();
+        assertNull(cache.get(block));
+        assertEquals("inner", context.get(() -> cache.get(block)));
+        context.run(AntikytheraRunTime::clearNodeCaches);
+        assertNull(context.get(() -> cache.get(block)));
+    }
+
+    @Test
+    void threadsUseSeparateContexts() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(() -> new EvaluationContext().call(() -> {
+                for (int i = 0; i < 100; i++) {
+                    AntikytheraRunTime.push(new Variable(i));
+                }
+                return GeneratorState.getImports().size();
+            }));
+            Future<Integer> second = executor.submit(() -> new EvaluationContext().call(() -> {
+                GeneratorState.addImport(new ImportDeclaration("java.util.Map", false, false));
+                return AntikytheraRunTime.isEmptyStack() ? 1 : 0;
+            }));
+            assertEquals(0, first.get());
+            assertEquals(1, second.get());
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(AntikytheraRunTime.isEmptyStack());
+    }
+}
@@ -0,0 +1,80 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+import sa.com.cloudsolutions.antikythera.evaluator.functional.FunctionEvaluator;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluatorFactoryTest {
+
+    static class CustomEvaluator extends Evaluator {
+        CustomEvaluator(EvaluatorFactory.Context context) {
+            super(context);
+        }
+    }
+
+    @BeforeAll
+    static void setup() throws IOException {
+        Settings.loadConfigMap(new File("src/test/resources/generator.yml"));
+    }
+
+    @BeforeEach
+    void each() {
+        EvaluatorFactory.resetStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        EvaluatorFactory.unregister(CustomEvaluator.class);
+    }
+
+    @Test
+    void registeredTypesAreCreatedWithoutReflection() {
+        MockingEvaluator mock = EvaluatorFactory.createLazily("com.example.Missing", MockingEvaluator.class);
+        FunctionEvaluator<?, ?> function = EvaluatorFactory.createLazily("java.util.function.Function", FunctionEvaluator.class);
+
+        assertEquals("com.example.Missing", mock.getClassName());
+        assertNotNull(function);
+        assertEquals(2, EvaluatorFactory.getCreated());
+        assertEquals(0, EvaluatorFactory.getReflective());
+        assertTrue(EvaluatorFactory.getAllocatedBytes() > 0);
+
+        EvaluatorFactory.resetStatistics();
+        assertEquals(0, EvaluatorFactory.getAllocatedBytes());
+    }
+
+    @Test
+    void otherTypesFallBackToReflection() {
+        CustomEvaluator custom = EvaluatorFactory.createLazily("com.example.Custom", CustomEvaluator.class);
+        assertEquals("com.example.Custom", custom.getClassName());
+        assertEquals(1, EvaluatorFactory.getCreated());
+        assertEquals(1, EvaluatorFactory.getReflective());
+
+        EvaluatorFactory.register(CustomEvaluator.class, CustomEvaluator::new);
+        EvaluatorFactory.createLazily("com.example.Custom", CustomEvaluator.class);
+        assertEquals(2, EvaluatorFactory.getCreated());
+        assertEquals(1, EvaluatorFactory.getReflective());
+    }
+
+    @Test
+    void reusedEvaluatorsStartAfresh() {
+        MockingEvaluator mock = EvaluatorFactory.createLazily("com.example.Missing", MockingEvaluator.class);
+        mock.setVariableName("missing");
+        mock.setField("count", new Variable(1));
+        mock.returnValue = new Variable(2);
+
+        assertSame(mock, EvaluatorFactory.reuse(mock));
+        assertNull(mock.getField("count"));
+        assertNull(mock.returnValue);
+        assertEquals("com.example.Missing", mock.getClassName());
+        assertEquals(1, EvaluatorFactory.getReused());
+        assertEquals(1, EvaluatorFactory.getCreated());
+    }
+}
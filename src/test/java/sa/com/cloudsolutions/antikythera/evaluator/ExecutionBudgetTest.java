@@ -0,0 +1,101 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+import sa.com.cloudsolutions.antikythera.exception.BudgetExceededException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionBudgetTest {
+
+    @BeforeAll
+    static void setup() throws IOException {
+        Settings.loadConfigMap(new File("src/test/resources/generator.yml"));
+    }
+
+    @BeforeEach
+    void each() {
+        ExecutionBudget.resetStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ExecutionBudget.endMethod();
+        Settings.setProperty(Settings.EXECUTION_BUDGET, Map.of());
+    }
+
+    @Test
+    void loopBudgetStaysExhausted() {
+        Settings.setProperty(Settings.EXECUTION_BUDGET, Map.of(ExecutionBudget.METHOD_LOOP_ITERATIONS, 3));
+        ExecutionBudget.beginMethod("com.a.Loops");
+        for (int i = 0; i < 3; i++) {
+            ExecutionBudget.loopIteration();
+        }
+        BudgetExceededException e = assertThrows(BudgetExceededException.class, ExecutionBudget::loopIteration);
+        assertEquals(ExecutionBudget.Kind.LOOP_ITERATIONS, e.getKind());
+        assertTrue(ExecutionBudget.isExceeded());
+        assertSame(e, assertThrows(BudgetExceededException.class, ExecutionBudget::statement));
+
+        assertSame(e, ExecutionBudget.endMethod());
+        assertFalse(ExecutionBudget.isExceeded());
+        assertDoesNotThrow(ExecutionBudget::loopIteration);
+        assertEquals(1, ExecutionBudget.getExhausted(ExecutionBudget.Kind.LOOP_ITERATIONS));
+    }
+
+    @Test
+    void callDepthIsLimited() {
+        Settings.setProperty(Settings.EXECUTION_BUDGET, Map.of(ExecutionBudget.CALL_DEPTH, 2));
+        ExecutionBudget.beginMethod("com.a.Calls");
+        ExecutionBudget.enterCall();
+        ExecutionBudget.enterCall();
+        BudgetExceededException e = assertThrows(BudgetExceededException.class, ExecutionBudget::enterCall);
+        assertEquals(ExecutionBudget.Kind.CALL_DEPTH, e.getKind());
+        ExecutionBudget.exitCall();
+        ExecutionBudget.exitCall();
+        ExecutionBudget.endMethod();
+
+        ExecutionBudget.beginMethod("com.a.Calls");
+        ExecutionBudget.enterCall();
+        ExecutionBudget.enterCall();
+        ExecutionBudget.exitCall();
+        ExecutionBudget.exitCall();
+    }
+
+    @Test
+    void methodsOfAClassShareItsBudget() {
+        Settings.setProperty(Settings.EXECUTION_BUDGET, Map.of(ExecutionBudget.CLASS_STATEMENTS, 5));
+        ExecutionBudget.beginMethod("com.a.Shared");
+        for (int i = 0; i < 3; i++) {
+            ExecutionBudget.statement();
+        }
+        assertNull(ExecutionBudget.endMethod());
+
+        ExecutionBudget.beginMethod("com.a.Shared");
+        ExecutionBudget.statement();
+        ExecutionBudget.statement();
+        assertThrows(BudgetExceededException.class, ExecutionBudget::statement);
+        ExecutionBudget.endMethod();
+
+        assertThrows(BudgetExceededException.class, () -> ExecutionBudget.beginMethod("com.a.Shared"));
+        ExecutionBudget.endMethod();
+
+        ExecutionBudget.beginMethod("com.a.Other");
+        assertDoesNotThrow(ExecutionBudget::statement);
+    }
+
+    @Test
+    void nothingIsEnforcedOutsideAMethod() {
+        Settings.setProperty(Settings.EXECUTION_BUDGET, Map.of(ExecutionBudget.METHOD_STATEMENTS, 1));
+        for (int i = 0; i < 10; i++) {
+            ExecutionBudget.statement();
+        }
+        assertFalse(ExecutionBudget.isExceeded());
+    }
+}
@@ -0,0 +1,91 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares calls to JDK collection and String methods through method handles and through
+ * plain reflection. The iterator of an ArrayList is not a public class, so with reflection
+ * every call to it fails before it is retried through the {@link Iterator} interface, which is
+ * what {@link Evaluator} does.
+ *
+ * Only runs in the benchmark profile: {@code mvn test -Pbenchmark}
+ */
+@Tag("benchmark")
+class InvokerBenchmark {
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 2_000_000;
+
+    @Test
+    void compareInvocation() throws ReflectiveOperationException, IOException {
+        Settings.loadConfigMap(new File("src/test/resources/generator.yml"));
+        Method listGet = List.class.getMethod("get", int.class);
+        Method mapPut = Map.class.getMethod("put", Object.class, Object.class);
+        Method indexOf = String.class.getMethod("indexOf", String.class);
+        Method substring = String.class.getMethod("substring", int.class, int.class);
+
+        long[] checksums = new long[2];
+        long[] iteratorTimes = new long[2];
+        for (boolean methodHandles : new boolean[]{false, true, false, true}) {
+            int mode = methodHandles ? 1 : 0;
+            Settings.setProperty(Settings.METHOD_HANDLES, methodHandles);
+            run(listGet, mapPut, indexOf, substring, WARMUP);
+            checksums[mode] = run(listGet, mapPut, indexOf, substring, ITERATIONS);
+
+            iterate(ITERATIONS / 100);
+            long start = System.nanoTime();
+            assertEquals(ITERATIONS / 10, iterate(ITERATIONS / 10));
+            iteratorTimes[mode] = System.nanoTime() - start;
+        }
+        Settings.setProperty(Settings.METHOD_HANDLES, true);
+
+        assertEquals(checksums[0], checksums[1]);
+        assertTrue(iteratorTimes[1] < iteratorTimes[0], "method handles " + iteratorTimes[1] / 1000
+                + " us, reflection " + iteratorTimes[0] / 1000 + " us for the iterator calls");
+    }
+
+    private static long iterate(int iterations) throws ReflectiveOperationException {
+        Iterator<Integer> iterator = new ArrayList<>(List.of(1)).iterator();
+        Method hasNext = iterator.getClass().getMethod("hasNext");
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            Object result;
+            try {
+                result = Invoker.invoke(hasNext, iterator);
+            } catch (IllegalAccessException e) {
+                result = Invoker.invoke(Reflect.findPublicMethod(iterator.getClass(), "hasNext", new Class<?>[0]),
+                        iterator);
+            }
+            checksum += (Boolean) result ? 1 : 0;
+        }
+        return checksum;
+    }
+
+    private static long run(Method listGet, Method mapPut, Method indexOf, Method substring, int iterations)
+            throws ReflectiveOperationException {
+        List<Integer> list = new ArrayList<>(List.of(1, 2, 3, 4));
+        Map<Integer, Integer> map = new HashMap<>();
+        String text = "the quick brown fox";
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            checksum += (Integer) Invoker.invoke(listGet, list, i & 3);
+            Invoker.invoke(mapPut, map, i & 15, i);
+            checksum += (Integer) Invoker.invoke(indexOf, text, "fox");
+            checksum += ((String) Invoker.invoke(substring, text, 4, 9)).length();
+        }
+        return checksum;
+    }
+}
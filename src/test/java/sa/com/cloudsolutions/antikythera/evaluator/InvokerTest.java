@@ -0,0 +1,122 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvokerTest {
+
+    static class Holder {
+        private long count;
+        static String label = "x";
+
+        Holder(long count) {
+            this.count = count;
+        }
+
+        public long add(long n) {
+            count += n;
+            return count;
+        }
+
+        public static String join(String... parts) {
+            return String.join(",", parts);
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Settings.loadConfigMap(new File("src/test/resources/generator.yml"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void methodsBehaveLikeReflection(boolean methodHandles) throws ReflectiveOperationException {
+        Settings.setProperty(Settings.METHOD_HANDLES, methodHandles);
+
+        Method substring = String.class.getMethod("substring", int.class, int.class);
+        assertEquals("ell", Invoker.invoke(substring, "hello", 1, 4));
+        assertThrows(IllegalArgumentException.class, () -> Invoker.invoke(substring, "hello", "1", 4));
+        assertThrows(IllegalArgumentException.class, () -> Invoker.invoke(substring, "hello", 1));
+        assertThrows(NullPointerException.class, () -> Invoker.invoke(substring, null, 1, 4));
+
+        InvocationTargetException e = assertThrows(InvocationTargetException.class,
+                () -> Invoker.invoke(substring, "hello", 4, 1));
+        assertInstanceOf(StringIndexOutOfBoundsException.class, e.getCause());
+
+        Method add = Holder.class.getMethod("add", long.class);
+        Holder holder = new Holder(1);
+        assertEquals(3L, Invoker.invoke(add, holder, 2));
+        assertEquals(4L, Invoker.invoke(add, holder, (short) 1));
+        assertThrows(IllegalArgumentException.class, () -> Invoker.invoke(add, holder, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> Invoker.invoke(add, holder, (Object) null));
+
+        Method join = Holder.class.getMethod("join", String[].class);
+        assertEquals("a,b", Invoker.invoke(join, null, (Object) new String[]{"a", "b"}));
+
+        Method listAdd = List.class.getMethod("add", Object.class);
+        List<String> list = new ArrayList<>();
+        assertEquals(true, Invoker.invoke(listAdd, list, "a"));
+        assertEquals(List.of("a"), list);
+    }
+
+    @Test
+    void publicMethodsOfHiddenClassesAreCalledThroughTheirInterface() throws ReflectiveOperationException {
+        Iterator<String> iterator = new ArrayList<>(List.of("a")).iterator();
+        Method hasNext = iterator.getClass().getMethod("hasNext");
+
+        Settings.setProperty(Settings.METHOD_HANDLES, false);
+        assertThrows(IllegalAccessException.class, () -> Invoker.invoke(hasNext, iterator));
+
+        Settings.setProperty(Settings.METHOD_HANDLES, true);
+        assertEquals(true, Invoker.invoke(hasNext, iterator));
+    }
+
+    @Test
+    void settingIsReadAgainWhenTheConfigurationIsReloaded() throws IOException {
+        Settings.setProperty(Settings.METHOD_HANDLES, false);
+        assertFalse(Invoker.useMethodHandles());
+        Settings.loadConfigMap(new File("src/test/resources/generator.yml"));
+        assertTrue(Invoker.useMethodHandles());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void constructorsAndFields(boolean methodHandles) throws ReflectiveOperationException {
+        Settings.setProperty(Settings.METHOD_HANDLES, methodHandles);
+
+        Constructor<?> constructor = Holder.class.getDeclaredConstructor(long.class);
+        Holder holder = (Holder) Invoker.newInstance(constructor, 7);
+
+        Field count = Invoker.findField(Holder.class, "count");
+        assertEquals(7L, Invoker.get(count, holder));
+        Invoker.set(count, holder, 9);
+        assertEquals(9L, holder.count);
+        assertThrows(IllegalArgumentException.class, () -> Invoker.set(count, holder, "9"));
+
+        Field label = Holder.class.getDeclaredField("label");
+        Invoker.set(label, null, "y");
+        assertEquals("y", Invoker.get(label, null));
+    }
+
+    @Test
+    void fieldsAreLookedUpOnce() throws NoSuchFieldException {
+        assertSame(Invoker.findField(Holder.class, "count"), Invoker.findField(Holder.class, "count"));
+        assertThrows(NoSuchFieldException.class, () -> Invoker.findField(Holder.class, "missing"));
+        assertThrows(NoSuchFieldException.class, () -> Invoker.findField(Holder.class, "missing"));
+    }
+}
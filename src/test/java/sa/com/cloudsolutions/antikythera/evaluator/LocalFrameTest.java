@@ -0,0 +1,62 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalFrameTest {
+
+    @Test
+    void behavesLikeAMapOfNames() {
+        LocalFrame frame = new LocalFrame();
+        Map<String, Symbol> expected = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            Variable v = new Variable(i);
+            assertNull(frame.put("v" + i, v));
+            expected.put("v" + i, v);
+        }
+        Variable replacement = new Variable(42);
+        assertSame(expected.get("v3"), frame.put("v3", replacement));
+        expected.put("v3", replacement);
+
+        assertEquals(expected, frame);
+        assertEquals(10, frame.size());
+        assertTrue(frame.containsKey("v9"));
+        assertNull(frame.get("missing"));
+
+        assertSame(expected.remove("v0"), frame.remove("v0"));
+        Iterator<Map.Entry<String, Symbol>> it = frame.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getKey().equals("v5")) {
+                it.remove();
+            }
+        }
+        expected.remove("v5");
+        assertEquals(expected, frame);
+
+        frame.clear();
+        assertTrue(frame.isEmpty());
+    }
+
+    @Test
+    void slotsAreCheckedAgainstTheName() {
+        LocalFrame frame = new LocalFrame();
+        Variable a = new Variable(1);
+        Variable b = new Variable(2);
+        frame.put("a", a);
+        frame.put("b", b);
+
+        int slot = frame.slotOf("b");
+        assertSame(b, frame.get(slot, "b"));
+        assertNull(frame.get(slot, "a"));
+
+        frame.remove("a");
+        assertNull(frame.get(slot, "b"));
+        assertSame(b, frame.get(frame.slotOf("b"), "b"));
+        assertEquals(-1, frame.slotOf("a"));
+    }
+}
@@ -0,0 +1,63 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Evaluates a method whose loops read and write local variables declared in nested blocks, the
+ * kind of code that {@link TestLocals} and {@link TestLoops} cover. After the first evaluation the
+ * variables are read from the slots that {@link Evaluator#getLocal} remembered, so the later
+ * rounds show the cost of a local variable access without the walk over the enclosing blocks.
+ *
+ * Only runs in the benchmark profile: {@code mvn test -Pbenchmark}
+ */
+@Tag("benchmark")
+class LocalsBenchmark {
+    private static final int ROUNDS = 5;
+    private static final int EVALUATIONS = 200;
+
+    @Test
+    void evaluateNestedLocals() throws ReflectiveOperationException, IOException {
+        Settings.loadConfigMap(new File("src/test/resources/generator.yml"));
+        CompilationUnit cu = StaticJavaParser.parse("""
+                class NestedLocals {
+                    int sum() {
+                        int total = 0;
+                        for (int i = 0; i < 50; i++) {
+                            int j = i;
+                            if (j % 2 == 0) {
+                                int k = j * 2;
+                                while (k > 0) {
+                                    int step = 1;
+                                    total = total + step;
+                                    k = k - step;
+                                }
+                            }
+                        }
+                        return total;
+                    }
+                }
+                """);
+        AntikytheraRunTime.addCompilationUnit("NestedLocals", cu);
+        MethodDeclaration sum = cu.findFirst(MethodDeclaration.class).orElseThrow();
+        Evaluator eval = EvaluatorFactory.createLazily("NestedLocals", Evaluator.class);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < EVALUATIONS; i++) {
+                assertEquals(1200, eval.executeMethod(sum).getValue());
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("round %d: %d us per evaluation%n", round, elapsed / EVALUATIONS / 1000);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+
+import java.io.IOException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sa.com.cloudsolutions.antikythera.evaluator.PurityAnalyzer.Effect.*;
+
+class PurityAnalyzerTest {
+    private static CompilationUnit cu;
+
+    @BeforeAll
+    static void setup() {
+        cu = StaticJavaParser.parse("""
+                class Helpers {
+                    static final String PREFIX = "p";
+                    static int counter;
+                    String name;
+                    String prefix;
+                    UserRepository userRepository;
+                    @Autowired Mailer mailer;
+
+                    String format(String a, int b) { return a + ":" + b; }
+                    String tag(String s) { return PREFIX + s; }
+                    String both(String s) { return tag(s) + format(s, 1); }
+                    String join(String a, String b) {
+                        StringBuilder sb = new StringBuilder();
+                        sb.append(a).append(b);
+                        return sb.toString();
+                    }
+                    void check(String s) {
+                        if (s == null) {
+                            throw new IllegalArgumentException("s");
+                        }
+                    }
+                    int fact(int n) { return n <= 1 ? 1 : n * fact(n - 1); }
+                    void noop() {}
+                    void setName(String n) { this.name = n; }
+                    void inc() { counter++; }
+                    String greet() { return prefix + name; }
+                    void print(String s) { System.out.println(s); }
+                    Object find(Long id) { return userRepository.findById(id); }
+                    void send(String s) { mailer.send(s); }
+                    void shadow(String s) {
+                        if (s != null) {
+                            String name = s;
+                        }
+                        name = s;
+                    }
+                    String local(String s) {
+                        String name = s;
+                        return name;
+                    }
+                }
+                """);
+    }
+
+    private static PurityAnalyzer.Purity analyze(String name) {
+        MethodDeclaration md = cu.findFirst(MethodDeclaration.class, m -> m.getNameAsString().equals(name)).orElseThrow();
+        return PurityAnalyzer.analyze(md);
+    }
+
+    @Test
+    void helpersThatOnlyUseTheirArgumentsAreMemoizable() {
+        assertTrue(analyze("format").isMemoizable());
+        assertTrue(analyze("tag").isMemoizable());
+        assertTrue(analyze("both").isMemoizable());
+        assertTrue(analyze("join").isMemoizable());
+    }
+
+    @Test
+    void branchesKeepPureMethodsFromBeingMemoized() {
+        PurityAnalyzer.Purity check = analyze("check");
+        assertTrue(check.isPure());
+        assertFalse(check.isMemoizable());
+        assertEquals(Set.of(BRANCHES, THROWS), check.effects());
+        assertFalse(check.isInert());
+    }
+
+    @Test
+    void recursionIsTreatedAsUnknown() {
+        assertTrue(analyze("fact").effects().contains(UNKNOWN_CALL));
+        assertFalse(analyze("fact").isPure());
+    }
+
+    @Test
+    void emptyMethodsAreInert() {
+        assertTrue(analyze("noop").isInert());
+    }
+
+    @Test
+    void sideEffectsAreRecorded() {
+        assertTrue(analyze("setName").effects().contains(FIELD_WRITE));
+        assertTrue(analyze("inc").effects().contains(STATIC_WRITE));
+        assertTrue(analyze("greet").effects().contains(STATE_READ));
+        assertTrue(analyze("print").effects().contains(IO));
+        assertTrue(analyze("find").effects().contains(REPOSITORY_CALL));
+        assertTrue(analyze("send").effects().contains(MOCK_INTERACTION));
+        for (String impure : new String[]{"setName", "inc", "greet", "print", "find", "send"}) {
+            assertFalse(analyze(impure).isPure(), impure);
+        }
+    }
+
+    @Test
+    void localsOnlyHideFieldsWhereTheyAreInScope() {
+        assertTrue(analyze("shadow").effects().contains(FIELD_WRITE));
+        assertTrue(analyze("local").isMemoizable());
+    }
+
+    @Test
+    void inertVoidMethodsAreSkippedUnlessTurnedOff() throws IOException {
+        Settings.loadConfigMap();
+        MethodDeclaration noop = cu.findFirst(MethodDeclaration.class, m -> m.getNameAsString().equals("noop")).orElseThrow();
+        assertTrue(PurityAnalyzer.canSkip(noop));
+        Settings.setProperty(Settings.SKIP_VOID_NO_SIDE_EFFECTS, false);
+        try {
+            assertFalse(PurityAnalyzer.canSkip(noop));
+        } finally {
+            Settings.setProperty(Settings.SKIP_VOID_NO_SIDE_EFFECTS, true);
+        }
+    }
+
+    @Test
+    void resultsAreKeptOnTheDeclaration() {
+        assertSame(analyze("format"), analyze("format"));
+    }
+}
@@ -0,0 +1,70 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares a filter, map and collect chain applied through the {@link StreamOperations} table
+ * with the same chain applied by looking up the methods of the {@link Stream} interface and
+ * invoking them reflectively. Only the results are checked, the timings are printed.
+ *
+ * Only runs in the benchmark profile: {@code mvn test -Pbenchmark}
+ */
+@Tag("benchmark")
+class StreamOperationsBenchmark {
+    private static final int ITERATIONS = 1_000_000;
+    private static final List<Integer> NUMBERS = List.of(1, 2, 3, 4, 5, 6, 7, 8);
+    private static final Function<Object, Object> EVEN = x -> (Integer) x % 2 == 0;
+    private static final Function<Object, Object> SQUARE = x -> (Integer) x * (Integer) x;
+
+    @Test
+    void compareDispatch() throws ReflectiveOperationException {
+        assertEquals(reflective(), table());
+        long reflection = 0;
+        long table = 0;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            long reflectiveChecksum = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                reflectiveChecksum += reflective().hashCode();
+            }
+            reflection = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long tableChecksum = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                tableChecksum += table().hashCode();
+            }
+            table = System.nanoTime() - start;
+            assertEquals(reflectiveChecksum, tableChecksum);
+        }
+        System.out.printf("dispatch table %d ns, reflection %d ns per chain%n",
+                table / ITERATIONS, reflection / ITERATIONS);
+    }
+
+    private static Object reflective() throws ReflectiveOperationException {
+        Predicate<Object> even = x -> Boolean.TRUE.equals(EVEN.apply(x));
+        Method filter = Stream.class.getMethod("filter", Predicate.class);
+        Method map = Stream.class.getMethod("map", Function.class);
+        Method collect = Stream.class.getMethod("collect", Collector.class);
+        Object s = filter.invoke(NUMBERS.stream(), even);
+        s = map.invoke(s, SQUARE);
+        return collect.invoke(s, Collectors.toList());
+    }
+
+    private static Object table() {
+        Object s = StreamOperations.apply(NUMBERS.stream(), "filter", new Object[]{EVEN}).getValue();
+        s = StreamOperations.apply(s, "map", new Object[]{SQUARE}).getValue();
+        return StreamOperations.apply(s, "collect", new Object[]{Collectors.toList()}).getValue();
+    }
+}
@@ -0,0 +1,82 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import org.junit.jupiter.api.Test;
+import sa.com.cloudsolutions.antikythera.exception.AntikytheraException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamOperationsTest {
+
+    private static Object apply(Object stream, String name, Object... args) {
+        return StreamOperations.apply(stream, name, args).getValue();
+    }
+
+    @Test
+    void filterMapAndCollect() {
+        Function<Object, Object> even = x -> (Integer) x % 2 == 0;
+        Function<Object, Object> square = x -> (Integer) x * (Integer) x;
+
+        Object s = apply(Stream.of(1, 2, 3, 4), "filter", even);
+        s = apply(s, "map", square);
+        assertEquals(List.of(4, 16), apply(s, "collect", Collectors.toList()));
+    }
+
+    @Test
+    void sortedWithAndWithoutComparator() {
+        BiFunction<Object, Object, Object> reverse = (a, b) -> (Integer) b - (Integer) a;
+        assertEquals(List.of(3, 2, 1), apply(apply(Stream.of(2, 3, 1), "sorted", reverse), "toList"));
+        assertEquals(List.of(1, 2, 3), apply(apply(Stream.of(2, 3, 1), "sorted"), "toList"));
+        assertEquals(List.of(1, 2, 3), apply(apply(Stream.of(2, 3, 1), "sorted", (Object) null), "toList"));
+    }
+
+    @Test
+    void terminalOperations() {
+        BiFunction<Object, Object, Object> sum = (a, b) -> (Integer) a + (Integer) b;
+        assertEquals(Optional.of(6), apply(Stream.of(1, 2, 3), "reduce", sum));
+        assertEquals(16, apply(Stream.of(1, 2, 3), "reduce", 10, sum));
+        assertEquals(3L, apply(Stream.of(1, 2, 3), "count"));
+
+        Variable v = StreamOperations.apply(Stream.of(1), "findFirst", new Object[0]);
+        assertEquals(Optional.class, v.getClazz());
+    }
+
+    @Test
+    void forEachReturnsNothing() {
+        List<Object> seen = new ArrayList<>();
+        Function<Object, Object> collect = seen::add;
+        Variable v = StreamOperations.apply(Stream.of("a", "b"), "forEach", new Object[]{collect});
+        assertNull(v.getValue());
+        assertNull(v.getClazz());
+        assertEquals(List.of("a", "b"), seen);
+    }
+
+    @Test
+    void primitiveStreams() {
+        Function<Object, Object> twice = x -> (Integer) x * 2;
+        assertEquals(12, apply(apply(IntStream.of(1, 2, 3), "map", twice), "sum"));
+        assertEquals(List.of(1L, 2L), apply(LongStream.of(1, 2), "toList"));
+        assertEquals(3.0, apply(apply(IntStream.of(1, 2), "asDoubleStream"), "sum"));
+    }
+
+    @Test
+    void unsupportedOperations() {
+        assertNull(StreamOperations.apply(Stream.of(1), "iterator", new Object[0]));
+        assertNull(StreamOperations.apply(List.of(1), "count", new Object[0]));
+        assertFalse(StreamOperations.supports(LongStream.of(1), "asLongStream", 0));
+        assertTrue(StreamOperations.supports(IntStream.of(1), "asLongStream", 0));
+
+        Object[] args = {null, null};
+        Stream<Integer> stream = Stream.of(1);
+        assertThrows(AntikytheraException.class, () -> StreamOperations.apply(stream, "collect", args));
+    }
+}
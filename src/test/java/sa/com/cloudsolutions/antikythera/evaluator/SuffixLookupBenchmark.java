@@ -0,0 +1,71 @@
+package sa.com.cloudsolutions.antikythera.evaluator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sa.com.cloudsolutions.antikythera.generator.TypeWrapper;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Looks types up by simple and partially qualified names with 1,000 and with 50,000 types in the
+ * {@link AntikytheraRunTime}. The lookups go through the index of simple names, so the time per
+ * lookup should stay about the same as the number of types grows instead of growing with it as a
+ * scan over all the types would.
+ *
+ * Only runs in the benchmark profile: {@code mvn test -Pbenchmark}
+ */
+@Tag("benchmark")
+class SuffixLookupBenchmark {
+    private static final int PACKAGES = 100;
+    private static final int LOOKUPS = 1_000_000;
+
+    @AfterEach
+    void tearDown() {
+        AntikytheraRunTime.resetAll();
+    }
+
+    @Test
+    void lookupStaysFlat() {
+        long small = measure(1_000);
+        long large = measure(50_000);
+        System.out.printf("suffix lookup: %d ns with 1k types, %d ns with 50k types%n", small, large);
+    }
+
+    /**
+     * @return the average time of a lookup in nanoseconds
+     */
+    private static long measure(int types) {
+        AntikytheraRunTime.resetAll();
+        for (int i = 0; i < types; i++) {
+            AntikytheraRunTime.addType(name(i), new TypeWrapper());
+        }
+
+        lookup(types, LOOKUPS / 10);
+        long start = System.nanoTime();
+        assertEquals(2L * LOOKUPS, lookup(types, LOOKUPS));
+        return (System.nanoTime() - start) / LOOKUPS;
+    }
+
+    /**
+     * Looks up each name once by its simple name and once qualified by its package.
+     *
+     * @return the number of matches, two for each name
+     */
+    private static long lookup(int types, int iterations) {
+        long matches = 0;
+        for (int i = 0; i < iterations; i++) {
+            int n = i % types;
+            List<String> bySimpleName = AntikytheraRunTime.findTypesBySuffix("Type" + n);
+            List<String> byPackage = AntikytheraRunTime.findTypesBySuffix("p" + (n % PACKAGES) + ".Type" + n);
+            matches += bySimpleName.size() + byPackage.size();
+        }
+        return matches;
+    }
+
+    private static String name(int i) {
+        return "bench.p" + (i % PACKAGES) + ".Type" + i;
+    }
+}
@@ -29,6 +29,7 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
@@ -70,6 +71,16 @@ class TestAKBuddy extends TestHelper {
         }
     }
 
+    @Test
+    void dynamicClassesCanBeLoadedByName() throws ReflectiveOperationException, IOException {
+        evaluator = EvaluatorFactory.create(SAMPLE_CLASS, Evaluator.class);
+        Class<?> clazz = AKBuddy.createDynamicClass(new MethodInterceptor(evaluator));
+        assertSame(clazz, AbstractCompiler.loadClass(clazz.getName()));
+
+        AbstractCompiler.reset();
+        assertSame(clazz, AbstractCompiler.loadClass(clazz.getName()));
+    }
+
     @Test
     void workWithArrays() throws ReflectiveOperationException {
         evaluator = EvaluatorFactory.create("sa.com.cloudsolutions.antikythera.testhelper.evaluator.Functional", Evaluator.class);
@@ -6,6 +6,10 @@ import com.github.javaparser.ast.expr.StringLiteralExpr;
 import org.junit.jupiter.api.Test;
 import sa.com.cloudsolutions.antikythera.exception.EvaluatorException;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class TestBinaryOps {
@@ -73,6 +77,60 @@ class TestBinaryOps {
         assertEquals(1, BinaryOps.binaryOps(BinaryExpr.Operator.DIVIDE, expr, expr, five, three).getValue());
     }
 
+    @Test
+    void testArithmeticFollowsJvmPromotion() {
+        var expr = new IntegerLiteralExpr();
+        long big = (1L << 53) + 1;
+        assertEquals(big + 2, BinaryOps.binaryOps(BinaryExpr.Operator.PLUS, expr, expr,
+                new Variable(big), new Variable(2)).getValue());
+        assertEquals(Long.MAX_VALUE / 3, BinaryOps.binaryOps(BinaryExpr.Operator.DIVIDE, expr, expr,
+                new Variable(Long.MAX_VALUE), new Variable(3L)).getValue());
+
+        assertEquals(Integer.MIN_VALUE, BinaryOps.binaryOps(BinaryExpr.Operator.PLUS, expr, expr,
+                new Variable(Integer.MAX_VALUE), new Variable(1)).getValue());
+        assertEquals(-1, BinaryOps.binaryOps(BinaryExpr.Operator.REMAINDER, expr, expr,
+                new Variable(-7), new Variable(3)).getValue());
+        assertThrows(ArithmeticException.class, () -> BinaryOps.binaryOps(BinaryExpr.Operator.DIVIDE, expr, expr,
+                new Variable(1), new Variable(0)));
+
+        assertEquals(2.5f, BinaryOps.binaryOps(BinaryExpr.Operator.DIVIDE, expr, expr,
+                new Variable(5f), new Variable(2)).getValue());
+        assertEquals(2.5, BinaryOps.binaryOps(BinaryExpr.Operator.DIVIDE, expr, expr,
+                new Variable(5), new Variable(2.0)).getValue());
+    }
+
+    @Test
+    void testArithmeticWithOtherNumbers() {
+        var expr = new IntegerLiteralExpr();
+        assertEquals(12, BinaryOps.binaryOps(BinaryExpr.Operator.PLUS, expr, expr,
+                new Variable(new BigDecimal("10.5")), new Variable(2)).getValue());
+        assertEquals(7L, BinaryOps.binaryOps(BinaryExpr.Operator.MULTIPLY, expr, expr,
+                new Variable(new AtomicInteger(7)), new Variable(1L)).getValue());
+        assertEquals(1.5, BinaryOps.binaryOps(BinaryExpr.Operator.DIVIDE, expr, expr,
+                new Variable(BigInteger.valueOf(3)), new Variable(2.0)).getValue());
+    }
+
+    @Test
+    void testByteAndShortOperands() {
+        var expr = new IntegerLiteralExpr();
+        assertEquals(200, Arithmetics.performOperation((byte) 100, (byte) 100, BinaryExpr.Operator.PLUS));
+        assertEquals((byte) -56, BinaryOps.binaryOps(BinaryExpr.Operator.PLUS, expr, expr,
+                new Variable((byte) 100), new Variable((byte) 100)).getValue());
+        assertEquals((short) 300, BinaryOps.binaryOps(BinaryExpr.Operator.MULTIPLY, expr, expr,
+                new Variable((byte) 3), new Variable((short) 100)).getValue());
+        assertEquals(103, BinaryOps.binaryOps(BinaryExpr.Operator.PLUS, expr, expr,
+                new Variable((byte) 3), new Variable(100)).getValue());
+    }
+
+    @Test
+    void testIncrementKeepsTheType() {
+        assertEquals(Long.MAX_VALUE, Arithmetics.increment(Long.MAX_VALUE - 1, 1));
+        assertEquals((short) 4, Arithmetics.increment((short) 5, -1));
+        assertEquals('b', Arithmetics.increment('a', 1));
+        assertEquals(-2.5f, Arithmetics.negate(2.5f));
+        assertEquals("x", Arithmetics.increment("x", 1));
+    }
+
     @Test
     void testInvalidComparisons() {
         var number = new Variable(5);
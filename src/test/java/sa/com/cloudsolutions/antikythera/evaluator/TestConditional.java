@@ -1,5 +1,6 @@
 package sa.com.cloudsolutions.antikythera.evaluator;
 
+import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.ConstructorDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
@@ -12,14 +13,22 @@ import org.junit.jupiter.params.provider.CsvSource;
 import sa.com.cloudsolutions.antikythera.configuration.Settings;
 import sa.com.cloudsolutions.antikythera.evaluator.mock.MockingRegistry;
 import sa.com.cloudsolutions.antikythera.exception.AntikytheraException;
+import sa.com.cloudsolutions.antikythera.exception.BudgetExceededException;
+import sa.com.cloudsolutions.antikythera.generator.MethodResponse;
 import sa.com.cloudsolutions.antikythera.parser.AbstractCompiler;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
 import java.util.List;
+import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import com.github.javaparser.ast.stmt.ReturnStmt;
 import com.github.javaparser.ast.expr.Expression;
 
@@ -238,6 +247,86 @@ class TestConditional extends TestHelper {
         assertEquals(result,s.replaceAll("\\n",""));
     }
 
+    @Test
+    void budgetOverrunWrappedByReflectionIsAbsorbed() throws ReflectiveOperationException {
+        WrappingEvaluator wrapping = EvaluatorFactory.create(SAMPLE_CLASS, WrappingEvaluator.class);
+        wrapping.setArgumentGenerator(new DummyArgumentGenerator());
+        MethodDeclaration method = cu.findFirst(MethodDeclaration.class,
+                md -> md.getNameAsString().equals("conditional1")).orElseThrow();
+
+        Settings.setProperty(Settings.EXECUTION_BUDGET, Map.of(ExecutionBudget.METHOD_LOOP_ITERATIONS, 1));
+        try {
+            ExecutionBudget.resetStatistics();
+            assertDoesNotThrow(() -> wrapping.visit(method));
+            assertFalse(ExecutionBudget.isExceeded());
+            assertEquals(1, ExecutionBudget.getExhausted(ExecutionBudget.Kind.LOOP_ITERATIONS));
+
+            wrapping.budgeted = false;
+            InvocationTargetException e = assertThrows(InvocationTargetException.class, () -> wrapping.visit(method));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        } finally {
+            Settings.setProperty(Settings.EXECUTION_BUDGET, Map.of());
+        }
+    }
+
+    @Test
+    void methodUnderTestIsNotTakenFromThePureMethodCache() throws ReflectiveOperationException {
+        CompilationUnit pure = StaticJavaParser.parse("""
+                class PureService {
+                    String label(String s) { return s.trim() + "!"; }
+                }
+                """);
+        AntikytheraRunTime.addCompilationUnit("PureService", pure);
+        CountingEvaluator counting = EvaluatorFactory.create("PureService", CountingEvaluator.class);
+        counting.setArgumentGenerator(new DummyArgumentGenerator());
+        MethodDeclaration label = pure.findFirst(MethodDeclaration.class).orElseThrow();
+
+        counting.visit(label);
+        counting.visit(label);
+        assertEquals(2, counting.tests);
+    }
+
+    /**
+     * Counts the tests that would have been created.
+     */
+    static class CountingEvaluator extends SpringEvaluator {
+        int tests;
+
+        CountingEvaluator(EvaluatorFactory.Context context) {
+            super(context);
+        }
+
+        @Override
+        Variable createTests(MethodResponse response) {
+            tests++;
+            return super.createTests(response);
+        }
+    }
+
+    /**
+     * Ends every execution with an exception wrapped the way that a reflective call wraps it.
+     */
+    static class WrappingEvaluator extends SpringEvaluator {
+        boolean budgeted = true;
+
+        WrappingEvaluator(EvaluatorFactory.Context context) {
+            super(context);
+        }
+
+        @Override
+        public Variable executeMethod(MethodDeclaration md) throws ReflectiveOperationException {
+            if (!budgeted) {
+                throw new InvocationTargetException(new IllegalStateException("not a budget overrun"));
+            }
+            try {
+                ExecutionBudget.loopIteration();
+                ExecutionBudget.loopIteration();
+            } catch (BudgetExceededException e) {
+                throw new InvocationTargetException(e);
+            }
+            return null;
+        }
+    }
 }
 
 class TestConditionalWithOptional extends TestHelper {
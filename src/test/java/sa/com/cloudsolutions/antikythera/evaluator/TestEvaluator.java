@@ -2,11 +2,13 @@ package sa.com.cloudsolutions.antikythera.evaluator;
 
 import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import sa.com.cloudsolutions.antikythera.configuration.Settings;
 import sa.com.cloudsolutions.antikythera.exception.AntikytheraException;
+import sa.com.cloudsolutions.antikythera.exception.BudgetExceededException;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.expr.BinaryExpr;
 import com.github.javaparser.ast.expr.ClassExpr;
@@ -31,8 +33,11 @@ import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -277,4 +282,150 @@ class TestEvaluatorWithFinches extends TestHelper {
         assertNotNull(v);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFieldSnapshot() {
+        String cls = """
+                import java.util.ArrayList;
+                import java.util.List;
+
+                class SnapshotClass {
+                    String name = "snap";
+                    int count = 3;
+                    List<String> items = new ArrayList<>();
+                }
+                """;
+        CompilationUnit cu = StaticJavaParser.parse(cls);
+        AntikytheraRunTime.addCompilationUnit("SnapshotClass", cu);
+
+        Evaluator eval = EvaluatorFactory.createLazily("SnapshotClass", Evaluator.class);
+        FieldSnapshot snapshot = eval.snapshotFields();
+        assertNotNull(snapshot);
+        assertEquals(3, snapshot.size());
+        assertEquals(3, snapshot.reused());
+
+        Variable name = eval.getField("name");
+        Variable count = eval.getField("count");
+        Variable items = eval.getField("items");
+        count.setValue(4);
+        ((List<Object>) items.getValue()).add("x");
+
+        snapshot.restore(eval);
+        assertEquals(3, eval.getField("count").getValue());
+        assertNotSame(count, eval.getField("count"));
+        assertSame(name, eval.getField("name"));
+        assertEquals("snap", eval.getField("name").getValue());
+        assertEquals(List.of(), eval.getField("items").getValue());
+        assertNotSame(items.getValue(), eval.getField("items").getValue());
+        assertEquals(2, snapshot.copies());
+        assertEquals(1, snapshot.kept());
+
+        Object escaped = eval.getField("items").getValue();
+        snapshot.restore(eval);
+        assertNotSame(escaped, eval.getField("items").getValue());
+        assertEquals(3, snapshot.copies());
+        assertEquals(3, snapshot.kept());
+    }
+
+    @Test
+    void testSequenceFieldsAreNotKept() {
+        String cls = """
+                @Entity
+                class SequencedEntity {
+                    @Id
+                    long id;
+                    String name = "entity";
+                }
+                """;
+        CompilationUnit cu = StaticJavaParser.parse(cls);
+        AntikytheraRunTime.addCompilationUnit("SequencedEntity", cu);
+
+        Evaluator eval = EvaluatorFactory.createLazily("SequencedEntity", Evaluator.class);
+        FieldSnapshot snapshot = eval.snapshotFields();
+        assertEquals(1, snapshot.reused());
+        Object first = eval.getField("id").getValue();
+
+        snapshot.restore(eval);
+        assertNotEquals(first, eval.getField("id").getValue());
+    }
+
+    @Test
+    void testReusedMockIsImported() {
+        String cls = """
+                class MockHolder {
+                    Object dependency;
+                }
+                """;
+        CompilationUnit cu = StaticJavaParser.parse(cls);
+        AntikytheraRunTime.addCompilationUnit("MockHolder", cu);
+
+        Evaluator eval = EvaluatorFactory.createLazily("MockHolder", Evaluator.class);
+        FieldSnapshot snapshot = eval.snapshotFields();
+        MockingEvaluator mock = EvaluatorFactory.createLazily("com.example.Dependency", MockingEvaluator.class);
+        eval.fields.put("dependency", new Variable(mock));
+        snapshot.capture(eval);
+
+        GeneratorState.clearImports();
+        snapshot.restore(eval);
+        assertSame(mock, eval.getField("dependency").getValue());
+        assertTrue(GeneratorState.getImports().contains(new ImportDeclaration("com.example.Dependency", false, false)));
+    }
+
+    @Test
+    void testPureMethodCache() throws ReflectiveOperationException {
+        String cls = """
+                class PureClass {
+                    String label(String s) { return s.trim() + "!"; }
+                    void nothing(int x) { }
+                }
+                """;
+        CompilationUnit cu = StaticJavaParser.parse(cls);
+        AntikytheraRunTime.addCompilationUnit("PureClass", cu);
+        Evaluator eval = EvaluatorFactory.createLazily("PureClass", Evaluator.class);
+        MethodDeclaration label = cu.findFirst(MethodDeclaration.class,
+                m -> m.getNameAsString().equals("label")).orElseThrow();
+        MethodDeclaration nothing = cu.findFirst(MethodDeclaration.class,
+                m -> m.getNameAsString().equals("nothing")).orElseThrow();
+        PureMethodCache.resetStatistics();
+
+        AntikytheraRunTime.push(new Variable(" a "));
+        Variable first = eval.executeMethod(label);
+        AntikytheraRunTime.push(new Variable(" a "));
+        Variable second = eval.executeMethod(label);
+        assertEquals("a!", first.getValue());
+        assertEquals("a!", second.getValue());
+        assertNotSame(first, second);
+        assertEquals(1, PureMethodCache.getMisses());
+        assertEquals(1, PureMethodCache.getHits());
+
+        AntikytheraRunTime.push(new Variable(1));
+        assertNull(eval.executeMethod(nothing));
+        assertEquals(1, PureMethodCache.getSkipped());
+        assertTrue(AntikytheraRunTime.isEmptyStack());
+    }
+
+    @Test
+    void testLoopBudget() {
+        String cls = """
+                class Spinner {
+                    void spin() {
+                        while (true) {
+                        }
+                    }
+                }
+                """;
+        CompilationUnit cu = StaticJavaParser.parse(cls);
+        AntikytheraRunTime.addCompilationUnit("Spinner", cu);
+        Evaluator eval = EvaluatorFactory.createLazily("Spinner", Evaluator.class);
+        MethodDeclaration spin = cu.findFirst(MethodDeclaration.class).orElseThrow();
+
+        Settings.setProperty(Settings.EXECUTION_BUDGET, Map.of(ExecutionBudget.METHOD_LOOP_ITERATIONS, 100));
+        try {
+            ExecutionBudget.beginMethod("Spinner");
+            assertThrows(BudgetExceededException.class, () -> eval.executeMethod(spin));
+            assertNotNull(ExecutionBudget.endMethod());
+        } finally {
+            Settings.setProperty(Settings.EXECUTION_BUDGET, Map.of());
+        }
+    }
 }
@@ -2,6 +2,8 @@ package sa.com.cloudsolutions.antikythera.evaluator;
 
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.MethodReferenceExpr;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,6 +11,8 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import sa.com.cloudsolutions.antikythera.configuration.Settings;
+import sa.com.cloudsolutions.antikythera.evaluator.functional.FPEvaluator;
+import sa.com.cloudsolutions.antikythera.evaluator.functional.FunctionalConverter;
 import sa.com.cloudsolutions.antikythera.parser.AbstractCompiler;
 
 import java.io.File;
@@ -18,7 +22,9 @@ import java.util.HashSet;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class TestFunctional extends TestHelper{
 
@@ -85,4 +91,29 @@ class TestFunctional extends TestHelper{
         assertNull(v.getValue());
         assertEquals("{25=A, 30=B}\n", outContent.toString());
     }
+
+    @Test
+    void testLambdaMethodIsSynthesizedOnce() {
+        LambdaExpr lambda = cu.findFirst(LambdaExpr.class).orElseThrow();
+        FPEvaluator<?> first = (FPEvaluator<?>) FPEvaluator.create(lambda, evaluator).getValue();
+        FPEvaluator<?> second = (FPEvaluator<?>) FPEvaluator.create(lambda, evaluator).getValue();
+        assertNotSame(first, second);
+        assertSame(first.getMethodDeclaration(), second.getMethodDeclaration());
+
+        LambdaExpr copy = lambda.clone();
+        copy.setParentNode(lambda.getParentNode().orElseThrow());
+        FPEvaluator<?> third = (FPEvaluator<?>) FPEvaluator.create(copy, evaluator).getValue();
+        assertNotSame(first.getMethodDeclaration(), third.getMethodDeclaration());
+    }
+
+    @Test
+    void testMethodReferenceIsConvertedOnce() {
+        MethodReferenceExpr methodRef = cu.findFirst(MethodReferenceExpr.class).orElseThrow();
+        LambdaExpr lambda = FunctionalConverter.convertToLambda(methodRef, null);
+        assertSame(lambda, FunctionalConverter.convertToLambda(methodRef, null));
+
+        MethodReferenceExpr copy = methodRef.clone();
+        copy.setParentNode(methodRef.getParentNode().orElseThrow());
+        assertNotSame(lambda, FunctionalConverter.convertToLambda(copy, null));
+    }
 }
@@ -1,7 +1,9 @@
 package sa.com.cloudsolutions.antikythera.evaluator;
 
+import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.BlockStmt;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,9 +16,11 @@ import sa.com.cloudsolutions.antikythera.parser.AbstractCompiler;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.List;
 
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 class TestLocals extends TestHelper {
     private static final String SAMPLE_CLASS = "sa.com.cloudsolutions.antikythera.testhelper.evaluator.Locals";
@@ -54,4 +58,18 @@ class TestLocals extends TestHelper {
         evaluator.executeMethod(mce);
         assertEquals(output, outContent.toString().strip());
     }
+
+    @Test
+    void testBlockIdentity() {
+        MethodDeclaration md = StaticJavaParser.parseMethodDeclaration(
+                "void twice() { if (a) { int x = 1; } if (b) { int x = 1; } }");
+        List<BlockStmt> blocks = md.findAll(BlockStmt.class);
+        assertEquals(blocks.get(1), blocks.get(2));
+
+        int first = Evaluator.blockId(blocks.get(1));
+        assertEquals(first, Evaluator.blockId(blocks.get(1)));
+        assertNotEquals(first, Evaluator.blockId(blocks.get(2)));
+        assertNotEquals(first, Evaluator.blockId(blocks.get(1).clone()));
+        assertEquals(0, Evaluator.blockId(null));
+    }
 }
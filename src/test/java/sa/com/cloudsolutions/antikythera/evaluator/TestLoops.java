@@ -4,6 +4,7 @@ import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import sa.com.cloudsolutions.antikythera.configuration.Settings;
@@ -13,9 +14,16 @@ import sa.com.cloudsolutions.antikythera.parser.AbstractCompiler;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestLoops extends  TestHelper {
 
@@ -49,4 +57,32 @@ public class TestLoops extends  TestHelper {
         }
         assertEquals("0\n1\n2\n3\n4\n5\n6\n7\n8\n9\n", outContent.toString());
     }
+
+    @Test
+    void loopsRunInParallelContexts() throws Exception {
+        MethodDeclaration method = cu.findFirst(MethodDeclaration.class,
+                m -> m.getNameAsString().equals("forLoopWithReturn")).orElseThrow();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                EvaluationContext context = new EvaluationContext();
+                results.add(executor.submit(() -> {
+                    Evaluator eval = EvaluatorFactory.create(SAMPLE_CLASS, Evaluator.class, context);
+                    assertSame(context, eval.getEvaluationContext());
+                    Object last = null;
+                    for (int j = 0; j < 20; j++) {
+                        last = context.call(() -> eval.executeMethod(method).getValue());
+                    }
+                    return last;
+                }));
+            }
+            for (Future<Object> result : results) {
+                assertEquals("Hello world", result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(AntikytheraRunTime.isEmptyStack());
+    }
 }
@@ -5,6 +5,8 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.time.LocalDateTime;
 import java.util.stream.Stream;
 
@@ -59,6 +61,12 @@ class TestNumericComparator {
             Arguments.of("LongLessThan", 50L, 100L, -1),
             Arguments.of("LongGreaterThan", 200L, 100L, 1),
             Arguments.of("LongWithInteger", 100L, 100, 0),
+            Arguments.of("LongAboveDoublePrecision", (1L << 53) + 1, 1L << 53, 1),
+
+            // BigDecimal and BigInteger comparisons
+            Arguments.of("BigDecimalWithLong", new BigDecimal("9007199254740993"), 9007199254740992L, 1),
+            Arguments.of("BigIntegerWithInteger", BigInteger.TEN.pow(20), Integer.MAX_VALUE, 1),
+            Arguments.of("BigDecimalWithDouble", new BigDecimal("0.5"), 0.5, 0),
 
             // Integer comparisons
             Arguments.of("IntegerEqual", 42, 42, 0),
@@ -1,13 +1,20 @@
 package sa.com.cloudsolutions.antikythera.evaluator;
 
 import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TestScopeChain extends TestHelper {
@@ -40,4 +47,25 @@ class TestScopeChain extends TestHelper {
 
         assertTrue(scopeChain.isEmpty(), "ScopeChain should be empty for a single object reference.");
     }
+
+    @Test
+    void testStaticScopeIsLookedUpOnce() {
+        CompilationUnit cu = StaticJavaParser.parse("""
+                class A {
+                    int f() { return Math.max(1, 2); }
+                }
+                """);
+        MethodCallExpr mce = cu.findFirst(MethodCallExpr.class).orElseThrow();
+
+        ScopeChain first = ScopeChain.findScopeChain(mce);
+        ScopeChain second = ScopeChain.findScopeChain(mce);
+        assertNotSame(first.getChain().getFirst(), second.getChain().getFirst());
+        assertNotNull(first.getChain().getFirst().getTypeWrapper());
+        assertSame(first.getChain().getFirst().getTypeWrapper(), second.getChain().getFirst().getTypeWrapper());
+
+        mce.setScope(new NameExpr("other"));
+        ScopeChain replaced = ScopeChain.findScopeChain(mce);
+        assertEquals("other", replaced.getChain().getFirst().getExpression().toString());
+        assertNull(replaced.getChain().getFirst().getTypeWrapper());
+    }
 }
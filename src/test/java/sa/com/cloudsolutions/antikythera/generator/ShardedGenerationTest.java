@@ -0,0 +1,161 @@
+package sa.com.cloudsolutions.antikythera.generator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+import sa.com.cloudsolutions.antikythera.generator.ShardedGeneration.Shard;
+import sa.com.cloudsolutions.antikythera.generator.ShardedGeneration.Unit;
+import sa.com.cloudsolutions.antikythera.parser.ProcessingReport;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedGenerationTest {
+    private static final List<Unit> UNITS = List.of(
+            new Unit("a.Small", false, 1),
+            new Unit("a.Large", false, 10),
+            new Unit("a.Medium", true, 5),
+            new Unit("a.Tiny", true, 1),
+            new Unit("a.Other", false, 4));
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        ProcessingReport.getInstance().reset();
+    }
+
+    @Test
+    void roundRobinTakesUnitsInTurn() {
+        List<Shard> shards = ShardedGeneration.roundRobin(UNITS, 2);
+        assertEquals(2, shards.size());
+        assertEquals(List.of("a.Small", "a.Other"), shards.get(0).services());
+        assertEquals(List.of("a.Medium"), shards.get(0).controllers());
+        assertEquals(List.of("a.Large"), shards.get(1).services());
+        assertEquals(List.of("a.Tiny"), shards.get(1).controllers());
+    }
+
+    @Test
+    void balanceEvensOutTheCost() {
+        List<Shard> shards = ShardedGeneration.balance(UNITS, 2);
+        assertEquals(2, shards.size());
+        assertEquals(11, shards.get(0).cost());
+        assertEquals(10, shards.get(1).cost());
+        assertEquals(List.of("a.Large"), shards.get(0).services());
+        assertEquals(List.of("a.Tiny"), shards.get(0).controllers());
+    }
+
+    @Test
+    void emptyShardsAreDropped() {
+        List<Shard> shards = ShardedGeneration.balance(UNITS.subList(0, 2), 4);
+        assertEquals(2, shards.size());
+        assertEquals(List.of(0, 1), shards.stream().map(Shard::index).toList());
+    }
+
+    @Test
+    void shardFilesAreNextToTheReport() {
+        ShardedGeneration driver = new ShardedGeneration(2, tempDir.resolve("report.json"), new String[0]);
+        Shard shard = new Shard(1, List.of("a.Small"), List.of(), 1);
+        assertEquals(tempDir.resolve("report.shard-1.json"), driver.shardFile(shard, ".json"));
+        assertEquals(tempDir.resolve("report.shard-1.log"), driver.shardFile(shard, ".log"));
+    }
+
+    @Test
+    void costIsEstimatedFromTheSources() throws IOException {
+        Path pkg = Files.createDirectories(tempDir.resolve("a/b"));
+        Files.writeString(pkg.resolve("Foo.java"), "x".repeat(100));
+        Files.writeString(pkg.resolve("Bar.java"), "x".repeat(50));
+
+        assertEquals(100, ShardedGeneration.sourceSize(tempDir, "a.b.Foo"));
+        assertEquals(150, ShardedGeneration.sourceSize(tempDir, "a.b"));
+        assertEquals(0, ShardedGeneration.sourceSize(tempDir, "a.b.Missing"));
+    }
+
+    @Test
+    void costIsEstimatedFromAnEarlierReport() throws IOException {
+        Path report = tempDir.resolve("report.json");
+        Files.writeString(report, """
+                {"classes": [
+                  {"name": "a.Foo", "status": "processed", "methods": [{"name": "x"}, {"name": "y"}]},
+                  {"name": "a.Bar", "status": "skipped", "methods": []}
+                ]}
+                """);
+        assertEquals(Map.of("a.Foo", 2L, "a.Bar", 0L), ShardedGeneration.previousMethodCounts(report));
+        assertTrue(ShardedGeneration.previousMethodCounts(tempDir.resolve("missing.json")).isEmpty());
+    }
+
+    @Test
+    void workerMainMustBeConfigured() {
+        String previous = System.getProperty(ShardedGeneration.WORKER_MAIN_PROPERTY);
+        try {
+            System.clearProperty(ShardedGeneration.WORKER_MAIN_PROPERTY);
+            assertThrows(IllegalStateException.class, ShardedGeneration::workerMain);
+            System.setProperty(ShardedGeneration.WORKER_MAIN_PROPERTY, "a.Main");
+            assertEquals("a.Main", ShardedGeneration.workerMain());
+        } finally {
+            if (previous == null) {
+                System.clearProperty(ShardedGeneration.WORKER_MAIN_PROPERTY);
+            } else {
+                System.setProperty(ShardedGeneration.WORKER_MAIN_PROPERTY, previous);
+            }
+        }
+    }
+
+    @Test
+    void workersDoNotInheritDebuggersOrAgents() {
+        List<String> options = List.of("-Xmx2g", "-agentlib:jdwp=transport=dt_socket,server=y,address=5005",
+                "-javaagent:/tmp/agent.jar", "-Dfoo=bar");
+        assertEquals(List.of("-Xmx2g", "-Dfoo=bar"), ShardedGeneration.workerOptions(options));
+    }
+
+    @Test
+    void assignmentIsWrittenToAFile() throws IOException {
+        ShardedGeneration driver = new ShardedGeneration(2, tempDir.resolve("report.json"), new String[0]);
+        Shard shard = new Shard(1, List.of("a.Small", "a.Other"), List.of("a.Tiny"), 1);
+        Path assignment = driver.writeAssignment(shard);
+
+        JsonNode root = new ObjectMapper().readTree(assignment.toFile());
+        assertEquals(2, root.path(Settings.SERVICES).size());
+        assertEquals("a.Tiny", root.path(Settings.CONTROLLERS).get(0).asText());
+        assertEquals(tempDir.resolve("report.shard-1.json").toString(),
+                root.path(Settings.PROCESSING_REPORT_PATH).asText());
+    }
+
+    @Test
+    void failedWorkerWithAReportIsNotCountedTwice() throws IOException {
+        ShardedGeneration driver = new ShardedGeneration(2, tempDir.resolve("report.json"), new String[0]);
+        Shard shard = new Shard(0, List.of("a.Small"), List.of("a.Tiny"), 2);
+        Files.writeString(driver.shardFile(shard, ".json"), """
+                {"classes": [{"name": "a.Small", "status": "processed", "methods": []}]}
+                """);
+
+        ProcessingReport merged = ProcessingReport.getInstance();
+        merged.reset();
+        driver.merge(merged, shard, 1);
+        JsonNode classes = new ObjectMapper().readTree(merged.toJson()).path("classes");
+        assertEquals(1, classes.size());
+        assertEquals("processed", classes.get(0).path("status").asText());
+    }
+
+    @Test
+    void workerWithoutAReportFailsItsClasses() throws IOException {
+        ShardedGeneration driver = new ShardedGeneration(2, tempDir.resolve("report.json"), new String[0]);
+        Shard shard = new Shard(0, List.of("a.Small"), List.of("a.Tiny"), 2);
+
+        ProcessingReport merged = ProcessingReport.getInstance();
+        merged.reset();
+        driver.merge(merged, shard, 137);
+        JsonNode classes = new ObjectMapper().readTree(merged.toJson()).path("classes");
+        assertEquals(2, classes.size());
+        classes.forEach(c -> assertEquals("failed", c.path("status").asText()));
+    }
+}
@@ -4,6 +4,7 @@ import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.PackageDeclaration;
 import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
 import sa.com.cloudsolutions.antikythera.configuration.Settings;
 import com.github.javaparser.ast.CompilationUnit;
 import org.junit.jupiter.api.BeforeAll;
@@ -17,6 +18,10 @@ import sa.com.cloudsolutions.antikythera.generator.TypeWrapper;
 import sa.com.cloudsolutions.antikythera.evaluator.AntikytheraRunTime;
 
 import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -95,6 +100,52 @@ class AbstractCompilerTest {
         assertNotNull(AbstractCompiler.findWildcardImport(cu, "Stack"));
     }
 
+    @Test
+    void testImportTableFollowsImportChanges() {
+        CompilationUnit cu = StaticJavaParser.parse("""
+                import java.util.List;
+                import java.util.*;
+                class Imports {}
+                """);
+        ImportWrapper list = AbstractCompiler.findImport(cu, "List");
+        assertNotNull(list);
+        assertSame(list, AbstractCompiler.findImport(cu, "List"));
+        assertEquals("java.util.List", AbstractCompiler.findImport(cu, "java.util.List").getNameAsString());
+        assertNotNull(AbstractCompiler.findImport(cu, "Stack"));
+        assertNull(AbstractCompiler.findImport(cu, "BigDecimal"));
+
+        cu.addImport("java.math.BigDecimal");
+        ImportWrapper bigDecimal = AbstractCompiler.findImport(cu, "BigDecimal");
+        assertNotNull(bigDecimal);
+        assertEquals("java.math.BigDecimal", bigDecimal.getNameAsString());
+    }
+
+    @Test
+    void testExtraExportsWithTheSameSimpleName() {
+        List<?> previous = Settings.getProperty("extra_exports", List.class).orElse(null);
+        try {
+            Settings.setProperty("extra_exports", List.of("a.Foo", "b.Foo", "c.Bar"));
+            assertEquals("a.Foo", ImportTable.findExtraExport("Foo"));
+            assertEquals("b.Foo", ImportTable.findExtraExport("b.Foo"));
+            assertEquals("c.Bar", ImportTable.findExtraExport("Bar"));
+            assertNull(ImportTable.findExtraExport("d.Foo"));
+        } finally {
+            Settings.setProperty("extra_exports", previous);
+        }
+    }
+
+    @Test
+    void testImportTableNoticesRemovedImports() {
+        CompilationUnit cu = StaticJavaParser.parse("""
+                import java.util.List;
+                class Imports {}
+                """);
+        assertNotNull(AbstractCompiler.findImport(cu, "List"));
+
+        cu.getImports().remove(0);
+        assertNull(AbstractCompiler.findImport(cu, "List"));
+    }
+
     @Test
     void testFindFullyQualifiedName() {
         CompilationUnit cu = new CompilationUnit();
@@ -331,4 +382,83 @@ class AbstractCompilerTest {
         assertTrue(AbstractCompiler.matchesSkipPattern("com.example.generated"));
         assertFalse(AbstractCompiler.matchesSkipPattern("com.example.ActiveService"));
     }
+
+    @Test
+    void parallelPreProcessingMatchesSequential() throws IOException {
+        Map<String, String> sequential = snapshotTypeGraph();
+        assertFalse(sequential.isEmpty());
+
+        try {
+            Settings.setProperty(Settings.PREPROCESS_PARALLELISM, 4);
+            AntikytheraRunTime.resetAll();
+            AbstractCompiler.preProcess();
+            assertEquals(sequential, snapshotTypeGraph());
+        } finally {
+            Settings.setProperty(Settings.PREPROCESS_PARALLELISM, 1);
+            AntikytheraRunTime.resetAll();
+            AbstractCompiler.preProcess();
+        }
+    }
+
+    @Test
+    void slimDropsCommentsAndTokensButKeepsPositions() {
+        String source = """
+                package p;
+                /** The class */
+                public class A {
+                    // the field
+                    int x = 1;
+                }
+                """;
+        assertTrue(AbstractCompiler.preserveLexically(StaticJavaParser.parse(source)));
+
+        CompilationUnit cu = StaticJavaParser.parse(source);
+        AbstractCompiler.slim(cu);
+        assertTrue(cu.getAllComments().isEmpty());
+        assertTrue(cu.getTokenRange().isEmpty());
+        assertEquals(3, cu.getType(0).getBegin().orElseThrow().line);
+        assertEquals(5, cu.getType(0).getFields().get(0).getBegin().orElseThrow().line);
+        assertThrows(IllegalStateException.class, () -> AbstractCompiler.preserveLexically(cu));
+        assertFalse(AbstractCompiler.preserveLexically(new CompilationUnit()));
+    }
+
+    @Test
+    void slimAstKeepsLexicalPreservationForTargets() throws IOException {
+        Settings.setProperty(Settings.SLIM_AST, true);
+        Settings.setProperty(Settings.CONTROLLERS, "sa.com.cloudsolutions.antikythera.testhelper.parser");
+        AbstractCompiler.setEnableLexicalPreservation(true);
+        try {
+            AntikytheraRunTime.resetAll();
+            AbstractCompiler target = new AbstractCompiler();
+            target.compile("sa/com/cloudsolutions/antikythera/testhelper/parser/Empty.java");
+            assertTrue(LexicalPreservingPrinter.isAvailableOn(target.getCompilationUnit()));
+
+            AbstractCompiler other = new AbstractCompiler();
+            other.compile("sa/com/cloudsolutions/antikythera/testhelper/evaluator/Nesting.java");
+            assertFalse(LexicalPreservingPrinter.isAvailableOn(other.getCompilationUnit()));
+            assertTrue(other.getCompilationUnit().getTokenRange().isEmpty());
+            assertThrows(IllegalStateException.class,
+                    () -> AbstractCompiler.preserveLexically(other.getCompilationUnit()));
+        } finally {
+            AbstractCompiler.setEnableLexicalPreservation(false);
+            Settings.setProperty(Settings.SLIM_AST, false);
+            Settings.setProperty(Settings.CONTROLLERS, "sa.com.cloudsolutions.controller");
+            AntikytheraRunTime.resetAll();
+            AbstractCompiler.preProcess();
+        }
+    }
+
+    private static Map<String, String> snapshotTypeGraph() {
+        Map<String, String> graph = new TreeMap<>();
+        for (Map.Entry<String, TypeWrapper> entry : AntikytheraRunTime.getResolvedTypes().entrySet()) {
+            String name = entry.getKey();
+            TypeWrapper wrapper = entry.getValue();
+            graph.put(name, String.format("%b %b %b %b %b %s %s",
+                    wrapper.isController(), wrapper.isService(), wrapper.isComponent(),
+                    wrapper.isRepository(), wrapper.isInterface(),
+                    new TreeSet<>(AntikytheraRunTime.findImplementations(name)),
+                    new TreeSet<>(AntikytheraRunTime.findSubClasses(name))));
+        }
+        return graph;
+    }
 }
@@ -317,5 +317,79 @@ class AbstractCompilerTypeResolutionTest {
         String fqn = AbstractCompiler.findFullyQualifiedName(cu, "NonExistentType12345");
         assertNull(fqn, "Should return null for non-existent type");
     }
-}
 
+    @Test
+    void testFindType_ResultsAreCachedPerCompilationUnit() {
+        CompilationUnit cu = StaticJavaParser.parse("""
+                package test.cache;
+                import java.util.List;
+                public class Cached { }
+                """);
+        AntikytheraRunTime.addCompilationUnit("test.cache.Cached", cu);
+
+        long misses = TypeResolutionCache.getMisses();
+        long hits = TypeResolutionCache.getHits();
+        TypeWrapper list = AbstractCompiler.findType(cu, "List");
+        assertNotNull(list);
+        assertSame(list, AbstractCompiler.findType(cu, "List"));
+        assertNull(AbstractCompiler.findType(cu, "Missing12345"));
+        assertNull(AbstractCompiler.findType(cu, "Missing12345"));
+        assertEquals(misses + 2, TypeResolutionCache.getMisses());
+        assertEquals(hits + 2, TypeResolutionCache.getHits());
+
+        assertThrows(UnsupportedOperationException.class, () -> list.setService(true));
+    }
+
+    @Test
+    void testFindType_CacheIsInvalidatedWhenTypesAreAdded() {
+        CompilationUnit cu = StaticJavaParser.parse("""
+                package test.cache;
+                public class Holder { }
+                """);
+        AntikytheraRunTime.addCompilationUnit("test.cache.Holder", cu);
+        assertNull(AbstractCompiler.findType(cu, "Late"));
+
+        CompilationUnit late = StaticJavaParser.parse("""
+                package test.cache;
+                public class Late { }
+                """);
+        AntikytheraRunTime.addType("test.cache.Late", new TypeWrapper(late.getType(0)));
+        AntikytheraRunTime.addCompilationUnit("test.cache.Late", late);
+
+        TypeWrapper found = AbstractCompiler.findType(cu, "Late");
+        assertNotNull(found);
+        assertEquals("test.cache.Late", found.getFullyQualifiedName());
+    }
+
+    @Test
+    void testFindType_CacheSurvivesUnrelatedTypes() {
+        CompilationUnit cu = StaticJavaParser.parse("""
+                package test.cache;
+                public class Keeper { }
+                """);
+        AntikytheraRunTime.addCompilationUnit("test.cache.Keeper", cu);
+        assertNull(AbstractCompiler.findType(cu, "Absent"));
+
+        CompilationUnit other = StaticJavaParser.parse("""
+                package test.other;
+                public class Unrelated { }
+                """);
+        AntikytheraRunTime.addType("test.other.Unrelated", new TypeWrapper(other.getType(0)));
+        AntikytheraRunTime.addCompilationUnit("test.other.Unrelated", other);
+
+        long hits = TypeResolutionCache.getHits();
+        assertNull(AbstractCompiler.findType(cu, "Absent"));
+        assertEquals(hits + 1, TypeResolutionCache.getHits());
+
+        CompilationUnit absent = StaticJavaParser.parse("""
+                package test.cache;
+                public class Absent { }
+                """);
+        AntikytheraRunTime.addType("test.cache.Absent", new TypeWrapper(absent.getType(0)));
+        AntikytheraRunTime.addCompilationUnit("test.cache.Absent", absent);
+
+        TypeWrapper found = AbstractCompiler.findType(cu, "Absent");
+        assertNotNull(found);
+        assertEquals("test.cache.Absent", found.getFullyQualifiedName());
+    }
+}
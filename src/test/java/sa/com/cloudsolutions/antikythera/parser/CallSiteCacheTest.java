@@ -0,0 +1,99 @@
+package sa.com.cloudsolutions.antikythera.parser;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.type.PrimitiveType;
+import com.github.javaparser.ast.type.Type;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CallSiteCacheTest {
+    CompilationUnit cu;
+    MethodCallExpr site;
+    AtomicInteger lookups;
+    BiFunction<MCEWrapper, TypeDeclaration<?>, Optional<Callable>> resolver;
+
+    @BeforeEach
+    void setUp() {
+        cu = StaticJavaParser.parse("""
+                class A {
+                    void run(int x) { }
+                    void test() { run(1); }
+                }
+                """);
+        site = cu.findFirst(MethodCallExpr.class).orElseThrow();
+        lookups = new AtomicInteger();
+        resolver = (call, decl) -> {
+            lookups.incrementAndGet();
+            MethodDeclaration md = decl.getMethodsByName(call.getMethodName()).get(0);
+            return Optional.of(new Callable(md, call));
+        };
+        CallSiteCache.resetStatistics();
+    }
+
+    private MCEWrapper call(Type... types) {
+        MCEWrapper wrapper = new MCEWrapper(site);
+        wrapper.setArgumentTypes(new NodeList<>(types));
+        return wrapper;
+    }
+
+    @Test
+    void repeatedCallsAreResolvedOnce() {
+        ClassOrInterfaceDeclaration a = cu.getClassByName("A").orElseThrow();
+        MCEWrapper first = call(PrimitiveType.intType());
+        Callable c1 = CallSiteCache.find(first, a, resolver).orElseThrow();
+
+        MCEWrapper second = call(PrimitiveType.intType());
+        Callable c2 = CallSiteCache.find(second, a, resolver).orElseThrow();
+
+        assertEquals(1, lookups.get());
+        assertEquals(c1, c2);
+        assertSame(first, c1.getMce());
+        assertSame(second, c2.getMce());
+        assertEquals(1, CallSiteCache.getHits());
+        assertEquals(1, CallSiteCache.getMisses());
+    }
+
+    @Test
+    void differentArgumentTypesAreResolvedSeparately() {
+        ClassOrInterfaceDeclaration a = cu.getClassByName("A").orElseThrow();
+        CallSiteCache.find(call(PrimitiveType.intType()), a, resolver);
+        CallSiteCache.find(call(PrimitiveType.longType()), a, resolver);
+        CallSiteCache.find(call(PrimitiveType.longType()), a, resolver);
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void megamorphicSitesAreNotCached() {
+        ClassOrInterfaceDeclaration a = cu.getClassByName("A").orElseThrow();
+        Type[] types = {PrimitiveType.intType(), PrimitiveType.longType(), PrimitiveType.shortType(),
+                PrimitiveType.byteType(), PrimitiveType.charType()};
+        for (Type type : types) {
+            CallSiteCache.find(call(type), a, resolver);
+        }
+        assertEquals(1, CallSiteCache.getMegamorphicSites());
+
+        CallSiteCache.find(call(PrimitiveType.intType()), a, resolver);
+        assertEquals(types.length + 1, lookups.get());
+    }
+
+    @Test
+    void invalidationDiscardsTheEntries() {
+        ClassOrInterfaceDeclaration a = cu.getClassByName("A").orElseThrow();
+        CallSiteCache.find(call(PrimitiveType.intType()), a, resolver);
+        CallSiteCache.invalidateAll();
+        CallSiteCache.find(call(PrimitiveType.intType()), a, resolver);
+        assertEquals(2, lookups.get());
+    }
+}
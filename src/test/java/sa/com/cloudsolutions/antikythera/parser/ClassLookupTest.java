@@ -0,0 +1,86 @@
+package sa.com.cloudsolutions.antikythera.parser;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassLookupTest {
+
+    /**
+     * Counts the requests that reach it and only knows about the class lists.
+     */
+    static class CountingLoader extends ClassLoader {
+        final List<String> requests = new ArrayList<>();
+
+        CountingLoader() {
+            super(null);
+        }
+
+        @Override
+        public Class<?> loadClass(String name) throws ClassNotFoundException {
+            requests.add(name);
+            if (name.equals("com.example.Lists")) {
+                return ArrayList.class;
+            }
+            throw new ClassNotFoundException(name);
+        }
+    }
+
+    CountingLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        loader = new CountingLoader();
+        ClassLookup.reset(loader, null);
+        ClassLookup.resetStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ClassLookup.reset(AbstractCompiler.getClassLoader(), JarClassIndex.getInstance());
+    }
+
+    @Test
+    void foundClassesAreRemembered() throws ClassNotFoundException {
+        assertSame(String.class, ClassLookup.forName("java.lang.String"));
+        long probes = ClassLookup.getProbes();
+        assertSame(String.class, ClassLookup.forName("java.lang.String"));
+        assertSame(String.class, ClassLookup.loadClass("java.lang.String"));
+        assertEquals(probes, ClassLookup.getProbes());
+        assertEquals(2, ClassLookup.getHits());
+        assertTrue(loader.requests.isEmpty());
+    }
+
+    @Test
+    void missingClassesAreProbedOnce() {
+        assertThrows(ClassNotFoundException.class, () -> ClassLookup.loadClass("com.example.Missing"));
+        assertEquals(List.of("com.example.Missing"), loader.requests);
+
+        assertThrows(ClassNotFoundException.class, () -> ClassLookup.loadClass("com.example.Missing"));
+        assertThrows(ClassNotFoundException.class, () -> ClassLookup.forName("com.example.Missing"));
+        assertEquals(1, loader.requests.size());
+        assertEquals(2, ClassLookup.getNegativeHits());
+    }
+
+    @Test
+    void classesInJarsAreNotVisibleToForName() throws ClassNotFoundException {
+        assertThrows(ClassNotFoundException.class, () -> ClassLookup.forName("com.example.Lists"));
+        assertSame(ArrayList.class, ClassLookup.loadClass("com.example.Lists"));
+        assertSame(ArrayList.class, ClassLookup.loadClass("com.example.Lists"));
+        assertThrows(ClassNotFoundException.class, () -> ClassLookup.forName("com.example.Lists"));
+        assertEquals(1, loader.requests.size());
+    }
+
+    @Test
+    void resetStartsANewGeneration() {
+        assertThrows(ClassNotFoundException.class, () -> ClassLookup.loadClass("com.example.Missing"));
+        ClassLookup.reset(loader, null);
+        assertThrows(ClassNotFoundException.class, () -> ClassLookup.loadClass("com.example.Missing"));
+        assertEquals(2, loader.requests.size());
+    }
+}
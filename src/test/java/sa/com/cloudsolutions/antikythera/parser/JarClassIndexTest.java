@@ -0,0 +1,125 @@
+package sa.com.cloudsolutions.antikythera.parser;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JarClassIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Settings.loadConfigMap(new File("src/test/resources/generator.yml"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Settings.loadConfigMap(new File("src/test/resources/generator-field-tests.yml"));
+    }
+
+    private Path createJar(String name, String... entries) throws IOException {
+        Path jar = tempDir.resolve(name);
+        try (OutputStream out = Files.newOutputStream(jar); JarOutputStream jos = new JarOutputStream(out)) {
+            for (String entry : entries) {
+                JarEntry jarEntry = new JarEntry(entry);
+                jarEntry.setTime(0);
+                jos.putNextEntry(jarEntry);
+                jos.write(new byte[]{0});
+                jos.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    @Test
+    void classesAreMappedToTheirJars() throws IOException {
+        Settings.setProperty(Settings.OUTPUT_PATH, tempDir.resolve("out").toString());
+        Path first = createJar("first.jar", "com/a/Alpha.class", "com/a/Alpha$Inner.class",
+                "META-INF/versions/9/com/a/Alpha.class", "module-info.class");
+        Path second = createJar("second.jar", "com/a/Alpha.class", "com/b/Beta.class");
+
+        JarClassIndex index = new JarClassIndex();
+        index.addJars(List.of(first.toString(), second.toString()));
+
+        assertEquals(first.toString(), index.findJar("com.a.Alpha"));
+        assertEquals(first.toString(), index.findJar("com.a.Alpha$Inner"));
+        assertEquals(first.toString(), index.findJar("com.a.Alpha.Inner"));
+        assertEquals(second.toString(), index.findJar("com.b.Beta"));
+        assertNull(index.findJar("module-info"));
+        assertFalse(index.mayContain("com.c.Gamma"));
+        assertTrue(index.mayContain("com.b.Beta"));
+        assertTrue(Files.exists(tempDir.resolve("out").resolve(SourceIndex.INDEX_FOLDER)
+                .resolve(JarClassIndex.INDEX_FILE)));
+    }
+
+    @Test
+    void unchangedJarsAreNotScannedAgain() throws IOException {
+        Settings.setProperty(Settings.OUTPUT_PATH, tempDir.resolve("out").toString());
+        Path jar = createJar("lib.jar", "com/a/Alpha.class");
+        new JarClassIndex().addJars(List.of(jar.toString()));
+
+        /*
+         * Replace the content without changing the size or the modification time, the stored
+         * index should still be used.
+         */
+        FileTime modified = Files.getLastModifiedTime(jar);
+        createJar("lib.jar", "com/a/Omega.class");
+        Files.setLastModifiedTime(jar, modified);
+
+        JarClassIndex index = new JarClassIndex();
+        index.addJars(List.of(jar.toString()));
+        assertNotNull(index.findJar("com.a.Alpha"));
+        assertNull(index.findJar("com.a.Omega"));
+
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(modified.toMillis() + 2000));
+        index = new JarClassIndex();
+        index.addJars(List.of(jar.toString()));
+        assertNull(index.findJar("com.a.Alpha"));
+        assertNotNull(index.findJar("com.a.Omega"));
+    }
+
+    @Test
+    void classesFollowTheCurrentJars() throws IOException {
+        Settings.setProperty(Settings.OUTPUT_PATH, tempDir.resolve("out").toString());
+        Path oldJar = createJar("lib-1.0.jar", "com/a/Alpha.class");
+        Path newJar = createJar("lib-1.1.jar", "com/a/Alpha.class");
+
+        JarClassIndex index = new JarClassIndex();
+        index.addJars(List.of(oldJar.toString()));
+        assertEquals(oldJar.toString(), index.findJar("com.a.Alpha"));
+
+        index.addJars(List.of(newJar.toString()));
+        assertEquals(newJar.toString(), index.findJar("com.a.Alpha"));
+
+        index.addJars(List.of(Files.createDirectories(tempDir.resolve("classes")).toString()));
+        assertNull(index.findJar("com.a.Alpha"));
+        assertTrue(index.mayContain("com.a.Alpha"));
+        index.addJars(List.of(oldJar.toString()));
+        assertFalse(index.mayContain("com.b.Beta"));
+    }
+
+    @Test
+    void foldersMakeTheIndexIncomplete() throws IOException {
+        Settings.setProperty(Settings.OUTPUT_PATH, tempDir.resolve("out").toString());
+        Path folder = Files.createDirectories(tempDir.resolve("classes"));
+        JarClassIndex index = new JarClassIndex();
+        index.addJars(List.of(folder.toString()));
+        assertTrue(index.mayContain("com.c.Gamma"));
+    }
+}
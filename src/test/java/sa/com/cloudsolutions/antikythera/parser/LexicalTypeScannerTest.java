@@ -0,0 +1,119 @@
+package sa.com.cloudsolutions.antikythera.parser;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+import sa.com.cloudsolutions.antikythera.evaluator.AntikytheraRunTime;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LexicalTypeScannerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        AntikytheraRunTime.resetAll();
+        Settings.loadConfigMap(new File("src/test/resources/generator-field-tests.yml"));
+        AbstractCompiler.reset();
+    }
+
+    @Test
+    void findsTopLevelAndNestedTypes() {
+        List<LexicalTypeScanner.ScannedType> types = LexicalTypeScanner.scan("""
+                package com.example;
+
+                import java.util.List;
+
+                @org.springframework.stereotype.Service
+                public class Outer<T extends Comparable<T>> extends Base implements java.io.Serializable, Runnable {
+                    private Class<?> k = Outer.class;
+                    // class Commented {}
+                    private String s = "class InString {}";
+
+                    public void run() {
+                        class Local {}
+                        Runnable r = new Runnable() {
+                            public void run() {}
+                        };
+                    }
+
+                    interface Inner extends Marker {}
+                    enum Kind { A { void f() {} }, B }
+                    record Point(int x, int y) implements Shape {}
+                    @interface Tag {}
+                }
+                """);
+
+        assertEquals(List.of("com.example.Outer", "com.example.Outer.Inner", "com.example.Outer.Kind",
+                        "com.example.Outer.Point", "com.example.Outer.Tag"),
+                types.stream().map(LexicalTypeScanner.ScannedType::name).toList());
+
+        LexicalTypeScanner.ScannedType outer = types.getFirst();
+        assertFalse(outer.isInterface());
+        assertTrue(outer.annotations().contains("Service"));
+        assertTrue(outer.annotations().contains("org.springframework.stereotype.Service"));
+        assertEquals(Set.of("Base", "Serializable", "Runnable"), outer.supertypes());
+
+        assertTrue(types.get(1).isInterface());
+        assertEquals(Set.of("Marker"), types.get(1).supertypes());
+        assertEquals(Set.of("Shape"), types.get(3).supertypes());
+        assertFalse(types.get(4).isInterface());
+    }
+
+    @Test
+    void lazyCompilationParsesOnDemand() throws IOException {
+        Path sources = tempDir.resolve("src");
+        Path pkg = Files.createDirectories(sources.resolve("com/example"));
+        Files.writeString(pkg.resolve("Animal.java"), """
+                package com.example;
+                public interface Animal {
+                    String sound();
+                }
+                """);
+        Files.writeString(pkg.resolve("Pet.java"), """
+                package com.example;
+                public interface Pet extends Animal {
+                }
+                """);
+        Files.writeString(pkg.resolve("Dog.java"), """
+                package com.example;
+                import org.springframework.stereotype.Service;
+                @Service
+                public class Dog implements Pet {
+                    public String sound() { return "woof"; }
+                }
+                """);
+
+        Settings.loadConfigMap(new File("src/test/resources/generator.yml"));
+        Settings.setProperty(Settings.BASE_PATH, sources.toString());
+        Settings.setProperty(Settings.LAZY_COMPILATION, true);
+        AbstractCompiler.reset();
+        AntikytheraRunTime.resetAll();
+
+        AbstractCompiler.preProcess();
+
+        assertTrue(AntikytheraRunTime.getResolvedCompilationUnits().isEmpty());
+        assertTrue(AntikytheraRunTime.isDeferred("com.example.Dog"));
+        assertTrue(AntikytheraRunTime.isServiceClass("com.example.Dog"));
+        assertTrue(AntikytheraRunTime.isInterface("com.example.Pet"));
+
+        assertEquals("Animal", AntikytheraRunTime.getTypeDeclaration("com.example.Animal")
+                .orElseThrow().getNameAsString());
+        assertFalse(AntikytheraRunTime.isDeferred("com.example.Animal"));
+        assertTrue(AntikytheraRunTime.isDeferred("com.example.Dog"));
+
+        assertTrue(AntikytheraRunTime.findImplementations("com.example.Animal").contains("com.example.Dog"));
+        assertTrue(AntikytheraRunTime.findImplementations("com.example.Pet").contains("com.example.Dog"));
+        assertFalse(AntikytheraRunTime.isDeferred("com.example.Dog"));
+    }
+}
@@ -6,7 +6,11 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
 import java.io.FileWriter;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -137,4 +141,73 @@ class MavenHelperTest {
         helper.readPomFile(pomFile);
         assertEquals(21, helper.getJavaVersion());
     }
+
+    private static String pom(String artifactId, String version, String... dependencies) {
+        StringBuilder b = new StringBuilder();
+        b.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n");
+        b.append("  <modelVersion>4.0.0</modelVersion>\n");
+        b.append("  <groupId>com.example</groupId>\n");
+        b.append("  <artifactId>").append(artifactId).append("</artifactId>\n");
+        b.append("  <version>").append(version).append("</version>\n");
+        b.append("  <dependencies>\n");
+        for (String dependency : dependencies) {
+            String[] parts = dependency.split(":");
+            b.append("    <dependency><groupId>com.example</groupId><artifactId>").append(parts[0]).append("</artifactId>");
+            if (parts.length > 1) {
+                b.append("<version>").append(parts[1]).append("</version>");
+            }
+            b.append("</dependency>\n");
+        }
+        b.append("  </dependencies>\n");
+        b.append("</project>\n");
+        return b.toString();
+    }
+
+    private static void install(Path m2, String artifactId, String version, String... dependencies) throws Exception {
+        Path folder = Files.createDirectories(m2.resolve("com/example").resolve(artifactId).resolve(version));
+        Files.write(folder.resolve(artifactId + "-" + version + ".jar"), new byte[0]);
+        Files.writeString(folder.resolve(artifactId + "-" + version + ".pom"), pom(artifactId, version, dependencies));
+    }
+
+    @Test
+    void testResolvePrefersTheNearestVersion(@TempDir Path tempDir) throws Exception {
+        Path m2 = tempDir.resolve("m2");
+        install(m2, "a", "1.0", "c:1.0", "b:1.0");
+        install(m2, "b", "1.0");
+        install(m2, "b", "2.0", "c:2.0");
+        install(m2, "c", "1.0");
+        install(m2, "c", "2.0");
+
+        Path pomFile = tempDir.resolve("pom.xml");
+        Files.writeString(pomFile, pom("root", "1.0", "a:1.0", "b"));
+        MavenHelper helper = new MavenHelper();
+        helper.readPomFile(pomFile);
+
+        Map<String, MavenHelper.Artifact> resolved = MavenHelper.resolve(
+                helper.getPomModel(), m2.toString(), new LinkedHashMap<>());
+        assertEquals(List.of("com.example:a", "com.example:b", "com.example:c"), List.copyOf(resolved.keySet()));
+        assertEquals("1.0", resolved.get("com.example:a").version);
+        assertEquals("2.0", resolved.get("com.example:b").version);
+        assertEquals("1.0", resolved.get("com.example:c").version);
+    }
+
+    @Test
+    void testClasspathCache(@TempDir Path tempDir) throws Exception {
+        Path m2 = tempDir.resolve("m2");
+        install(m2, "a", "1.0");
+        Path jar = m2.resolve("com/example/a/1.0/a-1.0.jar");
+        Map<String, MavenHelper.Artifact> resolved = new LinkedHashMap<>();
+        resolved.put("com.example:a", new MavenHelper.Artifact("a", "1.0", jar.toString()));
+
+        Path cache = tempDir.resolve(MavenHelper.CLASSPATH_CACHE);
+        MavenHelper.writeClasspathCache(cache, "hash", m2.toString(), resolved);
+
+        Map<String, MavenHelper.Artifact> loaded = MavenHelper.readClasspathCache(cache, "hash", m2.toString());
+        assertNotNull(loaded);
+        assertEquals(jar.toString(), loaded.get("com.example:a").jarFile);
+
+        assertNull(MavenHelper.readClasspathCache(cache, "other", m2.toString()));
+        Files.delete(jar);
+        assertNull(MavenHelper.readClasspathCache(cache, "hash", m2.toString()));
+    }
 }
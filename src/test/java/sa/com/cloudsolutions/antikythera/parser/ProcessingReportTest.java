@@ -0,0 +1,58 @@
+package sa.com.cloudsolutions.antikythera.parser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessingReportTest {
+    private final ProcessingReport report = ProcessingReport.getInstance();
+
+    @BeforeEach
+    void setUp() {
+        report.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        report.reset();
+    }
+
+    @Test
+    void mergeCombinesClassesAndStatistics() throws IOException {
+        report.beginClass("a.Foo");
+        report.beginMethod("run()");
+        report.incrementCurrentMethodTests();
+        String first = report.toJson();
+
+        report.reset();
+        report.beginClass("a.Bar");
+        report.beginMethod("go()");
+        report.recordCurrentMethodFailed("boom");
+        report.recordClassSkipped("a.Baz", "entity");
+        String second = report.toJson()
+                .replaceFirst("\"hits\" : 0", "\"hits\" : 7");
+
+        report.reset();
+        report.merge(first);
+        report.merge(second);
+
+        JsonNode root = new ObjectMapper().readTree(report.toJson());
+        assertEquals(2, root.get("mergedReports").asInt());
+        assertEquals(3, root.get("classes").size());
+        assertEquals("a.Foo", root.get("classes").get(0).get("name").asText());
+        assertEquals(1, root.get("classes").get(0).get("methods").get(0).get("testsGenerated").asInt());
+        assertEquals("boom", root.get("classes").get(1).get("methods").get(0).get("reason").asText());
+
+        JsonNode summary = root.get("summary");
+        assertEquals(1, summary.get("methodsProcessed").asInt());
+        assertEquals(1, summary.get("methodsFailed").asInt());
+        assertEquals(1, summary.get("totalTestsGenerated").asInt());
+        assertEquals(7, root.get("typeResolutionCache").get("hits").asLong());
+    }
+}
@@ -0,0 +1,72 @@
+package sa.com.cloudsolutions.antikythera.parser;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the heap retained by the compilation units of this project's own sources when they
+ * are parsed as usual, with the lexical preserving printer and in the slim mode. The numbers are
+ * only printed: they are taken after asking for a garbage collection, which the JVM is free to
+ * ignore or to finish late.
+ *
+ * Only runs in the benchmark profile: {@code mvn test -Pbenchmark}
+ */
+@Tag("benchmark")
+class SlimAstHeapBenchmark {
+
+    @Test
+    void compareRetainedHeap() throws IOException, InterruptedException {
+        List<Path> sources;
+        try (Stream<Path> files = Files.walk(Paths.get("src/main/java"))) {
+            sources = files.filter(p -> p.toString().endsWith(".java")).toList();
+        }
+
+        long full = retainedHeap(sources, cu -> {});
+        long lexical = retainedHeap(sources, LexicalPreservingPrinter::setup);
+        long slim = retainedHeap(sources, AbstractCompiler::slim);
+
+        System.out.printf("retained heap: full %d KB, lexical preservation %d KB, slim %d KB%n",
+                full / 1024, lexical / 1024, slim / 1024);
+    }
+
+    private static long retainedHeap(List<Path> sources, Consumer<CompilationUnit> after)
+            throws IOException, InterruptedException {
+        long before = usedHeap();
+        JavaParser parser = new JavaParser(new ParserConfiguration()
+                .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21));
+        List<CompilationUnit> units = new ArrayList<>();
+        for (Path source : sources) {
+            parser.parse(source).getResult().ifPresent(cu -> {
+                after.accept(cu);
+                units.add(cu);
+            });
+        }
+        long retained = usedHeap() - before;
+        assertTrue(units.size() > 0);
+        return retained;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
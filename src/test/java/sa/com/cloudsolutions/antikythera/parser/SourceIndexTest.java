@@ -0,0 +1,132 @@
+package sa.com.cloudsolutions.antikythera.parser;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sa.com.cloudsolutions.antikythera.configuration.Settings;
+import sa.com.cloudsolutions.antikythera.evaluator.AntikytheraRunTime;
+import sa.com.cloudsolutions.antikythera.generator.TypeWrapper;
+import sa.com.cloudsolutions.antikythera.parser.converter.EntityMappingResolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceIndexTest {
+    private static final String ANIMAL = "com.example.Animal";
+    private static final String DOG = "com.example.Dog";
+
+    @TempDir
+    Path tempDir;
+    Path sources;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        sources = tempDir.resolve("src");
+        Path pkg = Files.createDirectories(sources.resolve("com/example"));
+        Files.writeString(pkg.resolve("Animal.java"), """
+                package com.example;
+                public interface Animal {
+                    String sound();
+                }
+                """);
+        Files.writeString(pkg.resolve("Dog.java"), """
+                package com.example;
+                import org.springframework.stereotype.Service;
+                @Service
+                public class Dog implements Animal {
+                    public String sound() { return "woof"; }
+                }
+                """);
+
+        Settings.loadConfigMap(new File("src/test/resources/generator.yml"));
+        Settings.setProperty(Settings.BASE_PATH, sources.toString());
+        Settings.setProperty(Settings.OUTPUT_PATH, tempDir.resolve("out").toString());
+        Settings.setProperty(Settings.SOURCE_INDEX, true);
+        AbstractCompiler.reset();
+        AntikytheraRunTime.resetAll();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        AntikytheraRunTime.resetAll();
+        Settings.loadConfigMap(new File("src/test/resources/generator-field-tests.yml"));
+        AbstractCompiler.reset();
+    }
+
+    @Test
+    void unchangedFilesAreDeferred() throws IOException {
+        AbstractCompiler.preProcess();
+        assertTrue(Files.exists(tempDir.resolve("out").resolve(SourceIndex.INDEX_FOLDER).resolve(SourceIndex.INDEX_FILE)));
+        assertFalse(AntikytheraRunTime.isDeferred(DOG));
+        assertTrue(AntikytheraRunTime.findImplementations(ANIMAL).contains(DOG));
+
+        AntikytheraRunTime.resetAll();
+        AbstractCompiler.preProcess();
+
+        assertTrue(AntikytheraRunTime.isDeferred(DOG));
+        assertTrue(AntikytheraRunTime.isServiceClass(DOG));
+        assertTrue(AntikytheraRunTime.isInterface(ANIMAL));
+        assertTrue(AntikytheraRunTime.findImplementations(ANIMAL).contains(DOG));
+
+        assertNotNull(AntikytheraRunTime.getCompilationUnit(DOG));
+        assertFalse(AntikytheraRunTime.isDeferred(DOG));
+        assertTrue(AntikytheraRunTime.getTypeDeclaration(DOG).isPresent());
+    }
+
+    @Test
+    void typeDeclarationIsLoadedOnDemand() throws IOException {
+        AbstractCompiler.preProcess();
+        AntikytheraRunTime.resetAll();
+        AbstractCompiler.preProcess();
+
+        assertTrue(AntikytheraRunTime.isDeferred(ANIMAL));
+        assertEquals("Animal", AntikytheraRunTime.getTypeDeclaration(ANIMAL).orElseThrow().getNameAsString());
+        assertFalse(AntikytheraRunTime.isDeferred(ANIMAL));
+    }
+
+    @Test
+    void deferredTypeKeepsItsNameWhenItCannotBeLoaded() {
+        TypeWrapper wrapper = TypeWrapper.deferred("com.example.Missing");
+        assertNull(wrapper.getType());
+        assertEquals("com.example.Missing", wrapper.getFullyQualifiedName());
+        assertTrue(wrapper.isDeferred());
+    }
+
+    @Test
+    void entityMappingDoesNotParseDeferredTypes() throws IOException {
+        AbstractCompiler.preProcess();
+        AntikytheraRunTime.resetAll();
+        AbstractCompiler.preProcess();
+
+        EntityMappingResolver.reset();
+        EntityMappingResolver.build();
+        assertTrue(AntikytheraRunTime.isDeferred(ANIMAL));
+        assertTrue(AntikytheraRunTime.isDeferred(DOG));
+        assertTrue(EntityMappingResolver.getFullNamesForEntity("Dog").contains(DOG));
+        EntityMappingResolver.reset();
+    }
+
+    @Test
+    void dependentsOfChangedFilesAreParsed() throws IOException {
+        AbstractCompiler.preProcess();
+        Files.writeString(sources.resolve("com/example/Animal.java"), """
+                package com.example;
+                public interface Animal {
+                    String sound();
+                    default int legs() { return 4; }
+                }
+                """);
+
+        AntikytheraRunTime.resetAll();
+        AbstractCompiler.preProcess();
+
+        assertFalse(AntikytheraRunTime.isDeferred(ANIMAL));
+        assertFalse(AntikytheraRunTime.isDeferred(DOG));
+        assertTrue(AntikytheraRunTime.findImplementations(ANIMAL).contains(DOG));
+    }
+}